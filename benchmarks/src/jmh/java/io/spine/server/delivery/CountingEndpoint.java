@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import io.spine.server.entity.Repository;
+import io.spine.server.type.EventEnvelope;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An event endpoint which does nothing but counts the dispatched messages and duplicates.
+ *
+ * <p>Allows to measure the cost of the {@code Delivery} routines separately from the cost
+ * of the entity loading and the signal handling.
+ */
+final class CountingEndpoint implements MessageEndpoint<String, EventEnvelope> {
+
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+
+    @Override
+    public void dispatchTo(String targetId) {
+        dispatched.incrementAndGet();
+    }
+
+    @Override
+    public void onDuplicate(String target, EventEnvelope envelope) {
+        duplicates.incrementAndGet();
+    }
+
+    /**
+     * Always throws {@code UnsupportedOperationException}, as there are no repositories
+     * behind the benchmarked targets.
+     */
+    @Override
+    public Repository<String, ?> repository() {
+        throw new UnsupportedOperationException(
+                "The benchmark endpoint is not backed by a repository."
+        );
+    }
+
+    /**
+     * Returns the total number of the messages dispatched to this endpoint.
+     */
+    long dispatched() {
+        return dispatched.get();
+    }
+
+    /**
+     * Returns the total number of the duplicates reported to this endpoint.
+     */
+    long duplicates() {
+        return duplicates.get();
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.StringValue;
+import io.spine.base.Environment;
+import io.spine.server.ServerEnvironment;
+import io.spine.server.delivery.event.ShardProcessingRequested;
+import io.spine.server.storage.memory.InMemoryInboxStorage;
+import io.spine.server.type.EventEnvelope;
+import io.spine.testing.server.TestEventFactory;
+import io.spine.type.TypeUrl;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.spine.server.delivery.DeliveryStrategy.newIndex;
+import static io.spine.server.delivery.InboxLabel.UPDATE_SUBSCRIBER;
+import static java.lang.Math.round;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+/**
+ * Measures the {@code Delivery} pipeline end to end: {@code InboxPart.store()}, then
+ * the {@code Conveyor} travelling through the catch-up, live delivery and cleanup stations,
+ * down to the grouped dispatching to the targets.
+ *
+ * <p>The messages are kept in an {@link InMemoryInboxStorage}.
+ *
+ * <p>Each invocation puts {@link #MESSAGES} {@code InboxMessage}s through the pipeline and is
+ * accounted as the same number of operations. Therefore, the reported throughput, the sampled
+ * latency percentiles (including p99) and the {@code gc.alloc.rate.norm} value of the {@code gc}
+ * profiler are all calculated per a single delivered {@code InboxMessage}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(MICROSECONDS)
+public class DeliveryBenchmark {
+
+    /**
+     * The number of {@code InboxMessage}s passed through the pipeline per invocation.
+     */
+    static final int MESSAGES = 1_000;
+
+    /**
+     * Delivers the messages previously written to the inbox.
+     *
+     * @return the number of delivered messages, to prevent the dead code elimination
+     */
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public int deliver(FilledInbox inbox) {
+        return inbox.pipeline()
+                    .deliverAll();
+    }
+
+    /**
+     * Stores the messages to the inbox and delivers them.
+     *
+     * @return the number of delivered messages, to prevent the dead code elimination
+     */
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public int storeAndDeliver(PendingSignals signals) {
+        signals.storeAll();
+        return signals.pipeline()
+                      .deliverAll();
+    }
+
+    /**
+     * The {@code Delivery} configured according to the benchmark parameters along with
+     * the {@code Inbox} of the targets.
+     */
+    @State(Scope.Benchmark)
+    public static class Pipeline {
+
+        private static final TypeUrl TARGET_TYPE = TypeUrl.of(StringValue.class);
+
+        /**
+         * The number of shards to split the targets into.
+         */
+        @Param({"1", "4", "16"})
+        private int shardCount;
+
+        /**
+         * The maximum number of messages to deliver within a {@code DeliveryStage}.
+         */
+        @Param({"50", "500"})
+        private int pageSize;
+
+        /**
+         * The number of targets to which each of the events is routed.
+         */
+        @Param({"1", "10", "100"})
+        private int fanOut;
+
+        /**
+         * The share of the messages, which are duplicates of the other messages in the inbox.
+         */
+        @Param({"0.0", "0.1"})
+        private double duplicateRatio;
+
+        private final TestEventFactory eventFactory =
+                TestEventFactory.newInstance(DeliveryBenchmark.class);
+        private final CountingEndpoint endpoint = new CountingEndpoint();
+
+        private @MonotonicNonNull Delivery delivery;
+        private @MonotonicNonNull Inbox<String> inbox;
+        private @MonotonicNonNull ImmutableList<String> targets;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            delivery = Delivery.newBuilder()
+                               .setStrategy(UniformAcrossAllShards.forNumber(shardCount))
+                               .setPageSize(pageSize)
+                               .setInboxStorage(new InMemoryInboxStorage(false))
+                               .build();
+            ServerEnvironment.when(Environment.instance()
+                                              .type())
+                             .use(delivery);
+            inbox = delivery.<String>newInbox(TARGET_TYPE)
+                            .addEventEndpoint(UPDATE_SUBSCRIBER, e -> endpoint)
+                            .build();
+            targets = IntStream.range(0, fanOut)
+                               .mapToObj(i -> "target-" + i)
+                               .collect(toImmutableList());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            checkState(endpoint.dispatched() > 0,
+                       "No messages were dispatched during the trial.");
+            checkState(duplicateRatio <= 0 || endpoint.duplicates() > 0,
+                       "No duplicates were detected during the trial.");
+            inbox.unregister();
+            ServerEnvironment.instance()
+                             .reset();
+        }
+
+        /**
+         * Generates the signals for a single invocation.
+         *
+         * <p>Each new event is routed to {@link #fanOut} targets. The tail of the workload,
+         * which size is defined by {@link #duplicateRatio}, re-sends the already routed events
+         * to the same targets, so that the delivery detects them as duplicates.
+         *
+         * <p>The events are generated anew for each invocation. Otherwise, the messages would
+         * be treated as duplicates of those delivered in the previous invocations.
+         */
+        ImmutableList<RoutedEvent> newWorkload() {
+            int unique = (int) round(MESSAGES * (1 - duplicateRatio));
+            int eventCount = (unique + fanOut - 1) / fanOut;
+            List<EventEnvelope> events = new ArrayList<>(eventCount);
+            for (int i = 0; i < eventCount; i++) {
+                events.add(newEvent());
+            }
+            List<RoutedEvent> routed = new ArrayList<>(MESSAGES);
+            for (int i = 0; i < unique; i++) {
+                routed.add(new RoutedEvent(events.get(i / fanOut), targets.get(i % fanOut)));
+            }
+            for (int i = unique; i < MESSAGES; i++) {
+                routed.add(routed.get((i - unique) % unique));
+            }
+            return ImmutableList.copyOf(routed);
+        }
+
+        private EventEnvelope newEvent() {
+            ShardProcessingRequested message = ShardProcessingRequested
+                    .newBuilder()
+                    .setId(newIndex(0, 1))
+                    .vBuild();
+            return EventEnvelope.of(eventFactory.createEvent(message));
+        }
+
+        /**
+         * Sends the event to the inbox of its target.
+         */
+        void store(RoutedEvent signal) {
+            inbox.send(signal.event)
+                 .toSubscriber(signal.target);
+        }
+
+        /**
+         * Delivers the messages from all the shards one by one.
+         *
+         * @return the total number of delivered messages
+         */
+        int deliverAll() {
+            int delivered = 0;
+            for (int index = 0; index < shardCount; index++) {
+                Optional<DeliveryStats> stats =
+                        delivery.deliverMessagesFrom(newIndex(index, shardCount));
+                if (stats.isPresent()) {
+                    delivered += stats.get()
+                                      .deliveredCount();
+                }
+            }
+            return delivered;
+        }
+    }
+
+    /**
+     * The inbox filled with the messages prior to each invocation.
+     */
+    @State(Scope.Thread)
+    public static class FilledInbox {
+
+        private @MonotonicNonNull Pipeline pipeline;
+
+        @Setup(Level.Invocation)
+        public void fill(Pipeline pipeline) {
+            this.pipeline = pipeline;
+            for (RoutedEvent signal : pipeline.newWorkload()) {
+                pipeline.store(signal);
+            }
+        }
+
+        Pipeline pipeline() {
+            return pipeline;
+        }
+    }
+
+    /**
+     * The signals generated prior to each invocation, which are yet to be stored to the inbox.
+     */
+    @State(Scope.Thread)
+    public static class PendingSignals {
+
+        private @MonotonicNonNull Pipeline pipeline;
+        private @MonotonicNonNull ImmutableList<RoutedEvent> workload;
+
+        @Setup(Level.Invocation)
+        public void prepare(Pipeline pipeline) {
+            this.pipeline = pipeline;
+            this.workload = pipeline.newWorkload();
+        }
+
+        void storeAll() {
+            for (RoutedEvent signal : workload) {
+                pipeline.store(signal);
+            }
+        }
+
+        Pipeline pipeline() {
+            return pipeline;
+        }
+    }
+
+    /**
+     * An event along with the ID of the target to which it is routed.
+     */
+    private static final class RoutedEvent {
+
+        private final EventEnvelope event;
+        private final String target;
+
+        private RoutedEvent(EventEnvelope event, String target) {
+            this.event = event;
+            this.target = target;
+        }
+    }
+}
@@ -102,6 +102,8 @@ object Versions {
     val ouathJwt         = "3.11.0"
     val bouncyCastlePkcs = "1.66"
     val assertK          = "0.23"
+    val jmh              = "1.26"
+    val jmhPlugin        = "0.5.2"
 
     /**
      * Version of the SLF4J library.
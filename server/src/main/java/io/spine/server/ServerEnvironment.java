@@ -45,6 +45,7 @@ import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static io.spine.server.storage.system.SystemAwareStorageFactory.wrap;
+import static io.spine.util.Exceptions.illegalStateWithCauseOf;
 import static io.spine.util.Exceptions.newIllegalStateException;
 
 /**
@@ -405,6 +406,7 @@ public final class ServerEnvironment implements AutoCloseable {
      */
     @VisibleForTesting
     public void reset() {
+        closeDeliveries();
         transportFactory.reset();
         tracerFactory.reset();
         storageFactory.reset();
@@ -422,6 +424,18 @@ public final class ServerEnvironment implements AutoCloseable {
         tracerFactory.apply(AutoCloseable::close);
         transportFactory.apply(AutoCloseable::close);
         storageFactory.apply(AutoCloseable::close);
+        delivery.apply(Delivery::close);
+    }
+
+    /**
+     * Closes the configured {@code Delivery} instances before they are forgotten.
+     */
+    private void closeDeliveries() {
+        try {
+            delivery.apply(Delivery::close);
+        } catch (Exception e) {
+            throw illegalStateWithCauseOf(e);
+        }
     }
 
     /**
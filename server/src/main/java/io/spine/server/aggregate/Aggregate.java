@@ -414,6 +414,16 @@ public abstract class Aggregate<I,
         super.clearRecentHistory();
     }
 
+    /**
+     * Forgets the events covered by the written snapshot of the given version.
+     *
+     * <p>The events up to the version are removed from the recent history. The remaining ones
+     * are counted as the events stored after the last snapshot.
+     */
+    final void onSnapshotWritten(Version version) {
+        eventCountAfterLastSnapshot = clearRecentHistoryUpTo(version);
+    }
+
     /**
      * {@inheritDoc}
      *
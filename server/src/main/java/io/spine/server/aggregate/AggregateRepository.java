@@ -23,11 +23,13 @@ package io.spine.server.aggregate;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.annotations.OverridingMethodsMustInvokeSuper;
+import com.google.protobuf.Duration;
 import io.spine.annotation.Internal;
 import io.spine.base.EventMessage;
 import io.spine.core.CommandId;
 import io.spine.core.Event;
 import io.spine.core.EventContext;
+import io.spine.core.Version;
 import io.spine.server.BoundedContext;
 import io.spine.server.ServerEnvironment;
 import io.spine.server.aggregate.model.AggregateClass;
@@ -56,9 +58,13 @@ import io.spine.system.server.Mirror;
 import io.spine.system.server.MirrorRepository;
 import io.spine.system.server.SystemSettings;
 import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.Iterator;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -110,6 +116,27 @@ public abstract class AggregateRepository<I, A extends Aggregate<I, ?, ?>>
     /** The number of events to store between snapshots. */
     private int snapshotTrigger = DEFAULT_SNAPSHOT_TRIGGER;
 
+    /** The executor writing the snapshots in the background, if configured. */
+    private @Nullable Executor snapshotExecutor;
+
+    /** The maximum number of the snapshots waiting to be written in the background. */
+    private int maxPendingSnapshots;
+
+    /** Writes the snapshots in the background, if the snapshot executor is configured. */
+    private volatile @MonotonicNonNull Snapshotter<I> snapshotter;
+
+    /** The scheduler running the history compaction, if configured. */
+    private @Nullable ScheduledExecutorService compactionScheduler;
+
+    /** The time between the history compaction runs. */
+    private @MonotonicNonNull Duration compactionPeriod;
+
+    /** The index of the snapshot behind which the history is truncated. */
+    private int compactionSnapshotIndex;
+
+    /** Truncates the history in the background, if the compaction is configured. */
+    private @MonotonicNonNull HistoryCompaction<I> compaction;
+
     /** Creates a new instance. */
     protected AggregateRepository() {
         super();
@@ -154,6 +181,7 @@ public abstract class AggregateRepository<I, A extends Aggregate<I, ?, ?>>
         initCache(context.isMultitenant());
         initInbox();
         initMirror();
+        initCompaction(context);
     }
 
     @Override
@@ -162,7 +190,27 @@ public abstract class AggregateRepository<I, A extends Aggregate<I, ?, ?>>
     }
 
     private void initCache(boolean multitenant) {
-        cache = new RepositoryCache<>(multitenant, this::doLoadOrCreate, this::doStore);
+        cache = new RepositoryCache<>(multitenant, this::doLoadOrCreate, this::doStore,
+                                      newEntityCache(this::storedVersion));
+    }
+
+    /**
+     * Reads the version of the aggregate from its newest stored event or snapshot.
+     */
+    private Optional<Version> storedVersion(I id) {
+        AggregateReadRequest<I> request = new AggregateReadRequest<>(id, 1);
+        Iterator<AggregateEventRecord> newestFirst = aggregateStorage().historyBackward(request);
+        if (!newestFirst.hasNext()) {
+            return Optional.empty();
+        }
+        AggregateEventRecord newest = newestFirst.next();
+        Version version = newest.hasSnapshot()
+                          ? newest.getSnapshot()
+                                  .getVersion()
+                          : newest.getEvent()
+                                  .context()
+                                  .getVersion();
+        return Optional.of(version);
     }
 
     /**
@@ -480,6 +528,138 @@ public abstract class AggregateRepository<I, A extends Aggregate<I, ?, ?>>
         this.snapshotTrigger = snapshotTrigger;
     }
 
+    /**
+     * Makes the repository write the aggregate snapshots in the background.
+     *
+     * <p>By default, a snapshot is written along with the events of the command, which makes
+     * the aggregate reach the {@linkplain #snapshotTrigger() snapshot trigger}. With this
+     * setting, the command only passes the aggregate state to the given executor, which then
+     * builds and writes the snapshot.
+     *
+     * <p>If a newer state of the same aggregate arrives before the snapshot is written, only
+     * the newer one is written. If more than {@code maxPending} snapshots are waiting to be
+     * written, the new ones are dropped, and the aggregates load a longer history until their
+     * next snapshots.
+     *
+     * <p>Should be called before the repository is {@linkplain #registerWith(BoundedContext)
+     * registered}.
+     *
+     * @param executor
+     *         the executor to write the snapshots with
+     * @param maxPending
+     *         the maximum number of the snapshots waiting to be written
+     * @see #snapshotStats()
+     */
+    protected void setSnapshotExecutor(Executor executor, int maxPending) {
+        checkNotNull(executor);
+        checkArgument(maxPending > 0);
+        this.snapshotExecutor = executor;
+        this.maxPendingSnapshots = maxPending;
+    }
+
+    /**
+     * Obtains the statistics on the snapshots written in the background.
+     *
+     * @return the statistics, or {@code Optional.empty()} if the snapshots are written
+     *         along with the events
+     * @see #setSnapshotExecutor(Executor, int)
+     */
+    public Optional<SnapshotStats> snapshotStats() {
+        return Optional.ofNullable(snapshotter())
+                       .map(Snapshotter::stats);
+    }
+
+    /**
+     * Obtains the snapshotter writing the snapshots in the background.
+     *
+     * @return the snapshotter or {@code null} if the snapshots are written along with
+     *         the events
+     */
+    @Nullable Snapshotter<I> snapshotter() {
+        Executor executor = snapshotExecutor;
+        if (executor == null) {
+            return null;
+        }
+        Snapshotter<I> result = snapshotter;
+        if (result == null) {
+            synchronized (this) {
+                result = snapshotter;
+                if (result == null) {
+                    result = new Snapshotter<>(aggregateStorage(), executor,
+                                               maxPendingSnapshots, context().isMultitenant());
+                    snapshotter = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Makes the repository truncate the aggregate history in the background.
+     *
+     * <p>By default, the history of the aggregates is kept in full. With this setting, the given
+     * scheduler periodically drops the records older than the {@code snapshotIndex}-th snapshot
+     * of each aggregate, counting from the newest snapshot, for each tenant of the context.
+     * The next run starts the given period after the previous one is completed.
+     *
+     * <p>Within a run, the aggregates are truncated in batches of a bounded size with a pause
+     * after each batch, so that the run does not hold the storage busy for long.
+     *
+     * <p>Should be called before the repository is {@linkplain #registerWith(BoundedContext)
+     * registered}. The compaction is stopped when the repository is {@linkplain #close() closed}.
+     *
+     * @param scheduler
+     *         the scheduler to run the compaction with
+     * @param period
+     *         the time between the compaction runs
+     * @param snapshotIndex
+     *         the index of the snapshot behind which the history is truncated,
+     *         {@code 0} standing for the newest snapshot
+     * @see AggregateStorage#truncateOlderThan(Object, int)
+     * @see #compactionStats()
+     */
+    protected void setHistoryCompaction(ScheduledExecutorService scheduler,
+                                        Duration period,
+                                        int snapshotIndex) {
+        checkNotNull(scheduler);
+        checkNotNull(period);
+        checkArgument(period.getSeconds() > 0 || period.getNanos() > 0,
+                      "The compaction period must be positive.");
+        checkArgument(snapshotIndex >= 0);
+        checkState(compaction == null, "The history compaction is already started.");
+        this.compactionScheduler = scheduler;
+        this.compactionPeriod = period;
+        this.compactionSnapshotIndex = snapshotIndex;
+    }
+
+    /**
+     * Obtains the statistics on the history truncated in the background.
+     *
+     * @return the statistics, or {@code Optional.empty()} if the history compaction is not
+     *         configured
+     * @see #setHistoryCompaction(ScheduledExecutorService, Duration, int)
+     */
+    public Optional<CompactionStats> compactionStats() {
+        return Optional.ofNullable(compaction)
+                       .map(HistoryCompaction::stats);
+    }
+
+    /**
+     * Starts the history compaction, if it is configured.
+     */
+    private void initCompaction(BoundedContext context) {
+        ScheduledExecutorService scheduler = compactionScheduler;
+        if (scheduler == null) {
+            return;
+        }
+        compaction = new HistoryCompaction<>(aggregateStorage(),
+                                             () -> context.internalAccess()
+                                                          .tenantIndex()
+                                                          .all(),
+                                             compactionSnapshotIndex);
+        compaction.start(scheduler, checkNotNull(compactionPeriod));
+    }
+
     /**
      * Sets up entity state {@linkplain MirrorRepository mirroring} for the aggregates of this
      * repository.
@@ -652,6 +832,9 @@ public abstract class AggregateRepository<I, A extends Aggregate<I, ?, ?>>
     @OverridingMethodsMustInvokeSuper
     @Override
     public void close() {
+        if (compaction != null) {
+            compaction.stop();
+        }
         super.close();
         if (inbox != null) {
             inbox.unregister();
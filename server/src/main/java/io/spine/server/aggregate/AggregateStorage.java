@@ -42,6 +42,7 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -303,11 +304,47 @@ public abstract class AggregateStorage<I>
         truncate(snapshotIndex, date);
     }
 
+    /**
+     * Truncates the history of the aggregate with the given ID, dropping all its records which
+     * occur before its Nth snapshot.
+     *
+     * <p>The snapshot index is counted from the latest to earliest, with {@code 0} representing
+     * the latest snapshot.
+     *
+     * <p>The snapshot index higher than the overall snapshot count of the aggregate is allowed,
+     * the records remain intact in this case.
+     *
+     * @return the number of the dropped records, or {@code OptionalInt.empty()} if the storage
+     *         does not support truncating a single aggregate, in which case nothing is dropped
+     * @throws IllegalArgumentException
+     *         if the {@code snapshotIndex} is negative
+     */
+    @Internal
+    public OptionalInt truncateOlderThan(I id, int snapshotIndex) {
+        checkNotNull(id);
+        checkArgument(snapshotIndex >= 0, TRUNCATE_ON_WRONG_SNAPSHOT_MESSAGE);
+        return truncate(id, snapshotIndex);
+    }
+
     /**
      * Drops all records which occur before the Nth snapshot for each entity.
      */
     protected abstract void truncate(int snapshotIndex);
 
+    /**
+     * Drops all records which occur before the Nth snapshot of the aggregate with the given ID.
+     *
+     * <p>Is not supported by default. The storages which are able to truncate a single
+     * aggregate should override this method.
+     *
+     * @return the number of the dropped records, or {@code OptionalInt.empty()} if
+     *         the operation is not supported
+     */
+    @SuppressWarnings("unused")  // This SPI method is designed for descendants.
+    protected OptionalInt truncate(I id, int snapshotIndex) {
+        return OptionalInt.empty();
+    }
+
     /**
      * Drops all records older than {@code date} but not newer than the Nth snapshot for each
      * entity.
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.aggregate;
+
+/**
+ * The statistics on the aggregate history truncated in the background.
+ *
+ * <p>The reclaimed records are counted as reported by the storage on each truncation.
+ * The records dropped by the storages, which are unable to report them, are not counted.
+ *
+ * @see AggregateRepository#setHistoryCompaction(java.util.concurrent.ScheduledExecutorService,
+ *         com.google.protobuf.Duration, int)
+ */
+public final class CompactionStats {
+
+    private final long runs;
+    private final long failed;
+    private final long records;
+
+    CompactionStats(long runs, long failed, long records) {
+        this.runs = runs;
+        this.failed = failed;
+        this.records = records;
+    }
+
+    /**
+     * Returns the number of the completed compaction runs.
+     */
+    public long runs() {
+        return runs;
+    }
+
+    /**
+     * Returns the number of the compaction runs which failed.
+     */
+    public long failed() {
+        return failed;
+    }
+
+    /**
+     * Returns the total number of the aggregate event records reclaimed.
+     */
+    public long recordsReclaimed() {
+        return records;
+    }
+}
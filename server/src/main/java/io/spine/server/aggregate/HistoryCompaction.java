@@ -0,0 +1,251 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.aggregate;
+
+import com.google.protobuf.Duration;
+import com.google.protobuf.util.Durations;
+import io.spine.core.TenantId;
+import io.spine.logging.Logging;
+import io.spine.server.tenant.TenantAwareRunner;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+
+import java.util.Iterator;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.protobuf.util.Durations.toMillis;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Periodically truncates the aggregate history behind the Nth snapshot.
+ *
+ * <p>Each run goes through all the known tenants and, for each of them, drops the records
+ * older than the {@code snapshotIndex}-th snapshot of each aggregate, counting from the newest
+ * snapshot.
+ *
+ * <p>The runs are rate-limited by their schedule: the next run starts the given period after
+ * the previous one is completed. Therefore, the runs never overlap, and the storage is left
+ * alone for at least the period between them, however long a single run takes.
+ *
+ * <p>Within a run, the aggregates are truncated one by one in batches of a bounded size,
+ * with a pause after each batch. In this way, a run does not load the storage with
+ * the truncation of all the aggregates at once.
+ *
+ * <p>The reclaimed records are counted as reported by the storage on each truncation.
+ * The storages, which cannot truncate a single aggregate, are truncated for the whole tenant
+ * at once, without the batches and the count of the reclaimed records.
+ *
+ * @param <I>
+ *         the type of aggregate IDs
+ */
+final class HistoryCompaction<I> implements Logging {
+
+    /**
+     * The default number of the aggregates truncated in a single batch.
+     */
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * The default pause after each batch.
+     */
+    private static final Duration DEFAULT_PAUSE = Durations.fromMillis(100);
+
+    private final AggregateStorage<I> storage;
+    private final Supplier<Set<TenantId>> tenants;
+    private final int snapshotIndex;
+    private final int batchSize;
+    private final Duration pause;
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong records = new AtomicLong();
+
+    private @MonotonicNonNull ScheduledFuture<?> schedule;
+    private volatile boolean stopped;
+
+    /**
+     * Creates a new compaction.
+     *
+     * @param storage
+     *         the storage to truncate
+     * @param tenants
+     *         supplies the tenants to go through on each run
+     * @param snapshotIndex
+     *         the index of the snapshot, counting from the newest, behind which
+     *         the history is truncated
+     */
+    HistoryCompaction(AggregateStorage<I> storage,
+                      Supplier<Set<TenantId>> tenants,
+                      int snapshotIndex) {
+        this(storage, tenants, snapshotIndex, DEFAULT_BATCH_SIZE, DEFAULT_PAUSE);
+    }
+
+    /**
+     * Creates a new compaction truncating the aggregates in batches of the given size.
+     *
+     * @param storage
+     *         the storage to truncate
+     * @param tenants
+     *         supplies the tenants to go through on each run
+     * @param snapshotIndex
+     *         the index of the snapshot, counting from the newest, behind which
+     *         the history is truncated
+     * @param batchSize
+     *         the number of the aggregates truncated in a single batch
+     * @param pause
+     *         the pause after each batch
+     */
+    HistoryCompaction(AggregateStorage<I> storage,
+                      Supplier<Set<TenantId>> tenants,
+                      int snapshotIndex,
+                      int batchSize,
+                      Duration pause) {
+        checkArgument(snapshotIndex >= 0);
+        checkArgument(batchSize > 0, "The batch size must be positive.");
+        this.storage = checkNotNull(storage);
+        this.tenants = checkNotNull(tenants);
+        this.snapshotIndex = snapshotIndex;
+        this.batchSize = batchSize;
+        this.pause = checkNotNull(pause);
+    }
+
+    /**
+     * Starts running the compaction with the given scheduler.
+     *
+     * @param scheduler
+     *         the scheduler to run the compaction with
+     * @param period
+     *         the time between the end of one run and the start of the next one
+     */
+    synchronized void start(ScheduledExecutorService scheduler, Duration period) {
+        checkNotNull(scheduler);
+        checkNotNull(period);
+        checkState(schedule == null, "The history compaction is already started.");
+        long millis = toMillis(period);
+        schedule = scheduler.scheduleWithFixedDelay(this::safeRun, millis, millis, MILLISECONDS);
+    }
+
+    /**
+     * Stops the scheduled runs.
+     *
+     * <p>The run in progress, if any, is stopped after the current batch.
+     */
+    synchronized void stop() {
+        stopped = true;
+        if (schedule != null) {
+            schedule.cancel(false);
+        }
+    }
+
+    /**
+     * Runs the compaction, logging the errors instead of propagating them.
+     *
+     * <p>An exception thrown out of the scheduled action would cancel all the subsequent runs.
+     */
+    private void safeRun() {
+        try {
+            run();
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            _error().withCause(e)
+                    .log("Unable to compact the history in `%s`.", storage);
+        }
+    }
+
+    /**
+     * Compacts the history of all the tenants once.
+     */
+    void run() {
+        for (TenantId tenant : tenants.get()) {
+            boolean completed = TenantAwareRunner.with(tenant)
+                                                 .evaluate(this::compactCurrentTenant);
+            if (!completed) {
+                return;
+            }
+        }
+        runs.incrementAndGet();
+    }
+
+    /**
+     * Truncates the aggregates of the current tenant batch by batch.
+     *
+     * <p>If the storage does not support truncating a single aggregate, the whole tenant is
+     * {@linkplain AggregateStorage#truncateOlderThan(int) truncated} at once. The records
+     * reclaimed in this way are not counted.
+     *
+     * @return {@code true} if all the aggregates are truncated, {@code false} if the run
+     *         has been stopped or interrupted
+     */
+    private boolean compactCurrentTenant() {
+        Iterator<I> ids = storage.index();
+        int inBatch = 0;
+        while (ids.hasNext()) {
+            if (inBatch == batchSize) {
+                if (!pause()) {
+                    return false;
+                }
+                inBatch = 0;
+            }
+            OptionalInt dropped = storage.truncateOlderThan(ids.next(), snapshotIndex);
+            if (!dropped.isPresent()) {
+                storage.truncateOlderThan(snapshotIndex);
+                return true;
+            }
+            records.addAndGet(dropped.getAsInt());
+            inBatch++;
+        }
+        return true;
+    }
+
+    /**
+     * Pauses the run after a batch.
+     *
+     * @return {@code true} if the run may go on, {@code false} if it has been stopped
+     *         or interrupted
+     */
+    private boolean pause() {
+        if (stopped) {
+            return false;
+        }
+        try {
+            MILLISECONDS.sleep(toMillis(pause));
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+            return false;
+        }
+        return !stopped;
+    }
+
+    /**
+     * Obtains the current statistics of the compaction.
+     */
+    CompactionStats stats() {
+        return new CompactionStats(runs.get(), failed.get(), records.get());
+    }
+}
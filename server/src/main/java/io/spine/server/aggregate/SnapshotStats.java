@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.aggregate;
+
+/**
+ * The statistics on the aggregate snapshots written in the background.
+ *
+ * @see AggregateRepository#setSnapshotExecutor(java.util.concurrent.Executor, int)
+ */
+public final class SnapshotStats {
+
+    private final int pending;
+    private final long written;
+    private final long coalesced;
+    private final long dropped;
+    private final long failed;
+    private final long writeNanos;
+
+    SnapshotStats(int pending,
+                  long written,
+                  long coalesced,
+                  long dropped,
+                  long failed,
+                  long writeNanos) {
+        this.pending = pending;
+        this.written = written;
+        this.coalesced = coalesced;
+        this.dropped = dropped;
+        this.failed = failed;
+        this.writeNanos = writeNanos;
+    }
+
+    /**
+     * Returns the number of the snapshots currently waiting to be written.
+     */
+    public int pending() {
+        return pending;
+    }
+
+    /**
+     * Returns the total number of the written snapshots.
+     */
+    public long written() {
+        return written;
+    }
+
+    /**
+     * Returns the total number of the snapshots replaced by the newer snapshots of the same
+     * aggregate before being written.
+     */
+    public long coalesced() {
+        return coalesced;
+    }
+
+    /**
+     * Returns the total number of the snapshots dropped, as too many snapshots were
+     * waiting to be written.
+     */
+    public long dropped() {
+        return dropped;
+    }
+
+    /**
+     * Returns the total number of the snapshots which failed to be written.
+     */
+    public long failed() {
+        return failed;
+    }
+
+    /**
+     * Returns the total time spent on building and writing the snapshots, in nanoseconds.
+     */
+    public long writeNanos() {
+        return writeNanos;
+    }
+}
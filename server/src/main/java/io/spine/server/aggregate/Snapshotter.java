@@ -0,0 +1,215 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.aggregate;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.Timestamp;
+import io.spine.base.EntityState;
+import io.spine.core.Version;
+import io.spine.logging.Logging;
+import io.spine.protobuf.AnyPacker;
+import io.spine.server.tenant.IdInTenant;
+import io.spine.server.tenant.TenantAwareRunner;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Maps.newConcurrentMap;
+import static io.spine.base.Time.currentTime;
+
+/**
+ * Writes the aggregate snapshots in the background.
+ *
+ * <p>When an aggregate reaches the {@linkplain AggregateRepository#snapshotTrigger() snapshot
+ * trigger}, its state is passed to the snapshotter instead of being packed and written
+ * to the storage along with the events. The snapshot is then built and written by the given
+ * executor, so the handling of the command which crossed the trigger does not pay for it.
+ *
+ * <p>The snapshots are throttled in two ways:
+ * <ol>
+ *     <li>If a snapshot of the same aggregate is still waiting to be written, the newer state
+ *     replaces it, and a single snapshot is written.
+ *     <li>If too many snapshots are waiting to be written, the new ones are dropped.
+ *     A dropped snapshot only makes the aggregate load a longer history until its next
+ *     snapshot.
+ * </ol>
+ *
+ * <p>The version of each written snapshot is kept until the next write of the aggregate
+ * {@linkplain #takeWritten(Object) takes} it. An aggregate kept in memory between the writes
+ * may then forget the events covered by the snapshot. At most {@value #MAX_WRITTEN_REPORTS}
+ * versions are kept. Once the limit is reached, the newly written snapshots are not reported,
+ * and the aggregates keep their history until their next snapshot is reported.
+ *
+ * <p>The snapshot is stamped with the time of the state being passed to the snapshotter.
+ * Therefore, it takes its place in the aggregate history before the events which happen
+ * after it, even if those are written earlier than the snapshot.
+ *
+ * @param <I>
+ *         the type of aggregate IDs
+ */
+final class Snapshotter<I> implements Logging {
+
+    private static final int MAX_WRITTEN_REPORTS = 100_000;
+
+    private final AggregateStorage<I> storage;
+    private final Executor executor;
+    private final int maxPending;
+    private final boolean multitenant;
+    private final Map<IdInTenant<I>, PendingSnapshot> pending = newConcurrentMap();
+    private final Map<IdInTenant<I>, Version> writtenVersions = newConcurrentMap();
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+
+    /**
+     * Creates a new snapshotter.
+     *
+     * @param storage
+     *         the storage to write the snapshots to
+     * @param executor
+     *         the executor to write the snapshots with
+     * @param maxPending
+     *         the maximum number of the snapshots waiting to be written
+     * @param multitenant
+     *         whether the storage is multitenant
+     */
+    Snapshotter(AggregateStorage<I> storage, Executor executor, int maxPending,
+                boolean multitenant) {
+        checkArgument(maxPending > 0, "The maximum number of pending snapshots must be positive.");
+        this.storage = checkNotNull(storage);
+        this.executor = checkNotNull(executor);
+        this.maxPending = maxPending;
+        this.multitenant = multitenant;
+    }
+
+    /**
+     * Schedules writing the snapshot of the aggregate with the given state and version.
+     *
+     * <p>Must be called in the context of the tenant, to which the aggregate belongs.
+     */
+    void schedule(I id, EntityState state, Version version) {
+        IdInTenant<I> key = IdInTenant.of(id, multitenant);
+        PendingSnapshot snapshot = new PendingSnapshot(state, version, currentTime());
+        PendingSnapshot replaced = pending.put(key, snapshot);
+        if (replaced != null) {
+            coalesced.incrementAndGet();
+            return;
+        }
+        if (pending.size() > maxPending) {
+            drop(key);
+            return;
+        }
+        try {
+            executor.execute(() -> write(key));
+        } catch (RejectedExecutionException e) {
+            drop(key);
+        }
+    }
+
+    private void drop(IdInTenant<I> key) {
+        pending.remove(key);
+        dropped.incrementAndGet();
+    }
+
+    private void write(IdInTenant<I> key) {
+        PendingSnapshot snapshot = pending.remove(key);
+        if (snapshot == null) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        try {
+            TenantAwareRunner.with(key.tenant())
+                             .run(() -> storage.writeSnapshot(key.value(), snapshot.build()));
+            report(key, snapshot.version);
+            writeNanos.addAndGet(System.nanoTime() - startedAt);
+            written.incrementAndGet();
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            _error().withCause(e)
+                    .log("Unable to write the snapshot of the aggregate `%s`.", key.value());
+        }
+    }
+
+    private void report(IdInTenant<I> key, Version version) {
+        if (writtenVersions.size() < MAX_WRITTEN_REPORTS || writtenVersions.containsKey(key)) {
+            writtenVersions.merge(key, version, Snapshotter::newer);
+        }
+    }
+
+    private static Version newer(Version first, Version second) {
+        return first.getNumber() >= second.getNumber() ? first : second;
+    }
+
+    /**
+     * Takes the version of the newest snapshot of the aggregate written since the previous
+     * call for the same aggregate.
+     *
+     * <p>Must be called in the context of the tenant, to which the aggregate belongs.
+     *
+     * @return the version of the written snapshot, or {@code Optional.empty()} if no snapshot
+     *         of the aggregate has been written since the previous call
+     */
+    Optional<Version> takeWritten(I id) {
+        IdInTenant<I> key = IdInTenant.of(id, multitenant);
+        return Optional.ofNullable(writtenVersions.remove(key));
+    }
+
+    /**
+     * Returns the statistics on the snapshots handled so far.
+     */
+    SnapshotStats stats() {
+        return new SnapshotStats(pending.size(), written.get(), coalesced.get(),
+                                 dropped.get(), failed.get(), writeNanos.get());
+    }
+
+    /**
+     * The state of an aggregate waiting to be written as a snapshot.
+     */
+    private static final class PendingSnapshot {
+
+        private final EntityState state;
+        private final Version version;
+        private final Timestamp timestamp;
+
+        private PendingSnapshot(EntityState state, Version version, Timestamp timestamp) {
+            this.state = state;
+            this.version = version;
+            this.timestamp = timestamp;
+        }
+
+        private Snapshot build() {
+            Any packed = AnyPacker.pack(state);
+            return Snapshot.newBuilder()
+                           .setState(packed)
+                           .setVersion(version)
+                           .setTimestamp(timestamp)
+                           .build();
+        }
+    }
+}
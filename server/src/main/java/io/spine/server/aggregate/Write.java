@@ -21,6 +21,7 @@
 package io.spine.server.aggregate;
 
 import io.spine.core.Event;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Collection;
 import java.util.List;
@@ -32,6 +33,9 @@ import static com.google.common.collect.Lists.newArrayListWithCapacity;
  * An {@link Aggregate} write operation.
  *
  * <p>Stores the given aggregate into the associated storage.
+ *
+ * <p>If the repository writes the snapshots in the background, the snapshot due is passed
+ * to its {@link Snapshotter} after the events are written.
  */
 final class Write<I> {
 
@@ -39,15 +43,18 @@ final class Write<I> {
     private final Aggregate<I, ?, ?> aggregate;
     private final I id;
     private final int snapshotTrigger;
+    private final @Nullable Snapshotter<I> snapshotter;
 
     private Write(AggregateStorage<I> storage,
                   Aggregate<I, ?, ?> aggregate,
                   I id,
-                  int snapshotTrigger) {
+                  int snapshotTrigger,
+                  @Nullable Snapshotter<I> snapshotter) {
         this.storage = storage;
         this.aggregate = aggregate;
         this.id = id;
         this.snapshotTrigger = snapshotTrigger;
+        this.snapshotter = snapshotter;
     }
 
     /**
@@ -69,7 +76,7 @@ final class Write<I> {
         AggregateStorage<I> storage = repository.aggregateStorage();
         int snapshotTrigger = repository.snapshotTrigger();
         I id = aggregate.id();
-        return new Write<>(storage, aggregate, id, snapshotTrigger);
+        return new Write<>(storage, aggregate, id, snapshotTrigger, repository.snapshotter());
     }
 
     /**
@@ -78,7 +85,37 @@ final class Write<I> {
     void perform() {
         UncommittedEvents uncommittedEvents = aggregate.getUncommittedEvents();
         List<Event> eventsToStore = uncommittedEvents.list();
-        writeEvents(eventsToStore);
+        if (snapshotter == null) {
+            writeEvents(eventsToStore);
+        } else {
+            writeEventsDeferringSnapshot(eventsToStore, snapshotter);
+        }
+    }
+
+    /**
+     * Writes the events and passes the state of the aggregate to the snapshotter,
+     * if the snapshot is due.
+     *
+     * <p>The snapshot is scheduled only after the events are written, so that it never
+     * gets ahead of the events in the storage.
+     *
+     * <p>Until the snapshot is written, the events stored since the previous one remain
+     * the history of the aggregate. Therefore, the recent history and the event count are kept
+     * as is. Once the snapshotter reports the snapshot written, the aggregate forgets the events
+     * it covers, even if the aggregate is kept in memory and never loaded anew.
+     * If the snapshot is dropped or fails to be written, the next write schedules it again.
+     */
+    private void writeEventsDeferringSnapshot(List<Event> events, Snapshotter<I> snapshotter) {
+        if (!events.isEmpty()) {
+            persist(events);
+        }
+        snapshotter.takeWritten(id)
+                   .ifPresent(aggregate::onSnapshotWritten);
+        int eventCount = aggregate.eventCountAfterLastSnapshot() + events.size();
+        if (eventCount >= snapshotTrigger) {
+            snapshotter.schedule(id, aggregate.state(), aggregate.version());
+        }
+        commit(eventCount);
     }
 
     private void writeEvents(List<Event> events) {
@@ -26,10 +26,12 @@ import com.google.protobuf.Timestamp;
 import com.google.protobuf.util.Durations;
 import io.spine.annotation.SPI;
 import io.spine.server.NodeId;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Iterator;
 import java.util.Optional;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.protobuf.util.Timestamps.between;
 import static io.spine.base.Time.currentTime;
@@ -38,12 +40,65 @@ import static io.spine.base.Time.currentTime;
  * An implementation base for {@link ShardedWorkRegistry ShardedWorkRegistries} based on a specific
  * persistence mechanism.
  *
+ * <p>If {@linkplain #AbstractWorkRegistry(Duration) configured}, a node picking up a shard
+ * obtains a lease on it. The node processing the shard
+ * {@linkplain ShardProcessingSession#renew() renews} the lease while the processing goes on.
+ * Once the lease is not renewed for the lease duration, the shard may be picked up by another
+ * node, as the node holding the lease is considered crashed or hung. The leases are only
+ * suitable for the registries, which sessions override {@code renew()} to store the renewal.
+ *
+ * <p>By default, the leases are not used, and a picked shard stays picked until the session
+ * is completed or {@linkplain #releaseExpiredSessions(Duration) released} as expired.
+ *
+ * <p>Each pick-up of a shard increments the {@linkplain ShardSessionRecord#getFencingToken()
+ * fencing token} of its session record. The node, which lease has been taken over, holds
+ * an outdated token, and thus can neither renew the lease nor release the shard picked by
+ * another node.
+ *
  * @implNote This class is NOT thread safe. Synchronize the atomic persistence operations
  *         as well as the methods implemented in this class make an implementation thread safe.
  */
 @SPI
 public abstract class AbstractWorkRegistry implements ShardedWorkRegistry {
 
+    /**
+     * How many times the lease is renewed within the lease duration.
+     */
+    private static final int RENEWALS_PER_LEASE = 3;
+
+    private final @Nullable Duration leaseDuration;
+    private final @Nullable Duration renewalInterval;
+
+    /**
+     * Creates a new registry, which leases never expire.
+     */
+    protected AbstractWorkRegistry() {
+        this.leaseDuration = null;
+        this.renewalInterval = null;
+    }
+
+    /**
+     * Creates a new registry with the leases of the given duration.
+     *
+     * <p>The sessions of the registry must override {@link ShardProcessingSession#renew()}
+     * to {@linkplain #renewLease(ShardSessionRecord) renew} the lease.
+     *
+     * @param leaseDuration
+     *         the duration after which a lease, which was not renewed, expires
+     */
+    protected AbstractWorkRegistry(Duration leaseDuration) {
+        checkNotNull(leaseDuration);
+        long nanos = Durations.toNanos(leaseDuration);
+        checkArgument(nanos > 0, "The lease duration must be positive.");
+        this.leaseDuration = leaseDuration;
+        this.renewalInterval = Durations.fromNanos(nanos / RENEWALS_PER_LEASE);
+    }
+
+    @Override
+    public Optional<Duration> leaseDuration() {
+        return Optional.ofNullable(leaseDuration);
+    }
+
     @Override
     public Optional<ShardProcessingSession> pickUp(ShardIndex index, NodeId nodeId) {
         checkNotNull(index);
@@ -52,7 +107,7 @@ public abstract class AbstractWorkRegistry implements ShardedWorkRegistry {
         Optional<ShardSessionRecord> record = find(index);
         if (record.isPresent()) {
             ShardSessionRecord existingRecord = record.get();
-            if (hasPickedBy(existingRecord)) {
+            if (hasPickedBy(existingRecord) && !leaseExpired(existingRecord)) {
                 return Optional.empty();
             } else {
                 ShardSessionRecord updatedRecord = updateNode(existingRecord, nodeId);
@@ -68,12 +123,29 @@ public abstract class AbstractWorkRegistry implements ShardedWorkRegistry {
         return !NodeId.getDefaultInstance().equals(record.getPickedBy());
     }
 
+    private boolean leaseExpired(ShardSessionRecord record) {
+        return leaseDuration != null && elapsedSinceHeartbeat(record, leaseDuration);
+    }
+
+    /**
+     * Tells whether the given period has elapsed since the node picked the shard
+     * or last renewed its lease.
+     */
+    private static boolean elapsedSinceHeartbeat(ShardSessionRecord record, Duration period) {
+        Timestamp lastHeartbeat = record.hasWhenLastRenewed()
+                                  ? record.getWhenLastRenewed()
+                                  : record.getWhenLastPicked();
+        Duration elapsed = between(lastHeartbeat, currentTime());
+        return Durations.compare(elapsed, period) >= 0;
+    }
+
     private ShardSessionRecord createRecord(ShardIndex index, NodeId nodeId) {
         ShardSessionRecord newRecord = ShardSessionRecord
                 .newBuilder()
                 .setIndex(index)
                 .setPickedBy(nodeId)
                 .setWhenLastPicked(currentTime())
+                .setFencingToken(1)
                 .vBuild();
         write(newRecord);
         return newRecord;
@@ -84,30 +156,82 @@ public abstract class AbstractWorkRegistry implements ShardedWorkRegistry {
                 .toBuilder()
                 .setPickedBy(nodeId)
                 .setWhenLastPicked(currentTime())
+                .clearWhenLastRenewed()
+                .setFencingToken(record.getFencingToken() + 1)
                 .build();
         write(updatedRecord);
         return updatedRecord;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The period is counted since the node picked the shard or last renewed its lease,
+     * whichever happened later.
+     */
     @Override
     public Iterable<ShardIndex> releaseExpiredSessions(Duration inactivityPeriod) {
         checkNotNull(inactivityPeriod);
         ImmutableSet.Builder<ShardIndex> resultBuilder = ImmutableSet.builder();
         allRecords().forEachRemaining(record -> {
-            if (record.hasPickedBy()) {
-                Timestamp whenPicked = record.getWhenLastPicked();
-                Duration elapsed = between(whenPicked, currentTime());
-
-                int comparison = Durations.compare(elapsed, inactivityPeriod);
-                if (comparison >= 0) {
-                    clearNode(record);
-                    resultBuilder.add(record.getIndex());
-                }
+            if (record.hasPickedBy() && elapsedSinceHeartbeat(record, inactivityPeriod)) {
+                clearNode(record);
+                resultBuilder.add(record.getIndex());
             }
         });
         return resultBuilder.build();
     }
 
+    /**
+     * Renews the lease on the shard held by the given session.
+     *
+     * <p>To limit the number of writes, the renewal is stored only if a third of the lease
+     * duration has passed since the previous one. The ownership of the lease is verified
+     * each time. If the leases never expire, only the ownership is verified.
+     *
+     * @param session
+     *         the record of the session, as it was when the shard was picked up
+     * @return {@code true} if the lease is still held by the session, {@code false} if it was
+     *         released or taken over by another node
+     */
+    protected boolean renewLease(ShardSessionRecord session) {
+        checkNotNull(session);
+        Optional<ShardSessionRecord> found = find(session.getIndex());
+        if (!found.isPresent() || !isHeldBy(found.get(), session)) {
+            return false;
+        }
+        ShardSessionRecord record = found.get();
+        if (renewalInterval != null && elapsedSinceHeartbeat(record, renewalInterval)) {
+            ShardSessionRecord renewed = record.toBuilder()
+                                               .setWhenLastRenewed(currentTime())
+                                               .build();
+            write(renewed);
+        }
+        return true;
+    }
+
+    /**
+     * Releases the shard held by the given session.
+     *
+     * <p>Does nothing if the lease of the session was already released or taken over by
+     * another node.
+     *
+     * @param session
+     *         the record of the session, as it was when the shard was picked up
+     */
+    protected void releaseLease(ShardSessionRecord session) {
+        checkNotNull(session);
+        find(session.getIndex())
+                .filter(record -> isHeldBy(record, session))
+                .ifPresent(this::clearNode);
+    }
+
+    private static boolean isHeldBy(ShardSessionRecord record, ShardSessionRecord session) {
+        return hasPickedBy(record)
+                && record.getPickedBy().equals(session.getPickedBy())
+                && record.getFencingToken() == session.getFencingToken();
+    }
+
     /**
      * Clears the value of {@code ShardSessionRecord.when_last_picked} and stores the session.
      */
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.protobuf.Duration;
+import com.google.protobuf.util.Durations;
+
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Maps.newConcurrentMap;
+
+/**
+ * A {@code DeliveryMonitor} which bounds the time of each delivery session and adapts
+ * the size of the pages read from the shards to the observed delivery latency.
+ *
+ * <p>The monitor stops the delivery from a shard in the following cases:
+ * <ul>
+ *     <li>the shard has been held for longer than the
+ *     {@linkplain Builder#setMaxSessionDuration(Duration) maximum session duration};
+ *
+ *     <li>the shard has been held for at least the
+ *     {@linkplain Builder#setFairnessSlice(Duration) fairness slice}, and some other shard
+ *     has messages waiting since before the current session started.
+ * </ul>
+ *
+ * <p>In both cases the shard is released and its remaining messages are delivered in a later
+ * session. The shards whose sessions were stopped keep their place in the queue, so that
+ * a busy shard does not starve the others, and is not starved itself.
+ *
+ * <p>After each {@code DeliveryStage}, the size of the next page is scaled by the number
+ * of messages delivered towards the
+ * {@linkplain Builder#setTargetPageLatency(Duration) target page latency}, at most twice
+ * per stage, and within the {@linkplain Builder#setMinPageSize(int) minimum}
+ * and {@linkplain Builder#setMaxPageSize(int) maximum} bounds.
+ *
+ * <p>To learn which shards are waiting, the monitor observes the messages written to
+ * the shards. It is subscribed to the {@code Delivery} automatically, once
+ * {@linkplain DeliveryBuilder#setMonitor(DeliveryMonitor) set} to its builder.
+ * The monitor is only aware of the messages written at the current application node.
+ */
+public final class AdaptiveDeliveryMonitor extends DeliveryMonitor implements ShardObserver {
+
+    private static final Duration DEFAULT_MAX_SESSION_DURATION = Durations.fromSeconds(30);
+    private static final Duration DEFAULT_FAIRNESS_SLICE = Durations.fromSeconds(1);
+    private static final Duration DEFAULT_TARGET_PAGE_LATENCY = Durations.fromMillis(500);
+    private static final int DEFAULT_MIN_PAGE_SIZE = 10;
+    private static final int DEFAULT_MAX_PAGE_SIZE = 5_000;
+    private static final int MAX_SCALE_FACTOR = 2;
+
+    private final long maxSessionNanos;
+    private final long fairnessSliceNanos;
+    private final long targetLatencyNanos;
+    private final int minPageSize;
+    private final int maxPageSize;
+    private final Ticker ticker;
+
+    /**
+     * The page sizes adapted for each shard.
+     */
+    private final Map<ShardIndex, Integer> pageSizes = newConcurrentMap();
+
+    /**
+     * The moments at which the ongoing sessions were started, per shard.
+     */
+    private final Map<ShardIndex, Long> sessions = newConcurrentMap();
+
+    /**
+     * The moments since which the shards have messages waiting for the delivery.
+     */
+    private final Map<ShardIndex, Long> waitingSince = newConcurrentMap();
+
+    private AdaptiveDeliveryMonitor(Builder builder) {
+        super();
+        this.maxSessionNanos = Durations.toNanos(builder.maxSessionDuration);
+        this.fairnessSliceNanos = Durations.toNanos(builder.fairnessSlice);
+        this.targetLatencyNanos = Durations.toNanos(builder.targetPageLatency);
+        this.minPageSize = builder.minPageSize;
+        this.maxPageSize = builder.maxPageSize;
+        this.ticker = builder.ticker;
+    }
+
+    /**
+     * Creates a new builder of the monitor.
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    @Override
+    public void onMessage(InboxMessage update) {
+        waitingSince.putIfAbsent(update.shardIndex(), ticker.read());
+    }
+
+    @Override
+    public void onDeliveryStarted(ShardIndex index) {
+        waitingSince.remove(index);
+        sessions.put(index, ticker.read());
+    }
+
+    @Override
+    public boolean shouldContinueAfter(DeliveryStage stage) {
+        ShardIndex index = stage.getIndex();
+        adaptPageSize(stage);
+        Long startedAt = sessions.get(index);
+        if (startedAt == null) {
+            return true;
+        }
+        long elapsed = ticker.read() - startedAt;
+        boolean mustYield = elapsed >= maxSessionNanos
+                || (elapsed >= fairnessSliceNanos && othersWaitSince(index, startedAt));
+        if (mustYield) {
+            waitingSince.put(index, startedAt);
+            sessions.remove(index);
+        }
+        return !mustYield;
+    }
+
+    @Override
+    public void onDeliveryCompleted(DeliveryStats stats) {
+        ShardIndex index = stats.shardIndex();
+        boolean completedFully = sessions.remove(index) != null;
+        if (completedFully) {
+            waitingSince.remove(index);
+        }
+    }
+
+    @Override
+    public int pageSize(ShardIndex index, int configuredSize) {
+        Integer adapted = pageSizes.get(index);
+        return adapted != null
+               ? adapted
+               : withinBounds(configuredSize);
+    }
+
+    /**
+     * Sets the page size of the shard to the number of messages which would be delivered
+     * within the target latency at the rate observed in the stage.
+     *
+     * <p>The rate is measured by the messages actually delivered, as a page may be only
+     * partially filled, or hold the messages which are not delivered, such as duplicates.
+     * The stages, in which no messages were delivered, leave the page size as is.
+     */
+    private void adaptPageSize(DeliveryStage stage) {
+        long delivered = stage.getMessagesDelivered();
+        if (delivered == 0) {
+            return;
+        }
+        ShardIndex index = stage.getIndex();
+        long latency = Math.max(1, Durations.toNanos(stage.getDuration()));
+        long current = pageSizes.getOrDefault(index, withinBounds(stage.getPageSize()));
+        long scaled = delivered * targetLatencyNanos / latency;
+        long bounded = Math.max(current / MAX_SCALE_FACTOR,
+                                Math.min(current * MAX_SCALE_FACTOR, scaled));
+        pageSizes.put(index, withinBounds(bounded));
+    }
+
+    private int withinBounds(long pageSize) {
+        return (int) Math.max(minPageSize, Math.min(maxPageSize, pageSize));
+    }
+
+    private boolean othersWaitSince(ShardIndex index, long moment) {
+        return waitingSince.entrySet()
+                           .stream()
+                           .anyMatch(e -> !e.getKey().equals(index) && e.getValue() < moment);
+    }
+
+    /**
+     * A builder of {@code AdaptiveDeliveryMonitor}.
+     */
+    public static final class Builder {
+
+        private Duration maxSessionDuration = DEFAULT_MAX_SESSION_DURATION;
+        private Duration fairnessSlice = DEFAULT_FAIRNESS_SLICE;
+        private Duration targetPageLatency = DEFAULT_TARGET_PAGE_LATENCY;
+        private int minPageSize = DEFAULT_MIN_PAGE_SIZE;
+        private int maxPageSize = DEFAULT_MAX_PAGE_SIZE;
+        private Ticker ticker = Ticker.systemTicker();
+
+        private Builder() {
+        }
+
+        /**
+         * Sets for how long at most a shard may be held by a single delivery session.
+         *
+         * <p>If none set, 30 seconds are used.
+         */
+        @CanIgnoreReturnValue
+        public Builder setMaxSessionDuration(Duration maxSessionDuration) {
+            this.maxSessionDuration = checkPositive(maxSessionDuration);
+            return this;
+        }
+
+        /**
+         * Sets for how long a shard is held for sure before it is yielded to the shards
+         * waiting for longer.
+         *
+         * <p>If none set, one second is used.
+         */
+        @CanIgnoreReturnValue
+        public Builder setFairnessSlice(Duration fairnessSlice) {
+            this.fairnessSlice = checkPositive(fairnessSlice);
+            return this;
+        }
+
+        /**
+         * Sets the desired time of delivering a single page of messages.
+         *
+         * <p>If none set, 500 milliseconds are used.
+         */
+        @CanIgnoreReturnValue
+        public Builder setTargetPageLatency(Duration targetPageLatency) {
+            this.targetPageLatency = checkPositive(targetPageLatency);
+            return this;
+        }
+
+        /**
+         * Sets the minimum size of a page.
+         *
+         * <p>If none set, {@code 10} messages are used.
+         */
+        @CanIgnoreReturnValue
+        public Builder setMinPageSize(int minPageSize) {
+            checkArgument(minPageSize > 0, "The minimum page size must be positive.");
+            this.minPageSize = minPageSize;
+            return this;
+        }
+
+        /**
+         * Sets the maximum size of a page.
+         *
+         * <p>If none set, {@code 5000} messages are used.
+         */
+        @CanIgnoreReturnValue
+        public Builder setMaxPageSize(int maxPageSize) {
+            checkArgument(maxPageSize > 0, "The maximum page size must be positive.");
+            this.maxPageSize = maxPageSize;
+            return this;
+        }
+
+        @VisibleForTesting
+        @CanIgnoreReturnValue
+        Builder setTicker(Ticker ticker) {
+            this.ticker = checkNotNull(ticker);
+            return this;
+        }
+
+        /**
+         * Creates a new instance of {@code AdaptiveDeliveryMonitor}.
+         */
+        public AdaptiveDeliveryMonitor build() {
+            checkArgument(minPageSize <= maxPageSize,
+                          "The minimum page size %s exceeds the maximum one %s.",
+                          minPageSize, maxPageSize);
+            checkArgument(Durations.compare(fairnessSlice, maxSessionDuration) <= 0,
+                          "The fairness slice must not exceed the maximum session duration.");
+            return new AdaptiveDeliveryMonitor(this);
+        }
+
+        private static Duration checkPositive(Duration duration) {
+            checkNotNull(duration);
+            checkArgument(Durations.toNanos(duration) > 0, "The duration must be positive.");
+            return duration;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.spine.server.delivery.InboxMessageStatus.TO_CATCH_UP;
+
+/**
+ * A versioned cache of the {@code CatchUp} jobs stored in the {@link CatchUpStorage}.
+ *
+ * <p>The delivery consults the jobs for each page of the inbox messages. Reading them from
+ * the storage every time is a waste when no catch-up is running. Instead, the jobs are read
+ * once and reused, until one of the following happens:
+ *
+ * <ul>
+ *     <li>a job is updated by this node, which {@linkplain #invalidate() moves} the version
+ *     of this registry;
+ *
+ *     <li>a new delivery session is started for a shard, which also moves the version, so that
+ *     the jobs started by other nodes are taken into account;
+ *
+ *     <li>the page contains the messages sent {@linkplain InboxMessageStatus#TO_CATCH_UP
+ *     to catch up}, which means that some job has started or is still running;
+ *
+ *     <li>the page contains the messages to the projection type, for which there is a job
+ *     not yet {@linkplain CatchUpStatus#COMPLETED completed}, as its status may be changed
+ *     by other nodes at any time.
+ * </ul>
+ *
+ * <p>Thus, the storage is read for each page only while the catch-up is running for
+ * the targets of the page. Otherwise, the delivery pays nothing for the catch-up support.
+ */
+final class CatchUpJobRegistry {
+
+    private final CatchUpStorage storage;
+    private final AtomicLong version = new AtomicLong();
+    private volatile @Nullable Snapshot snapshot;
+
+    CatchUpJobRegistry(CatchUpStorage storage) {
+        this.storage = checkNotNull(storage);
+    }
+
+    /**
+     * Obtains the jobs to run the passed page of messages through.
+     */
+    CatchUpJobs jobsFor(List<InboxMessage> page) {
+        Snapshot current = snapshot;
+        if (current == null
+                || current.version != version.get()
+                || needsFreshJobs(current.jobs, page)) {
+            return read().jobs;
+        }
+        return current.jobs;
+    }
+
+    /**
+     * Moves the version of the registry, making it re-read the jobs from the storage
+     * upon the next request.
+     */
+    void invalidate() {
+        version.incrementAndGet();
+    }
+
+    private Snapshot read() {
+        long versionBefore = version.get();
+        CatchUpJobs jobs = CatchUpJobs.of(storage.readAll());
+        Snapshot result = new Snapshot(versionBefore, jobs);
+        snapshot = result;
+        return result;
+    }
+
+    private static boolean needsFreshJobs(CatchUpJobs jobs, List<InboxMessage> page) {
+        for (InboxMessage message : page) {
+            if (message.getStatus() == TO_CATCH_UP || jobs.hasActiveFor(message)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The jobs read from the storage at a certain version of the registry.
+     */
+    private static final class Snapshot {
+
+        private final long version;
+        private final CatchUpJobs jobs;
+
+        private Snapshot(long version, CatchUpJobs jobs) {
+            this.version = version;
+            this.jobs = jobs;
+        }
+    }
+}
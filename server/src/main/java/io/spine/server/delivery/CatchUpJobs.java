@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.protobuf.Any;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+/**
+ * The {@code CatchUp} jobs indexed by the type of the catching-up projections and
+ * by the identifiers of their targets.
+ *
+ * <p>Allows to find the jobs matching an {@code InboxMessage} without looking through
+ * the jobs of other projection types.
+ */
+final class CatchUpJobs {
+
+    private static final CatchUpJobs EMPTY = new CatchUpJobs(ImmutableListMultimap.of());
+
+    private final ImmutableListMultimap<String, Job> byType;
+
+    private CatchUpJobs(ImmutableListMultimap<String, Job> byType) {
+        this.byType = byType;
+    }
+
+    /**
+     * Creates a new index of the passed jobs.
+     */
+    static CatchUpJobs of(Iterable<CatchUp> jobs) {
+        checkNotNull(jobs);
+        ImmutableListMultimap.Builder<String, Job> builder = ImmutableListMultimap.builder();
+        for (CatchUp job : jobs) {
+            String projectionType = job.getId()
+                                       .getProjectionType();
+            builder.put(projectionType, new Job(job));
+        }
+        return new CatchUpJobs(builder.build());
+    }
+
+    /**
+     * Returns an index containing no jobs.
+     */
+    static CatchUpJobs empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Finds the jobs which the passed message
+     * {@linkplain CatchUp#matches(InboxMessage) matches}.
+     */
+    ImmutableList<CatchUp> matching(InboxMessage message) {
+        InboxId inbox = message.getInboxId();
+        ImmutableList<Job> ofType = byType.get(inbox.getTypeUrl());
+        if (ofType.isEmpty()) {
+            return ImmutableList.of();
+        }
+        Any target = inbox.getEntityId()
+                          .getId();
+        return ofType.stream()
+                     .filter(job -> job.targets(target))
+                     .map(job -> job.state)
+                     .collect(toImmutableList());
+    }
+
+    /**
+     * Tells whether there is a job for the target of the passed message, which is not
+     * {@linkplain CatchUpStatus#COMPLETED completed} yet.
+     */
+    boolean hasActiveFor(InboxMessage message) {
+        String targetType = message.getInboxId()
+                                   .getTypeUrl();
+        return byType.get(targetType)
+                     .stream()
+                     .anyMatch(job -> job.state.getStatus() != CatchUpStatus.COMPLETED);
+    }
+
+    /**
+     * Tells whether there are no jobs in this index.
+     */
+    boolean isEmpty() {
+        return byType.isEmpty();
+    }
+
+    /**
+     * A job along with the set of its targets.
+     */
+    private static final class Job {
+
+        private final CatchUp state;
+        private final ImmutableSet<Any> targets;
+
+        private Job(CatchUp state) {
+            this.state = state;
+            this.targets = ImmutableSet.copyOf(state.getRequest()
+                                                    .getTargetList());
+        }
+
+        /**
+         * Tells whether the entity with the passed ID is a target of this job.
+         */
+        private boolean targets(Any entityId) {
+            return targets.isEmpty() || targets.contains(entityId);
+        }
+    }
+}
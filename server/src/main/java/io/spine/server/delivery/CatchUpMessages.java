@@ -44,12 +44,20 @@ final class CatchUpMessages {
 
     /**
      * Creates a {@code CatchUpStarted} event messages with the specified ID.
+     *
+     * <p>If the catch-up is requested to start from the checkpoints, the message tells
+     * the targets to restore the checkpoints made before the time since which
+     * the catch-up is requested.
      */
-    static CatchUpStarted started(CatchUpId id) {
+    static CatchUpStarted started(CatchUpId id, CatchUp.Request request) {
         checkNotNull(id);
-        return CatchUpStarted.newBuilder()
-                             .setId(id)
-                             .vBuild();
+        checkNotNull(request);
+        CatchUpStarted.Builder builder = CatchUpStarted.newBuilder()
+                                                       .setId(id);
+        if (request.getFromCheckpoint()) {
+            builder.setCheckpointBefore(request.getSinceWhen());
+        }
+        return builder.vBuild();
     }
 
     /**
@@ -22,6 +22,7 @@ package io.spine.server.delivery;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.protobuf.Any;
 import com.google.protobuf.Timestamp;
 import com.google.protobuf.util.Timestamps;
@@ -31,6 +32,7 @@ import io.spine.base.Identifier;
 import io.spine.base.Time;
 import io.spine.core.Event;
 import io.spine.core.EventContext;
+import io.spine.core.TenantId;
 import io.spine.grpc.MemoizingObserver;
 import io.spine.server.BoundedContext;
 import io.spine.server.ServerEnvironment;
@@ -48,21 +50,34 @@ import io.spine.server.event.EventStore;
 import io.spine.server.event.EventStreamQuery;
 import io.spine.server.event.EventStreamQuery.Limit;
 import io.spine.server.event.React;
+import io.spine.server.projection.ProjectionCheckpoint;
 import io.spine.server.projection.ProjectionRepository;
+import io.spine.server.tenant.TenantAwareRunner;
+import io.spine.server.tenant.TenantFunction;
 import io.spine.server.tuple.EitherOf2;
 import io.spine.server.type.EventEnvelope;
 import io.spine.type.TypeUrl;
 import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.protobuf.util.Durations.fromMillis;
 import static com.google.protobuf.util.Durations.fromNanos;
 import static com.google.protobuf.util.Timestamps.subtract;
@@ -75,6 +90,8 @@ import static io.spine.server.delivery.CatchUpMessages.shardProcessingRequested;
 import static io.spine.server.delivery.CatchUpMessages.started;
 import static io.spine.server.delivery.CatchUpMessages.toFilters;
 import static io.spine.server.delivery.DeliveryStrategy.newIndex;
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 
@@ -189,7 +206,8 @@ import static java.util.stream.Collectors.toSet;
  */
 @SuppressWarnings("OverlyCoupledClass")    // It does a lot.
 public final class CatchUpProcess<I>
-        extends AbstractStatefulReactor<CatchUpId, CatchUp, CatchUp.Builder> {
+        extends AbstractStatefulReactor<CatchUpId, CatchUp, CatchUp.Builder>
+        implements AutoCloseable {
 
     /**
      * The type URL of the process state.
@@ -205,19 +223,52 @@ public final class CatchUpProcess<I>
 
     private final ProjectionRepository<I, ?, ?> repository;
     private final DispatchCatchingUp<I> dispatchOperation;
+
+    /**
+     * The dispatch operation split into routing and sending, or {@code null} if the operation
+     * only {@linkplain DispatchCatchingUp#perform(Event, Set) performs} the dispatching as
+     * a whole.
+     */
+    private final @Nullable RoutingDispatchCatchingUp<I> routingOperation;
     private final CatchUpStorage storage;
+    private final CatchUpJobRegistry jobRegistry;
     private final CatchUpStarter.Builder<I> starterTemplate;
     private final Limit queryLimit;
+    private final @Nullable HistoryPrefetcher prefetcher;
+    private final @Nullable ExecutorService dispatchExecutor;
+
+    /**
+     * The times of the last events applied to the checkpoints, from which the targets
+     * of the catch-ups in progress start.
+     *
+     * <p>Filled lazily, so that any node serving the process obtains the same values
+     * from the projection storage.
+     */
+    private final Map<CatchUpId, Map<I, Optional<Timestamp>>> checkpoints =
+            new ConcurrentHashMap<>();
 
     private @MonotonicNonNull CatchUpStarter<I> catchUpStarter;
     private @MonotonicNonNull Supplier<EventStore> eventStore;
+    private boolean multitenant;
 
     CatchUpProcess(CatchUpProcessBuilder<I> builder) {
         super(TYPE);
         this.repository = builder.getRepository();
         this.dispatchOperation = builder.getDispatchOp();
+        this.routingOperation = dispatchOperation instanceof RoutingDispatchCatchingUp
+                                ? (RoutingDispatchCatchingUp<I>) dispatchOperation
+                                : null;
         this.storage = builder.getStorage();
+        this.jobRegistry = builder.getJobRegistry();
         this.queryLimit = limitOf(builder.getPageSize());
+        int prefetchDepth = builder.getPrefetchDepth();
+        this.prefetcher = prefetchDepth > 0
+                          ? new HistoryPrefetcher(prefetchDepth, this::isCompleted)
+                          : null;
+        int parallelism = builder.getParallelism();
+        this.dispatchExecutor = parallelism > 1 && routingOperation != null
+                                ? newDispatchExecutor(parallelism)
+                                : null;
         this.starterTemplate = CatchUpStarter.newBuilder(this.repository, this.storage);
     }
 
@@ -233,6 +284,7 @@ public final class CatchUpProcess<I>
         super.registerWith(context);
         this.eventStore = () -> context.eventBus()
                                        .eventStore();
+        this.multitenant = context.isMultitenant();
         this.catchUpStarter = starterTemplate.withContext(context)
                                              .build();
     }
@@ -248,14 +300,17 @@ public final class CatchUpProcess<I>
      * @param ids
      *         identifiers of the projections to catch up, or {@code null} if all of the
      *         instances should be caught up
+     * @param fromCheckpoint
+     *         whether the projections should start from their newest checkpoints made
+     *         before {@code since}
      * @throws CatchUpAlreadyStartedException
      *         if at least one of the selected instances is already catching up at the moment
      * @return identifier of the catch-up operation
      */
     @Internal
-    public CatchUpId startCatchUp(Timestamp since, @Nullable Set<I> ids)
+    public CatchUpId startCatchUp(Timestamp since, @Nullable Set<I> ids, boolean fromCheckpoint)
             throws CatchUpAlreadyStartedException {
-        return catchUpStarter.start(ids, since);
+        return catchUpStarter.start(ids, since, fromCheckpoint);
     }
 
     /**
@@ -277,6 +332,12 @@ public final class CatchUpProcess<I>
      *      It is important to know the target IDs, since their state has to be reset to default
      *      before the dispatching of the first historical event.
      *
+     *      <li>If the catch-up starts {@linkplain CatchUp.Request#getFromCheckpoint() from
+     *      the checkpoints}, the reading timestamp is moved back to the earliest checkpoint
+     *      of the targets. The events already applied to the checkpoint of a target are then
+     *      not dispatched to it. The targets with no checkpoint, including those which
+     *      appear during the catch-up, only receive the events since the requested time.
+     *
      *      <li>{@link CatchUpStarted} event is dispatched directly to the inboxes of the catching-up
      *      targets.
      *
@@ -292,14 +353,17 @@ public final class CatchUpProcess<I>
 
         Timestamp sinceWhen = request.getSinceWhen();
         Timestamp withWindow = subtract(sinceWhen, fromNanos(1));
-        builder().setWhenLastRead(withWindow)
+        Set<I> ids = targetsForCatchUpSignals(request);
+        Timestamp readAfter = request.getFromCheckpoint()
+                              ? earliestCheckpoint(id, request, ids, withWindow)
+                              : withWindow;
+        builder().setWhenLastRead(readAfter)
                  .setRequest(request);
-        CatchUpStarted started = started(id);
+        CatchUpStarted started = started(id, request);
         builder().setStatus(CatchUpStatus.IN_PROGRESS);
         flushState();
 
         Event event = wrapAsEvent(started, ctx);
-        Set<I> ids = targetsForCatchUpSignals(request);
         dispatchAll(ImmutableList.of(event), ids);
 
         return started;
@@ -348,6 +412,9 @@ public final class CatchUpProcess<I>
      * <p>After reading, the time of the last event is recorded to the process state and is used
      * as a starting point for the next read round.
      *
+     * <p>If the {@linkplain DeliveryBuilder#setCatchUpPrefetchDepth(int) prefetching} is enabled,
+     * the next pages are read in the background while the events of this round are dispatched.
+     *
      * <p>If there were no events read, the history is considered fully recalled. The process
      * will still have to deal with the event potentially emitted during the turbulence.
      */
@@ -355,14 +422,13 @@ public final class CatchUpProcess<I>
         CatchUpId id = builder().getId();
         CatchUp.Request request = builder().getRequest();
 
-        List<Event> readInThisRound = readMore(request, TURBULENCE.whenStarts(), queryLimit);
+        Timestamp lastRead = builder().getWhenLastRead();
+        List<Event> readInThisRound = prefetcher != null
+                                      ? prefetcher.read(id, lastRead, historyReader(request))
+                                      : readPage(request, lastRead);
         if (!readInThisRound.isEmpty()) {
             List<Event> stripped = stripLastTimestamp(readInThisRound);
-
-            Event lastEvent = stripped.get(stripped.size() - 1);
-            Timestamp lastEventTimestamp = lastEvent.getContext()
-                                                    .getTimestamp();
-            builder().setWhenLastRead(lastEventTimestamp);
+            builder().setWhenLastRead(lastReadIn(readInThisRound));
             dispatchAll(stripped);
         } else {
             return EitherOf2.withB(fullyRecalled(id));
@@ -370,6 +436,33 @@ public final class CatchUpProcess<I>
         return EitherOf2.withA(recalled(id));
     }
 
+    /**
+     * Reads a page of the history before the start of the {@linkplain Turbulence turbulence}.
+     */
+    private List<Event> readPage(CatchUp.Request request, Timestamp after) {
+        return readMore(request, after, TURBULENCE.whenStarts(), queryLimit);
+    }
+
+    /**
+     * Creates a routine reading the pages of the history in the tenant of the current
+     * catch-up, to be used outside of the tenant context.
+     */
+    private HistoryPrefetcher.HistoryReader historyReader(CatchUp.Request request) {
+        TenantId tenant = currentTenant();
+        return after -> TenantAwareRunner.with(tenant)
+                                         .evaluate(() -> readPage(request, after));
+    }
+
+    private TenantId currentTenant() {
+        TenantFunction<TenantId> function = new TenantFunction<TenantId>(multitenant) {
+            @Override
+            public TenantId apply(TenantId id) {
+                return id;
+            }
+        };
+        return checkNotNull(function.execute());
+    }
+
     /**
      * Sets the process status to {@link CatchUpStatus#FINALIZING FINALIZING} and reads all
      * the remaining events, then dispatching those to the projection inboxes.
@@ -384,8 +477,9 @@ public final class CatchUpProcess<I>
         builder().setStatus(CatchUpStatus.FINALIZING);
         flushState();
 
+        discardPrefetched(id);
         CatchUp.Request request = builder().getRequest();
-        List<Event> events = readMore(request, null, null);
+        List<Event> events = readMore(request, builder().getWhenLastRead(), null, null);
 
         if (events.isEmpty()) {
             return EitherOf2.withB(completeProcess(id));
@@ -421,12 +515,80 @@ public final class CatchUpProcess<I>
     }
 
     private CatchUpCompleted completeProcess(CatchUpId id) {
+        checkpoints.remove(id);
+        discardPrefetched(id);
         builder().setStatus(CatchUpStatus.COMPLETED);
         flushState();
         CatchUpCompleted completed = catchUpCompleted(id);
         return completed;
     }
 
+    /**
+     * Determines the time of the earliest checkpoint of the targets, from which the history
+     * should be read.
+     *
+     * @return the time of the last event applied to the earliest checkpoint, or the passed
+     *         default value, if it is earlier
+     */
+    private Timestamp earliestCheckpoint(CatchUpId id,
+                                         CatchUp.Request request,
+                                         Set<I> targets,
+                                         Timestamp defaultValue) {
+        Timestamp result = defaultValue;
+        for (I target : targets) {
+            Optional<Timestamp> checkpoint = checkpointOf(id, request, target);
+            if (checkpoint.isPresent() && Timestamps.compare(checkpoint.get(), result) < 0) {
+                result = checkpoint.get();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Obtains the time of the last event applied to the checkpoint, from which the given target
+     * starts the catch-up.
+     */
+    private Optional<Timestamp> checkpointOf(CatchUpId id, CatchUp.Request request, I target) {
+        return checkpoints
+                .computeIfAbsent(id, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(target,
+                                 t -> repository.checkpointBefore(t, request.getSinceWhen())
+                                                .map(ProjectionCheckpoint::getLastEventTime));
+    }
+
+    /**
+     * Determines the targets of the event, excluding those which checkpoint already has
+     * the event applied.
+     */
+    private Set<I> targetsOf(RoutingDispatchCatchingUp<I> operation,
+                             Event event,
+                             @Nullable Set<I> narrowDownToIds) {
+        Set<I> targets = operation.targetsOf(event, narrowDownToIds);
+        return withoutCheckpointed(targets, event);
+    }
+
+    /**
+     * Excludes the targets, which checkpoint already has the event applied.
+     *
+     * <p>The targets with no checkpoint are caught up since the time set in the request,
+     * as in the regular catch-up. As the history may be read from an earlier checkpoint
+     * of another target, the events prior to that time are excluded for such targets.
+     */
+    private Set<I> withoutCheckpointed(Set<I> targets, Event event) {
+        CatchUp.Request request = builder().getRequest();
+        if (!request.getFromCheckpoint()) {
+            return targets;
+        }
+        CatchUpId id = builder().getId();
+        Timestamp eventTime = event.timestamp();
+        Timestamp sinceWhen = request.getSinceWhen();
+        return targets.stream()
+                      .filter(target -> checkpointOf(id, request, target)
+                              .map(time -> Timestamps.compare(eventTime, time) > 0)
+                              .orElseGet(() -> Timestamps.compare(eventTime, sinceWhen) >= 0))
+                      .collect(toImmutableSet());
+    }
+
     private Set<I> targetsForCatchUpSignals(CatchUp.Request request) {
         Set<I> ids;
         List<Any> rawTargets = request.getTargetList();
@@ -443,6 +605,20 @@ public final class CatchUpProcess<I>
         return firstEvent;
     }
 
+    /**
+     * Determines the point in time, after which the history should be read once the given
+     * page of events is dispatched.
+     *
+     * <p>Since the events stamped with the {@linkplain #stripLastTimestamp(List) last time}
+     * of the page are not dispatched, it is the time of the last event left.
+     */
+    static Timestamp lastReadIn(List<Event> page) {
+        List<Event> stripped = stripLastTimestamp(page);
+        Event lastEvent = stripped.get(stripped.size() - 1);
+        return lastEvent.getContext()
+                        .getTimestamp();
+    }
+
     private static List<Event> stripLastTimestamp(List<Event> events) {
         int lastIndex = events.size() - 1;
         Event lastEvent = events.get(lastIndex);
@@ -516,23 +692,114 @@ public final class CatchUpProcess<I>
         @Nullable Set<I> targetsForDispatch = targets.isEmpty()
                                               ? null
                                               : targets;
-        for (Event event : events) {
-            Set<I> targetsOfThisDispatch = dispatchOperation.perform(event, targetsForDispatch);
-            actualTargets.addAll(targetsOfThisDispatch);
+        if (routingOperation == null) {
+            performAll(events, targetsForDispatch, actualTargets);
+        } else if (dispatchExecutor != null) {
+            dispatchInParallel(routingOperation, events, targetsForDispatch, actualTargets);
+        } else {
+            for (Event event : events) {
+                Set<I> targetsOfThisDispatch =
+                        targetsOf(routingOperation, event, targetsForDispatch);
+                for (I target : targetsOfThisDispatch) {
+                    routingOperation.sendTo(target, event);
+                }
+                actualTargets.addAll(targetsOfThisDispatch);
+            }
         }
         if (!actualTargets.isEmpty()) {
             recordAffectedShards(actualTargets);
         }
     }
 
+    /**
+     * Dispatches the events one by one via the operation, which is not split into routing
+     * and sending.
+     *
+     * <p>The targets, which checkpoint already has the event applied, are only excluded
+     * if the targets are listed explicitly in the catch-up request.
+     */
+    private void performAll(List<Event> events,
+                            @Nullable Set<I> targetsForDispatch,
+                            Set<I> actualTargets) {
+        for (Event event : events) {
+            @Nullable Set<I> narrowed = targetsForDispatch == null
+                                        ? null
+                                        : withoutCheckpointed(targetsForDispatch, event);
+            if (narrowed == null || !narrowed.isEmpty()) {
+                actualTargets.addAll(dispatchOperation.perform(event, narrowed));
+            }
+        }
+    }
+
+    /**
+     * Dispatches the events to their targets, sending the events to the targets residing
+     * in different shards in parallel.
+     *
+     * <p>The events are routed in the order they were read. Then the events heading to each
+     * shard are sent by a single worker, in the same order. Therefore, each target receives
+     * its events in their historical order.
+     */
+    private void dispatchInParallel(RoutingDispatchCatchingUp<I> operation,
+                                    List<Event> events,
+                                    @Nullable Set<I> targetsForDispatch,
+                                    Set<I> actualTargets) {
+        Delivery delivery = ServerEnvironment.instance()
+                                             .delivery();
+        TypeUrl projectionType = TypeUrl.parse(builder().getId()
+                                                        .getProjectionType());
+        Map<I, ShardIndex> shards = new HashMap<>();
+        Map<ShardIndex, List<Runnable>> partitions = new LinkedHashMap<>();
+        for (Event event : events) {
+            Set<I> targets = targetsOf(operation, event, targetsForDispatch);
+            for (I target : targets) {
+                ShardIndex shard = shards.computeIfAbsent(
+                        target, t -> delivery.whichShardFor(t, projectionType)
+                );
+                partitions.computeIfAbsent(shard, s -> new ArrayList<>())
+                          .add(() -> operation.sendTo(target, event));
+            }
+            actualTargets.addAll(targets);
+        }
+        TenantId tenant = currentTenant();
+        ExecutorService executor = checkNotNull(dispatchExecutor);
+        CompletableFuture<?>[] sent =
+                partitions.values()
+                          .stream()
+                          .map(partition -> runAsync(() -> sendAll(tenant, partition), executor))
+                          .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(sent)
+                             .join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException
+                  ? (RuntimeException) cause
+                  : new IllegalStateException(cause);
+        }
+    }
+
+    private static void sendAll(TenantId tenant, List<Runnable> partition) {
+        TenantAwareRunner.with(tenant)
+                         .run(() -> partition.forEach(Runnable::run));
+    }
+
+    private static ExecutorService newDispatchExecutor(int parallelism) {
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("catch-up-dispatch-%d")
+                .build();
+        return newFixedThreadPool(parallelism, threadFactory);
+    }
+
     private List<Event> readMore(CatchUp.Request request,
+                                 Timestamp readAfter,
                                  @Nullable Timestamp readBefore,
                                  @Nullable Limit limit) {
         if (readBefore != null
-                && Timestamps.compare(readBefore, builder().getWhenLastRead()) <= 0) {
+                && Timestamps.compare(readBefore, readAfter) <= 0) {
             return ImmutableList.of();
         }
-        EventStreamQuery query = toEventQuery(request, readBefore, limit);
+        EventStreamQuery query = toEventQuery(request, readAfter, readBefore, limit);
         MemoizingObserver<Event> observer = new MemoizingObserver<>();
         eventStore.get()
                   .read(query, observer);
@@ -546,11 +813,11 @@ public final class CatchUpProcess<I>
                         .collect(toSet());
     }
 
-    private EventStreamQuery toEventQuery(CatchUp.Request request,
-                                          @Nullable Timestamp readBefore,
-                                          @Nullable Limit limit) {
+    private static EventStreamQuery toEventQuery(CatchUp.Request request,
+                                                 Timestamp readAfter,
+                                                 @Nullable Timestamp readBefore,
+                                                 @Nullable Limit limit) {
         ImmutableList<EventFilter> filters = toFilters(request.getEventTypeList());
-        Timestamp readAfter = builder().getWhenLastRead();
         EventStreamQuery.Builder builder =
                 EventStreamQuery.newBuilder()
                                 .setAfter(readAfter)
@@ -595,14 +862,55 @@ public final class CatchUpProcess<I>
         return ImmutableSet.of(message.getId());
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>If the process turns out to be completed, e.g. by another node, drops the history
+     * prefetched for it.
+     */
     @Override
     protected Optional<CatchUp> load(CatchUpId id) {
-        return storage.read(new CatchUpReadRequest(id));
+        Optional<CatchUp> result = storage.read(new CatchUpReadRequest(id));
+        if (result.isPresent() && result.get()
+                                        .getStatus() == CatchUpStatus.COMPLETED) {
+            discardPrefetched(id);
+        }
+        return result;
+    }
+
+    private boolean isCompleted(CatchUpId id) {
+        return storage.read(new CatchUpReadRequest(id))
+                      .map(catchUp -> catchUp.getStatus() == CatchUpStatus.COMPLETED)
+                      .orElse(false);
+    }
+
+    private void discardPrefetched(CatchUpId id) {
+        if (prefetcher != null) {
+            prefetcher.discard(id);
+        }
+    }
+
+    /**
+     * Stops reading the event history ahead of time and shuts down the threads dispatching
+     * the events in parallel.
+     *
+     * <p>Called when the repository of the caught-up projections is closed.
+     */
+    @Override
+    @Internal
+    public void close() {
+        if (prefetcher != null) {
+            prefetcher.close();
+        }
+        if (dispatchExecutor != null) {
+            dispatchExecutor.shutdown();
+        }
     }
 
     @Override
     protected void store(CatchUp updatedState) {
         storage.write(updatedState);
+        jobRegistry.invalidate();
     }
 
     @Override
@@ -615,7 +923,8 @@ public final class CatchUpProcess<I>
      * A method object dispatching the event to catch-up.
      *
      * @param <I>
-     *         the type of the identifiers of the entities to which the event should be dispatched.
+     *         the type of the identifiers of entities to which the event should be dispatched.
+     * @see RoutingDispatchCatchingUp
      */
     @FunctionalInterface
     public interface DispatchCatchingUp<I> {
@@ -635,4 +944,52 @@ public final class CatchUpProcess<I>
          */
         Set<I> perform(Event event, @Nullable Set<I> narrowDownToIds);
     }
+
+    /**
+     * A dispatch operation split into determining the targets of the event and sending
+     * the event to each of them.
+     *
+     * <p>Such an operation allows the events to be sent to the targets in different shards
+     * {@linkplain DeliveryBuilder#setCatchUpParallelism(int) in parallel}, and the targets,
+     * which {@linkplain ProjectionRepository#catchUpFromCheckpoint checkpoint} already has
+     * the event applied, to be skipped. A plain {@link DispatchCatchingUp} is always run
+     * sequentially.
+     *
+     * @param <I>
+     *         the type of the identifiers of entities to which the event should be dispatched.
+     */
+    public interface RoutingDispatchCatchingUp<I> extends DispatchCatchingUp<I> {
+
+        /**
+         * Determines the entities to which the given event should be dispatched, optionally
+         * narrowing them down by the set of entity identifiers.
+         *
+         * <p>If no particular IDs are specified, the targets are determined according to the
+         * repository routing rules.
+         *
+         * @param event
+         *         event to dispatch
+         * @param narrowDownToIds
+         *         optional set of identifiers of the targets to narrow down the event targets
+         * @return the set of identifiers to which the event should be dispatched
+         */
+        Set<I> targetsOf(Event event, @Nullable Set<I> narrowDownToIds);
+
+        /**
+         * Sends the given event to the catching-up entity with the given identifier.
+         */
+        void sendTo(I target, Event event);
+
+        /**
+         * Determines the targets of the event and sends the event to each of them.
+         */
+        @Override
+        default Set<I> perform(Event event, @Nullable Set<I> narrowDownToIds) {
+            Set<I> targets = targetsOf(event, narrowDownToIds);
+            for (I target : targets) {
+                sendTo(target, event);
+            }
+            return targets;
+        }
+    }
 }
@@ -24,6 +24,7 @@ import io.spine.server.delivery.CatchUpProcess.DispatchCatchingUp;
 import io.spine.server.projection.ProjectionRepository;
 import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static io.spine.util.Preconditions2.checkPositive;
 
@@ -34,8 +35,11 @@ public final class CatchUpProcessBuilder<I> {
 
     private final ProjectionRepository<I, ?, ?> repository;
     private @MonotonicNonNull CatchUpStorage storage;
+    private @MonotonicNonNull CatchUpJobRegistry jobRegistry;
     private @MonotonicNonNull DispatchCatchingUp<I> dispatchOp;
     private int pageSize;
+    private int prefetchDepth;
+    private int parallelism = 1;
 
     /**
      * Creates an new instance of the builder.
@@ -72,6 +76,24 @@ public final class CatchUpProcessBuilder<I> {
         return checkNotNull(storage);
     }
 
+    /**
+     * Sets the registry of the {@code CatchUp} jobs to notify of the updated jobs.
+     */
+    CatchUpProcessBuilder<I> setJobRegistry(CatchUpJobRegistry jobRegistry) {
+        this.jobRegistry = checkNotNull(jobRegistry);
+        return this;
+    }
+
+    /**
+     * Returns the configured registry of the {@code CatchUp} jobs.
+     *
+     * @throws NullPointerException
+     *         if the registry has not been set
+     */
+    CatchUpJobRegistry getJobRegistry() {
+        return checkNotNull(jobRegistry);
+    }
+
     /**
      * Sets the maximum page size for the {@code EventStore} reads.
      *
@@ -90,6 +112,43 @@ public final class CatchUpProcessBuilder<I> {
         return pageSize;
     }
 
+    /**
+     * Sets how many pages of the event history to read ahead while the current page
+     * is dispatched.
+     *
+     * <p>Zero means the pages are read one by one. Must not be negative.
+     */
+    CatchUpProcessBuilder<I> setPrefetchDepth(int prefetchDepth) {
+        checkArgument(prefetchDepth >= 0, "The prefetch depth must not be negative.");
+        this.prefetchDepth = prefetchDepth;
+        return this;
+    }
+
+    /**
+     * Obtains how many pages of the event history to read ahead.
+     */
+    int getPrefetchDepth() {
+        return prefetchDepth;
+    }
+
+    /**
+     * Sets how many shards may receive the recalled events at the same time.
+     *
+     * <p>One means the events are dispatched one by one. Must be a positive value.
+     */
+    CatchUpProcessBuilder<I> setParallelism(int parallelism) {
+        checkPositive(parallelism);
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Obtains how many shards may receive the recalled events at the same time.
+     */
+    int getParallelism() {
+        return parallelism;
+    }
+
     /**
      * Sets the way to dispatch the events during the catch-up.
      */
@@ -113,6 +172,7 @@ public final class CatchUpProcessBuilder<I> {
      */
     public CatchUpProcess<I> build() {
         checkNotNull(storage);
+        checkNotNull(jobRegistry);
         checkNotNull(dispatchOp);
         checkPositive(pageSize);
 
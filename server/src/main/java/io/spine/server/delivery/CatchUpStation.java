@@ -44,7 +44,7 @@ final class CatchUpStation extends Station {
     private static final Comparator<InboxMessage> COMPARATOR = new CatchUpMessageComparator();
 
     private final DeliveryAction action;
-    private final Iterable<CatchUp> jobs;
+    private final CatchUpJobs jobs;
 
     /**
      * Creates a new instance of this station.
@@ -52,9 +52,9 @@ final class CatchUpStation extends Station {
      * @param action
      *         the action on how to deliver the messages to their targets
      * @param jobs
-     *         current list of {@code CatchUp} jobs
+     *         current {@code CatchUp} jobs
      */
-    CatchUpStation(DeliveryAction action, Iterable<CatchUp> jobs) {
+    CatchUpStation(DeliveryAction action, CatchUpJobs jobs) {
         super();
         this.action = action;
         this.jobs = jobs;
@@ -76,6 +76,9 @@ final class CatchUpStation extends Station {
      */
     @Override
     public final Result process(Conveyor conveyor) {
+        if (jobs.isEmpty()) {
+            return emptyResult();
+        }
         JobFilter jobFilter = new JobFilter(jobs, conveyor);
         Collection<InboxMessage> toDispatch = jobFilter.messagesToDispatch();
         return dispatch(toDispatch, conveyor);
@@ -125,7 +128,7 @@ final class CatchUpStation extends Station {
     private static class JobFilter {
 
         private final Map<DispatchingId, InboxMessage> dispatchToCatchUp = new HashMap<>();
-        private final Iterable<CatchUp> jobs;
+        private final CatchUpJobs jobs;
         private final Conveyor conveyor;
 
         /**
@@ -136,7 +139,7 @@ final class CatchUpStation extends Station {
          * @param conveyor
          *         the conveyor containing the messages to filer
          */
-        private JobFilter(Iterable<CatchUp> jobs, Conveyor conveyor) {
+        private JobFilter(CatchUpJobs jobs, Conveyor conveyor) {
             this.jobs = jobs;
             this.conveyor = conveyor;
         }
@@ -243,10 +246,7 @@ final class CatchUpStation extends Station {
          *         the message to run through the filter
          */
         private void accept(InboxMessage message) {
-            for (CatchUp job : jobs) {
-                if (!job.matches(message)) {
-                    continue;
-                }
+            for (CatchUp job : jobs.matching(message)) {
                 CatchUpStatus jobStatus = job.getStatus();
 
                 switch (jobStatus) {
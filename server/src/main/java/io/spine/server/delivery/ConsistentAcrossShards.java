@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.errorprone.annotations.Immutable;
+import com.google.protobuf.Message;
+import io.spine.type.TypeUrl;
+
+import java.io.Serializable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The strategy of splitting the entities into a number of shards using the consistent hashing.
+ *
+ * <p>Unlike {@link UniformAcrossAllShards}, changing the number of shards from {@code N}
+ * to {@code M} only moves about {@code |M - N| / max(M, N)} of the entities to other shards.
+ * The rest of the entities stay in the shards with the same index values. Therefore, the number
+ * of shards may be changed along with the number of application nodes without re-distributing
+ * all the entities. See {@link DeliveryBuilder#setPreviousShardCount(int)} on how to move
+ * the messages already residing in the shards.
+ *
+ * <p>Uses the {@linkplain Hashing#consistentHash(HashCode, int) jump consistent hash} of
+ * the {@linkplain Hashing#murmur3_128() MurmurHash3, x64 variant} of the entity identifier.
+ * The results are consistent across JVMs.
+ */
+@Immutable
+public final class ConsistentAcrossShards extends DeliveryStrategy implements Serializable {
+
+    private static final long serialVersionUID = 0L;
+
+    /**
+     * The hash function to use for the shard index calculation.
+     */
+    @SuppressWarnings("UnstableApiUsage")   // `Hashing` is `@Beta`, but is the best option.
+    private static final HashFunction HASHER = Hashing.murmur3_128();
+
+    private final int numberOfShards;
+
+    private ConsistentAcrossShards(int numberOfShards) {
+        super();
+        checkArgument(numberOfShards > 0, "Number of shards must be positive");
+        this.numberOfShards = numberOfShards;
+    }
+
+    /**
+     * Creates a strategy of consistent target distribution across shards,
+     * for a given shard number.
+     *
+     * @param totalShards
+     *         a number of shards
+     * @return a consistent distribution strategy instance for a given shard number
+     */
+    public static DeliveryStrategy forNumber(int totalShards) {
+        ConsistentAcrossShards result = new ConsistentAcrossShards(totalShards);
+        return result;
+    }
+
+    @Override
+    protected ShardIndex indexFor(Object entityId, TypeUrl entityStateType) {
+        if (1 == numberOfShards) {
+            return newIndex(0, 1);
+        }
+        @SuppressWarnings("UnstableApiUsage")   // See the docs of `HASHER`.
+        int indexValue = Hashing.consistentHash(hash(entityId), numberOfShards);
+        return newIndex(indexValue, numberOfShards);
+    }
+
+    private static HashCode hash(Object entityId) {
+        byte[] bytes;
+        if (entityId instanceof Message) {
+            bytes = ((Message) entityId).toByteArray();
+        } else {
+            bytes = entityId.toString()
+                            .getBytes(UTF_8);
+        }
+        return HASHER.hashBytes(bytes);
+    }
+
+    @Override
+    protected int shardCount() {
+        return numberOfShards;
+    }
+}
@@ -21,27 +21,25 @@
 package io.spine.server.delivery;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.Sets;
+import com.google.common.collect.ImmutableList;
 import com.google.protobuf.Duration;
 import com.google.protobuf.Timestamp;
 import com.google.protobuf.util.Timestamps;
 import io.spine.base.Time;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static io.spine.server.delivery.InboxMessageStatus.DELIVERED;
 import static io.spine.server.delivery.InboxMessageStatus.TO_CATCH_UP;
-import static java.util.stream.Collectors.toList;
 
 /**
  * A mutable wrapper for the {@link InboxMessage}s to be dispatched in scope of a
@@ -50,16 +48,20 @@ import static java.util.stream.Collectors.toList;
  * <p>Collects the state updates of the messages and allows to flush the pending changes to the
  * respective {@link InboxStorage} in a bulk.
  *
+ * <p>The changes of the message status and the time to keep the message until are stored
+ * as plain fields per message. The modified {@code InboxMessage}s are built only when they
+ * are read from the conveyor or flushed to the storage.
+ *
  * <p>By accessing the {@linkplain DeliveredMessages cache}, knows which messages were marked
  * delivered by the instances of {@code Conveyor} in the previous {@code DeliveryStage}s.
  */
 final class Conveyor implements Iterable<InboxMessage> {
 
-    private final Map<InboxMessageId, InboxMessage> messages = new LinkedHashMap<>();
+    private final Map<InboxMessageId, Slot> slots = new LinkedHashMap<>();
     private final DeliveredMessages deliveredMessages;
-    private final Set<InboxMessageId> dirtyMessages = new HashSet<>();
     private final Set<InboxMessage> removals = new HashSet<>();
     private final Set<InboxMessage> duplicates = new HashSet<>();
+    private final Set<DispatchingId> delivered = new HashSet<>();
 
     /**
      * Creates an instance of conveyor with the messages to process and the cache of the previously
@@ -73,7 +75,10 @@ final class Conveyor implements Iterable<InboxMessage> {
     Conveyor(Collection<InboxMessage> messages, DeliveredMessages deliveredMessages) {
         this.deliveredMessages = deliveredMessages;
         for (InboxMessage message : messages) {
-            this.messages.put(message.getId(), message);
+            this.slots.put(message.getId(), new Slot(message));
+            if (message.getStatus() == DELIVERED) {
+                delivered.add(new DispatchingId(message));
+            }
         }
     }
 
@@ -82,11 +87,17 @@ final class Conveyor implements Iterable<InboxMessage> {
      */
     @Override
     public Iterator<InboxMessage> iterator() {
-        return new ArrayList<>(messages.values()).iterator();
+        ImmutableList<InboxMessage> contents =
+                slots.values()
+                     .stream()
+                     .map(Slot::message)
+                     .collect(toImmutableList());
+        return contents.iterator();
     }
 
     private void markDelivered(InboxMessage message) {
-        changeStatus(message, DELIVERED);
+        slot(message).setStatus(DELIVERED);
+        delivered.add(new DispatchingId(message));
         deliveredMessages.recordDelivered(message);
     }
 
@@ -94,7 +105,7 @@ final class Conveyor implements Iterable<InboxMessage> {
      * Marks all the passed messages as {@link InboxMessageStatus#DELIVERED DELIVERED}.
      *
      * <p>Produced the bulk change to the storage, pending until the next
-     * {@link #flushTo(InboxStorage) flushTo(InboxStorage)} invocation.
+     * {@link #flushTo(InboxStorage, ShardProcessingSession) flushTo(..)} invocation.
      */
     void markDelivered(Collection<InboxMessage> messages) {
         for (InboxMessage message : messages) {
@@ -104,19 +115,18 @@ final class Conveyor implements Iterable<InboxMessage> {
 
     /**
      * Removes the passed message from the conveyor and marks it for removal from the storage once
-     * {@link #flushTo(InboxStorage) flushTo(InboxStorage)} is called.
+     * {@link #flushTo(InboxStorage, ShardProcessingSession) flushTo(..)} is called.
      */
     void remove(InboxMessage message) {
-        messages.remove(message.getId());
+        slots.remove(message.getId());
         removals.add(message);
-        dirtyMessages.remove(message.getId());
     }
 
     /**
      * Marks the passed message as a duplicate and removes it from the conveyor.
      *
-     * <p>The message is going to be removed from the storage once {@link #flushTo(InboxStorage)
-     * flushTo(InboxStorage)} is called.
+     * <p>The message is going to be removed from the storage once
+     * {@link #flushTo(InboxStorage, ShardProcessingSession) flushTo(..)} is called.
      */
     void markDuplicateAndRemove(InboxMessage message) {
         duplicates.add(message);
@@ -127,53 +137,35 @@ final class Conveyor implements Iterable<InboxMessage> {
      * Changes the status of the passed message to {@link InboxMessageStatus#TO_CATCH_UP
      * TO_CATCH_UP}.
      *
-     * <p>Produced the change to the storage, pending until the next {@link #flushTo(InboxStorage)
-     * flushTo(InboxStorage)} call.
+     * <p>Produced the change to the storage, pending until the next
+     * {@link #flushTo(InboxStorage, ShardProcessingSession) flushTo(..)} call.
      */
     void markCatchUp(InboxMessage message) {
-        changeStatus(message, TO_CATCH_UP);
-    }
-
-    private void changeStatus(InboxMessage message, InboxMessageStatus status) {
-        InboxMessage modified = mutableMessage(message.getId())
-                .setStatus(status)
-                .build();
-        messages.put(message.getId(), modified);
-        dirtyMessages.add(message.getId());
+        slot(message).setStatus(TO_CATCH_UP);
     }
 
     /**
-     * Finds the message in this conveyor by its identifier and returns it as a {@code Builder}
-     * for further modification.
+     * Finds the slot of the passed message in this conveyor.
      *
      * <p>If there is no such message in this conveyor, throws a {@link NullPointerException}.
-     *
-     * @param id
-     *         the message to look for
-     * @return the builder for the message
      */
-    private InboxMessage.Builder mutableMessage(InboxMessageId id) {
-        InboxMessage existingMessage = messages.get(id);
-        checkNotNull(existingMessage);
-        return existingMessage.toBuilder();
+    private Slot slot(InboxMessage message) {
+        Slot slot = slots.get(message.getId());
+        checkNotNull(slot);
+        return slot;
     }
 
     /**
-     * Returns the read-only view on the set of the {@code DispatchingId}s
-     * of the {@link InboxMessage}s which are known to be already delivered.
+     * Tells whether the message with the same {@code DispatchingId} as the passed one is known
+     * to be already delivered.
      *
-     * <p>This includes both the IDs of messages delivered within the lifetime of this conveyor
-     * instance and of the messages delivered
+     * <p>This includes both the messages delivered within the lifetime of this conveyor
+     * instance and the messages delivered
      * {@linkplain Conveyor#Conveyor(Collection, DeliveredMessages) before it}.
      */
-    Set<DispatchingId> allDelivered() {
-        Set<DispatchingId> recentlyDelivered =
-                recentlyDelivered()
-                        .map(DispatchingId::new)
-                        .collect(Collectors.toSet());
-        Sets.SetView<DispatchingId> result = Sets.union(recentlyDelivered,
-                                                        deliveredMessages.allDelivered());
-        return result;
+    boolean isDelivered(InboxMessage message) {
+        return delivered.contains(new DispatchingId(message))
+                || deliveredMessages.contains(message);
     }
 
     /**
@@ -181,10 +173,10 @@ final class Conveyor implements Iterable<InboxMessage> {
      * this conveyor.
      */
     Stream<InboxMessage> recentlyDelivered() {
-        return messages.values()
-                       .stream()
-                       .filter(m -> m.getStatus() ==
-                               DELIVERED);
+        return slots.values()
+                    .stream()
+                    .filter(slot -> slot.status == DELIVERED)
+                    .map(Slot::message);
     }
 
     /**
@@ -195,11 +187,7 @@ final class Conveyor implements Iterable<InboxMessage> {
      */
     void keepForLonger(InboxMessage message, Duration howLongTooKeep) {
         Timestamp keepUntil = Timestamps.add(Time.currentTime(), howLongTooKeep);
-        InboxMessage modified = mutableMessage(message.getId())
-                .setKeepUntil(keepUntil)
-                .build();
-        messages.put(message.getId(), modified);
-        dirtyMessages.add(message.getId());
+        slot(message).setKeepUntil(keepUntil);
     }
 
     /**
@@ -210,17 +198,25 @@ final class Conveyor implements Iterable<InboxMessage> {
     }
 
     /**
-     * Writes all the pending changes to the passed {@code InboxStorage}.
+     * Writes all the pending changes to the passed {@code InboxStorage}
+     * as a {@linkplain InboxStorage#applyChanges(ShardIndex, long, Iterable, Iterable) single
+     * change set} fenced with the token of the passed session.
+     *
+     * @throws StaleFencingTokenException
+     *         if the storage rejects the changes, as the shard has been taken over by
+     *         a newer session
      */
-    void flushTo(InboxStorage storage) {
-        List<InboxMessage> dirtyMessages =
-                messages.values()
-                        .stream()
-                        .filter(message -> this.dirtyMessages.contains(message.getId()))
-                        .collect(toList());
-        storage.writeAll(dirtyMessages);
-        storage.removeAll(removals);
-        dirtyMessages.clear();
+    void flushTo(InboxStorage storage, ShardProcessingSession session) {
+        ImmutableList<InboxMessage> updates =
+                slots.values()
+                     .stream()
+                     .filter(Slot::isModified)
+                     .map(Slot::flush)
+                     .collect(toImmutableList());
+        if (!updates.isEmpty() || !removals.isEmpty()) {
+            storage.applyChanges(session.shardIndex(), session.fencingToken(),
+                                 updates, ImmutableList.copyOf(removals));
+        }
         removals.clear();
         duplicates.clear();
     }
@@ -232,4 +228,66 @@ final class Conveyor implements Iterable<InboxMessage> {
     Iterator<InboxMessage> removals() {
         return removals.iterator();
     }
+
+    /**
+     * A message travelling on the conveyor along with its pending changes.
+     */
+    private static final class Slot {
+
+        private InboxMessage message;
+        private InboxMessageStatus status;
+        private @Nullable Timestamp keepUntil;
+        private boolean modified;
+        private boolean stale;
+
+        private Slot(InboxMessage message) {
+            this.message = message;
+            this.status = message.getStatus();
+        }
+
+        private void setStatus(InboxMessageStatus status) {
+            if (this.status != status) {
+                this.status = status;
+                this.modified = true;
+                this.stale = true;
+            }
+        }
+
+        private void setKeepUntil(Timestamp keepUntil) {
+            this.keepUntil = keepUntil;
+            this.modified = true;
+            this.stale = true;
+        }
+
+        private boolean isModified() {
+            return modified;
+        }
+
+        /**
+         * Returns the message with all the pending changes applied.
+         *
+         * <p>The message is rebuilt only if it was changed since the last call.
+         */
+        private InboxMessage message() {
+            if (stale) {
+                InboxMessage.Builder builder = message.toBuilder()
+                                                      .setStatus(status);
+                if (keepUntil != null) {
+                    builder.setKeepUntil(keepUntil);
+                }
+                message = builder.build();
+                stale = false;
+            }
+            return message;
+        }
+
+        /**
+         * Returns the message with all the pending changes applied and marks it as unmodified.
+         */
+        private InboxMessage flush() {
+            InboxMessage result = message();
+            modified = false;
+            return result;
+        }
+    }
 }
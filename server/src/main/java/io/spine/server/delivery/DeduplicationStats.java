@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+/**
+ * The statistics on the cache of the recently delivered messages, which the {@link Delivery}
+ * uses for deduplication.
+ *
+ * <p>The lookups in the cache are exact. Therefore, a message is never taken for a duplicate
+ * by mistake. However, if the cache reaches its capacity, some of the identifiers are dropped
+ * before the deduplication window passes. Such identifiers are
+ * {@linkplain #evictedEarly() counted separately}, as their duplicates may be missed by the cache.
+ */
+public final class DeduplicationStats {
+
+    private final int size;
+    private final long estimatedBytes;
+    private final long lookups;
+    private final long hits;
+    private final long evictedEarly;
+
+    DeduplicationStats(int size, long estimatedBytes, long lookups, long hits, long evictedEarly) {
+        this.size = size;
+        this.estimatedBytes = estimatedBytes;
+        this.lookups = lookups;
+        this.hits = hits;
+        this.evictedEarly = evictedEarly;
+    }
+
+    /**
+     * Returns the number of the message identifiers currently kept in the cache.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the estimated amount of memory taken by the cache, in bytes.
+     */
+    public long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Returns the total number of the lookups performed in the cache.
+     */
+    public long lookups() {
+        return lookups;
+    }
+
+    /**
+     * Returns the total number of the duplicates found in the cache.
+     */
+    public long hits() {
+        return hits;
+    }
+
+    /**
+     * Returns the total number of the identifiers dropped from the cache before
+     * the deduplication window has passed.
+     */
+    public long evictedEarly() {
+        return evictedEarly;
+    }
+}
@@ -20,41 +20,244 @@
 
 package io.spine.server.delivery;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import com.google.protobuf.Timestamp;
-import io.spine.base.Time;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.Duration;
+import com.google.protobuf.util.Durations;
 
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * A cache of the messages locally delivered within the instance of {@link Delivery}.
  *
- * <p>The cache is limited in size, aiming to hunt down the only the duplicates of the recently
- * delivered messages. The idea behind it is that the messages were read locally anyway,
- * so as well their identifiers may be reused for deduplication instead of just wasting
- * the effort and feeding the garbage collector.
+ * <p>The idea behind it is that the messages were read locally anyway, so as well their
+ * identifiers may be reused for deduplication instead of just wasting the effort and feeding
+ * the garbage collector.
+ *
+ * <p>The identifiers are kept in several generations of hash sets. A new generation is started
+ * each time a {@linkplain DeliveryBuilder#setDeduplicationWindow(Duration) deduplication window}
+ * fraction passes, and the oldest generation is dropped at the same time. In this way,
+ * each identifier is remembered for at least the deduplication window.
+ *
+ * <p>The memory consumed by the cache is bounded by the maximum number of identifiers. Once
+ * the current generation is full, a new one is started ahead of time. If the dropped generation
+ * is younger than the deduplication window, its identifiers are counted as
+ * {@linkplain DeduplicationStats#evictedEarly() evicted early}. If the deduplication window
+ * is not set, the generations are rotated only by their size.
+ *
+ * <p>The lookups are exact, so there are no false positives: a message which has not been
+ * delivered is never taken for a duplicate.
+ *
+ * <p>The cache is safe for the concurrent use. The lookups and the records do not block each
+ * other, as the generations are concurrent sets, and the list of the generations is replaced
+ * as a whole. Only the rotation of the generations, which happens once per generation span,
+ * is performed under a lock.
  */
 final class DeliveredMessages {
 
-    private final Cache<DispatchingId, Timestamp> cache =
-            CacheBuilder.newBuilder()
-                        .maximumSize(1_000)
-                        .build();
+    /**
+     * The default maximum number of the identifiers to remember.
+     */
+    static final int DEFAULT_CAPACITY = 100_000;
+
+    /**
+     * The number of generations, into which the cached identifiers are split.
+     */
+    private static final int GENERATIONS = 4;
+
+    /**
+     * A rough estimate of the memory taken by a single cached identifier, in bytes.
+     *
+     * <p>Includes the {@link DispatchingId} itself, the hash set entry and the Protobuf
+     * identifiers of a signal and an inbox, which are retained by the {@code DispatchingId}.
+     */
+    private static final long BYTES_PER_ENTRY = 256;
+
+    private final Ticker ticker;
+    private final long windowNanos;
+    private final long generationSpanNanos;
+    private final int generationCapacity;
 
     /**
-     * Returns the set of the identifiers of the delivered messages.
+     * The generations of the identifiers, the newest first.
+     *
+     * <p>Is replaced as a whole when the generations are rotated.
      */
-    Set<DispatchingId> allDelivered() {
-        return cache.asMap()
-                    .keySet();
+    private volatile ImmutableList<Generation> generations;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final AtomicLong evictedEarly = new AtomicLong();
+
+    /**
+     * Creates a new cache remembering the identifiers for the given deduplication window.
+     */
+    DeliveredMessages(Duration deduplicationWindow) {
+        this(deduplicationWindow, DEFAULT_CAPACITY, Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    DeliveredMessages(Duration deduplicationWindow, int capacity, Ticker ticker) {
+        checkNotNull(deduplicationWindow);
+        checkArgument(capacity >= GENERATIONS,
+                      "The capacity of the cache must be at least %s.", GENERATIONS);
+        this.ticker = checkNotNull(ticker);
+        this.windowNanos = Durations.toNanos(deduplicationWindow);
+        this.generationSpanNanos = windowNanos > 0
+                                   ? Math.max(windowNanos / (GENERATIONS - 1), 1)
+                                   : Long.MAX_VALUE;
+        this.generationCapacity = capacity / GENERATIONS;
+        this.generations = ImmutableList.of(new Generation(ticker.read()));
+    }
+
+    /**
+     * Tells whether the passed message has been recently delivered.
+     */
+    boolean contains(InboxMessage message) {
+        rotateIfExpired();
+        lookups.increment();
+        DispatchingId id = new DispatchingId(message);
+        for (Generation generation : generations) {
+            if (generation.contains(id)) {
+                hits.increment();
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
      * Records the delivery of the message.
      */
     void recordDelivered(InboxMessage message) {
-        DispatchingId id = new DispatchingId(message);
-        cache.put(id, Time.currentTime());
+        rotateIfExpired();
+        Generation current = generations.get(0);
+        current.add(new DispatchingId(message));
+        if (current.size() >= generationCapacity) {
+            rotateFull(current);
+        }
+    }
+
+    /**
+     * Returns the current statistics of this cache.
+     */
+    DeduplicationStats stats() {
+        int size = 0;
+        for (Generation generation : generations) {
+            size += generation.size();
+        }
+        return new DeduplicationStats(size, size * BYTES_PER_ENTRY,
+                                      lookups.sum(), hits.sum(), evictedEarly.get());
+    }
+
+    /**
+     * Starts a new generation if the current one is older than its span, and drops
+     * the generations, which only hold the identifiers older than the deduplication window.
+     *
+     * <p>The check is performed without locking. The lock is only taken if the generations
+     * are due to be rotated.
+     */
+    private void rotateIfExpired() {
+        if (windowNanos <= 0) {
+            return;
+        }
+        long now = ticker.read();
+        if (isRotationDue(generations, now)) {
+            synchronized (this) {
+                ImmutableList<Generation> current = generations;
+                if (isRotationDue(current, now)) {
+                    generations = rotateExpired(current, now);
+                }
+            }
+        }
+    }
+
+    private boolean isRotationDue(ImmutableList<Generation> current, long now) {
+        boolean newDue = now - current.get(0).startedAt >= generationSpanNanos;
+        boolean oldDue = current.size() > 1
+                && now - current.get(current.size() - 1).endedAt >= windowNanos;
+        return newDue || oldDue;
+    }
+
+    private ImmutableList<Generation> rotateExpired(ImmutableList<Generation> current, long now) {
+        ImmutableList<Generation> result = current;
+        if (now - result.get(0).startedAt >= generationSpanNanos) {
+            result = rotate(result, now);
+        }
+        int kept = result.size();
+        while (kept > 1 && now - result.get(kept - 1).endedAt >= windowNanos) {
+            kept--;
+            drop(result.get(kept), now);
+        }
+        return result.subList(0, kept);
+    }
+
+    /**
+     * Starts a new generation ahead of time, as the passed current generation is full.
+     */
+    private synchronized void rotateFull(Generation full) {
+        ImmutableList<Generation> current = generations;
+        if (current.get(0) == full) {
+            generations = rotate(current, ticker.read());
+        }
+    }
+
+    private ImmutableList<Generation> rotate(ImmutableList<Generation> current, long now) {
+        current.get(0).endedAt = now;
+        ImmutableList.Builder<Generation> result = ImmutableList.builder();
+        result.add(new Generation(now));
+        int kept = Math.min(current.size(), GENERATIONS - 1);
+        result.addAll(current.subList(0, kept));
+        for (int i = kept; i < current.size(); i++) {
+            drop(current.get(i), now);
+        }
+        return result.build();
+    }
+
+    private void drop(Generation generation, long now) {
+        if (windowNanos > 0 && now - generation.endedAt < windowNanos) {
+            evictedEarly.addAndGet(generation.size());
+        }
+    }
+
+    /**
+     * The identifiers of the messages delivered since some point in time.
+     */
+    private static final class Generation {
+
+        private final long startedAt;
+        private final Set<DispatchingId> ids = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger size = new AtomicInteger();
+
+        /**
+         * The moment when the next generation has started.
+         */
+        private volatile long endedAt;
+
+        private Generation(long startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        private boolean contains(DispatchingId id) {
+            return ids.contains(id);
+        }
+
+        private void add(DispatchingId id) {
+            if (ids.add(id)) {
+                size.incrementAndGet();
+            }
+        }
+
+        private int size() {
+            return size.get();
+        }
     }
 }
@@ -22,9 +22,11 @@ package io.spine.server.delivery;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.protobuf.Duration;
 import com.google.protobuf.util.Durations;
 import io.spine.annotation.Internal;
+import io.spine.base.Time;
 import io.spine.logging.Logging;
 import io.spine.server.BoundedContext;
 import io.spine.server.NodeId;
@@ -32,16 +34,27 @@ import io.spine.server.ServerEnvironment;
 import io.spine.server.bus.MulticastDispatchListener;
 import io.spine.server.delivery.memory.InMemoryShardedWorkRegistry;
 import io.spine.server.projection.ProjectionRepository;
+import io.spine.server.tenant.IdInTenant;
+import io.spine.server.tenant.TenantAware;
+import io.spine.server.tenant.TenantAwareRunner;
 import io.spine.string.Stringifiers;
 import io.spine.type.TypeUrl;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static com.google.common.collect.Sets.newConcurrentHashSet;
 import static com.google.common.flogger.LazyArgs.lazy;
 import static java.util.Collections.synchronizedList;
 
@@ -73,6 +86,10 @@ import static java.util.Collections.synchronizedList;
  * the eventual consistency lag between {@code C} side (i.e. aggregate state updates)
  * and {@code Q} side (i.e. the respective updates in projections).
  *
+ * <p>If some of the targets receive much more messages than others, the
+ * {@link HotTargetAwareStrategy} may be used to move such targets into dedicated shards,
+ * so that they do not delay the delivery to other targets.
+ *
  * <h2>Deduplication</h2>
  *
  * <p>As long as the underlying storage and transport mechanisms are restricted by the CAP theorem,
@@ -120,6 +137,15 @@ import static java.util.Collections.synchronizedList;
  * environment a message queue may be used to notify the node cluster of a shard that has some
  * messages pending for the delivery.
  *
+ * <h2>Changing the number of shards</h2>
+ *
+ * <p>The number of shards may be changed by configuring a new {@code DeliveryStrategy}. In order
+ * to move the messages residing in the shards of the previous layout, the
+ * {@linkplain DeliveryBuilder#setPreviousShardCount(int) previous number of shards} should be
+ * specified. The {@link ConsistentAcrossShards} strategy keeps most of the targets in their
+ * shards when the number of shards changes, so that only a small part of the messages
+ * changes the shard.
+ *
  * <h2>Work registry</h2>
  *
  * <p>Once an application node picks the shard to deliver the messages from it, it registers itself
@@ -141,6 +167,25 @@ import static java.util.Collections.synchronizedList;
  * {@link DeliveryBuilder#setMonitor(DeliveryMonitor) supplying} a custom delivery monitor.
  * Please refer to the {@link DeliveryMonitor documentation} for the details.
  *
+ * <p>The {@link AdaptiveDeliveryMonitor} shipped with the framework limits how long a node
+ * may hold a shard, adjusts the page size to the measured latency of each stage, and yields
+ * the shard once other shards have been waiting for longer.
+ *
+ * <h3>Group commit</h3>
+ *
+ * <p>A signal dispatched via a {@code MulticastBus} to many entities produces an
+ * {@code InboxMessage} per each target. If the group commit is
+ * {@linkplain DeliveryBuilder#setGroupCommit(boolean) enabled}, such messages are written
+ * to the {@code InboxStorage} at once, after the signal is dispatched to all its targets.
+ * The shard observers are then notified once per each affected shard.
+ *
+ * <h3>Metrics</h3>
+ *
+ * <p>The timings of the conveyor stations, the detected duplicates and the contention for
+ * the shards may be passed to a metrics backend by
+ * {@linkplain DeliveryBuilder#setMetrics(DeliveryMetrics) supplying} custom
+ * {@link DeliveryMetrics}. The backlog of a shard is available via {@link #backlogOf(ShardIndex)}.
+ *
  * <h3>Conveyor and stations</h3>
  *
  * <p>In a scope of {@code DeliveryStage} the page of the {@code InboxMessage}s is placed
@@ -185,7 +230,9 @@ import static java.util.Collections.synchronizedList;
  *
  * <p>Additionally, the {@code Delivery} provides a {@linkplain DeliveredMessages cache of recently
  * delivered messages}. Each instance of the {@code Conveyor} has an access to it and uses it
- * in deduplication procedures.
+ * in deduplication procedures. The cache remembers the messages for the duration of
+ * the deduplication window and reports its {@linkplain DeduplicationStats statistics}
+ * to the {@code DeliveryMonitor}.
  *
  * <h2>Local environment</h2>
  *
@@ -195,11 +242,22 @@ import static java.util.Collections.synchronizedList;
  * {@link LocalDispatchingObserver#onMessage(InboxMessage) onMessage(InboxMessage)} method. This
  * process is synchronous.
  *
+ * <p>The {@linkplain Delivery#localAsync() asynchronous version} of the local delivery dispatches
+ * the messages in a bounded pool of threads. The notifications on the shard, which is already
+ * being delivered, are coalesced into a single subsequent delivery run.
+ *
  * <p>To deal with the multi-threaded access in a local mode,
  * an {@linkplain InMemoryShardedWorkRegistry} is used. It operates on top of the
  * {@code synchronized} in-memory data structures and prevents several threads from picking up the
  * same shard.
  *
+ * <h2>Draining shards</h2>
+ *
+ * <p>In order to make use of all the CPU cores of an application node, a {@link ShardDrainer}
+ * may be {@linkplain #newShardDrainer() created}. It delivers the messages from all the shards
+ * in several concurrent worker loops, stealing the work from each other when idle, and polls
+ * the {@code InboxStorage} for the messages written by other nodes.
+ *
  * <h2>Shard maintenance</h2>
  *
  * <p>To perform the maintenance procedures, the {@code Delivery} requires all the {@code
@@ -209,7 +267,7 @@ import static java.util.Collections.synchronizedList;
  * {@linkplain  io.spine.server.BoundedContextBuilder#build() built}.
  */
 @SuppressWarnings({"OverlyCoupledClass", "ClassWithTooManyMethods"}) // It's fine for a centerpiece.
-public final class Delivery implements Logging {
+public final class Delivery implements AutoCloseable, Logging {
 
     /**
      * The width of the deduplication window in a local environment.
@@ -262,22 +320,62 @@ public final class Delivery implements Logging {
      */
     private final CatchUpStorage catchUpStorage;
 
+    /**
+     * The cache of the catch-up jobs, through which the delivered messages are run.
+     */
+    private final CatchUpJobRegistry catchUpJobs;
+
     /**
      * How many messages to read per query when recalling the historical events from the event log
      * during the catch-up.
      */
     private final int catchUpPageSize;
 
+    /**
+     * How many pages of the event history to read ahead during the catch-up.
+     */
+    private final int catchUpPrefetchDepth;
+
+    /**
+     * How many shards may receive the recalled history events at the same time.
+     */
+    private final int catchUpParallelism;
+
     /**
      * The monitor of delivery stages.
      */
     private final DeliveryMonitor monitor;
 
+    /**
+     * The receiver of the metrics measured during the delivery.
+     */
+    private final DeliveryMetrics metrics;
+
     /**
      * The cache of the locally delivered messages.
      */
     private final DeliveredMessages deliveredMessages;
 
+    /**
+     * The migration of the messages from the previous shard layout.
+     *
+     * <p>Is {@code null}, if no migration is configured.
+     */
+    private final @Nullable ShardMigration migration;
+
+    /**
+     * The handover of the messages to the targets pinned to dedicated shards.
+     */
+    private final TargetHandover handover;
+
+    /**
+     * The shards, which delivery has been skipped, as the handover to them was not complete.
+     *
+     * <p>The shards are signalled again after the next delivery performed by this instance,
+     * as the handover may be blocked by the delivery of an original shard.
+     */
+    private final Set<IdInTenant<ShardIndex>> awaitingHandover = newConcurrentHashSet();
+
     /**
      * The maximum amount of messages to deliver within a {@link DeliveryStage}.
      */
@@ -292,18 +390,62 @@ public final class Delivery implements Logging {
     private final DeliveryDispatchListener dispatchListener =
             new DeliveryDispatchListener(this::onNewMessage);
 
+    /**
+     * The writer grouping the {@code Inbox} messages per dispatched signal,
+     * or {@code null} if the messages are written one by one.
+     */
+    private final @Nullable GroupCommitWriter groupCommit;
+
+    /**
+     * The clock stamping the messages written to the shards.
+     */
+    private final InboxClock clock = new InboxClock();
+
+    /**
+     * The observer delivering the messages in a local pool of threads, owned by this instance,
+     * or {@code null} if the local asynchronous delivery is not configured.
+     */
+    private final @Nullable LocalDispatchingObserver localAsync;
+
+    /**
+     * Renews the leases on the shards being delivered, if the work registry uses leases.
+     */
+    private final LeaseHeartbeat heartbeat;
+
     Delivery(DeliveryBuilder builder) {
         this.strategy = builder.getStrategy();
         this.workRegistry = builder.getWorkRegistry();
+        this.heartbeat = new LeaseHeartbeat(workRegistry.leaseDuration());
         this.deduplicationWindow = builder.getDeduplicationWindow();
         this.inboxStorage = builder.getInboxStorage();
         this.catchUpStorage = builder.getCatchUpStorage();
+        this.catchUpJobs = new CatchUpJobRegistry(this.catchUpStorage);
         this.catchUpPageSize = builder.getCatchUpPageSize();
+        this.catchUpPrefetchDepth = builder.getCatchUpPrefetchDepth();
+        this.catchUpParallelism = builder.getCatchUpParallelism();
         this.monitor = builder.getMonitor();
+        this.metrics = builder.getMetrics();
         this.pageSize = builder.getPageSize();
         this.deliveries = new InboxDeliveries();
         this.shardObservers = synchronizedList(new ArrayList<>());
-        this.deliveredMessages = new DeliveredMessages();
+        this.deliveredMessages = new DeliveredMessages(deduplicationWindow);
+        this.migration = builder.previousShardCount()
+                                .filter(count -> count != strategy.shardCount())
+                                .map(count -> new ShardMigration(count, strategy, inboxStorage,
+                                                                 workRegistry, pageSize,
+                                                                 this::onNewMessage))
+                                .orElse(null);
+        this.handover = new TargetHandover(strategy, inboxStorage, workRegistry, pageSize);
+        this.groupCommit = builder.groupCommit()
+                                  .orElse(false)
+                                  ? new GroupCommitWriter(notifyingWriter(), dispatchListener)
+                                  : null;
+        this.localAsync = builder.localAsyncThreads()
+                                 .map(LocalDispatchingObserver::async)
+                                 .orElse(null);
+        if (localAsync != null) {
+            shardObservers.add(localAsync);
+        }
     }
 
     /**
@@ -333,7 +475,8 @@ public final class Delivery implements Logging {
     /**
      * Creates a new instance of {@code Delivery} for local and development environment.
      *
-     * <p>The {@code InboxMessage}s are delivered to their targets asynchronously.
+     * <p>The {@code InboxMessage}s are delivered to their targets asynchronously, by a pool
+     * of threads which size equals to the number of available processors.
      *
      * <p>The returned instance of {@code Delivery} is configured to use
      * {@linkplain UniformAcrossAllShards#singleShard() the single shard}.
@@ -343,12 +486,15 @@ public final class Delivery implements Logging {
      * InMemoryStorageFactory} used.
      *
      * @see #local() to create a syncrhonous version of the local {@code Delivery}
+     * @see DeliveryBuilder#setLocalAsyncThreads(int) to configure the number of threads
      */
     public static Delivery localAsync() {
+        int threadCount = Runtime.getRuntime()
+                                 .availableProcessors();
         Delivery delivery = newBuilder()
                 .setStrategy(UniformAcrossAllShards.singleShard())
+                .setLocalAsyncThreads(threadCount)
                 .build();
-        delivery.subscribe(new LocalDispatchingObserver(true));
         return delivery;
     }
 
@@ -397,6 +543,13 @@ public final class Delivery implements Logging {
      * <p>Once the shard has no more messages to deliver, the delivery process ends, releasing
      * the lock for the respective {@code ShardIndex}.
      *
+     * <p>If the work registry uses {@linkplain ShardedWorkRegistry#leaseDuration() leases},
+     * the lease on the shard is {@linkplain ShardProcessingSession#renew() renewed} in
+     * the background for the whole time of the delivery, however long a single page takes.
+     * Before each page is delivered and before its changes are written, the delivery also
+     * checks that the lease is still held. If the lease turns out to be taken over by another
+     * node, the delivery stops without delivering the rest of the messages.
+     *
      * @param index
      *         the shard index to deliver the messages from.
      * @return the statistics on the performed delivery, or {@code Optional.empty()} if there
@@ -405,35 +558,76 @@ public final class Delivery implements Logging {
     public Optional<DeliveryStats> deliverMessagesFrom(ShardIndex index) {
         NodeId currentNode = ServerEnvironment.instance()
                                               .nodeId();
+        long pickUpStartedAt = System.nanoTime();
         Optional<ShardProcessingSession> picked = workRegistry.pickUp(index, currentNode);
+        metrics.onPickUp(index, picked.isPresent(), System.nanoTime() - pickUpStartedAt);
         if (!picked.isPresent()) {
             return Optional.empty();
         }
         ShardProcessingSession session = picked.get();
-        monitor.onDeliveryStarted(index);
-
+        LeaseHeartbeat.Beat beat = heartbeat.keepAlive(session);
         RunResult runResult;
         int totalDelivered = 0;
         try {
+            if (migration != null) {
+                migration.migrate(currentNode);
+            }
+            if (!handover.handOverTo(index, currentNode)) {
+                awaitingHandover.add(IdInTenant.of(index, TenantAware.isTenantSet()));
+                return Optional.empty();
+            }
+            monitor.onDeliveryStarted(index);
             do {
                 runResult = runDelivery(session);
                 totalDelivered += runResult.deliveredCount();
             } while (runResult.shouldRunAgain());
         } finally {
+            beat.stop();
             session.complete();
         }
+        if (runResult.leaseLost()) {
+            _warn().log("The lease on the shard %d of %d has been lost by the node `%s`.",
+                        index.getIndex(), index.getOfTotal(), currentNode.getValue());
+        }
         DeliveryStats stats = new DeliveryStats(index, totalDelivered);
         monitor.onDeliveryCompleted(stats);
+        monitor.onDeduplicationStats(deliveredMessages.stats());
         Optional<InboxMessage> lateMessage = inboxStorage.newestMessageToDeliver(index);
         lateMessage.ifPresent(this::onNewMessage);
+        notifyAwaitingHandover();
 
         return Optional.of(stats);
     }
 
+    /**
+     * Signals the shards, which delivery has been skipped because of an incomplete handover.
+     *
+     * <p>Each shard is signalled once. If the handover is still incomplete,
+     * the shard is signalled again after the next delivery.
+     */
+    private void notifyAwaitingHandover() {
+        if (awaitingHandover.isEmpty()) {
+            return;
+        }
+        Set<IdInTenant<ShardIndex>> awaiting = awaitingHandover.stream()
+                                                               .collect(toImmutableSet());
+        awaitingHandover.removeAll(awaiting);
+        for (IdInTenant<ShardIndex> shard : awaiting) {
+            Optional<InboxMessage> message =
+                    TenantAwareRunner.with(shard.tenant())
+                                     .evaluate(() -> inboxStorage.newestMessageToDeliver(
+                                             shard.value()));
+            message.ifPresent(this::onNewMessage);
+        }
+    }
+
     /**
      * Runs the delivery for the shard, which session is passed.
      *
-     * <p>The messages are read page-by-page according to the {@link #pageSize page size} setting.
+     * <p>The messages are read page-by-page. The size of each page is
+     * {@linkplain DeliveryMonitor#pageSize(ShardIndex, int) suggested} by the monitor,
+     * and defaults to the {@link #pageSize page size} setting. A changed size is applied
+     * to the next page, which is read after the last message of the current one.
      *
      * <p>After delivering each page of messages, a {@code DeliveryStage} is produced.
      * The configured {@link #monitor DeliveryMonitor} may stop the execution according to
@@ -444,80 +638,174 @@ public final class Delivery implements Logging {
     private RunResult runDelivery(ShardProcessingSession session) {
         ShardIndex index = session.shardIndex();
 
-        Page<InboxMessage> startingPage = inboxStorage.readAll(index, pageSize);
+        catchUpJobs.invalidate();
+        int currentPageSize = nextPageSize(index);
+        Page<InboxMessage> startingPage = inboxStorage.readAll(index, currentPageSize);
         Optional<Page<InboxMessage>> maybePage = Optional.of(startingPage);
 
         boolean continueAllowed = true;
+        boolean leaseLost = false;
         List<DeliveryStage> stages = new ArrayList<>();
         while (continueAllowed && maybePage.isPresent()) {
+            if (!session.renew()) {
+                leaseLost = true;
+                break;
+            }
             Page<InboxMessage> currentPage = maybePage.get();
-            ImmutableList<InboxMessage> messages = currentPage.contents();
+            Optional<ImmutableList<InboxMessage>> unpinned =
+                    redirectPinned(currentPage.contents(), session);
+            if (!unpinned.isPresent()) {
+                leaseLost = true;
+                break;
+            }
+            ImmutableList<InboxMessage> messages = unpinned.get();
             if (!messages.isEmpty()) {
+                clock.observe(messages.get(messages.size() - 1));
+                long startedAt = System.nanoTime();
                 DeliveryAction action = new GroupByTargetAndDeliver(deliveries);
                 Conveyor conveyor = new Conveyor(messages, deliveredMessages);
-                Iterable<CatchUp> catchUpJobs = catchUpStorage.readAll();
-                List<Station> stations = conveyorStationsFor(catchUpJobs, action);
-                DeliveryStage stage = launch(conveyor, stations, index);
+                CatchUpJobs jobs = catchUpJobs.jobsFor(messages);
+                List<Station> stations = conveyorStationsFor(jobs, action);
+                int delivered = launch(conveyor, stations, index);
+                if (!flush(conveyor, session)) {
+                    leaseLost = true;
+                    break;
+                }
+                DeliveryStage stage = newStage(index, delivered, messages.size(),
+                                               System.nanoTime() - startedAt);
                 continueAllowed = monitorTellsToContinue(stage);
                 stages.add(stage);
             }
             if (continueAllowed) {
-                maybePage = currentPage.next();
+                currentPageSize = nextPageSize(index);
+                maybePage = currentPage.next(currentPageSize);
             }
         }
 
         int totalMessagesDelivered = stages.stream()
                                            .map(DeliveryStage::getMessagesDelivered)
                                            .reduce(0, Integer::sum);
-        return new RunResult(totalMessagesDelivered, !continueAllowed);
+        return new RunResult(totalMessagesDelivered, !continueAllowed, leaseLost);
     }
 
     /**
-     * Launches the conveyor, running it through the passed stations and processing the messages
-     * in the specified shard.
+     * Moves the messages of the targets pinned to dedicated shards away from the page
+     * of their original shard and signals the dedicated shards.
      *
-     * <p>Once all the stations complete their routine, this {@code DeliveryStage} is considered
-     * completed.
+     * @return the messages of the page to deliver from the current shard,
+     *         or {@code Optional.empty()} if the lease on the shard has been lost
+     */
+    private Optional<ImmutableList<InboxMessage>>
+    redirectPinned(ImmutableList<InboxMessage> messages, ShardProcessingSession session) {
+        ImmutableList<InboxMessage> redirected;
+        try {
+            redirected = handover.redirectPinned(messages, session);
+        } catch (StaleFencingTokenException e) {
+            _warn().log(e.getMessage());
+            return Optional.empty();
+        }
+        if (redirected.isEmpty()) {
+            return Optional.of(messages);
+        }
+        Map<ShardIndex, InboxMessage> newestPerShard = new HashMap<>();
+        for (InboxMessage message : redirected) {
+            newestPerShard.put(message.shardIndex(), message);
+        }
+        newestPerShard.values()
+                      .forEach(this::onNewMessage);
+        ImmutableSet<InboxId> pinned = redirected.stream()
+                                                 .map(InboxMessage::getInboxId)
+                                                 .collect(toImmutableSet());
+        ImmutableList<InboxMessage> result =
+                messages.stream()
+                        .filter(message -> !pinned.contains(message.getInboxId()))
+                        .collect(toImmutableList());
+        return Optional.of(result);
+    }
+
+    /**
+     * Asks the monitor for the size of the next page to read from the shard.
      *
-     * @return the delivery stage results
+     * <p>When the size changes in the middle of the run, the next page of the new size is read
+     * after the last message of the current page.
      */
-    private DeliveryStage launch(Conveyor conveyor, Iterable<Station> stations, ShardIndex index) {
+    private int nextPageSize(ShardIndex index) {
+        int result = monitor.pageSize(index, pageSize);
+        checkState(result > 0,
+                   "The page size suggested by `%s` must be positive, but was %s.",
+                   monitor.getClass().getName(), result);
+        return result;
+    }
+
+    private int launch(Conveyor conveyor, Iterable<Station> stations, ShardIndex index) {
         int deliveredInBatch = 0;
 
         for (Station station : stations) {
+            long startedAt = System.nanoTime();
             Station.Result result = station.process(conveyor);
+            metrics.onStationCompleted(index, station.getClass().getSimpleName(),
+                                       System.nanoTime() - startedAt, result.deliveredCount());
             result.errors()
                   .throwIfAny();
             deliveredInBatch += result.deliveredCount();
         }
-        notifyOfDuplicatesIn(conveyor);
-        conveyor.flushTo(inboxStorage);
+        notifyOfDuplicatesIn(conveyor, index);
+        return deliveredInBatch;
+    }
 
-        return newStage(index, deliveredInBatch);
+    /**
+     * Writes the changes made by the conveyor to the {@code InboxStorage}.
+     *
+     * <p>The changes are written only if the session still holds the shard. They are fenced
+     * with the session token, so that the storage rejects them if the shard has been
+     * taken over in between.
+     *
+     * @return {@code true} if the changes are written,
+     *         {@code false} if the lease on the shard has been lost
+     */
+    private boolean flush(Conveyor conveyor, ShardProcessingSession session) {
+        if (!session.renew()) {
+            return false;
+        }
+        try {
+            conveyor.flushTo(inboxStorage, session);
+            return true;
+        } catch (StaleFencingTokenException e) {
+            _warn().log(e.getMessage());
+            return false;
+        }
     }
 
-    private ImmutableList<Station> conveyorStationsFor(Iterable<CatchUp> catchUpJobs,
-                                                       DeliveryAction action) {
+    private ImmutableList<Station> conveyorStationsFor(CatchUpJobs jobs, DeliveryAction action) {
         return ImmutableList.of(
-                new CatchUpStation(action, catchUpJobs),
+                new CatchUpStation(action, jobs),
                 new LiveDeliveryStation(action, deduplicationWindow),
                 new CleanupStation()
         );
     }
 
-    private void notifyOfDuplicatesIn(Conveyor conveyor) {
+    private void notifyOfDuplicatesIn(Conveyor conveyor, ShardIndex index) {
         Stream<InboxMessage> streamOfDuplicates = conveyor.recentDuplicates();
+        Map<String, Integer> duplicatesPerType = new HashMap<>();
         streamOfDuplicates.forEach((message) -> {
             ShardedMessageDelivery<InboxMessage> delivery = deliveries.get(message);
             delivery.onDuplicate(message);
+            duplicatesPerType.merge(message.getInboxId()
+                                           .getTypeUrl(), 1, Integer::sum);
         });
+        duplicatesPerType.forEach(
+                (type, count) -> metrics.onDuplicates(index, TypeUrl.parse(type), count)
+        );
     }
 
-    private static DeliveryStage newStage(ShardIndex index, int deliveredInBatch) {
+    private static DeliveryStage
+    newStage(ShardIndex index, int deliveredInBatch, int messagesRead, long elapsedNanos) {
         return DeliveryStage
                 .newBuilder()
                 .setIndex(index)
                 .setMessagesDelivered(deliveredInBatch)
+                .setPageSize(messagesRead)
+                .setDuration(Durations.fromNanos(elapsedNanos))
                 .vBuild();
     }
 
@@ -570,7 +858,10 @@ public final class Delivery implements Logging {
     public <I> CatchUpProcessBuilder<I> newCatchUpProcess(ProjectionRepository<I, ?, ?> repo) {
         CatchUpProcessBuilder<I> builder = CatchUpProcess.newBuilder(repo);
         return builder.setStorage(catchUpStorage)
-                      .setPageSize(catchUpPageSize);
+                      .setJobRegistry(catchUpJobs)
+                      .setPageSize(catchUpPageSize)
+                      .setPrefetchDepth(catchUpPrefetchDepth)
+                      .setParallelism(catchUpParallelism);
     }
 
     /**
@@ -593,7 +884,26 @@ public final class Delivery implements Logging {
      */
     @Internal
     public MulticastDispatchListener dispatchListener() {
-        return dispatchListener;
+        return groupCommit != null
+               ? groupCommit
+               : dispatchListener;
+    }
+
+    /**
+     * Collects the messages currently waiting for the delivery in the shard with
+     * the given index.
+     *
+     * <p>The whole shard is read page-by-page, so this method is intended for an occasional
+     * polling by a metrics backend rather than for calling on each delivery.
+     *
+     * @param index
+     *         the index of the shard
+     * @return the backlog of the shard grouped by the target type
+     */
+    public ShardBacklog backlogOf(ShardIndex index) {
+        checkNotNull(index);
+        Page<InboxMessage> firstPage = inboxStorage.readAll(index, pageSize);
+        return ShardBacklog.collect(index, firstPage, Time.currentTime());
     }
 
     /**
@@ -609,6 +919,30 @@ public final class Delivery implements Logging {
         shardObservers.add(observer);
     }
 
+    /**
+     * Creates a builder of the {@link ShardDrainer}, which delivers the messages from all
+     * the shards of this {@code Delivery} in several concurrent worker loops.
+     *
+     * <p>The built drainer is subscribed to the updates of shard contents.
+     */
+    public ShardDrainer.Builder newShardDrainer() {
+        return ShardDrainer.newBuilder(this);
+    }
+
+    /**
+     * Releases the threads owned by this {@code Delivery}.
+     *
+     * <p>The deliveries in progress are completed, while the local asynchronous delivery
+     * ignores the new messages. The leases on the shards being delivered are no longer renewed.
+     */
+    @Override
+    public void close() {
+        if (localAsync != null) {
+            localAsync.close();
+        }
+        heartbeat.close();
+    }
+
     /**
      * Registers the passed {@code Inbox} and puts its {@linkplain Inbox#delivery() delivery
      * callbacks} into the list of those to be called, when the previously sharded messages
@@ -632,6 +966,25 @@ public final class Delivery implements Logging {
         return strategy.determineIndex(entityId, entityStateType);
     }
 
+    /**
+     * Records that a message heading to the entity with the specified identifier has arrived
+     * to its inbox.
+     */
+    void recordArrival(Object entityId, TypeUrl entityStateType) {
+        strategy.recordArrival(entityId, entityStateType);
+    }
+
+    /**
+     * Sets the time of receiving and the version to the message written to the shard
+     * with the given index.
+     *
+     * <p>The messages written by this node to the same shard are stamped in a strictly
+     * increasing order.
+     */
+    void stamp(ShardIndex index, InboxMessage.Builder message) {
+        clock.stamp(index, message);
+    }
+
     /**
      * Unregisters the given {@code Inbox} and removes all the {@linkplain Inbox#delivery()
      * delivery callbacks} previously registered by this {@code Inbox}.
@@ -645,6 +998,15 @@ public final class Delivery implements Logging {
         return inboxStorage;
     }
 
+    /**
+     * Tells whether the shard with the given index has messages to deliver
+     * for the current tenant.
+     */
+    boolean hasMessagesToDeliver(ShardIndex index) {
+        return inboxStorage.newestMessageToDeliver(index)
+                           .isPresent();
+    }
+
     int shardCount() {
         return strategy.shardCount();
     }
@@ -655,6 +1017,12 @@ public final class Delivery implements Logging {
     }
 
     private InboxWriter inboxWriter() {
+        return groupCommit != null
+               ? groupCommit
+               : notifyingWriter();
+    }
+
+    private InboxWriter notifyingWriter() {
         return new NotifyingWriter(inboxStorage) {
 
             @Override
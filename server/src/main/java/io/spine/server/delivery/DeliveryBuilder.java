@@ -55,8 +55,14 @@ public final class DeliveryBuilder {
     private @MonotonicNonNull ShardedWorkRegistry workRegistry;
     private @MonotonicNonNull Duration deduplicationWindow;
     private @MonotonicNonNull DeliveryMonitor deliveryMonitor;
+    private @MonotonicNonNull DeliveryMetrics metrics;
     private @MonotonicNonNull Integer pageSize;
     private @MonotonicNonNull Integer catchUpPageSize;
+    private @MonotonicNonNull Integer catchUpPrefetchDepth;
+    private @MonotonicNonNull Integer catchUpParallelism;
+    private @MonotonicNonNull Integer localAsyncThreads;
+    private @MonotonicNonNull Integer previousShardCount;
+    private @MonotonicNonNull Boolean groupCommit;
 
     /**
      * Prevents a direct instantiation of this class.
@@ -151,6 +157,18 @@ public final class DeliveryBuilder {
         return checkNotNull(deliveryMonitor);
     }
 
+    /**
+     * Returns the value of the configured {@code DeliveryMetrics} or {@code Optional.empty()}
+     * if no such value was configured.
+     */
+    public Optional<DeliveryMetrics> metrics() {
+        return Optional.ofNullable(metrics);
+    }
+
+    DeliveryMetrics getMetrics() {
+        return checkNotNull(metrics);
+    }
+
     /**
      * Returns the value of the configured page size or {@code Optional.empty()}
      * if no such value was configured.
@@ -175,6 +193,54 @@ public final class DeliveryBuilder {
         return checkNotNull(catchUpPageSize);
     }
 
+    /**
+     * Returns the value of the configured catch-up prefetch depth or {@code Optional.empty()}
+     * if no such value was configured.
+     */
+    public Optional<Integer> catchUpPrefetchDepth() {
+        return Optional.ofNullable(catchUpPrefetchDepth);
+    }
+
+    Integer getCatchUpPrefetchDepth() {
+        return checkNotNull(catchUpPrefetchDepth);
+    }
+
+    /**
+     * Returns the value of the configured catch-up parallelism or {@code Optional.empty()}
+     * if no such value was configured.
+     */
+    public Optional<Integer> catchUpParallelism() {
+        return Optional.ofNullable(catchUpParallelism);
+    }
+
+    Integer getCatchUpParallelism() {
+        return checkNotNull(catchUpParallelism);
+    }
+
+    /**
+     * Returns the configured number of threads for the local asynchronous delivery
+     * or {@code Optional.empty()} if no such value was configured.
+     */
+    public Optional<Integer> localAsyncThreads() {
+        return Optional.ofNullable(localAsyncThreads);
+    }
+
+    /**
+     * Returns the number of shards in the previous shard layout or {@code Optional.empty()}
+     * if no such value was configured.
+     */
+    public Optional<Integer> previousShardCount() {
+        return Optional.ofNullable(previousShardCount);
+    }
+
+    /**
+     * Returns whether the group commit of the {@code Inbox} messages is enabled
+     * or {@code Optional.empty()} if no such value was configured.
+     */
+    public Optional<Boolean> groupCommit() {
+        return Optional.ofNullable(groupCommit);
+    }
+
     @CanIgnoreReturnValue
     public DeliveryBuilder setWorkRegistry(ShardedWorkRegistry workRegistry) {
         this.workRegistry = checkNotNull(workRegistry);
@@ -239,6 +305,9 @@ public final class DeliveryBuilder {
      * Sets the custom {@code DeliveryMonitor}.
      *
      * <p>If none set, {@link DeliveryMonitor#alwaysContinue()}  is used.
+     *
+     * <p>If the monitor is also a {@link ShardObserver}, it is
+     * {@linkplain Delivery#subscribe(ShardObserver) subscribed} to the built {@code Delivery}.
      */
     @CanIgnoreReturnValue
     public DeliveryBuilder setMonitor(DeliveryMonitor monitor) {
@@ -246,6 +315,32 @@ public final class DeliveryBuilder {
         return this;
     }
 
+    /**
+     * Sets the custom {@code DeliveryMetrics}.
+     *
+     * <p>If none set, the metrics are not collected.
+     */
+    @CanIgnoreReturnValue
+    public DeliveryBuilder setMetrics(DeliveryMetrics metrics) {
+        this.metrics = checkNotNull(metrics);
+        return this;
+    }
+
+    /**
+     * Enables or disables the group commit of the {@code Inbox} messages.
+     *
+     * <p>When enabled, the messages produced by dispatching a signal to several targets via
+     * a {@code MulticastBus} are written to the {@code InboxStorage} at once, once the signal
+     * is dispatched to all of them. Each affected shard is then notified once.
+     *
+     * <p>If none set, the messages are written one by one.
+     */
+    @CanIgnoreReturnValue
+    public DeliveryBuilder setGroupCommit(boolean enabled) {
+        this.groupCommit = enabled;
+        return this;
+    }
+
     /**
      * Sets the maximum amount of messages to deliver within a {@link DeliveryStage}.
      *
@@ -271,6 +366,90 @@ public final class DeliveryBuilder {
         return this;
     }
 
+    /**
+     * Sets how many pages of the event history are read ahead during the catch-up,
+     * while the current page is dispatched.
+     *
+     * <p>The pages of the history are read in the background, so that the reading from
+     * the {@code EventStore} and the dispatching of the events go in parallel. The memory
+     * consumed by each catch-up grows with the depth, as each page holds up to
+     * the {@linkplain #setCatchUpPageSize(int) catch-up page size} events.
+     *
+     * <p>If none set, zero is used, meaning the pages are read one by one.
+     */
+    @CanIgnoreReturnValue
+    public DeliveryBuilder setCatchUpPrefetchDepth(int catchUpPrefetchDepth) {
+        checkArgument(catchUpPrefetchDepth >= 0);
+        this.catchUpPrefetchDepth = catchUpPrefetchDepth;
+        return this;
+    }
+
+    /**
+     * Sets how many shards may receive the recalled history events at the same time
+     * during the catch-up.
+     *
+     * <p>The recalled events are partitioned by the shards of their target projections.
+     * Each partition is then sent to the inbox of its shard in a separate thread. The events
+     * of a single target always belong to the same partition, so each target receives its
+     * events in their historical order.
+     *
+     * <p>If none set, one is used, meaning the events are dispatched one by one.
+     */
+    @CanIgnoreReturnValue
+    public DeliveryBuilder setCatchUpParallelism(int catchUpParallelism) {
+        checkArgument(catchUpParallelism > 0);
+        this.catchUpParallelism = catchUpParallelism;
+        return this;
+    }
+
+    /**
+     * Makes the built {@code Delivery} dispatch the messages to their targets locally and
+     * asynchronously, as soon as the messages are written to their inboxes.
+     *
+     * <p>The delivery is performed by a fixed pool of threads of the given size. The
+     * notifications on a shard, which is already scheduled for the delivery or is being delivered,
+     * do not lead to any extra tasks. Instead, they are coalesced into a single subsequent run.
+     * The pool is shut down when the built {@code Delivery} is {@linkplain Delivery#close()
+     * closed}.
+     *
+     * <p>Suitable for the local and development environment. If none set, the built
+     * {@code Delivery} does not dispatch the messages on its own.
+     *
+     * @see Delivery#localAsync()
+     */
+    @CanIgnoreReturnValue
+    public DeliveryBuilder setLocalAsyncThreads(int threadCount) {
+        checkArgument(threadCount > 0);
+        this.localAsyncThreads = threadCount;
+        return this;
+    }
+
+    /**
+     * Makes the built {@code Delivery} move the messages from the shards of the previous layout
+     * with the given number of shards to the shards of the currently configured
+     * {@linkplain #setStrategy(DeliveryStrategy) strategy}.
+     *
+     * <p>The messages are moved in the beginning of each
+     * {@linkplain Delivery#deliverMessagesFrom(ShardIndex) delivery run}, each of the previous
+     * shards being picked up in the {@code ShardedWorkRegistry} for the time of the move.
+     * Once a previous shard is found empty, it is not read again by the built instance.
+     * Once all the previous shards are empty, the setting may be removed.
+     *
+     * <p>The migration is designed for the case when all the application nodes are switched
+     * to the new number of shards. It is most efficient with the
+     * {@link ConsistentAcrossShards} strategy, as only a small part of the targets then
+     * changes its shard.
+     *
+     * <p>If none set, or if the value is equal to the current number of shards,
+     * no migration is performed.
+     */
+    @CanIgnoreReturnValue
+    public DeliveryBuilder setPreviousShardCount(int shardCount) {
+        checkArgument(shardCount > 0);
+        this.previousShardCount = shardCount;
+        return this;
+    }
+
     @SuppressWarnings("PMD.NPathComplexity")    // The readability of this method is fine.
     public Delivery build() {
         if (strategy == null) {
@@ -298,6 +477,10 @@ public final class DeliveryBuilder {
             deliveryMonitor = DeliveryMonitor.alwaysContinue();
         }
 
+        if (metrics == null) {
+            metrics = DeliveryMetrics.noOp();
+        }
+
         if (pageSize == null) {
             pageSize = DEFAULT_PAGE_SIZE;
         }
@@ -306,7 +489,18 @@ public final class DeliveryBuilder {
             catchUpPageSize = DEFAULT_CATCH_UP_PAGE_SIZE;
         }
 
+        if (catchUpPrefetchDepth == null) {
+            catchUpPrefetchDepth = 0;
+        }
+
+        if (catchUpParallelism == null) {
+            catchUpParallelism = 1;
+        }
+
         Delivery delivery = new Delivery(this);
+        if (deliveryMonitor instanceof ShardObserver) {
+            delivery.subscribe((ShardObserver) deliveryMonitor);
+        }
         return delivery;
     }
 
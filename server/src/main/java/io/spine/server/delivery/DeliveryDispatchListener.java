@@ -78,11 +78,7 @@ final class DeliveryDispatchListener implements MulticastDispatchListener {
      *         the message to notify of
      */
     void notifyOf(InboxMessage message) {
-        SignalId id = message.hasEvent()
-                      ? message.getEvent()
-                               .getId()
-                      : message.getCommand()
-                               .getId();
+        SignalId id = signalOf(message);
         if (currentlyDispatching.contains(id)) {
             pending.put(id, message);
         } else {
@@ -90,6 +86,17 @@ final class DeliveryDispatchListener implements MulticastDispatchListener {
         }
     }
 
+    /**
+     * Returns the identifier of the signal, which is wrapped into the passed message.
+     */
+    static SignalId signalOf(InboxMessage message) {
+        return message.hasEvent()
+               ? message.getEvent()
+                        .getId()
+               : message.getCommand()
+                        .getId();
+    }
+
     private void propagateMessage(InboxMessage message) {
         TenantId tenant =
                 message.hasEvent() ? message.getEvent()
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import io.spine.annotation.SPI;
+import io.spine.server.NodeId;
+import io.spine.type.TypeUrl;
+
+/**
+ * A receiver of the metrics measured during the {@link Delivery Inbox Delivery} process.
+ *
+ * <p>The descendants may override the methods of interest and pass the received values
+ * to a metrics backend of choice. All the methods are called synchronously from the delivery
+ * process, so the implementations should return quickly.
+ *
+ * <p>The current backlog of a shard is not pushed to the metrics, as collecting it requires
+ * reading the whole shard. Instead, it may be pulled on demand via
+ * {@link Delivery#backlogOf(ShardIndex)}.
+ *
+ * <p>By default, {@linkplain #noOp() no metrics} are collected.
+ */
+@SPI
+public class DeliveryMetrics {
+
+    private static final DeliveryMetrics NO_OP = new DeliveryMetrics();
+
+    /**
+     * Called after an attempt to {@linkplain ShardedWorkRegistry#pickUp(ShardIndex, NodeId)
+     * pick up} the shard for the delivery.
+     *
+     * <p>The failed attempts mean the shard is being processed by another node or thread,
+     * and their rate tells how contended the shard is.
+     *
+     * @param index
+     *         the index of the shard
+     * @param pickedUp
+     *         whether the shard was picked up
+     * @param elapsedNanos
+     *         how long the attempt took, in nanoseconds
+     */
+    @SuppressWarnings("unused")  // This SPI method is designed for descendants.
+    public void onPickUp(ShardIndex index, boolean pickedUp, long elapsedNanos) {
+        // do nothing.
+    }
+
+    /**
+     * Called once a conveyor station has processed a page of messages read from the shard.
+     *
+     * @param index
+     *         the index of the shard
+     * @param station
+     *         the name of the station, such as {@code "CatchUpStation"},
+     *         {@code "LiveDeliveryStation"} or {@code "CleanupStation"}
+     * @param elapsedNanos
+     *         how long the processing took, in nanoseconds
+     * @param deliveredCount
+     *         how many messages were delivered by the station
+     */
+    @SuppressWarnings("unused")  // This SPI method is designed for descendants.
+    public void onStationCompleted(ShardIndex index,
+                                   String station,
+                                   long elapsedNanos,
+                                   int deliveredCount) {
+        // do nothing.
+    }
+
+    /**
+     * Called once some duplicates of the already delivered messages were detected
+     * in the shard.
+     *
+     * @param index
+     *         the index of the shard
+     * @param targetType
+     *         the type of the entities to which the duplicates were sent
+     * @param count
+     *         the number of the duplicates detected
+     */
+    @SuppressWarnings("unused")  // This SPI method is designed for descendants.
+    public void onDuplicates(ShardIndex index, TypeUrl targetType, int count) {
+        // do nothing.
+    }
+
+    /**
+     * Returns an instance of {@code DeliveryMetrics} which ignores all the metrics.
+     */
+    static DeliveryMetrics noOp() {
+        return NO_OP;
+    }
+}
@@ -83,10 +83,52 @@ public class DeliveryMonitor {
         // do nothing.
     }
 
+    /**
+     * Called once the shard with the given index has been picked up by this node,
+     * before any messages are delivered from it.
+     *
+     * @param index
+     *         the index of the shard which delivery is started
+     */
+    @SuppressWarnings("unused")  // This SPI method is designed for descendants.
     public void onDeliveryStarted(ShardIndex index) {
         // do nothing.
     }
 
+    /**
+     * Determines how many messages to read from the shard for the next {@code DeliveryStage}.
+     *
+     * <p>The descendants may override this method to adapt the page size to the observed
+     * {@linkplain DeliveryStage#getDuration() duration} of the previous stages.
+     *
+     * @param index
+     *         the index of the shard which is being delivered
+     * @param configuredSize
+     *         the page size {@linkplain DeliveryBuilder#setPageSize(int) configured}
+     *         for the {@code Delivery}
+     * @return a positive number of messages to read
+     * @implNote The default implementation returns the configured page size.
+     */
+    @SuppressWarnings("unused")  // This SPI method is designed for descendants.
+    public int pageSize(ShardIndex index, int configuredSize) {
+        return configuredSize;
+    }
+
+    /**
+     * Called once some delivery process has completed with the current statistics
+     * of the cache of recently delivered messages.
+     *
+     * <p>The descendants may override this method to track the memory consumed by the cache
+     * and its efficiency in detecting the duplicates.
+     *
+     * @param stats
+     *         the statistics of the deduplication cache
+     */
+    @SuppressWarnings("unused")  // This SPI method is designed for descendants.
+    public void onDeduplicationStats(DeduplicationStats stats) {
+        // do nothing.
+    }
+
     /**
      * Returns an instance of {@code DeliveryMonitor} which always tells to continue.
      */
@@ -20,6 +20,9 @@
 
 package io.spine.server.delivery;
 
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.Duration;
+import com.google.protobuf.util.Durations;
 import io.spine.annotation.Internal;
 import io.spine.type.TypeUrl;
 
@@ -53,6 +56,56 @@ public abstract class DeliveryStrategy {
      */
     protected abstract int shardCount();
 
+    /**
+     * Records that a message heading to the entity with the specified identifier has arrived
+     * to its inbox.
+     *
+     * <p>The strategies may use this information to adjust the distribution of the targets.
+     * This method is called for each message written to an inbox, so the implementations
+     * must be thread-safe and fast.
+     *
+     * @param entityId
+     *         the identifier of the entity, to which the message is dispatched
+     * @param entityStateType
+     *         the type URL of the entity, to which the message is dispatched
+     */
+    @SuppressWarnings("unused")  // This method is designed for descendants.
+    protected void recordArrival(Object entityId, TypeUrl entityStateType) {
+        // do nothing.
+    }
+
+    /**
+     * Returns the pins of the targets to the given shard, which messages should be moved
+     * from their original shards before the given shard is delivered.
+     *
+     * <p>Returns an empty list by default.
+     */
+    ImmutableList<TargetPin> pendingHandoversTo(ShardIndex index) {
+        return ImmutableList.of();
+    }
+
+    /**
+     * Returns the pins of the targets, which original shard is the given one.
+     *
+     * <p>The messages of such targets found in the given shard must not be delivered from it,
+     * as they are delivered from the shards, to which the targets are pinned.
+     *
+     * <p>Returns an empty list by default.
+     */
+    ImmutableList<TargetPin> pinsFrom(ShardIndex origin) {
+        return ImmutableList.of();
+    }
+
+    /**
+     * Returns for how long after a target is pinned the messages to it may still be written
+     * to its original shard by some of the application nodes.
+     *
+     * <p>Returns zero by default.
+     */
+    Duration pinPropagationTime() {
+        return Durations.ZERO;
+    }
+
     @SuppressWarnings("WeakerAccess")   // A part of the public API.
     public final ShardIndex determineIndex(Object entityId, TypeUrl entityStateType) {
         if (entityStateType.equals(ShardMaintenanceProcess.TYPE)) {
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.MultimapBuilder;
+import io.spine.core.SignalId;
+import io.spine.core.TenantId;
+import io.spine.server.bus.MulticastDispatchListener;
+import io.spine.server.tenant.TenantAwareRunner;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.google.common.collect.Multimaps.synchronizedListMultimap;
+import static io.spine.server.delivery.DeliveryDispatchListener.signalOf;
+import static java.util.Collections.synchronizedSet;
+
+/**
+ * A writer of {@code Inbox} messages, which groups the messages produced by the dispatching
+ * of a single signal and writes them at once.
+ *
+ * <p>An event dispatched to many entities via a {@code MulticastBus} results in a message
+ * per each target. Instead of writing each of them separately, this writer keeps the messages
+ * until the signal is dispatched to all its targets, and then passes them to
+ * the {@linkplain InboxWriter#writeAll(ImmutableList) delegate} as a single batch.
+ *
+ * <p>The messages of the signals dispatched outside of a {@code MulticastBus} are written
+ * immediately.
+ *
+ * <p>Serves as a listener of the dispatching operations, passing the notifications
+ * further to the given listener once the grouped messages are written.
+ */
+final class GroupCommitWriter implements InboxWriter, MulticastDispatchListener {
+
+    private final InboxWriter delegate;
+    private final MulticastDispatchListener listener;
+
+    private final Multimap<SignalId, InboxMessage> pending =
+            synchronizedListMultimap(MultimapBuilder.hashKeys()
+                                                    .arrayListValues()
+                                                    .build());
+
+    private final Set<SignalId> currentlyDispatching = synchronizedSet(new HashSet<>());
+
+    GroupCommitWriter(InboxWriter delegate, MulticastDispatchListener listener) {
+        this.delegate = delegate;
+        this.listener = listener;
+    }
+
+    @Override
+    public void write(InboxMessage message) {
+        SignalId signal = signalOf(message);
+        if (currentlyDispatching.contains(signal)) {
+            pending.put(signal, message);
+        } else {
+            delegate.write(message);
+        }
+    }
+
+    @Override
+    public void writeAll(ImmutableList<InboxMessage> messages) {
+        delegate.writeAll(messages);
+    }
+
+    @Override
+    public void onStarted(SignalId signal) {
+        currentlyDispatching.add(signal);
+        listener.onStarted(signal);
+    }
+
+    /**
+     * Writes the messages produced by the dispatched signal, and then tells the listener
+     * that the dispatching has been completed.
+     *
+     * <p>As the listener is notified in a {@code finally} block, it is told of the completion
+     * even if the messages could not be written.
+     */
+    @Override
+    public void onCompleted(SignalId signal) {
+        try {
+            if (currentlyDispatching.remove(signal)) {
+                flush(ImmutableList.copyOf(pending.removeAll(signal)));
+            }
+        } finally {
+            listener.onCompleted(signal);
+        }
+    }
+
+    private void flush(ImmutableList<InboxMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        TenantId tenant = messages.get(0)
+                                  .tenant();
+        TenantAwareRunner
+                .with(tenant)
+                .run(() -> delegate.writeAll(messages));
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.protobuf.Timestamp;
+import io.spine.core.Event;
+import io.spine.logging.Logging;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Predicate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Maps.newConcurrentMap;
+import static com.google.common.collect.Sets.newConcurrentHashSet;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+
+/**
+ * Reads the event history for the catch-up processes ahead of time.
+ *
+ * <p>Once a page of the history is read for some catch-up, the following pages are read
+ * in the background, while the current page is dispatched. Each page is read after the last
+ * one, so the pages of a single catch-up are read sequentially.
+ *
+ * <p>At most {@code depth} pages are read ahead for each catch-up. The pipeline of a catch-up
+ * is only refilled as its pages are {@linkplain #read(CatchUpId, Timestamp, HistoryReader) taken},
+ * so a slow dispatching holds back the reading.
+ *
+ * <p>The prefetched pages are only used if they continue exactly from the point at which
+ * the catch-up is at. Otherwise, e.g. if the previous round was handled by another node,
+ * the pipeline is dropped and the page is read directly. An empty prefetched page is never
+ * trusted, as the newer events could have appeared in the history since it was read.
+ *
+ * <p>The pipelines are dropped once their catch-ups are completed. As a catch-up may be
+ * completed by another node, the pipelines of the completed catch-ups are also looked up
+ * each time a pipeline is started for a new catch-up.
+ *
+ * <p>The prefetcher owns the threads reading the history. Once it is {@linkplain #close()
+ * closed}, the pages are read directly.
+ */
+final class HistoryPrefetcher implements AutoCloseable, Logging {
+
+    private final int depth;
+    private final Predicate<CatchUpId> completed;
+    private final ExecutorService executor;
+    private final Map<CatchUpId, Deque<CompletableFuture<HistoryPage>>> pipelines =
+            newConcurrentMap();
+
+    /**
+     * The pages being read, so that they are cancelled when this prefetcher is closed.
+     */
+    private final Set<CompletableFuture<HistoryPage>> pending = newConcurrentHashSet();
+
+    /**
+     * Creates a new prefetcher.
+     *
+     * @param depth
+     *         the maximum number of pages read ahead for each catch-up
+     * @param completed
+     *         tells whether the catch-up with the given ID is completed
+     */
+    HistoryPrefetcher(int depth, Predicate<CatchUpId> completed) {
+        checkArgument(depth > 0, "The prefetch depth must be positive.");
+        this.depth = depth;
+        this.completed = checkNotNull(completed);
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("catch-up-prefetch-%d")
+                .build();
+        this.executor = newCachedThreadPool(threadFactory);
+    }
+
+    /**
+     * Returns the page of the history following the given point in time and schedules
+     * the reading of the next pages.
+     *
+     * @param id
+     *         the ID of the catch-up, for which the history is read
+     * @param after
+     *         the point in time after which the events are read
+     * @param reader
+     *         the routine reading a page of history
+     * @return the events read
+     */
+    List<Event> read(CatchUpId id, Timestamp after, HistoryReader reader) {
+        if (!pipelines.containsKey(id)) {
+            evictCompleted();
+        }
+        Deque<CompletableFuture<HistoryPage>> pipeline =
+                pipelines.computeIfAbsent(id, i -> new ArrayDeque<>());
+        synchronized (pipeline) {
+            List<Event> events = takeFrom(pipeline, after)
+                    .orElseGet(() -> reader.read(after));
+            refill(pipeline, new HistoryPage(after, events), reader);
+            return events;
+        }
+    }
+
+    /**
+     * Drops the pages prefetched for the given catch-up.
+     */
+    void discard(CatchUpId id) {
+        pipelines.remove(id);
+    }
+
+    /**
+     * Drops the pages prefetched for the catch-ups, which are already completed.
+     */
+    private void evictCompleted() {
+        pipelines.keySet()
+                 .removeIf(completed);
+    }
+
+    /**
+     * Drops all the prefetched pages and stops the threads reading the history.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        pending.forEach(page -> page.cancel(false));
+        pipelines.clear();
+    }
+
+    /**
+     * Returns the number of the catch-ups, for which the pages are prefetched.
+     */
+    @VisibleForTesting
+    int pipelineCount() {
+        return pipelines.size();
+    }
+
+    private Optional<List<Event>> takeFrom(Deque<CompletableFuture<HistoryPage>> pipeline,
+                                           Timestamp after) {
+        CompletableFuture<HistoryPage> head = pipeline.poll();
+        if (head == null) {
+            return Optional.empty();
+        }
+        try {
+            HistoryPage page = head.join();
+            if (page.after.equals(after) && !page.events.isEmpty()) {
+                return Optional.of(page.events);
+            }
+        } catch (CompletionException e) {
+            _warn().withCause(e.getCause())
+                   .log("Failed to prefetch the event history. Reading it directly.");
+        } catch (CancellationException ignored) {
+            // The prefetcher is closed. Reading directly.
+        }
+        pipeline.clear();
+        return Optional.empty();
+    }
+
+    private void refill(Deque<CompletableFuture<HistoryPage>> pipeline,
+                        HistoryPage current,
+                        HistoryReader reader) {
+        if (current.events.isEmpty() || executor.isShutdown()) {
+            pipeline.clear();
+            return;
+        }
+        CompletableFuture<HistoryPage> last = pipeline.isEmpty()
+                                              ? CompletableFuture.completedFuture(current)
+                                              : pipeline.peekLast();
+        try {
+            while (pipeline.size() < depth) {
+                CompletableFuture<HistoryPage> next = last.thenApplyAsync(
+                        previous -> previous.next(reader), executor
+                );
+                pending.add(next);
+                next.whenComplete((page, error) -> pending.remove(next));
+                if (executor.isShutdown()) {
+                    next.cancel(false);
+                }
+                pipeline.add(next);
+                last = next;
+            }
+        } catch (RejectedExecutionException ignored) {
+            // The prefetcher is closed concurrently.
+            pipeline.clear();
+        }
+    }
+
+    /**
+     * Reads a page of the event history.
+     */
+    @FunctionalInterface
+    interface HistoryReader {
+
+        /**
+         * Reads the events, which happened after the given point in time.
+         */
+        List<Event> read(Timestamp after);
+    }
+
+    /**
+     * A page of the event history along with the point in time after which it was read.
+     */
+    private static final class HistoryPage {
+
+        private final Timestamp after;
+        private final List<Event> events;
+
+        private HistoryPage(Timestamp after, List<Event> events) {
+            this.after = after;
+            this.events = events;
+        }
+
+        /**
+         * Reads the page following this one.
+         *
+         * <p>If this page is empty, there is nothing to follow, and this page is returned.
+         */
+        private HistoryPage next(HistoryReader reader) {
+            if (events.isEmpty()) {
+                return this;
+            }
+            Timestamp nextAfter = CatchUpProcess.lastReadIn(events);
+            return new HistoryPage(nextAfter, reader.read(nextAfter));
+        }
+    }
+}
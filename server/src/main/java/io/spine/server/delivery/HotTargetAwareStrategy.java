@@ -0,0 +1,394 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.protobuf.Duration;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.util.Durations;
+import com.google.protobuf.util.Timestamps;
+import io.spine.base.Time;
+import io.spine.logging.Logging;
+import io.spine.server.delivery.memory.InMemoryHotTargetRegistry;
+import io.spine.type.TypeUrl;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Maps.newConcurrentMap;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * The strategy which isolates the heavily loaded targets in dedicated shards.
+ *
+ * <p>The regular targets are distributed across the shards by the delegate strategy.
+ * In addition to the delegate's shards, this strategy reserves a number of dedicated shards,
+ * which follow the regular ones.
+ *
+ * <p>The strategy counts the messages arriving to the inbox of each target within a time window.
+ * Once the number of messages to a target reaches the threshold, the target is considered hot.
+ * It is pinned to the least loaded dedicated shard, so that the hot target no longer delays
+ * the delivery to other targets of its original shard.
+ *
+ * <p>The pins are published to the {@link HotTargetRegistry}, so that all the application nodes
+ * agree on them. For the application running on several nodes, a registry shared between
+ * the nodes must be {@linkplain Builder#setRegistry(HotTargetRegistry) configured}.
+ *
+ * <p>The pins, as well as the absence of a pin, are cached locally for the
+ * {@linkplain Builder#setPinCacheTtl(Duration) pin cache TTL}, so that the registry is not
+ * queried for each routed message. Therefore, a target pinned by one node is routed to its
+ * original shard by other nodes for at most the TTL.
+ *
+ * <p>The messages of the pinned target, which were written to its original shard before
+ * the target was pinned, are moved to the dedicated shard before the dedicated shard is
+ * delivered. Such a handover is performed during the
+ * {@linkplain Builder#setHandoverPeriod(Duration) handover period} after pinning, as some
+ * of the application nodes may still write the messages to the original shard while the pin
+ * is propagated. Once the whole original shard has been passed after the pin became visible
+ * to all the nodes, i.e. after the pin cache TTL, the handover of the target is complete,
+ * and the original shard is no longer read for it.
+ *
+ * <p>Until then, the messages of the pinned target may still be written to its original shard
+ * after the handover has passed it. Such messages are never delivered from the original shard.
+ * Instead, the delivery of the original shard moves them to the dedicated shard, so that
+ * the target is never delivered from two shards at the same time.
+ *
+ * <p>Once pinned, a target stays in its dedicated shard.
+ */
+public final class HotTargetAwareStrategy extends DeliveryStrategy implements Logging {
+
+    private static final int DEFAULT_HOT_THRESHOLD = 1_000;
+    private static final Duration DEFAULT_WINDOW = Durations.fromSeconds(10);
+    private static final Duration DEFAULT_HANDOVER_PERIOD = Durations.fromMinutes(1);
+    private static final Duration DEFAULT_PIN_CACHE_TTL = Durations.fromSeconds(5);
+    private static final int PIN_CACHE_SIZE = 100_000;
+
+    private final DeliveryStrategy delegate;
+    private final int dedicatedShards;
+    private final int hotThreshold;
+    private final long windowNanos;
+    private final Duration handoverPeriod;
+    private final Duration pinCacheTtl;
+    private final HotTargetRegistry registry;
+    private final Ticker ticker;
+
+    /**
+     * The locally cached pins of the targets, including the absence of a pin.
+     */
+    private final Cache<InboxId, Optional<TargetPin>> pins;
+
+    /**
+     * The number of the messages arrived to each target within the current window.
+     */
+    private final Map<InboxId, AtomicInteger> arrivals = newConcurrentMap();
+    private final AtomicLong windowStart;
+
+    private HotTargetAwareStrategy(Builder builder) {
+        super();
+        this.delegate = builder.delegate;
+        this.dedicatedShards = builder.dedicatedShards;
+        this.hotThreshold = builder.hotThreshold;
+        this.windowNanos = Durations.toNanos(builder.window);
+        this.handoverPeriod = builder.handoverPeriod;
+        this.pinCacheTtl = builder.pinCacheTtl;
+        this.registry = builder.registry;
+        this.ticker = builder.ticker;
+        this.pins = CacheBuilder.newBuilder()
+                                .expireAfterWrite(Durations.toNanos(pinCacheTtl), NANOSECONDS)
+                                .maximumSize(PIN_CACHE_SIZE)
+                                .ticker(ticker)
+                                .build();
+        this.windowStart = new AtomicLong(ticker.read());
+    }
+
+    /**
+     * Creates a new builder of the strategy, which distributes the regular targets
+     * with the passed strategy.
+     */
+    public static Builder newBuilder(DeliveryStrategy delegate) {
+        checkNotNull(delegate);
+        return new Builder(delegate);
+    }
+
+    @Override
+    protected ShardIndex indexFor(Object entityId, TypeUrl entityStateType) {
+        InboxId target = InboxIds.wrap(entityId, entityStateType);
+        Optional<TargetPin> pin = findPin(target);
+        if (pin.isPresent()) {
+            return pin.get()
+                      .getShard();
+        }
+        return regularIndexFor(entityId, entityStateType);
+    }
+
+    /**
+     * Finds the pin of the target in the local cache, querying the registry on a cache miss.
+     */
+    private Optional<TargetPin> findPin(InboxId target) {
+        Optional<TargetPin> cached = pins.getIfPresent(target);
+        if (cached != null) {
+            return cached;
+        }
+        Optional<TargetPin> result = registry.find(target);
+        pins.put(target, result);
+        return result;
+    }
+
+    private ShardIndex regularIndexFor(Object entityId, TypeUrl entityStateType) {
+        ShardIndex index = delegate.indexFor(entityId, entityStateType);
+        return newIndex(index.getIndex(), shardCount());
+    }
+
+    @Override
+    protected int shardCount() {
+        return delegate.shardCount() + dedicatedShards;
+    }
+
+    /**
+     * Counts the arrived message and pins the target if it has become hot.
+     */
+    @Override
+    protected void recordArrival(Object entityId, TypeUrl entityStateType) {
+        startNewWindowIfExpired();
+        InboxId target = InboxIds.wrap(entityId, entityStateType);
+        int count = arrivals.computeIfAbsent(target, t -> new AtomicInteger())
+                            .incrementAndGet();
+        if (count == hotThreshold && !findPin(target).isPresent()) {
+            ShardIndex origin = regularIndexFor(entityId, entityStateType);
+            TargetPin proposed = TargetPin
+                    .newBuilder()
+                    .setTarget(target)
+                    .setOrigin(origin)
+                    .setShard(leastLoadedShard())
+                    .setWhenPinned(Time.currentTime())
+                    .vBuild();
+            TargetPin pin = registry.pin(proposed);
+            pins.put(target, Optional.of(pin));
+            _info().log("The target `%s` of type `%s` is pinned to the shard %d.",
+                        entityId, entityStateType, pin.getShard()
+                                                      .getIndex());
+        }
+    }
+
+    private void startNewWindowIfExpired() {
+        long now = ticker.read();
+        long start = windowStart.get();
+        if (now - start >= windowNanos && windowStart.compareAndSet(start, now)) {
+            arrivals.clear();
+        }
+    }
+
+    private ShardIndex leastLoadedShard() {
+        int total = shardCount();
+        ShardIndex result = newIndex(delegate.shardCount(), total);
+        int minPins = Integer.MAX_VALUE;
+        for (int value = delegate.shardCount(); value < total; value++) {
+            ShardIndex index = newIndex(value, total);
+            int pins = registry.pinnedTo(index)
+                               .size();
+            if (pins < minPins) {
+                minPins = pins;
+                result = index;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the pins to the given shard, which are still within the handover period.
+     */
+    @Override
+    ImmutableList<TargetPin> pendingHandoversTo(ShardIndex index) {
+        if (index.getIndex() < delegate.shardCount()) {
+            return ImmutableList.of();
+        }
+        Timestamp now = Time.currentTime();
+        return registry.pinnedTo(index)
+                       .stream()
+                       .filter(pin -> Durations.compare(
+                               Timestamps.between(pin.getWhenPinned(), now), handoverPeriod) < 0)
+                       .collect(toImmutableList());
+    }
+
+    /**
+     * Returns the pins of the targets, which original shard is the given one.
+     *
+     * <p>The pins are read from the registry bypassing the local cache, so that a target
+     * pinned by another node is not delivered from its original shard by this node.
+     */
+    @Override
+    ImmutableList<TargetPin> pinsFrom(ShardIndex origin) {
+        if (origin.getIndex() >= delegate.shardCount()) {
+            return ImmutableList.of();
+        }
+        int total = shardCount();
+        ImmutableList.Builder<TargetPin> result = ImmutableList.builder();
+        for (int value = delegate.shardCount(); value < total; value++) {
+            registry.pinnedTo(newIndex(value, total))
+                    .stream()
+                    .filter(pin -> pin.getOrigin()
+                                      .getIndex() == origin.getIndex())
+                    .forEach(result::add);
+        }
+        return result.build();
+    }
+
+    /**
+     * Returns the pin cache TTL, after which all the nodes route the messages of a newly
+     * pinned target to its dedicated shard.
+     */
+    @Override
+    Duration pinPropagationTime() {
+        return pinCacheTtl;
+    }
+
+    /**
+     * A builder of {@link HotTargetAwareStrategy} instances.
+     */
+    public static final class Builder {
+
+        private final DeliveryStrategy delegate;
+        private int dedicatedShards = 1;
+        private int hotThreshold = DEFAULT_HOT_THRESHOLD;
+        private Duration window = DEFAULT_WINDOW;
+        private Duration handoverPeriod = DEFAULT_HANDOVER_PERIOD;
+        private Duration pinCacheTtl = DEFAULT_PIN_CACHE_TTL;
+        private @MonotonicNonNull HotTargetRegistry registry;
+        private Ticker ticker = Ticker.systemTicker();
+
+        private Builder(DeliveryStrategy delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * Sets the number of the shards dedicated to the hot targets.
+         *
+         * <p>If none set, a single dedicated shard is used.
+         */
+        @CanIgnoreReturnValue
+        public Builder setDedicatedShards(int dedicatedShards) {
+            checkArgument(dedicatedShards > 0,
+                          "The number of dedicated shards must be positive.");
+            this.dedicatedShards = dedicatedShards;
+            return this;
+        }
+
+        /**
+         * Sets the number of the messages arriving to a target within the
+         * {@linkplain #setWindow(Duration) window}, starting from which the target is
+         * considered hot.
+         *
+         * <p>If none set, {@code 1000} messages are used.
+         */
+        @CanIgnoreReturnValue
+        public Builder setHotThreshold(int hotThreshold) {
+            checkArgument(hotThreshold > 0, "The hot threshold must be positive.");
+            this.hotThreshold = hotThreshold;
+            return this;
+        }
+
+        /**
+         * Sets the time window, within which the arriving messages are counted.
+         *
+         * <p>If none set, 10 seconds are used.
+         */
+        @CanIgnoreReturnValue
+        public Builder setWindow(Duration window) {
+            checkNotNull(window);
+            checkArgument(Durations.toNanos(window) > 0, "The window must be positive.");
+            this.window = window;
+            return this;
+        }
+
+        /**
+         * Sets for how long after pinning a target its messages are moved from the original
+         * shard to the dedicated one.
+         *
+         * <p>If none set, one minute is used.
+         */
+        @CanIgnoreReturnValue
+        public Builder setHandoverPeriod(Duration handoverPeriod) {
+            this.handoverPeriod = checkNotNull(handoverPeriod);
+            return this;
+        }
+
+        /**
+         * Sets for how long the pins found in the registry, as well as the absence of a pin,
+         * are cached locally.
+         *
+         * <p>The value must be less than the {@linkplain #setHandoverPeriod(Duration) handover
+         * period}, as other nodes may route the messages to the original shard of a newly
+         * pinned target for this time.
+         *
+         * <p>If none set, 5 seconds are used.
+         */
+        @CanIgnoreReturnValue
+        public Builder setPinCacheTtl(Duration pinCacheTtl) {
+            checkNotNull(pinCacheTtl);
+            checkArgument(Durations.toNanos(pinCacheTtl) >= 0,
+                          "The pin cache TTL must not be negative.");
+            this.pinCacheTtl = pinCacheTtl;
+            return this;
+        }
+
+        /**
+         * Sets the registry to publish the pinned targets to.
+         *
+         * <p>If none set, an {@link InMemoryHotTargetRegistry} is used, which is only
+         * suitable for a single application node.
+         */
+        @CanIgnoreReturnValue
+        public Builder setRegistry(HotTargetRegistry registry) {
+            this.registry = checkNotNull(registry);
+            return this;
+        }
+
+        @VisibleForTesting
+        @CanIgnoreReturnValue
+        Builder setTicker(Ticker ticker) {
+            this.ticker = checkNotNull(ticker);
+            return this;
+        }
+
+        /**
+         * Creates a new instance of {@code HotTargetAwareStrategy}.
+         */
+        public HotTargetAwareStrategy build() {
+            checkArgument(Durations.compare(pinCacheTtl, handoverPeriod) < 0,
+                          "The pin cache TTL must be less than the handover period.");
+            if (registry == null) {
+                registry = new InMemoryHotTargetRegistry();
+            }
+            return new HotTargetAwareStrategy(this);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import com.google.common.collect.ImmutableList;
+import io.spine.annotation.SPI;
+
+import java.util.Optional;
+
+/**
+ * The registry of the delivery targets pinned to dedicated shards.
+ *
+ * <p>Serves as a source of truth on the pinned targets for all the application nodes.
+ * Therefore, in a distributed environment, the registry should be backed by a storage shared
+ * between the nodes.
+ *
+ * <p>The registry is queried each time a message is written to an inbox. The implementations
+ * backed by a remote storage are encouraged to cache the pins locally.
+ *
+ * @see HotTargetAwareStrategy
+ */
+@SPI
+public interface HotTargetRegistry {
+
+    /**
+     * Finds the pin of the given target.
+     *
+     * @param target
+     *         the inbox of the target
+     * @return the pin or {@code Optional.empty()} if the target is not pinned
+     */
+    Optional<TargetPin> find(InboxId target);
+
+    /**
+     * Registers the passed pin, unless the same target is already pinned.
+     *
+     * <p>The operation must be atomic, so that the nodes pinning the same target concurrently
+     * agree on the same dedicated shard.
+     *
+     * @param pin
+     *         the pin to register
+     * @return the pin of the target registered in this registry
+     */
+    TargetPin pin(TargetPin pin);
+
+    /**
+     * Returns all the pins to the given shard.
+     *
+     * @param shard
+     *         the dedicated shard
+     * @return the pins to the shard
+     */
+    ImmutableList<TargetPin> pinnedTo(ShardIndex shard);
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.util.Timestamps;
+import io.spine.base.Time;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.collect.Maps.newConcurrentMap;
+
+/**
+ * A hybrid logical clock stamping the incoming {@code InboxMessage}s.
+ *
+ * <p>Each message receives a {@linkplain InboxMessage#getWhenReceived() physical} and
+ * a {@linkplain InboxMessage#getVersion() logical} part of the stamp. The physical part is
+ * the current time, unless a later time has already been used for the shard. In the latter case,
+ * the physical part stays the same and the logical part is incremented. Therefore, the messages
+ * written to the same shard by this node are stamped strictly increasing, and
+ * {@linkplain InboxMessageComparator#chronologically ordered} as they were written.
+ *
+ * <p>The clock {@linkplain #observe(InboxMessage) observes} the messages read from the shard,
+ * including those written by other nodes. The messages stamped afterwards are placed
+ * after the observed ones, even if the clock of this node lags behind.
+ *
+ * <p>The clock of each shard is updated independently and without locks.
+ */
+@ThreadSafe
+final class InboxClock {
+
+    private final Map<ShardIndex, AtomicReference<Stamp>> shards = newConcurrentMap();
+
+    /**
+     * Sets the next stamp of the given shard to the passed message.
+     */
+    void stamp(ShardIndex index, InboxMessage.Builder message) {
+        long now = Timestamps.toNanos(Time.currentTime());
+        Stamp stamp = clockOf(index).updateAndGet(last -> last.next(now));
+        message.setWhenReceived(Timestamps.fromNanos(stamp.physical))
+               .setVersion(stamp.logical);
+    }
+
+    /**
+     * Moves the clock of the shard, to which the message belongs, forward to the message stamp.
+     *
+     * <p>Does nothing if the message is stamped earlier than the last stamp of the shard.
+     */
+    void observe(InboxMessage message) {
+        Timestamp whenReceived = message.getWhenReceived();
+        Stamp observed = new Stamp(Timestamps.toNanos(whenReceived), message.getVersion());
+        clockOf(message.shardIndex()).accumulateAndGet(observed, Stamp::latest);
+    }
+
+    private AtomicReference<Stamp> clockOf(ShardIndex index) {
+        return shards.computeIfAbsent(index, i -> new AtomicReference<>(Stamp.ZERO));
+    }
+
+    /**
+     * A stamp of the clock.
+     */
+    private static final class Stamp {
+
+        private static final Stamp ZERO = new Stamp(0, 0);
+
+        private final long physical;
+        private final int logical;
+
+        private Stamp(long physical, int logical) {
+            this.physical = physical;
+            this.logical = logical;
+        }
+
+        private Stamp next(long now) {
+            return now > physical
+                   ? new Stamp(now, 0)
+                   : new Stamp(physical, logical + 1);
+        }
+
+        private static Stamp latest(Stamp first, Stamp second) {
+            boolean firstIsLater = first.physical > second.physical
+                    || (first.physical == second.physical && first.logical >= second.logical);
+            return firstIsLater ? first : second;
+        }
+    }
+}
@@ -20,7 +20,6 @@
 
 package io.spine.server.delivery;
 
-import io.spine.base.Time;
 import io.spine.server.ServerEnvironment;
 import io.spine.server.tenant.TenantAwareRunner;
 import io.spine.server.type.SignalEnvelope;
@@ -81,6 +80,7 @@ abstract class InboxPart<I, M extends SignalEnvelope<?, ?, ?>> {
         InboxId inboxId = InboxIds.wrap(entityId, entityStateType);
         Delivery delivery = ServerEnvironment.instance()
                                              .delivery();
+        delivery.recordArrival(entityId, entityStateType);
         ShardIndex shardIndex = delivery.whichShardFor(entityId, entityStateType);
         InboxMessageId id = InboxMessageMixin.generateIdWith(shardIndex);
         InboxMessage.Builder builder = InboxMessage
@@ -89,9 +89,8 @@ abstract class InboxPart<I, M extends SignalEnvelope<?, ?, ?>> {
                 .setSignalId(signalIdFrom(envelope, entityId))
                 .setInboxId(inboxId)
                 .setLabel(label)
-                .setStatus(determineStatus(envelope, label))
-                .setWhenReceived(Time.currentTime())
-                .setVersion(VersionCounter.next());
+                .setStatus(determineStatus(envelope, label));
+        delivery.stamp(shardIndex, builder);
         setRecordPayload(envelope, builder);
         InboxMessage message = builder.vBuild();
 
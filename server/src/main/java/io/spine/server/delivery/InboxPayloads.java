@@ -0,0 +1,178 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import com.google.protobuf.Message;
+import io.spine.annotation.SPI;
+import io.spine.core.Command;
+import io.spine.core.Event;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Maps.newConcurrentMap;
+
+/**
+ * The payloads of the {@code InboxMessage}s, each kept once per signal.
+ *
+ * <p>A signal dispatched to many targets results in an {@code InboxMessage} per each target,
+ * all of them carrying the same {@code Event} or {@code Command}. An {@link InboxStorage}
+ * may use this class to keep each payload once, storing the messages as rows which only
+ * refer to the payload by the signal identifier:
+ * <ul>
+ *     <li>a newly stored message is {@linkplain #acquire(InboxMessage) acquired}, returning
+ *     the row to store;
+ *     <li>an update of an already stored message is {@linkplain #detach(InboxMessage) detached}
+ *     from its payload without changing the reference count;
+ *     <li>a removed row is {@linkplain #release(InboxMessage) released}, dropping the payload
+ *     once no rows refer to it;
+ *     <li>a row read from the storage is {@linkplain #attach(InboxMessage) attached} to its
+ *     payload before being returned.
+ * </ul>
+ *
+ * <p>A row may be removed concurrently with reading it. In this case, its payload may already
+ * be dropped by the time the row is attached. Such a row is no longer stored and must be
+ * skipped by the reader.
+ *
+ * <p>The rows keep the identifier of the signal as their payload, so that the
+ * {@linkplain InboxMessage#getPayloadCase() payload case} of the row stays the same.
+ *
+ * <p>This class is thread-safe. However, the storage is responsible for calling
+ * {@code acquire()} and {@code release()} exactly once per each stored row.
+ */
+@SPI
+public final class InboxPayloads {
+
+    private final Map<String, Entry> payloads = newConcurrentMap();
+
+    /**
+     * Registers the payload of the newly stored message.
+     *
+     * @return the row referring to the payload
+     */
+    public InboxMessage acquire(InboxMessage message) {
+        checkNotNull(message);
+        Message payload = payloadOf(message);
+        payloads.compute(keyOf(message), (key, entry) -> entry == null
+                                                         ? new Entry(payload)
+                                                         : entry.retain());
+        return rowOf(message);
+    }
+
+    /**
+     * Strips the payload off the updated version of an already stored message.
+     *
+     * <p>The reference count of the payload is not changed.
+     */
+    public InboxMessage detach(InboxMessage message) {
+        checkNotNull(message);
+        return rowOf(message);
+    }
+
+    /**
+     * Releases the payload referred by the removed row.
+     *
+     * <p>Once no rows refer to the payload, it is dropped.
+     */
+    public void release(InboxMessage row) {
+        checkNotNull(row);
+        payloads.computeIfPresent(keyOf(row), (key, entry) -> entry.release());
+    }
+
+    /**
+     * Restores the full message from the stored row.
+     *
+     * @return the full message, or {@code Optional.empty()} if the payload of the row is
+     *         no longer kept, as the row has been removed
+     */
+    public Optional<InboxMessage> attach(InboxMessage row) {
+        checkNotNull(row);
+        Entry entry = payloads.get(keyOf(row));
+        if (entry == null) {
+            return Optional.empty();
+        }
+        InboxMessage.Builder result = row.toBuilder();
+        if (row.hasEvent()) {
+            result.setEvent((Event) entry.payload);
+        } else {
+            result.setCommand((Command) entry.payload);
+        }
+        return Optional.of(result.build());
+    }
+
+    /**
+     * Returns the number of the payloads kept.
+     */
+    public int size() {
+        return payloads.size();
+    }
+
+    private static Message payloadOf(InboxMessage message) {
+        return message.hasEvent()
+               ? message.getEvent()
+               : message.getCommand();
+    }
+
+    private static String keyOf(InboxMessage message) {
+        return message.getPayloadCase() + ":" + DeliveryDispatchListener.signalOf(message)
+                                                                        .value();
+    }
+
+    private static InboxMessage rowOf(InboxMessage message) {
+        InboxMessage.Builder row = message.toBuilder();
+        if (message.hasEvent()) {
+            row.setEvent(Event.newBuilder()
+                              .setId(message.getEvent()
+                                            .getId()));
+        } else {
+            row.setCommand(Command.newBuilder()
+                                  .setId(message.getCommand()
+                                                .getId()));
+        }
+        return row.build();
+    }
+
+    /**
+     * A payload along with the number of rows referring to it.
+     */
+    private static final class Entry {
+
+        private final Message payload;
+        private int references;
+
+        private Entry(Message payload) {
+            this.payload = payload;
+            this.references = 1;
+        }
+
+        private Entry retain() {
+            references++;
+            return this;
+        }
+
+        private @Nullable Entry release() {
+            references--;
+            return references > 0 ? this : null;
+        }
+    }
+}
@@ -34,6 +34,11 @@ import java.util.Optional;
  * <p>Typically, the storage instance is specific to the
  * {@linkplain io.spine.server.ServerEnvironment server environment} and is used across
  * {@code BoundedContext}s to store the delivered messages.
+ *
+ * <p>A signal dispatched to many targets is stored as many messages carrying the same payload.
+ * Implementations may keep each payload once by storing the messages with the help of
+ * {@link InboxPayloads}. Such a layout is transparent to the callers, as the messages are
+ * always read with their payload attached.
  */
 @SPI
 public interface InboxStorage
@@ -89,4 +94,54 @@ public interface InboxStorage
      *         the messages to remove
      */
     void removeAll(Iterable<InboxMessage> messages);
+
+    /**
+     * Applies the change set to the storage, writing the updated messages and removing
+     * the passed ones.
+     *
+     * <p>The implementations are encouraged to override this method in order to apply
+     * the changes in a single round trip to the underlying storage, atomically if possible.
+     *
+     * <p>By default, {@linkplain #writeAll(Iterable) writes} the updates first and then
+     * {@linkplain #removeAll(Iterable) removes} the messages.
+     *
+     * @param updates
+     *         the messages to write
+     * @param removals
+     *         the messages to remove
+     */
+    default void applyChanges(Iterable<InboxMessage> updates, Iterable<InboxMessage> removals) {
+        writeAll(updates);
+        removeAll(removals);
+    }
+
+    /**
+     * Applies the change set to the storage on behalf of the session processing the given shard.
+     *
+     * <p>The {@linkplain ShardProcessingSession#fencingToken() fencing token} of the session
+     * grows with each pick-up of the shard. The storages supporting the fencing keep the greatest
+     * token passed for each shard and reject the changes made with a smaller one. In this way,
+     * a node, which has lost its lease on the shard while being stalled, cannot overwrite
+     * the changes made by the node, which has taken the shard over.
+     *
+     * <p>By default, the token is not checked, and the changes are
+     * {@linkplain #applyChanges(Iterable, Iterable) applied} as is.
+     *
+     * @param shard
+     *         the shard processed by the session
+     * @param fencingToken
+     *         the fencing token of the session
+     * @param updates
+     *         the messages to write
+     * @param removals
+     *         the messages to remove
+     * @throws StaleFencingTokenException
+     *         if a greater token has already been passed for the shard
+     */
+    default void applyChanges(ShardIndex shard,
+                              long fencingToken,
+                              Iterable<InboxMessage> updates,
+                              Iterable<InboxMessage> removals) {
+        applyChanges(updates, removals);
+    }
 }
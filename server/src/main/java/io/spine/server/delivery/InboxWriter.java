@@ -20,6 +20,8 @@
 
 package io.spine.server.delivery;
 
+import com.google.common.collect.ImmutableList;
+
 /**
  * A common contract for the routines that would want to write the messages to the {@code Inbox}
  * storage.
@@ -30,4 +32,15 @@ interface InboxWriter {
      * Writes the passed message to the storage.
      */
     void write(InboxMessage message);
+
+    /**
+     * Writes the passed messages to the storage at once.
+     *
+     * <p>By default, writes the messages one by one.
+     */
+    default void writeAll(ImmutableList<InboxMessage> messages) {
+        for (InboxMessage message : messages) {
+            write(message);
+        }
+    }
 }
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.protobuf.Duration;
+import com.google.protobuf.util.Durations;
+import io.spine.logging.Logging;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Renews the leases on the picked shards while they are being processed.
+ *
+ * <p>The lease of a session is renewed in the background several times per
+ * {@linkplain ShardedWorkRegistry#leaseDuration() lease duration}, regardless of how long
+ * the delivery of a single page takes. In this way, a slow page, such as one of a catch-up or
+ * one handled by a slow entity, does not let another node pick the shard up and deliver
+ * the same messages to the same entities concurrently.
+ *
+ * <p>The lease is still lost if the whole process stalls for longer than the lease duration,
+ * e.g. due to a long garbage collection pause. In this case, the entities may receive
+ * the messages of the current page twice, while the changes to the {@code InboxStorage} made
+ * by the stalled node are rejected by their
+ * {@linkplain InboxStorage#applyChanges(ShardIndex, long, Iterable, Iterable) fencing token}.
+ *
+ * <p>If the registry does not use leases, the sessions are not renewed.
+ */
+final class LeaseHeartbeat implements AutoCloseable, Logging {
+
+    /**
+     * How many times the lease is renewed within the lease duration.
+     */
+    private static final int BEATS_PER_LEASE = 4;
+
+    private final @Nullable Duration interval;
+    private final @Nullable ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a new heartbeat for the leases of the given duration.
+     *
+     * @param leaseDuration
+     *         the duration of the leases, or {@code Optional.empty()} if the leases
+     *         never expire
+     */
+    LeaseHeartbeat(Optional<Duration> leaseDuration) {
+        checkNotNull(leaseDuration);
+        if (leaseDuration.isPresent()) {
+            long nanos = Durations.toNanos(leaseDuration.get());
+            this.interval = Durations.fromNanos(Math.max(nanos / BEATS_PER_LEASE, 1));
+            ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("lease-heartbeat-%d")
+                    .build();
+            this.scheduler = newSingleThreadScheduledExecutor(threadFactory);
+        } else {
+            this.interval = null;
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * Starts renewing the lease of the given session.
+     *
+     * <p>The returned beat must be {@linkplain Beat#stop() stopped} before the session
+     * is completed.
+     */
+    Beat keepAlive(ShardProcessingSession session) {
+        checkNotNull(session);
+        if (scheduler == null || interval == null) {
+            return new Beat(null);
+        }
+        long nanos = Durations.toNanos(interval);
+        ScheduledFuture<?> future =
+                scheduler.scheduleWithFixedDelay(() -> renew(session), nanos, nanos, NANOSECONDS);
+        return new Beat(future);
+    }
+
+    private void renew(ShardProcessingSession session) {
+        try {
+            if (!session.renew()) {
+                ShardIndex index = session.shardIndex();
+                _warn().log("The lease on the shard %d of %d could not be renewed.",
+                            index.getIndex(), index.getOfTotal());
+            }
+        } catch (RuntimeException e) {
+            _error().withCause(e)
+                    .log("Unable to renew the lease of the session `%s`.", session);
+        }
+    }
+
+    /**
+     * Stops renewing the leases.
+     */
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * The renewal of the lease of a single session.
+     */
+    static final class Beat {
+
+        private final @Nullable ScheduledFuture<?> future;
+
+        private Beat(@Nullable ScheduledFuture<?> future) {
+            this.future = future;
+        }
+
+        /**
+         * Stops renewing the lease.
+         */
+        void stop() {
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+}
@@ -28,7 +28,6 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * A station that delivers those messages which are incoming in a live mode.
@@ -178,11 +177,9 @@ final class LiveDeliveryStation extends Station {
      */
     private static List<InboxMessage> deduplicateAndSort(Collection<InboxMessage> messages,
                                                          Conveyor conveyor) {
-        Set<DispatchingId> previouslyDelivered = conveyor.allDelivered();
         List<InboxMessage> result = new ArrayList<>();
         for (InboxMessage message : messages) {
-            DispatchingId id = new DispatchingId(message);
-            if (previouslyDelivered.contains(id)) {
+            if (conveyor.isDelivered(message)) {
                 conveyor.markDuplicateAndRemove(message);
             } else {
                 result.add(message);
@@ -21,9 +21,24 @@
 package io.spine.server.delivery;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.spine.core.TenantId;
+import io.spine.logging.Logging;
 import io.spine.server.ServerEnvironment;
+import io.spine.server.tenant.IdInTenant;
 import io.spine.server.tenant.TenantAwareRunner;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Maps.newConcurrentMap;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 
 /**
  * An observer of changes to the shard contents, which triggers immediate delivery of the
@@ -32,29 +47,57 @@ import io.spine.server.tenant.TenantAwareRunner;
  * <p>Depending on the configuration, the delivery may be triggered either synchronously
  * or asynchronously.
  *
+ * <p>In the asynchronous mode, the delivery is performed by a fixed pool of threads. The
+ * notifications are coalesced per shard and tenant. I.e. if the shard is already scheduled for
+ * the delivery, no more tasks are submitted for it. If the shard is being delivered at the moment,
+ * it is delivered once again right after the current run, regardless of how many notifications
+ * were received in between. Therefore, the number of the pending tasks never exceeds the number
+ * of shards multiplied by the number of tenants.
+ *
+ * <p>The pool of an asynchronous observer is owned by the {@link Delivery} which created it,
+ * and is shut down when the {@code Delivery} is {@linkplain Delivery#close() closed}.
+ *
  * <p>Suitable for the local and development environment.
  */
 @VisibleForTesting
-public final class LocalDispatchingObserver implements ShardObserver {
+public final class LocalDispatchingObserver implements ShardObserver, AutoCloseable, Logging {
 
-    private final boolean async;
+    /**
+     * The executor to perform the asynchronous delivery,
+     * or {@code null} if the delivery is synchronous.
+     */
+    private final @Nullable ExecutorService executor;
 
     /**
-     * Creates a new observer performing the delivery in either synchronous manner or in
-     * a new {@code Thread} for each received {@code InboxMessage}.
-     *
-     * @param asynchronous
-     *         whether the delivery should be performed synchronously
+     * The states of the asynchronous delivery per shard and tenant.
      */
-    LocalDispatchingObserver(boolean asynchronous) {
-        this.async = asynchronous;
+    private final Map<IdInTenant<ShardIndex>, ShardDrain> drains = newConcurrentMap();
+
+    private LocalDispatchingObserver(@Nullable ExecutorService executor) {
+        this.executor = executor;
     }
 
     /**
      * Creates a new observer instance which performs the delivery synchronously.
      */
     public LocalDispatchingObserver() {
-        this(false);
+        this(null);
+    }
+
+    /**
+     * Creates a new observer performing the delivery asynchronously in a pool of threads
+     * of the given size.
+     *
+     * @param threadCount
+     *         the number of threads in the pool; must be positive
+     */
+    static LocalDispatchingObserver async(int threadCount) {
+        checkArgument(threadCount > 0, "The number of delivery threads must be positive.");
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("local-delivery-%d")
+                .setDaemon(true)
+                .build();
+        return new LocalDispatchingObserver(newFixedThreadPool(threadCount, threadFactory));
     }
 
     @Override
@@ -62,15 +105,49 @@ public final class LocalDispatchingObserver implements ShardObserver {
         Delivery delivery = ServerEnvironment.instance()
                                              .delivery();
         ShardIndex index = update.shardIndex();
-        if (async) {
-            new Thread(() -> runDelivery(update, delivery, index)).start();
-        } else {
-            runDelivery(update, delivery, index);
+        TenantId tenant = update.tenant();
+        if (executor == null) {
+            runDelivery(tenant, delivery, index);
+            return;
+        }
+        IdInTenant<ShardIndex> shard = IdInTenant.of(index, tenant);
+        ShardDrain drain = drains.computeIfAbsent(shard, ShardDrain::new);
+        if (drain.signal()) {
+            submit(drain, delivery);
+        }
+    }
+
+    /**
+     * Submits the scheduled delivery from the shard to the executor.
+     *
+     * <p>If the executor is already shut down, the shard is released, and the notification
+     * is ignored.
+     */
+    private void submit(ShardDrain drain, Delivery delivery) {
+        checkNotNull(executor);
+        try {
+            executor.execute(() -> drain.run(delivery));
+        } catch (RejectedExecutionException e) {
+            drain.release();
+            _warn().log("The local delivery from the shard %d is rejected, " +
+                                "as the `Delivery` is closed.",
+                        drain.shard.value().getIndex());
         }
     }
 
-    private static void runDelivery(InboxMessage message, Delivery delivery, ShardIndex index) {
-        TenantId tenant = message.tenant();
+    /**
+     * Shuts down the pool of the asynchronous delivery, if any.
+     *
+     * <p>The deliveries in progress are completed, while the new notifications are ignored.
+     */
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private static void runDelivery(TenantId tenant, Delivery delivery, ShardIndex index) {
         TenantAwareRunner.with(tenant)
                          .run(() -> delivery.deliverMessagesFrom(index));
     }
@@ -80,6 +157,96 @@ public final class LocalDispatchingObserver implements ShardObserver {
      */
     @VisibleForTesting
     boolean isAsync() {
-        return async;
+        return executor != null;
+    }
+
+    /**
+     * Tells whether the pool of the asynchronous delivery is shut down.
+     */
+    @VisibleForTesting
+    boolean isClosed() {
+        return executor != null && executor.isShutdown();
+    }
+
+    /**
+     * The state of the asynchronous delivery from a shard of a certain tenant.
+     */
+    private final class ShardDrain {
+
+        /** No delivery is scheduled or running. */
+        private static final int IDLE = 0;
+
+        /** The delivery is submitted to the executor, but has not started yet. */
+        private static final int SCHEDULED = 1;
+
+        /** The delivery is running. */
+        private static final int RUNNING = 2;
+
+        /** The delivery is running, and there were notifications received since it started. */
+        private static final int RUNNING_SIGNALLED = 3;
+
+        private final IdInTenant<ShardIndex> shard;
+        private final AtomicInteger state = new AtomicInteger(IDLE);
+
+        private ShardDrain(IdInTenant<ShardIndex> shard) {
+            this.shard = shard;
+        }
+
+        /**
+         * Records the notification of a new message in the shard.
+         *
+         * @return {@code true} if a new delivery task should be submitted,
+         *         {@code false} if the notification is coalesced with the scheduled
+         *         or the running delivery
+         */
+        private boolean signal() {
+            while (true) {
+                int current = state.get();
+                if (current == IDLE && state.compareAndSet(IDLE, SCHEDULED)) {
+                    return true;
+                }
+                if (current == RUNNING && state.compareAndSet(RUNNING, RUNNING_SIGNALLED)) {
+                    return false;
+                }
+                if (current == SCHEDULED || current == RUNNING_SIGNALLED) {
+                    return false;
+                }
+            }
+        }
+
+        /**
+         * Releases the shard to be scheduled again upon the next notification.
+         */
+        private void release() {
+            state.set(IDLE);
+        }
+
+        /**
+         * Delivers the messages from the shard until there are no notifications left
+         * unattended.
+         *
+         * <p>If the delivery fails, the shard is released to be scheduled again upon the next
+         * notification. If there were notifications received while the failed delivery was
+         * running, the delivery is scheduled again right away, so that those are not lost.
+         */
+        private void run(Delivery delivery) {
+            state.set(RUNNING);
+            try {
+                boolean runAgain;
+                do {
+                    runDelivery(shard.tenant(), delivery, shard.value());
+                    runAgain = !state.compareAndSet(RUNNING, IDLE);
+                    if (runAgain) {
+                        state.set(RUNNING);
+                    }
+                } while (runAgain);
+            } catch (RuntimeException e) {
+                boolean signalled = state.getAndSet(IDLE) == RUNNING_SIGNALLED;
+                if (signalled && signal()) {
+                    submit(this, delivery);
+                }
+                throw e;
+            }
+        }
     }
 }
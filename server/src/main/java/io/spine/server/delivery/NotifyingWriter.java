@@ -20,11 +20,19 @@
 
 package io.spine.server.delivery;
 
+import com.google.common.collect.ImmutableList;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * A writer of {@link Inbox Inbox} messages.
  *
  * <p>After writing a message to the storage, notifies of the index of the shard,
  * to which the message has been written.
+ *
+ * <p>When several messages are written at once, the notification is sent once per each
+ * affected shard.
  */
 abstract class NotifyingWriter implements InboxWriter {
 
@@ -47,4 +55,22 @@ abstract class NotifyingWriter implements InboxWriter {
         storage.write(message);
         onShardUpdated(message);
     }
+
+    /**
+     * Writes the passed messages with a single storage operation, and then notifies
+     * of the last message written to each of the affected shards.
+     */
+    @Override
+    public void writeAll(ImmutableList<InboxMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        storage.writeAll(messages);
+        Map<ShardIndex, InboxMessage> lastPerShard = new LinkedHashMap<>();
+        for (InboxMessage message : messages) {
+            lastPerShard.put(message.shardIndex(), message);
+        }
+        lastPerShard.values()
+                    .forEach(this::onShardUpdated);
+    }
 }
@@ -55,4 +55,22 @@ public interface Page<M extends ShardedRecord> {
      *         this page is the last one
      */
     Optional<Page<M>> next();
+
+    /**
+     * Obtains the next page of the given size.
+     *
+     * <p>The next page starts right after this one, as the page obtained via {@link #next()}
+     * does, but holds at most the given number of items.
+     *
+     * <p>By default, ignores the passed size and returns {@link #next()}. The implementations
+     * are encouraged to override this method.
+     *
+     * @param pageSize
+     *         the maximum number of items in the next page
+     * @return the next page wrapped into {@code Optional}, or {@code Optional.empty()} if
+     *         this page is the last one
+     */
+    default Optional<Page<M>> next(int pageSize) {
+        return next();
+    }
 }
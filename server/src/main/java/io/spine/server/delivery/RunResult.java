@@ -28,10 +28,16 @@ class RunResult {
 
     private final int deliveredMsgCount;
     private final boolean stoppedByMonitor;
+    private final boolean leaseLost;
 
     RunResult(int count, boolean stoppedByMonitor) {
+        this(count, stoppedByMonitor, false);
+    }
+
+    RunResult(int count, boolean stoppedByMonitor, boolean leaseLost) {
         deliveredMsgCount = count;
         this.stoppedByMonitor = stoppedByMonitor;
+        this.leaseLost = leaseLost;
     }
 
     /**
@@ -39,9 +45,23 @@ class RunResult {
      *
      * <p>The run is not required either if there were no messages delivered or if
      * the {@code DeliveryMonitor} stopped the execution.
+     *
+     * <p>In the latter case the shard is released, and the observers are notified of
+     * the messages left in it. This way a monitor yields the shard to the ones waiting
+     * for longer, while the remaining messages are delivered in a later session.
+     *
+     * <p>Neither is the run required if the lease on the shard has been lost, as the shard
+     * is now processed by another node.
      */
     boolean shouldRunAgain() {
-        return !stoppedByMonitor && deliveredMsgCount > 0;
+        return !stoppedByMonitor && !leaseLost && deliveredMsgCount > 0;
+    }
+
+    /**
+     * Tells if the run has been stopped, as the lease on the shard has been lost.
+     */
+    boolean leaseLost() {
+        return leaseLost;
     }
 
     /**
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.protobuf.Duration;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.util.Timestamps;
+import io.spine.type.TypeUrl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static io.spine.server.delivery.InboxMessageStatus.DELIVERED;
+
+/**
+ * The messages waiting for the delivery in a certain shard, grouped by the type of their targets.
+ *
+ * <p>The backlog includes the messages to deliver and the messages to catch up with,
+ * but not the delivered messages kept for deduplication.
+ *
+ * @see Delivery#backlogOf(ShardIndex)
+ */
+public final class ShardBacklog {
+
+    private final ShardIndex index;
+    private final Timestamp whenMeasured;
+    private final ImmutableMap<TypeUrl, Integer> depths;
+    private final ImmutableMap<TypeUrl, Timestamp> oldest;
+
+    private ShardBacklog(ShardIndex index,
+                         Timestamp whenMeasured,
+                         ImmutableMap<TypeUrl, Integer> depths,
+                         ImmutableMap<TypeUrl, Timestamp> oldest) {
+        this.index = index;
+        this.whenMeasured = whenMeasured;
+        this.depths = depths;
+        this.oldest = oldest;
+    }
+
+    /**
+     * Collects the backlog of the shard reading it starting from the passed page.
+     */
+    static ShardBacklog collect(ShardIndex index, Page<InboxMessage> firstPage, Timestamp now) {
+        Map<TypeUrl, Integer> depths = new HashMap<>();
+        Map<TypeUrl, Timestamp> oldest = new HashMap<>();
+        Optional<Page<InboxMessage>> maybePage = Optional.of(firstPage);
+        while (maybePage.isPresent()) {
+            Page<InboxMessage> page = maybePage.get();
+            for (InboxMessage message : page.contents()) {
+                if (message.getStatus() != DELIVERED) {
+                    TypeUrl type = TypeUrl.parse(message.getInboxId()
+                                                        .getTypeUrl());
+                    depths.merge(type, 1, Integer::sum);
+                    oldest.merge(type, message.getWhenReceived(), ShardBacklog::earliest);
+                }
+            }
+            maybePage = page.next();
+        }
+        return new ShardBacklog(index, now, ImmutableMap.copyOf(depths),
+                                ImmutableMap.copyOf(oldest));
+    }
+
+    private static Timestamp earliest(Timestamp first, Timestamp second) {
+        return Timestamps.compare(first, second) <= 0 ? first : second;
+    }
+
+    /**
+     * Returns the index of the shard.
+     */
+    public ShardIndex shardIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the time at which the backlog was measured.
+     */
+    public Timestamp whenMeasured() {
+        return whenMeasured;
+    }
+
+    /**
+     * Returns the types of the targets, for which there are messages waiting.
+     */
+    public ImmutableSet<TypeUrl> targetTypes() {
+        return depths.keySet();
+    }
+
+    /**
+     * Returns the total number of the messages waiting in the shard.
+     */
+    public int depth() {
+        return depths.values()
+                     .stream()
+                     .reduce(0, Integer::sum);
+    }
+
+    /**
+     * Returns the number of the messages waiting to be delivered to the targets of
+     * the given type.
+     */
+    public int depthOf(TypeUrl targetType) {
+        return depths.getOrDefault(targetType, 0);
+    }
+
+    /**
+     * Returns for how long the oldest message in the shard has been waiting,
+     * or {@code Optional.empty()} if the shard has no messages waiting.
+     */
+    public Optional<Duration> oldestAge() {
+        return oldest.values()
+                     .stream()
+                     .reduce(ShardBacklog::earliest)
+                     .map(this::ageOf);
+    }
+
+    /**
+     * Returns for how long the oldest message to the targets of the given type has been
+     * waiting, or {@code Optional.empty()} if there are no such messages.
+     */
+    public Optional<Duration> oldestAgeOf(TypeUrl targetType) {
+        return Optional.ofNullable(oldest.get(targetType))
+                       .map(this::ageOf);
+    }
+
+    private Duration ageOf(Timestamp whenReceived) {
+        return Timestamps.between(whenReceived, whenMeasured);
+    }
+}
@@ -0,0 +1,379 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.protobuf.Duration;
+import com.google.protobuf.util.Durations;
+import io.spine.core.TenantId;
+import io.spine.logging.Logging;
+import io.spine.server.tenant.TenantAwareRunner;
+import io.spine.server.tenant.TenantIndex;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Maps.newConcurrentMap;
+import static com.google.common.flogger.LazyArgs.lazy;
+import static com.google.common.util.concurrent.MoreExecutors.shutdownAndAwaitTermination;
+import static java.lang.Math.min;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Drains all the shards of a {@link Delivery} concurrently on a single application node.
+ *
+ * <p>Runs a number of worker loops in a pool of threads. Each worker has a set of "home" shards,
+ * which it processes first. Once the home shards have nothing to deliver, the worker steals
+ * the work from the shards of other workers. The exclusive access to each shard is guaranteed
+ * by the {@link ShardedWorkRegistry} of the {@code Delivery}, so the shards picked up by other
+ * workers or other application nodes are skipped.
+ *
+ * <p>The drainer learns about the messages to deliver in two ways:
+ * <ol>
+ *     <li>as a {@link ShardObserver} of the {@code Delivery}, it is notified of each message
+ *     written to the inbox at this node;
+ *     <li>it polls the {@link InboxStorage#newestMessageToDeliver(ShardIndex) InboxStorage}
+ *     for the messages written by other nodes.
+ * </ol>
+ *
+ * <p>If a full pass over all the shards has found nothing to deliver, the worker backs off,
+ * doubling the waiting time up to the configured maximum. A notification of a new message
+ * wakes up the waiting workers immediately.
+ *
+ * <p>In a multi-tenant application, the {@link TenantIndex} must be
+ * {@linkplain Builder#setTenantIndex(TenantIndex) configured}, so that the shards of each tenant
+ * are polled.
+ *
+ * <p>Instances are created via {@link Delivery#newShardDrainer()}. Once built, the drainer should
+ * be {@linkplain #start() started} and then {@linkplain #close() closed} when no longer needed.
+ */
+public final class ShardDrainer implements ShardObserver, AutoCloseable, Logging {
+
+    /**
+     * For how long to wait for the workers to complete their current job when closing.
+     */
+    private static final long TERMINATION_TIMEOUT_SECONDS = 30;
+
+    private final Delivery delivery;
+    private final TenantIndex tenantIndex;
+    private final int workerCount;
+    private final long minBackoffMillis;
+    private final long maxBackoffMillis;
+
+    /**
+     * Tenants, for which a new message was written, per shard.
+     */
+    private final Map<ShardIndex, ImmutableSet<TenantId>> signals = newConcurrentMap();
+
+    /**
+     * The permits to wake up the workers waiting for the new messages.
+     */
+    private final Semaphore wakeUp = new Semaphore(0);
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private @MonotonicNonNull ExecutorService executor;
+
+    private ShardDrainer(Builder builder) {
+        this.delivery = builder.delivery;
+        this.tenantIndex = builder.tenantIndex;
+        this.workerCount = builder.workerCount;
+        this.minBackoffMillis = Durations.toMillis(builder.minBackoff);
+        this.maxBackoffMillis = Durations.toMillis(builder.maxBackoff);
+    }
+
+    /**
+     * Creates a new builder for the drainer of the passed {@code Delivery}.
+     */
+    static Builder newBuilder(Delivery delivery) {
+        checkNotNull(delivery);
+        return new Builder(delivery);
+    }
+
+    /**
+     * Starts the worker loops.
+     *
+     * @throws IllegalStateException
+     *         if the drainer has been already started
+     */
+    public synchronized void start() {
+        checkState(executor == null, "The shard drainer has been already started.");
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("shard-drainer-%d")
+                .setDaemon(true)
+                .build();
+        executor = newFixedThreadPool(workerCount, threadFactory);
+        running.set(true);
+        for (int worker = 0; worker < workerCount; worker++) {
+            int number = worker;
+            executor.execute(() -> work(number));
+        }
+    }
+
+    /**
+     * Tells whether the drainer is started and not yet closed.
+     */
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Stops the worker loops, waiting for the ongoing deliveries to complete.
+     */
+    @Override
+    public synchronized void close() {
+        if (!running.getAndSet(false)) {
+            return;
+        }
+        wakeUp.release(workerCount);
+        if (executor != null) {
+            shutdownAndAwaitTermination(executor, TERMINATION_TIMEOUT_SECONDS, SECONDS);
+        }
+    }
+
+    /**
+     * Records that the shard of the passed message has something to deliver
+     * and wakes up a waiting worker.
+     */
+    @Override
+    public void onMessage(InboxMessage update) {
+        ShardIndex index = update.shardIndex();
+        TenantId tenant = update.tenant();
+        signals.compute(index, (i, tenants) -> tenants == null
+                                               ? ImmutableSet.of(tenant)
+                                               : ImmutableSet.<TenantId>builder()
+                                                             .addAll(tenants)
+                                                             .add(tenant)
+                                                             .build());
+        if (wakeUp.availablePermits() < workerCount) {
+            wakeUp.release();
+        }
+    }
+
+    /**
+     * Orders the shards for the worker with the given number.
+     *
+     * <p>The shards are distributed between the workers in a round-robin manner. The worker's
+     * own shards go first, then go the shards of the next worker, and so on.
+     */
+    private ImmutableList<ShardIndex> shardsInOrderFor(int worker, int shardCount) {
+        ImmutableList.Builder<ShardIndex> result = ImmutableList.builder();
+        for (int offset = 0; offset < workerCount; offset++) {
+            int owner = (worker + offset) % workerCount;
+            for (int index = owner; index < shardCount; index += workerCount) {
+                result.add(DeliveryStrategy.newIndex(index, shardCount));
+            }
+        }
+        return result.build();
+    }
+
+    /**
+     * Runs the loop of the worker with the given number until the drainer is closed.
+     *
+     * <p>The order of the shards is recomputed each time the number of shards
+     * in the {@code Delivery} changes.
+     */
+    private void work(int worker) {
+        long backoff = minBackoffMillis;
+        int shardCount = delivery.shardCount();
+        ImmutableList<ShardIndex> order = shardsInOrderFor(worker, shardCount);
+        while (running.get()) {
+            int currentShardCount = delivery.shardCount();
+            if (currentShardCount != shardCount) {
+                shardCount = currentShardCount;
+                order = shardsInOrderFor(worker, shardCount);
+            }
+            boolean delivered = drainOnce(order);
+            if (delivered) {
+                backoff = minBackoffMillis;
+                continue;
+            }
+            try {
+                boolean wokenUp = wakeUp.tryAcquire(backoff, MILLISECONDS);
+                backoff = wokenUp
+                          ? minBackoffMillis
+                          : min(backoff * 2, maxBackoffMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread()
+                      .interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Passes over all the shards in the given order and delivers the messages from those
+     * which have something to deliver.
+     *
+     * @return {@code true} if at least one message was delivered, {@code false} otherwise
+     */
+    private boolean drainOnce(ImmutableList<ShardIndex> order) {
+        boolean deliveredAny = false;
+        for (ShardIndex index : order) {
+            if (!running.get()) {
+                break;
+            }
+            ImmutableSet<TenantId> signalled = takeSignals(index);
+            Set<TenantId> tenants = new LinkedHashSet<>(signalled);
+            tenants.addAll(tenantIndex.all());
+            for (TenantId tenant : tenants) {
+                deliveredAny |= deliverFrom(tenant, index, signalled.contains(tenant));
+            }
+        }
+        return deliveredAny;
+    }
+
+    private ImmutableSet<TenantId> takeSignals(ShardIndex index) {
+        ImmutableSet<TenantId> result = signals.remove(index);
+        return result == null ? ImmutableSet.of() : result;
+    }
+
+    /**
+     * Delivers the messages from the shard of the given tenant.
+     *
+     * <p>Unless the shard was signalled, the storage is first checked for the messages
+     * to deliver.
+     *
+     * <p>The errors are logged, so that the worker proceeds to other shards.
+     *
+     * @return {@code true} if any messages were delivered, {@code false} otherwise
+     */
+    @SuppressWarnings("OverlyBroadCatchBlock")  // Any failure must not stop the worker.
+    private boolean deliverFrom(TenantId tenant, ShardIndex index, boolean signalled) {
+        try {
+            Optional<DeliveryStats> stats =
+                    TenantAwareRunner.with(tenant)
+                                     .evaluate(() -> deliverIfAny(index, signalled));
+            return stats.isPresent() && stats.get()
+                                             .deliveredCount() > 0;
+        } catch (RuntimeException e) {
+            _error().withCause(e)
+                    .log("Error delivering the messages from the shard %s.",
+                         lazy(index::toString));
+            return false;
+        }
+    }
+
+    private Optional<DeliveryStats> deliverIfAny(ShardIndex index, boolean signalled) {
+        if (!signalled && !delivery.hasMessagesToDeliver(index)) {
+            return Optional.empty();
+        }
+        return delivery.deliverMessagesFrom(index);
+    }
+
+    /**
+     * A builder of {@link ShardDrainer} instances.
+     */
+    public static final class Builder {
+
+        private static final Duration DEFAULT_MIN_BACKOFF = Durations.fromMillis(10);
+        private static final Duration DEFAULT_MAX_BACKOFF = Durations.fromSeconds(1);
+
+        private final Delivery delivery;
+        private TenantIndex tenantIndex = TenantIndex.singleTenant();
+        private int workerCount = Runtime.getRuntime()
+                                         .availableProcessors();
+        private Duration minBackoff = DEFAULT_MIN_BACKOFF;
+        private Duration maxBackoff = DEFAULT_MAX_BACKOFF;
+
+        private Builder(Delivery delivery) {
+            this.delivery = delivery;
+        }
+
+        /**
+         * Sets the number of the worker loops to run.
+         *
+         * <p>If none set, the number of available processors is used.
+         */
+        @CanIgnoreReturnValue
+        public Builder setWorkerCount(int workerCount) {
+            checkArgument(workerCount > 0, "The number of workers must be positive.");
+            this.workerCount = workerCount;
+            return this;
+        }
+
+        /**
+         * Sets the index of tenants, which shards should be drained.
+         *
+         * <p>If none set, the application is considered single-tenant.
+         */
+        @CanIgnoreReturnValue
+        public Builder setTenantIndex(TenantIndex tenantIndex) {
+            this.tenantIndex = checkNotNull(tenantIndex);
+            return this;
+        }
+
+        /**
+         * Sets for how long a worker initially waits after a pass over the shards
+         * has found nothing to deliver.
+         *
+         * <p>If none set, 10 milliseconds are used.
+         */
+        @CanIgnoreReturnValue
+        public Builder setMinBackoff(Duration minBackoff) {
+            checkNotNull(minBackoff);
+            checkArgument(Durations.toMillis(minBackoff) > 0,
+                          "The minimal backoff must be at least one millisecond.");
+            this.minBackoff = minBackoff;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time for a worker to wait between the passes over the shards,
+         * which have nothing to deliver.
+         *
+         * <p>If none set, one second is used.
+         */
+        @CanIgnoreReturnValue
+        public Builder setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = checkNotNull(maxBackoff);
+            return this;
+        }
+
+        /**
+         * Creates a new instance of {@code ShardDrainer} and subscribes it to the updates
+         * of the shard contents in the {@code Delivery}.
+         *
+         * <p>The returned drainer is not started.
+         */
+        public ShardDrainer build() {
+            checkArgument(Durations.compare(minBackoff, maxBackoff) <= 0,
+                          "The minimal backoff must not exceed the maximum backoff.");
+            ShardDrainer drainer = new ShardDrainer(this);
+            delivery.subscribe(drainer);
+            return drainer;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import io.spine.logging.Logging;
+import io.spine.server.NodeId;
+import io.spine.server.tenant.IdInTenant;
+import io.spine.server.tenant.TenantAware;
+import io.spine.type.TypeUrl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Sets.newConcurrentHashSet;
+
+/**
+ * Moves the messages from the shards of the previous shard layout to the shards
+ * of the current one.
+ *
+ * <p>Each of the previous shards is {@linkplain ShardedWorkRegistry#pickUp(ShardIndex, NodeId)
+ * picked up} before its messages are moved, so that a shard is migrated by a single node
+ * at a time. If a previous shard is picked up by someone else, it is skipped until the next
+ * migration run.
+ *
+ * <p>The message keeps its identifier value and the time of receiving, only its shard index
+ * is updated. The messages, which targets still belong to the shard with the same index value,
+ * stay within the same shard. With the {@linkplain ConsistentAcrossShards consistent hashing},
+ * only the messages of the targets assigned to another shard number are moved.
+ *
+ * <p>Once a previous shard of a tenant is found empty, it is considered drained and is not read
+ * by this instance anymore. The shards of the previous layout are not expected to receive new
+ * messages once all the nodes switch to the current layout. A node started afterwards checks
+ * each previous shard only once.
+ */
+final class ShardMigration implements Logging {
+
+    private final int previousShardCount;
+    private final DeliveryStrategy strategy;
+    private final InboxStorage storage;
+    private final ShardedWorkRegistry workRegistry;
+    private final int pageSize;
+    private final Consumer<InboxMessage> onMoved;
+
+    /**
+     * The previous shards of each tenant, which have been found empty.
+     */
+    private final Set<IdInTenant<ShardIndex>> drained = newConcurrentHashSet();
+
+    /**
+     * Creates a new migration.
+     *
+     * @param previousShardCount
+     *         the number of shards in the previous layout
+     * @param strategy
+     *         the current strategy of the delivery
+     * @param storage
+     *         the storage of the inbox messages
+     * @param workRegistry
+     *         the registry to pick up the previous shards in
+     * @param pageSize
+     *         the number of messages to move at a time
+     * @param onMoved
+     *         the callback to notify of a message moved to a shard of the current layout;
+     *         called once per shard for each batch of the moved messages
+     */
+    ShardMigration(int previousShardCount,
+                   DeliveryStrategy strategy,
+                   InboxStorage storage,
+                   ShardedWorkRegistry workRegistry,
+                   int pageSize,
+                   Consumer<InboxMessage> onMoved) {
+        checkArgument(previousShardCount > 0);
+        checkArgument(previousShardCount != strategy.shardCount(),
+                      "The previous shard count must differ from the current one.");
+        this.previousShardCount = previousShardCount;
+        this.strategy = strategy;
+        this.storage = storage;
+        this.workRegistry = workRegistry;
+        this.pageSize = pageSize;
+        this.onMoved = onMoved;
+    }
+
+    /**
+     * Moves the messages from all the previous shards of the current tenant, which are neither
+     * drained nor picked up by other nodes.
+     *
+     * @return the number of the messages moved
+     */
+    int migrate(NodeId node) {
+        boolean multitenant = TenantAware.isTenantSet();
+        int moved = 0;
+        for (int value = 0; value < previousShardCount; value++) {
+            ShardIndex previous = DeliveryStrategy.newIndex(value, previousShardCount);
+            IdInTenant<ShardIndex> shard = IdInTenant.of(previous, multitenant);
+            if (drained.contains(shard)) {
+                continue;
+            }
+            Optional<ShardProcessingSession> session = workRegistry.pickUp(previous, node);
+            if (session.isPresent()) {
+                try {
+                    moved += drain(shard, session.get());
+                } finally {
+                    session.get()
+                           .complete();
+                }
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Tells whether all the previous shards of the current tenant are drained.
+     */
+    @VisibleForTesting
+    boolean isDrained() {
+        boolean multitenant = TenantAware.isTenantSet();
+        for (int value = 0; value < previousShardCount; value++) {
+            ShardIndex previous = DeliveryStrategy.newIndex(value, previousShardCount);
+            if (!drained.contains(IdInTenant.of(previous, multitenant))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves the messages from the previous shard until it is empty.
+     *
+     * <p>The lease on the previous shard is renewed before each page is written. The writes are
+     * fenced with the token of the session, so that they are rejected once the shard is
+     * taken over by another node. In this case the migration of the shard stops, and the shard
+     * is not marked as drained.
+     *
+     * @return the number of the messages moved
+     */
+    private int drain(IdInTenant<ShardIndex> shard, ShardProcessingSession session) {
+        ShardIndex previous = shard.value();
+        int moved = 0;
+        ImmutableList<InboxMessage> messages = storage.readAll(previous, pageSize)
+                                                      .contents();
+        while (!messages.isEmpty()) {
+            ImmutableList<InboxMessage> updates =
+                    messages.stream()
+                            .map(message -> reindex(message, previous))
+                            .collect(toImmutableList());
+            if (!applyFenced(session, updates, messages)) {
+                _warn().log("The lease on the shard %d of %d has been lost during the migration.",
+                            previous.getIndex(), previousShardCount);
+                return moved;
+            }
+            notifyShardsOf(updates);
+            moved += messages.size();
+            messages = storage.readAll(previous, pageSize)
+                              .contents();
+        }
+        drained.add(shard);
+        if (moved > 0) {
+            _debug().log("Moved %d messages from the shard %d of %d.",
+                         moved, previous.getIndex(), previousShardCount);
+        }
+        return moved;
+    }
+
+    /**
+     * Writes the changes on behalf of the session, if it still holds the shard.
+     *
+     * @return {@code true} if the changes are written, {@code false} otherwise
+     */
+    private boolean applyFenced(ShardProcessingSession session,
+                                ImmutableList<InboxMessage> updates,
+                                ImmutableList<InboxMessage> removals) {
+        if (!session.renew()) {
+            return false;
+        }
+        try {
+            storage.applyChanges(session.shardIndex(), session.fencingToken(), updates, removals);
+            return true;
+        } catch (StaleFencingTokenException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Notifies of a single message per each shard, to which the messages were moved.
+     */
+    private void notifyShardsOf(ImmutableList<InboxMessage> updates) {
+        Map<ShardIndex, InboxMessage> firstPerShard = new LinkedHashMap<>();
+        for (InboxMessage update : updates) {
+            firstPerShard.putIfAbsent(update.shardIndex(), update);
+        }
+        firstPerShard.values()
+                     .forEach(onMoved);
+    }
+
+    private InboxMessage reindex(InboxMessage message, ShardIndex previous) {
+        InboxId inboxId = message.getInboxId();
+        TypeUrl targetType = TypeUrl.parse(inboxId.getTypeUrl());
+        ShardIndex index;
+        if (targetType.equals(ShardMaintenanceProcess.TYPE)) {
+            index = DeliveryStrategy.newIndex(previous.getIndex() % strategy.shardCount(),
+                                              strategy.shardCount());
+        } else {
+            Object targetId = InboxIds.unwrap(inboxId);
+            index = strategy.determineIndex(targetId, targetType);
+        }
+        InboxMessageId newId = message.getId()
+                                      .toBuilder()
+                                      .setIndex(index)
+                                      .build();
+        return message.toBuilder()
+                      .setId(newId)
+                      .build();
+    }
+}
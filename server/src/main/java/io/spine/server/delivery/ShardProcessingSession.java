@@ -33,9 +33,11 @@ import io.spine.server.NodeId;
 public abstract class ShardProcessingSession {
 
     private final ShardIndex index;
+    private final long fencingToken;
 
     protected ShardProcessingSession(ShardSessionRecord record) {
         this.index = record.getIndex();
+        this.fencingToken = record.getFencingToken();
     }
 
     /**
@@ -45,8 +47,37 @@ public abstract class ShardProcessingSession {
         return index;
     }
 
+    /**
+     * Returns the fencing token of this session.
+     *
+     * <p>The token grows with each pick-up of the shard. Therefore, the session with
+     * the greater token is the newer one.
+     */
+    public long fencingToken() {
+        return fencingToken;
+    }
+
+    /**
+     * Renews the lease on the picked shard, signalling that the node processing it is alive.
+     *
+     * <p>Called periodically while the messages of the shard are being processed.
+     *
+     * <p>The registries supporting the leases should override this method. By default,
+     * the lease is considered held until the session is {@linkplain #complete() completed}.
+     *
+     * @return {@code true} if the lease is still held by this session, {@code false} if it
+     *         has been released or taken over by another node, and the processing of the shard
+     *         should be stopped
+     */
+    protected boolean renew() {
+        return true;
+    }
+
     /**
      * Completes this session and releases the picked shard, making it available for picking up.
+     *
+     * <p>If the lease of this session has been taken over by another node, the implementations
+     * should leave the shard picked by that node.
      */
     protected abstract void complete();
 }
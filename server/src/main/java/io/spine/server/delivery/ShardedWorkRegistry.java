@@ -67,4 +67,17 @@ public interface ShardedWorkRegistry {
      * @return the indexes of shards which sessions have been released
      */
     Iterable<ShardIndex> releaseExpiredSessions(Duration inactivityPeriod);
+
+    /**
+     * Returns the duration of the leases on the picked shards.
+     *
+     * <p>If the lease is not {@linkplain ShardProcessingSession#renew() renewed} for this
+     * duration, the shard may be picked up by another node. While a shard is being delivered,
+     * the {@code Delivery} renews its lease in the background.
+     *
+     * <p>By default, the leases never expire, and {@code Optional.empty()} is returned.
+     */
+    default Optional<Duration> leaseDuration() {
+        return Optional.empty();
+    }
 }
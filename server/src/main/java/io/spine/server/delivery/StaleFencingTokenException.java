@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import static java.lang.String.format;
+
+/**
+ * An exception telling that the changes to a shard are rejected, since they are made on behalf
+ * of a session, which lease on the shard has been taken over by a newer session.
+ *
+ * <p>Thrown by the {@linkplain InboxStorage#applyChanges(ShardIndex, long, Iterable, Iterable)
+ * storages}, which support the fencing of the writes.
+ */
+public final class StaleFencingTokenException extends IllegalStateException {
+
+    private static final long serialVersionUID = 0L;
+
+    private final ShardIndex shard;
+    private final long staleToken;
+    private final long currentToken;
+
+    /**
+     * Creates a new exception.
+     *
+     * @param shard
+     *         the shard, the changes to which are rejected
+     * @param staleToken
+     *         the fencing token, with which the changes were made
+     * @param currentToken
+     *         the newer fencing token already seen by the storage
+     */
+    public StaleFencingTokenException(ShardIndex shard, long staleToken, long currentToken) {
+        super();
+        this.shard = shard;
+        this.staleToken = staleToken;
+        this.currentToken = currentToken;
+    }
+
+    @Override
+    public String getMessage() {
+        return format("The changes to the shard %d of %d made with the fencing token %d are " +
+                              "rejected, as the shard is already processed with the token %d.",
+                      shard.getIndex(), shard.getOfTotal(), staleToken, currentToken);
+    }
+
+    /**
+     * Returns the shard, the changes to which are rejected.
+     */
+    public ShardIndex shard() {
+        return shard;
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.util.Timestamps;
+import io.spine.base.Time;
+import io.spine.server.NodeId;
+import io.spine.server.tenant.IdInTenant;
+import io.spine.server.tenant.TenantAware;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Sets.newConcurrentHashSet;
+
+/**
+ * Moves the messages of the targets pinned to a dedicated shard from their original shards.
+ *
+ * @see HotTargetAwareStrategy
+ */
+final class TargetHandover {
+
+    private final DeliveryStrategy strategy;
+    private final InboxStorage storage;
+    private final ShardedWorkRegistry workRegistry;
+    private final int pageSize;
+
+    /**
+     * The targets, which original shards have been completely passed after the pins
+     * of the targets became visible to all the nodes.
+     */
+    private final Set<IdInTenant<InboxId>> handedOver = newConcurrentHashSet();
+
+    TargetHandover(DeliveryStrategy strategy,
+                   InboxStorage storage,
+                   ShardedWorkRegistry workRegistry,
+                   int pageSize) {
+        this.strategy = strategy;
+        this.storage = storage;
+        this.workRegistry = workRegistry;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Moves the messages of the targets pinned to the given shard from their original shards.
+     *
+     * <p>Each of the original shards is picked up for the time of the move. If any of them is
+     * picked up by another node, the handover is not complete, and the given shard must not
+     * be delivered, as the messages to the same target may be delivered concurrently.
+     *
+     * <p>Once the original shard of a target has been completely passed after the pin became
+     * visible to all the nodes, no more messages to the target may appear in it. Such a target
+     * is skipped in the subsequent handovers. Until then, the messages to the target written
+     * to the original shard by the nodes, to which the pin has not propagated yet, are
+     * {@linkplain #redirectPinned(ImmutableList, ShardProcessingSession) redirected} by
+     * the delivery of the original shard.
+     *
+     * @return {@code true} if the handover to the given shard is complete,
+     *         {@code false} otherwise
+     */
+    boolean handOverTo(ShardIndex index, NodeId node) {
+        ImmutableList<TargetPin> pins = strategy.pendingHandoversTo(index);
+        for (TargetPin pin : pins) {
+            IdInTenant<InboxId> target = IdInTenant.of(pin.getTarget(), TenantAware.isTenantSet());
+            if (handedOver.contains(target)) {
+                continue;
+            }
+            Optional<ShardProcessingSession> session = workRegistry.pickUp(pin.getOrigin(), node);
+            if (!session.isPresent()) {
+                return false;
+            }
+            Timestamp passStarted = Time.currentTime();
+            boolean moved;
+            try {
+                moved = move(pin, session.get());
+            } finally {
+                session.get()
+                       .complete();
+            }
+            if (!moved) {
+                return false;
+            }
+            if (isPropagatedBy(pin, passStarted)) {
+                handedOver.add(target);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tells whether the pin had been visible to all the nodes by the given time.
+     */
+    private boolean isPropagatedBy(TargetPin pin, Timestamp time) {
+        Timestamp propagated = Timestamps.add(pin.getWhenPinned(),
+                                              strategy.pinPropagationTime());
+        return Timestamps.compare(propagated, time) <= 0;
+    }
+
+    /**
+     * Tells whether the handover of the given target is complete.
+     */
+    @VisibleForTesting
+    boolean isHandedOver(InboxId target) {
+        return handedOver.contains(IdInTenant.of(target, TenantAware.isTenantSet()));
+    }
+
+    /**
+     * Moves the messages of the pinned target from its original shard page by page.
+     *
+     * <p>The lease on the original shard is renewed before each page is written. The writes are
+     * fenced with the token of the session, so that they are rejected once the original shard is
+     * taken over by another node.
+     *
+     * @return {@code true} if the original shard has been passed completely,
+     *         {@code false} if the lease on it has been lost
+     */
+    private boolean move(TargetPin pin, ShardProcessingSession session) {
+        Optional<Page<InboxMessage>> maybePage = Optional.of(storage.readAll(pin.getOrigin(),
+                                                                             pageSize));
+        while (maybePage.isPresent()) {
+            Page<InboxMessage> page = maybePage.get();
+            ImmutableList<InboxMessage> ofTarget =
+                    page.contents()
+                        .stream()
+                        .filter(message -> pin.getTarget()
+                                              .equals(message.getInboxId()))
+                        .collect(toImmutableList());
+            if (!ofTarget.isEmpty()) {
+                ImmutableList<InboxMessage> moved =
+                        ofTarget.stream()
+                                .map(message -> inShard(message, pin.getShard()))
+                                .collect(toImmutableList());
+                if (!session.renew()) {
+                    return false;
+                }
+                try {
+                    storage.applyChanges(pin.getOrigin(), session.fencingToken(),
+                                         moved, ofTarget);
+                } catch (StaleFencingTokenException e) {
+                    return false;
+                }
+            }
+            maybePage = page.next();
+        }
+        return true;
+    }
+
+    /**
+     * Moves the messages of the pinned targets from the page of their original shard
+     * to the dedicated shards.
+     *
+     * <p>Such messages may be written to the original shard by the nodes, to which the pin
+     * has not yet propagated. They must not be delivered from the original shard, as the
+     * dedicated shard may be delivered at the same time.
+     *
+     * <p>The writes are fenced with the token of the session delivering the original shard.
+     *
+     * @param messages
+     *         the page of messages read from the shard, which session is passed
+     * @param session
+     *         the session of the shard being delivered
+     * @return the messages moved to the dedicated shards
+     * @throws StaleFencingTokenException
+     *         if the shard has been taken over by another node
+     */
+    ImmutableList<InboxMessage> redirectPinned(ImmutableList<InboxMessage> messages,
+                                               ShardProcessingSession session) {
+        ImmutableList<TargetPin> pins = strategy.pinsFrom(session.shardIndex());
+        if (pins.isEmpty()) {
+            return ImmutableList.of();
+        }
+        ImmutableList.Builder<InboxMessage> pinned = ImmutableList.builder();
+        ImmutableList.Builder<InboxMessage> moved = ImmutableList.builder();
+        for (InboxMessage message : messages) {
+            for (TargetPin pin : pins) {
+                if (pin.getTarget()
+                       .equals(message.getInboxId())) {
+                    pinned.add(message);
+                    moved.add(inShard(message, pin.getShard()));
+                    break;
+                }
+            }
+        }
+        ImmutableList<InboxMessage> result = moved.build();
+        if (!result.isEmpty()) {
+            storage.applyChanges(session.shardIndex(), session.fencingToken(),
+                                 result, pinned.build());
+        }
+        return result;
+    }
+
+    private static InboxMessage inShard(InboxMessage message, ShardIndex index) {
+        InboxMessageId id = message.getId()
+                                   .toBuilder()
+                                   .setIndex(index)
+                                   .build();
+        return message.toBuilder()
+                      .setId(id)
+                      .build();
+    }
+}
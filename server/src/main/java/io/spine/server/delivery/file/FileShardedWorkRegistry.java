@@ -0,0 +1,386 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery.file;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Longs;
+import com.google.protobuf.Duration;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.spine.logging.Logging;
+import io.spine.server.NodeId;
+import io.spine.server.delivery.AbstractWorkRegistry;
+import io.spine.server.delivery.ShardIndex;
+import io.spine.server.delivery.ShardProcessingSession;
+import io.spine.server.delivery.ShardSessionRecord;
+import io.spine.server.delivery.ShardedWorkRegistry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Maps.newConcurrentMap;
+import static io.spine.util.Exceptions.newIllegalStateException;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * A {@link ShardedWorkRegistry ShardedWorkRegistry} shared by several processes running
+ * on the same host.
+ *
+ * <p>The session records are kept in a memory-mapped file, which serves as a table of slots
+ * of a fixed size. Each slot holds a record of a single shard. The table is shared by all
+ * the registries opened on the same file, in this or other processes.
+ *
+ * <p>Each operation on the registry is performed under the exclusive lock on the file.
+ * The lock is held by the operating system on behalf of the process, and is released by it
+ * if the process crashes. Within a process, the operations on the same file are serialized
+ * with an in-process lock, as the file locks do not exclude the threads of the same process.
+ *
+ * <p>Each slot holds two copies of the record. A record is written over the older copy, along
+ * with the incremented generation and the checksum. The reader takes the valid copy of
+ * the greater generation. Therefore, a write torn by a crash of the process leaves
+ * the previous copy in effect. A slot with no valid copies is considered free.
+ *
+ * <p>The table fits the records of {@value #SLOT_COUNT} shards.
+ */
+public final class FileShardedWorkRegistry
+        extends AbstractWorkRegistry
+        implements AutoCloseable, Logging {
+
+    private static final int COPY_SIZE = 256;
+    private static final int SLOT_SIZE = 2 * COPY_SIZE;
+    private static final int SLOT_COUNT = 1024;
+    private static final int TABLE_SIZE = SLOT_SIZE * SLOT_COUNT;
+
+    /**
+     * The size of the header of a record copy, consisting of the generation, the checksum,
+     * and the length of the record.
+     */
+    private static final int HEADER_SIZE = Long.BYTES + Long.BYTES + Integer.BYTES;
+
+    /**
+     * The in-process locks of the table files, by their absolute paths.
+     */
+    private static final Map<Path, ReentrantLock> processLocks = newConcurrentMap();
+
+    private final SessionTable table;
+
+    /**
+     * Opens the registry, which leases never expire.
+     *
+     * @param file
+     *         the file of the session table, which is created if it does not exist
+     */
+    public FileShardedWorkRegistry(Path file) {
+        super();
+        this.table = new SessionTable(file);
+    }
+
+    /**
+     * Opens the registry with the given lease duration.
+     *
+     * <p>All the registries sharing the file should use the same lease duration.
+     *
+     * @param file
+     *         the file of the session table, which is created if it does not exist
+     * @param leaseDuration
+     *         the duration after which a lease, which was not renewed, expires
+     */
+    public FileShardedWorkRegistry(Path file, Duration leaseDuration) {
+        super(leaseDuration);
+        this.table = new SessionTable(file);
+    }
+
+    @Override
+    public Optional<ShardProcessingSession> pickUp(ShardIndex index, NodeId nodeId) {
+        return locked(() -> super.pickUp(index, nodeId));
+    }
+
+    @Override
+    public Iterable<ShardIndex> releaseExpiredSessions(Duration inactivityPeriod) {
+        return locked(() -> super.releaseExpiredSessions(inactivityPeriod));
+    }
+
+    @Override
+    protected void clearNode(ShardSessionRecord session) {
+        locked(() -> {
+            super.clearNode(session);
+            return null;
+        });
+    }
+
+    @Override
+    protected boolean renewLease(ShardSessionRecord session) {
+        return locked(() -> super.renewLease(session));
+    }
+
+    @Override
+    protected void releaseLease(ShardSessionRecord session) {
+        locked(() -> {
+            super.releaseLease(session);
+            return null;
+        });
+    }
+
+    /**
+     * Performs the operation under the in-process lock and the lock on the table file.
+     *
+     * <p>The nested operations reuse the locks acquired by the outer one.
+     */
+    private <T> T locked(Supplier<T> operation) {
+        table.processLock.lock();
+        try {
+            if (table.processLock.getHoldCount() > 1) {
+                return operation.get();
+            }
+            FileLock fileLock = table.channel.lock();
+            try {
+                return operation.get();
+            } finally {
+                fileLock.release();
+            }
+        } catch (IOException e) {
+            throw newIllegalStateException(e, "Unable to lock the session table `%s`.", table.file);
+        } finally {
+            table.processLock.unlock();
+        }
+    }
+
+    @Override
+    protected Iterator<ShardSessionRecord> allRecords() {
+        ImmutableList.Builder<ShardSessionRecord> records = ImmutableList.builder();
+        for (int slot = 0; slot < SLOT_COUNT; slot++) {
+            readSlot(slot).ifPresent(records::add);
+        }
+        return records.build()
+                      .iterator();
+    }
+
+    /**
+     * Writes the record over the older copy in its slot.
+     *
+     * <p>The copy becomes the current one only when it is written completely, as its checksum
+     * matches the contents only then.
+     */
+    @Override
+    protected void write(ShardSessionRecord session) {
+        byte[] bytes = session.toByteArray();
+        if (HEADER_SIZE + bytes.length > COPY_SIZE) {
+            throw newIllegalStateException(
+                    "The session record of %d bytes does not fit into a slot of `%s`.",
+                    bytes.length, table.file);
+        }
+        int slot = slotOf(session.getIndex());
+        long first = validGeneration(slot, 0);
+        long second = validGeneration(slot, 1);
+        int older = first <= second ? 0 : 1;
+        long generation = Math.max(first, second) + 1;
+        int offset = copyOffset(slot, older);
+        ByteBuffer view = table.buffer.duplicate();
+        view.position(offset);
+        view.putLong(generation);
+        view.putLong(checksum(generation, bytes));
+        view.putInt(bytes.length);
+        view.put(bytes);
+    }
+
+    @Override
+    protected Optional<ShardSessionRecord> find(ShardIndex index) {
+        for (int slot = 0; slot < SLOT_COUNT; slot++) {
+            Optional<ShardSessionRecord> record = readSlot(slot);
+            if (!record.isPresent()) {
+                return Optional.empty();
+            }
+            if (record.get()
+                      .getIndex()
+                      .equals(index)) {
+                return record;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the slot holding the record of the given shard, or the first free slot,
+     * if there is no such record.
+     *
+     * <p>The slots are never freed, so the occupied slots always precede the free ones.
+     */
+    private int slotOf(ShardIndex index) {
+        for (int slot = 0; slot < SLOT_COUNT; slot++) {
+            Optional<ShardSessionRecord> record = readSlot(slot);
+            if (!record.isPresent() || record.get()
+                                             .getIndex()
+                                             .equals(index)) {
+                return slot;
+            }
+        }
+        throw newIllegalStateException("The session table `%s` is full.", table.file);
+    }
+
+    /**
+     * Reads the current record of the slot.
+     *
+     * @return the record of the valid copy of the greater generation, or
+     *         {@code Optional.empty()} if the slot is free
+     */
+    private Optional<ShardSessionRecord> readSlot(int slot) {
+        int current = validGeneration(slot, 0) >= validGeneration(slot, 1) ? 0 : 1;
+        return readCopy(slot, current);
+    }
+
+    /**
+     * Returns the generation of the given copy in the slot, or zero if the copy is empty
+     * or is not valid.
+     */
+    private long validGeneration(int slot, int copy) {
+        return readCopy(slot, copy).isPresent()
+               ? table.buffer.getLong(copyOffset(slot, copy))
+               : 0;
+    }
+
+    private Optional<ShardSessionRecord> readCopy(int slot, int copy) {
+        int offset = copyOffset(slot, copy);
+        long generation = table.buffer.getLong(offset);
+        long checksum = table.buffer.getLong(offset + Long.BYTES);
+        int length = table.buffer.getInt(offset + 2 * Long.BYTES);
+        if (generation <= 0 || length <= 0 || HEADER_SIZE + length > COPY_SIZE) {
+            return Optional.empty();
+        }
+        byte[] bytes = new byte[length];
+        ByteBuffer view = table.buffer.duplicate();
+        view.position(offset + HEADER_SIZE);
+        view.get(bytes);
+        if (checksum != checksum(generation, bytes)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(ShardSessionRecord.parseFrom(bytes));
+        } catch (InvalidProtocolBufferException e) {
+            _warn().withCause(e)
+                   .log("Unable to parse the copy %d of the slot %d of the session table `%s`.",
+                        copy, slot, table.file);
+            return Optional.empty();
+        }
+    }
+
+    private static int copyOffset(int slot, int copy) {
+        return slot * SLOT_SIZE + copy * COPY_SIZE;
+    }
+
+    private static long checksum(long generation, byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(Longs.toByteArray(generation));
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    @Override
+    protected ShardProcessingSession asSession(ShardSessionRecord record) {
+        return new FileShardSession(record);
+    }
+
+    /**
+     * Closes the session table file.
+     *
+     * <p>The shards picked by this registry stay picked until their leases expire.
+     */
+    @Override
+    public void close() {
+        try {
+            table.channel.close();
+        } catch (IOException e) {
+            throw newIllegalStateException(e, "Unable to close the session table `%s`.",
+                                           table.file);
+        }
+    }
+
+    /**
+     * Implementation of shard processing session, based on the shared session table.
+     */
+    public final class FileShardSession extends ShardProcessingSession {
+
+        private final ShardSessionRecord record;
+
+        private FileShardSession(ShardSessionRecord record) {
+            super(record);
+            this.record = record;
+        }
+
+        @Override
+        protected boolean renew() {
+            return renewLease(record);
+        }
+
+        @Override
+        protected void complete() {
+            releaseLease(record);
+        }
+    }
+
+    /**
+     * The memory-mapped file of the session table, along with the in-process lock of the file.
+     */
+    private static final class SessionTable {
+
+        private final Path file;
+        private final ReentrantLock processLock;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        private SessionTable(Path file) {
+            checkNotNull(file);
+            this.file = file.toAbsolutePath()
+                            .normalize();
+            this.processLock = processLocks.computeIfAbsent(this.file, p -> new ReentrantLock());
+            this.channel = open(this.file);
+            this.buffer = map(channel, this.file);
+        }
+
+        private static FileChannel open(Path file) {
+            try {
+                return FileChannel.open(file, CREATE, READ, WRITE);
+            } catch (IOException e) {
+                throw newIllegalStateException(e, "Unable to open the session table `%s`.", file);
+            }
+        }
+
+        private static MappedByteBuffer map(FileChannel channel, Path file) {
+            try {
+                return channel.map(READ_WRITE, 0, TABLE_SIZE);
+            } catch (IOException e) {
+                throw newIllegalStateException(e, "Unable to map the session table `%s`.", file);
+            }
+        }
+    }
+}
@@ -0,0 +1,395 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery.file;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import io.spine.logging.Logging;
+import io.spine.server.delivery.DeliveryStrategy;
+import io.spine.server.delivery.InboxMessage;
+import io.spine.server.delivery.InboxMessageId;
+import io.spine.server.delivery.InboxMessageStatus;
+import io.spine.server.delivery.InboxReadRequest;
+import io.spine.server.delivery.InboxStorage;
+import io.spine.server.delivery.Page;
+import io.spine.server.delivery.ShardIndex;
+import io.spine.server.delivery.StaleFencingTokenException;
+import io.spine.server.storage.AbstractStorage;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Maps.newConcurrentMap;
+import static io.spine.util.Exceptions.newIllegalStateException;
+import static java.lang.String.format;
+
+/**
+ * An {@code InboxStorage} which keeps the messages in the memory-mapped files.
+ *
+ * <p>The messages of each shard are appended to a separate sequence of files, called segments,
+ * in a {@code shard-<index>-of-<total>} sub-directory of the storage directory. The removal
+ * of a message is appended as a record as well. Therefore, the messages pending
+ * delivery survive the restart of the application.
+ *
+ * <p>The segments, which hold mostly the messages already overridden or removed, are compacted
+ * in the background of the write operations. The live messages of such segments are written
+ * anew, and the segment files are deleted.
+ *
+ * <p>All the messages are also kept in memory. Therefore, reading the messages does not touch
+ * the disk and is as fast as with the
+ * {@linkplain io.spine.server.storage.memory.InMemoryInboxStorage in-memory storage}.
+ * The storage is thus suitable for the deployments, in which the number of messages pending
+ * delivery fits into the memory.
+ *
+ * <p>By default, the written records are flushed to the disk by the operating system at its
+ * own pace, which survives the crash of the application, but not of the machine. To survive
+ * the latter, enable the {@linkplain Builder#setSyncOnWrite(boolean) synchronous writes}.
+ *
+ * <p>The storage is single-tenant, as each {@code InboxMessage} carries its tenant.
+ * The files must not be shared between several application instances.
+ *
+ * <p>Mutating operations are made {@code synchronized} to avoid simultaneous updates
+ * of the same records.
+ */
+public final class MappedFileInboxStorage
+        extends AbstractStorage<InboxMessageId, InboxMessage, InboxReadRequest>
+        implements InboxStorage, Logging {
+
+    /**
+     * The default size of a segment file in bytes.
+     */
+    private static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private static final Pattern SHARD_DIRECTORY = Pattern.compile("shard-(\\d+)-of-(\\d+)");
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean syncOnWrite;
+    private final Map<ShardIndex, ShardLog> shards = newConcurrentMap();
+
+    /**
+     * The greatest fencing tokens, with which the shards were changed since the storage
+     * was opened.
+     */
+    private final Map<ShardIndex, Long> fencingTokens = newConcurrentMap();
+
+    private MappedFileInboxStorage(Builder builder) {
+        super(false);
+        this.directory = checkNotNull(builder.directory);
+        this.segmentSize = builder.segmentSize;
+        this.syncOnWrite = builder.syncOnWrite;
+        openExisting();
+    }
+
+    /**
+     * Creates a new instance of {@code Builder} for {@code MappedFileInboxStorage}.
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    private void openExisting() {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> listed = Files.list(directory)) {
+                listed.filter(Files::isDirectory)
+                      .forEach(this::openExistingShard);
+            }
+        } catch (IOException e) {
+            throw newIllegalStateException(e, "Unable to open the Inbox storage at `%s`.",
+                                           directory);
+        }
+    }
+
+    private void openExistingShard(Path shardDirectory) {
+        Matcher matcher = SHARD_DIRECTORY.matcher(shardDirectory.getFileName()
+                                                                .toString());
+        if (!matcher.matches()) {
+            _warn().log("Skipping the unknown directory `%s` of the Inbox storage.",
+                        shardDirectory);
+            return;
+        }
+        int index = Integer.parseInt(matcher.group(1));
+        int ofTotal = Integer.parseInt(matcher.group(2));
+        ShardIndex shard = DeliveryStrategy.newIndex(index, ofTotal);
+        shards.put(shard, ShardLog.open(shardDirectory, segmentSize));
+    }
+
+    private ShardLog shard(ShardIndex index) {
+        return shards.computeIfAbsent(index, this::createShard);
+    }
+
+    private ShardLog createShard(ShardIndex index) {
+        String name = format("shard-%d-of-%d", index.getIndex(), index.getOfTotal());
+        return ShardLog.open(directory.resolve(name), segmentSize);
+    }
+
+    @Override
+    public Page<InboxMessage> readAll(ShardIndex index, int pageSize) {
+        checkNotClosed();
+        checkArgument(pageSize > 0, "The page size must be positive.");
+        return new FilePage(shard(index), pageSize, null);
+    }
+
+    @Override
+    public Optional<InboxMessage> newestMessageToDeliver(ShardIndex index) {
+        checkNotClosed();
+        return shard(index).firstMatching(MappedFileInboxStorage::isToDeliver);
+    }
+
+    private static boolean isToDeliver(InboxMessage r) {
+        return r.getStatus() == InboxMessageStatus.TO_DELIVER;
+    }
+
+    @Override
+    public Iterator<InboxMessageId> index() {
+        checkNotClosed();
+        return Iterators.concat(shards.values()
+                                      .stream()
+                                      .map(ShardLog::ids)
+                                      .iterator());
+    }
+
+    @Override
+    public Optional<InboxMessage> read(InboxReadRequest request) {
+        checkNotClosed();
+        InboxMessageId id = request.recordId();
+        return shard(id.getIndex()).get(id);
+    }
+
+    @Override
+    public synchronized void write(InboxMessage message) {
+        checkNotClosed();
+        ShardLog shard = put(message);
+        afterChanges(shard);
+    }
+
+    @Override
+    public synchronized void write(InboxMessageId id, InboxMessage record) {
+        checkArgument(id.equals(record.getId()),
+                      "The ID `%s` does not match the ID of the message `%s`.",
+                      id, record.getId());
+        write(record);
+    }
+
+    @Override
+    public synchronized void writeAll(Iterable<InboxMessage> messages) {
+        applyChanges(messages, ImmutableList.of());
+    }
+
+    @Override
+    public synchronized void removeAll(Iterable<InboxMessage> messages) {
+        applyChanges(ImmutableList.of(), messages);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Appends all the changes under the same lock as other mutating operations, and then
+     * flushes and compacts each of the affected shards once.
+     */
+    @Override
+    public synchronized void applyChanges(Iterable<InboxMessage> updates,
+                                          Iterable<InboxMessage> removals) {
+        checkNotClosed();
+        Map<ShardIndex, ShardLog> affected = new LinkedHashMap<>();
+        for (InboxMessage message : updates) {
+            affected.put(message.shardIndex(), put(message));
+        }
+        for (InboxMessage message : removals) {
+            ShardLog shard = shard(message.shardIndex());
+            shard.remove(message.getId());
+            affected.put(message.shardIndex(), shard);
+        }
+        affected.values()
+                .forEach(this::afterChanges);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The fencing tokens are kept in memory, as the files of the storage are only accessed
+     * by the node, on which they reside.
+     */
+    @Override
+    public synchronized void applyChanges(ShardIndex shard,
+                                          long fencingToken,
+                                          Iterable<InboxMessage> updates,
+                                          Iterable<InboxMessage> removals) {
+        Long current = fencingTokens.get(shard);
+        if (current != null && current > fencingToken) {
+            throw new StaleFencingTokenException(shard, fencingToken, current);
+        }
+        fencingTokens.put(shard, fencingToken);
+        applyChanges(updates, removals);
+    }
+
+    private ShardLog put(InboxMessage message) {
+        ShardLog shard = shard(message.shardIndex());
+        shard.put(message);
+        return shard;
+    }
+
+    private void afterChanges(ShardLog shard) {
+        if (syncOnWrite) {
+            shard.force();
+        }
+        shard.compact();
+    }
+
+    /**
+     * Returns the number of segment files of the given shard.
+     */
+    int segmentCount(ShardIndex index) {
+        return shard(index).segmentCount();
+    }
+
+    /**
+     * Closes the storage along with its files.
+     */
+    @Override
+    public synchronized void close() {
+        super.close();
+        shards.values()
+              .forEach(ShardLog::close);
+        shards.clear();
+    }
+
+    /**
+     * A page of messages read from the memory of a {@code MappedFileInboxStorage}.
+     *
+     * <p>The contents of the page are read upon its creation. The next page is read starting
+     * after the last message of this page.
+     */
+    private static final class FilePage implements Page<InboxMessage> {
+
+        private final ShardLog shard;
+        private final int pageSize;
+        private final ImmutableList<InboxMessage> contents;
+
+        private FilePage(ShardLog shard, int pageSize, @Nullable InboxMessage after) {
+            this.shard = shard;
+            this.pageSize = pageSize;
+            this.contents = shard.readPage(after, pageSize);
+        }
+
+        @Override
+        public ImmutableList<InboxMessage> contents() {
+            return contents;
+        }
+
+        @Override
+        public int size() {
+            return contents.size();
+        }
+
+        @Override
+        public Optional<Page<InboxMessage>> next() {
+            return next(pageSize);
+        }
+
+        @Override
+        public Optional<Page<InboxMessage>> next(int size) {
+            checkArgument(size > 0, "The page size must be positive.");
+            if (contents.isEmpty()) {
+                return Optional.empty();
+            }
+            InboxMessage last = contents.get(contents.size() - 1);
+            FilePage next = new FilePage(shard, size, last);
+            return next.contents.isEmpty()
+                   ? Optional.empty()
+                   : Optional.of(next);
+        }
+    }
+
+    /**
+     * A builder for {@code MappedFileInboxStorage}.
+     */
+    public static final class Builder {
+
+        private @Nullable Path directory;
+        private int segmentSize = DEFAULT_SEGMENT_SIZE;
+        private boolean syncOnWrite;
+
+        /**
+         * Prevents direct instantiation.
+         */
+        private Builder() {
+        }
+
+        /**
+         * Sets the directory to keep the files of the storage in.
+         *
+         * <p>The directory is created if it does not exist.
+         */
+        public Builder setDirectory(Path directory) {
+            this.directory = checkNotNull(directory);
+            return this;
+        }
+
+        /**
+         * Sets the size of a single segment file in bytes.
+         *
+         * <p>A message larger than the segment size is written to a dedicated segment.
+         *
+         * <p>If not set, the segments of 16 MiB are used.
+         */
+        public Builder setSegmentSize(int segmentSize) {
+            checkArgument(segmentSize > 0, "The segment size must be positive.");
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * Sets whether each write operation should flush its changes to the disk before
+         * returning.
+         *
+         * <p>The synchronous writes survive the crash of the machine at the cost of
+         * the throughput of the storage.
+         *
+         * <p>If not set, the changes are flushed by the operating system.
+         */
+        public Builder setSyncOnWrite(boolean syncOnWrite) {
+            this.syncOnWrite = syncOnWrite;
+            return this;
+        }
+
+        /**
+         * Creates a new instance of {@code MappedFileInboxStorage}, loading the messages
+         * previously written to the set directory.
+         */
+        public MappedFileInboxStorage build() {
+            checkNotNull(directory, "The directory of the storage must be set.");
+            return new MappedFileInboxStorage(this);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+import static io.spine.util.Exceptions.newIllegalStateException;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * A memory-mapped file, to which the records are appended.
+ *
+ * <p>Each record is laid out as its length, its checksum, its type and its body.
+ * The checksum is the CRC32 of the type and the body. The length is written last, and
+ * the zero length marks the end of the records, as the new files are filled with zeros.
+ *
+ * <p>Upon the opening, the records are replayed up to the first one, which length or
+ * checksum is invalid, e.g. because the record was partially written before a crash.
+ * The segment is truncated at such a record, so that the new records are appended
+ * in its place.
+ *
+ * <p>The segment counts the records written to it and those of them, which are still
+ * live, i.e. not yet overridden or removed by the records of this or the newer segments.
+ * The counters drive the compaction of the segments.
+ *
+ * <p>This class is not thread-safe. The callers are responsible for serializing
+ * the modifications.
+ */
+final class Segment implements AutoCloseable {
+
+    /**
+     * The type of the record holding a written message.
+     */
+    static final byte PUT = 1;
+
+    /**
+     * The type of the record holding the ID of a removed message.
+     */
+    static final byte REMOVE = 2;
+
+    /**
+     * The size of the record header, consisting of the length, the checksum and the type.
+     */
+    private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + 1;
+    private static final int CHECKSUM_OFFSET = Integer.BYTES;
+    private static final int TYPE_OFFSET = Integer.BYTES + Integer.BYTES;
+
+    private final long number;
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int position;
+    private int written;
+    private int live;
+
+    private Segment(long number, Path file, FileChannel channel, MappedByteBuffer buffer) {
+        this.number = number;
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Creates a new segment file.
+     *
+     * @param number
+     *         the sequential number of the segment
+     * @param file
+     *         the path to the file, which must not exist
+     * @param capacity
+     *         the size of the file in bytes
+     */
+    static Segment create(long number, Path file, int capacity) {
+        try {
+            FileChannel channel = FileChannel.open(file, CREATE_NEW, READ, WRITE);
+            MappedByteBuffer buffer = channel.map(READ_WRITE, 0, capacity);
+            return new Segment(number, file, channel, buffer);
+        } catch (IOException e) {
+            throw newIllegalStateException(e, "Unable to create the segment `%s`.", file);
+        }
+    }
+
+    /**
+     * Opens the existing segment file.
+     *
+     * <p>The opened segment should be {@linkplain #replay(BiConsumer) replayed} before
+     * appending new records to it.
+     *
+     * @param number
+     *         the sequential number of the segment
+     * @param file
+     *         the path to the existing file
+     */
+    static Segment open(long number, Path file) {
+        try {
+            FileChannel channel = FileChannel.open(file, READ, WRITE);
+            MappedByteBuffer buffer = channel.map(READ_WRITE, 0, channel.size());
+            return new Segment(number, file, channel, buffer);
+        } catch (IOException e) {
+            throw newIllegalStateException(e, "Unable to open the segment `%s`.", file);
+        }
+    }
+
+    /**
+     * Reads the valid records from the start of the file, passing each of them to the given
+     * consumer, and sets the position for appending after the last one.
+     *
+     * <p>If an invalid record is met, the segment is truncated at it.
+     *
+     * @param consumer
+     *         the consumer of the record type and the record body
+     */
+    void replay(BiConsumer<Byte, byte[]> consumer) {
+        position = 0;
+        int capacity = buffer.capacity();
+        while (position + HEADER_SIZE <= capacity) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_SIZE + length > capacity) {
+                break;
+            }
+            byte type = buffer.get(position + TYPE_OFFSET);
+            byte[] body = new byte[length];
+            ByteBuffer view = buffer.duplicate();
+            view.position(position + HEADER_SIZE);
+            view.get(body);
+            if (buffer.getInt(position + CHECKSUM_OFFSET) != checksum(type, body)) {
+                break;
+            }
+            consumer.accept(type, body);
+            position += HEADER_SIZE + length;
+        }
+        truncate();
+    }
+
+    /**
+     * Fills the rest of the segment after the current position with zeros, unless
+     * it is empty already.
+     */
+    private void truncate() {
+        int capacity = buffer.capacity();
+        if (position + Integer.BYTES > capacity || buffer.getInt(position) == 0) {
+            return;
+        }
+        for (int index = position; index < capacity; index++) {
+            buffer.put(index, (byte) 0);
+        }
+        buffer.force();
+    }
+
+    private static int checksum(byte type, byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Returns the number of bytes taken by a record with the body of the given size.
+     */
+    static int sizeOf(int bodyLength) {
+        return HEADER_SIZE + bodyLength;
+    }
+
+    /**
+     * Tells whether a record with the body of the given size fits into this segment.
+     */
+    boolean fits(int bodyLength) {
+        return position + sizeOf(bodyLength) <= buffer.capacity();
+    }
+
+    /**
+     * Appends the record to the segment.
+     *
+     * @throws IllegalStateException
+     *         if the record does not {@linkplain #fits(int) fit} into the segment
+     */
+    void append(byte type, byte[] body) {
+        if (!fits(body.length)) {
+            throw newIllegalStateException("The record does not fit into the segment `%s`.",
+                                           file);
+        }
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + HEADER_SIZE);
+        view.put(body);
+        buffer.put(position + TYPE_OFFSET, type);
+        buffer.putInt(position + CHECKSUM_OFFSET, checksum(type, body));
+        buffer.putInt(position, body.length);
+        position += sizeOf(body.length);
+    }
+
+    /**
+     * Flushes the written records to the disk.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Notes that a message record has been written to this segment, or loaded from it
+     * upon opening.
+     */
+    void onWritten() {
+        written++;
+        live++;
+    }
+
+    /**
+     * Notes that a message record of this segment is no longer live.
+     */
+    void onOverridden() {
+        live--;
+    }
+
+    /**
+     * Returns the number of message records in this segment which are still live.
+     */
+    int live() {
+        return live;
+    }
+
+    /**
+     * Returns the number of message records ever written to this segment.
+     */
+    int written() {
+        return written;
+    }
+
+    long number() {
+        return number;
+    }
+
+    /**
+     * Closes the segment and deletes its file.
+     */
+    void delete() {
+        close();
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw newIllegalStateException(e, "Unable to delete the segment `%s`.", file);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw newIllegalStateException(e, "Unable to close the segment `%s`.", file);
+        }
+    }
+}
@@ -0,0 +1,426 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery.file;
+
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.spine.server.delivery.InboxMessage;
+import io.spine.server.delivery.InboxMessageComparator;
+import io.spine.server.delivery.InboxMessageId;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static com.google.common.collect.Maps.newConcurrentMap;
+import static io.spine.server.delivery.file.Segment.PUT;
+import static io.spine.server.delivery.file.Segment.REMOVE;
+import static io.spine.util.Exceptions.newIllegalStateException;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * The messages of a single shard, appended to a sequence of memory-mapped
+ * {@linkplain Segment segments}.
+ *
+ * <p>Each written message is appended to the newest segment as a whole. Each removal is
+ * appended as the ID of the removed message. Upon opening, the segments are replayed from
+ * the oldest to the newest, so that the latest record of each message wins.
+ *
+ * <p>The messages are also kept in memory, indexed by their IDs and
+ * {@linkplain InboxMessageComparator#chronologically chronologically}, so the reads do not
+ * touch the files.
+ *
+ * <p>Any segment but the newest one is compacted once most of its records are outdated.
+ * The messages still live in such a segment are appended to the newest segment, and the segment
+ * is deleted. A removal record stays live while an older segment may still hold a record of
+ * the removed message. Such removal records are appended to the newest segment along with
+ * the live messages, so that the removed message does not reappear upon the next opening.
+ *
+ * <p>The log tracks the segments written since the last {@linkplain #force() flush}, so that
+ * all of them are flushed, even if the changes span several segments.
+ *
+ * <p>This class is not thread-safe for the modifications. The callers are responsible
+ * for serializing them.
+ */
+final class ShardLog implements AutoCloseable {
+
+    private static final String SEGMENT_EXTENSION = ".segment";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final Map<InboxMessageId, Entry> entries = newConcurrentMap();
+    private final Map<InboxMessageId, Tombstone> tombstones = new HashMap<>();
+    private final Set<Segment> dirty = new LinkedHashSet<>();
+    private final ConcurrentNavigableMap<InboxMessage, InboxMessage> chronological =
+            new ConcurrentSkipListMap<>(InboxMessageComparator.chronologically);
+
+    private ShardLog(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Opens the log in the given directory, creating the directory if it does not exist.
+     *
+     * @param directory
+     *         the directory of the shard
+     * @param segmentSize
+     *         the size of the newly created segments in bytes
+     * @return the log with the messages loaded from the existing segments
+     */
+    static ShardLog open(Path directory, int segmentSize) {
+        ShardLog log = new ShardLog(directory, segmentSize);
+        log.load();
+        return log;
+    }
+
+    private void load() {
+        List<Path> files;
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> listed = Files.list(directory)) {
+                files = listed.filter(ShardLog::isSegment)
+                              .sorted()
+                              .collect(toList());
+            }
+        } catch (IOException e) {
+            throw newIllegalStateException(e, "Unable to open the shard log at `%s`.", directory);
+        }
+        for (Path file : files) {
+            Segment segment = Segment.open(numberOf(file), file);
+            segment.replay((type, body) -> replay(segment, type, body));
+            segments.addLast(segment);
+        }
+    }
+
+    private void replay(Segment segment, byte type, byte[] body) {
+        try {
+            if (type == PUT) {
+                index(InboxMessage.parseFrom(body), segment);
+            } else if (type == REMOVE) {
+                unindex(InboxMessageId.parseFrom(body), segment);
+            }
+        } catch (InvalidProtocolBufferException e) {
+            throw newIllegalStateException(
+                    e, "Unable to read a record of the shard log at `%s`.", directory
+            );
+        }
+    }
+
+    /**
+     * Obtains the message with the given ID.
+     */
+    Optional<InboxMessage> get(InboxMessageId id) {
+        return Optional.ofNullable(entries.get(id))
+                       .map(entry -> entry.message);
+    }
+
+    /**
+     * Returns an iterator over the IDs of the messages in this log.
+     */
+    Iterator<InboxMessageId> ids() {
+        return entries.keySet()
+                      .iterator();
+    }
+
+    /**
+     * Reads the messages which follow the given one in a chronological order.
+     *
+     * @param after
+     *         the message after which to start reading, or {@code null} to read from the start
+     * @param maxCount
+     *         the maximum number of messages to read
+     * @return the messages placing those received earlier first
+     */
+    ImmutableList<InboxMessage> readPage(@Nullable InboxMessage after, int maxCount) {
+        NavigableMap<InboxMessage, InboxMessage> tail = after == null
+                                                        ? chronological
+                                                        : chronological.tailMap(after, false);
+        return tail.values()
+                   .stream()
+                   .limit(maxCount)
+                   .collect(ImmutableList.toImmutableList());
+    }
+
+    /**
+     * Finds the earliest message, which matches the passed predicate.
+     */
+    Optional<InboxMessage> firstMatching(Predicate<InboxMessage> predicate) {
+        return chronological.values()
+                            .stream()
+                            .filter(predicate)
+                            .findFirst();
+    }
+
+    /**
+     * Appends the passed message to the log.
+     */
+    void put(InboxMessage message) {
+        byte[] body = message.toByteArray();
+        Segment segment = segmentFor(body.length);
+        segment.append(PUT, body);
+        dirty.add(segment);
+        index(message, segment);
+    }
+
+    /**
+     * Appends the removal of the passed message to the log.
+     *
+     * <p>Does nothing if there is no such message in the log.
+     */
+    void remove(InboxMessageId id) {
+        if (!entries.containsKey(id)) {
+            return;
+        }
+        Segment segment = appendRemoval(id);
+        unindex(id, segment);
+    }
+
+    private Segment appendRemoval(InboxMessageId id) {
+        byte[] body = id.toByteArray();
+        Segment segment = segmentFor(body.length);
+        segment.append(REMOVE, body);
+        dirty.add(segment);
+        return segment;
+    }
+
+    /**
+     * Flushes the segments written since the last flush to the disk.
+     */
+    void force() {
+        dirty.forEach(Segment::force);
+        dirty.clear();
+    }
+
+    /**
+     * Deletes the segments, which have most of their records outdated.
+     *
+     * <p>The newest segment is never compacted. The live records of the compacted segments
+     * are appended to the newest segment and flushed before the compacted segments
+     * are deleted.
+     */
+    void compact() {
+        Segment newest = segments.peekLast();
+        ImmutableList<Segment> outdated =
+                segments.stream()
+                        .filter(segment -> segment != newest
+                                && segment.live() * 2 <= segment.written())
+                        .collect(ImmutableList.toImmutableList());
+        if (outdated.isEmpty()) {
+            return;
+        }
+        outdated.forEach(this::relocateLiveRecords);
+        force();
+        for (Segment segment : outdated) {
+            segments.remove(segment);
+            segment.delete();
+        }
+    }
+
+    /**
+     * Appends the live messages and the still needed removals of the given segment
+     * to the newest segment.
+     */
+    private void relocateLiveRecords(Segment segment) {
+        ImmutableList<InboxMessage> live =
+                entries.values()
+                       .stream()
+                       .filter(entry -> entry.segment == segment)
+                       .map(entry -> entry.message)
+                       .collect(ImmutableList.toImmutableList());
+        live.forEach(this::put);
+        ImmutableList<InboxMessageId> removed =
+                tombstones.entrySet()
+                          .stream()
+                          .filter(tombstone -> tombstone.getValue().segment == segment)
+                          .map(Map.Entry::getKey)
+                          .collect(ImmutableList.toImmutableList());
+        for (InboxMessageId id : removed) {
+            Tombstone tombstone = tombstones.remove(id);
+            segment.onOverridden();
+            if (isNeeded(tombstone.firstSegment, segment)) {
+                Segment relocated = appendRemoval(id);
+                relocated.onWritten();
+                tombstones.put(id, new Tombstone(relocated, tombstone.firstSegment));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of the segment files of this log.
+     */
+    int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void close() {
+        segments.forEach(Segment::close);
+    }
+
+    private void index(InboxMessage message, Segment segment) {
+        segment.onWritten();
+        InboxMessageId id = message.getId();
+        long firstSegment = segment.number();
+        Entry current = entries.get(id);
+        if (current != null) {
+            firstSegment = current.firstSegment;
+        }
+        Tombstone tombstone = tombstones.remove(id);
+        if (tombstone != null) {
+            tombstone.segment.onOverridden();
+            firstSegment = min(firstSegment, tombstone.firstSegment);
+        }
+        Entry previous = entries.put(id, new Entry(message, segment, firstSegment));
+        if (previous != null) {
+            previous.segment.onOverridden();
+            if (InboxMessageComparator.chronologically.compare(previous.message, message) != 0) {
+                chronological.remove(previous.message);
+            }
+        }
+        chronological.put(message, message);
+    }
+
+    /**
+     * Removes the message from the index as its removal record is written
+     * to the given segment.
+     *
+     * <p>The removal record stays live while an older segment may hold a record of the message.
+     */
+    private void unindex(InboxMessageId id, Segment segment) {
+        segment.onWritten();
+        Entry previous = entries.remove(id);
+        if (previous == null) {
+            segment.onOverridden();
+            return;
+        }
+        previous.segment.onOverridden();
+        chronological.remove(previous.message);
+        if (isNeeded(previous.firstSegment, segment)) {
+            tombstones.put(id, new Tombstone(segment, previous.firstSegment));
+        } else {
+            segment.onOverridden();
+        }
+    }
+
+    /**
+     * Tells whether the removal record in the given segment is needed, i.e. if any segment
+     * older than it may hold a record of the removed message.
+     *
+     * @param firstSegment
+     *         the number of the oldest segment, which may hold a record of the message
+     * @param removal
+     *         the segment holding the removal record
+     */
+    private boolean isNeeded(long firstSegment, Segment removal) {
+        return segments.stream()
+                       .anyMatch(segment -> segment.number() >= firstSegment
+                               && segment.number() < removal.number());
+    }
+
+    /**
+     * Returns the newest segment, if the record of the given size fits into it,
+     * or a newly created segment otherwise.
+     */
+    private Segment segmentFor(int bodyLength) {
+        Segment newest = segments.peekLast();
+        if (newest != null && newest.fits(bodyLength)) {
+            return newest;
+        }
+        long number = newest == null
+                      ? 0
+                      : newest.number() + 1;
+        int capacity = max(segmentSize, Segment.sizeOf(bodyLength));
+        Path file = directory.resolve(format("%020d%s", number, SEGMENT_EXTENSION));
+        Segment created = Segment.create(number, file, capacity);
+        segments.addLast(created);
+        return created;
+    }
+
+    private static boolean isSegment(Path file) {
+        return file.getFileName()
+                   .toString()
+                   .endsWith(SEGMENT_EXTENSION);
+    }
+
+    private static long numberOf(Path file) {
+        String name = file.getFileName()
+                          .toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_EXTENSION.length()));
+    }
+
+    /**
+     * A message along with the segment holding its latest record.
+     */
+    private static final class Entry {
+
+        private final InboxMessage message;
+        private final Segment segment;
+
+        /**
+         * The number of the oldest segment, which may hold a record of the message.
+         */
+        private final long firstSegment;
+
+        private Entry(InboxMessage message, Segment segment, long firstSegment) {
+            this.message = message;
+            this.segment = segment;
+            this.firstSegment = firstSegment;
+        }
+    }
+
+    /**
+     * The segment holding the live removal record of a message.
+     */
+    private static final class Tombstone {
+
+        private final Segment segment;
+
+        /**
+         * The number of the oldest segment, which may hold a record of the removed message.
+         */
+        private final long firstSegment;
+
+        private Tombstone(Segment segment, long firstSegment) {
+            this.segment = segment;
+            this.firstSegment = firstSegment;
+        }
+    }
+}
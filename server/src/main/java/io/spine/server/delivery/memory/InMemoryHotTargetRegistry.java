@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery.memory;
+
+import com.google.common.collect.ImmutableList;
+import io.spine.server.delivery.HotTargetRegistry;
+import io.spine.server.delivery.InboxId;
+import io.spine.server.delivery.ShardIndex;
+import io.spine.server.delivery.TargetPin;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Maps.newConcurrentMap;
+
+/**
+ * An in-memory implementation of {@link HotTargetRegistry HotTargetRegistry}.
+ *
+ * <p>Suitable for a single application node and for tests.
+ */
+public final class InMemoryHotTargetRegistry implements HotTargetRegistry {
+
+    private final Map<InboxId, TargetPin> pins = newConcurrentMap();
+
+    @Override
+    public Optional<TargetPin> find(InboxId target) {
+        checkNotNull(target);
+        return Optional.ofNullable(pins.get(target));
+    }
+
+    @Override
+    public TargetPin pin(TargetPin pin) {
+        checkNotNull(pin);
+        TargetPin existing = pins.putIfAbsent(pin.getTarget(), pin);
+        return existing == null ? pin : existing;
+    }
+
+    @Override
+    public ImmutableList<TargetPin> pinnedTo(ShardIndex shard) {
+        checkNotNull(shard);
+        return pins.values()
+                   .stream()
+                   .filter(pin -> shard.equals(pin.getShard()))
+                   .collect(toImmutableList());
+    }
+}
@@ -38,6 +38,9 @@ import static com.google.common.collect.Maps.newConcurrentMap;
 /**
  * An in-memory implementation of {@link ShardedWorkRegistry ShardedWorkRegistry}.
  *
+ * <p>The leases on the shards never expire, unless
+ * {@linkplain #InMemoryShardedWorkRegistry(Duration) configured} otherwise.
+ *
  * @implNote This implementation synchronizes methods of {@code AbstractWorkRegistry} and
  *         uses a concurrent collection in order to guarantee thread safety.
  */
@@ -45,6 +48,23 @@ public final class InMemoryShardedWorkRegistry extends AbstractWorkRegistry {
 
     private final Map<ShardIndex, ShardSessionRecord> workByNode = newConcurrentMap();
 
+    /**
+     * Creates a new registry, which leases never expire.
+     */
+    public InMemoryShardedWorkRegistry() {
+        super();
+    }
+
+    /**
+     * Creates a new registry with the given lease duration.
+     *
+     * @param leaseDuration
+     *         the duration after which a lease, which was not renewed, expires
+     */
+    public InMemoryShardedWorkRegistry(Duration leaseDuration) {
+        super(leaseDuration);
+    }
+
     @Override
     public synchronized Optional<ShardProcessingSession> pickUp(ShardIndex index, NodeId nodeId) {
         return super.pickUp(index, nodeId);
@@ -60,6 +80,16 @@ public final class InMemoryShardedWorkRegistry extends AbstractWorkRegistry {
         super.clearNode(session);
     }
 
+    @Override
+    protected synchronized boolean renewLease(ShardSessionRecord session) {
+        return super.renewLease(session);
+    }
+
+    @Override
+    protected synchronized void releaseLease(ShardSessionRecord session) {
+        super.releaseLease(session);
+    }
+
     @Override
     protected Iterator<ShardSessionRecord> allRecords() {
         return unmodifiableIterator(workByNode.values().iterator());
@@ -85,15 +115,22 @@ public final class InMemoryShardedWorkRegistry extends AbstractWorkRegistry {
      */
     public class InMemoryShardSession extends ShardProcessingSession {
 
+        private final ShardSessionRecord record;
+
         private InMemoryShardSession(ShardSessionRecord record) {
             super(record);
+            this.record = record;
+        }
+
+        @Override
+        protected boolean renew() {
+            return renewLease(record);
         }
 
         @Override
         protected void complete() {
-            ShardSessionRecord record = workByNode.get(shardIndex());
-            // Clear the node ID value and release the session.
-            clearNode(record);
+            // Clear the node ID value and release the session, unless it was taken over.
+            releaseLease(record);
         }
     }
 }
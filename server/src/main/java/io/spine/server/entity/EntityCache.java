@@ -0,0 +1,192 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.entity;
+
+import io.spine.annotation.Internal;
+import io.spine.core.Version;
+import io.spine.server.tenant.IdInTenant;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The cache of entities kept in memory between the batches of messages dispatched to them.
+ *
+ * <p>Serves as a second level of the {@link RepositoryCache}. Once a batch of messages is
+ * dispatched to an entity and the entity is stored, it is put to this cache. When the next
+ * batch arrives, the entity is taken from this cache instead of being loaded from the storage.
+ *
+ * <p>Before the cached entity is returned, its version is compared with the version
+ * in the storage, obtained via the {@link VersionLookup}. If the entity was modified
+ * in the storage in the meantime, e.g. by another application node, the cached entity is
+ * dropped and the entity is loaded anew.
+ *
+ * <p>The cache is bounded by the number of entities and by the estimated size of their
+ * states and recent histories in bytes. Once any of the bounds is exceeded, the least recently
+ * used entities are evicted.
+ *
+ * <p>This class is not thread-safe. The {@code RepositoryCache} serializes access to it.
+ *
+ * @param <I>
+ *         the type of {@code Entity} identifiers
+ * @param <E>
+ *         the type of entity
+ */
+@Internal
+public final class EntityCache<I, E extends Entity<I, ?>> {
+
+    private final int maxCount;
+    private final long maxBytes;
+    private final VersionLookup<I> lookup;
+    private final Map<IdInTenant<I>, Cached<E>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxCount
+     *         the maximum number of cached entities; zero disables the cache
+     * @param maxBytes
+     *         the maximum estimated size of the cached entities in bytes
+     * @param lookup
+     *         the function reading the version of an entity from the storage
+     */
+    public EntityCache(int maxCount, long maxBytes, VersionLookup<I> lookup) {
+        checkArgument(maxCount >= 0, "The maximum number of entities must not be negative.");
+        checkArgument(maxBytes > 0, "The maximum size of entities must be positive.");
+        this.maxCount = maxCount;
+        this.maxBytes = maxBytes;
+        this.lookup = checkNotNull(lookup);
+    }
+
+    /**
+     * Takes the entity with the given ID out of the cache, if it is there and is not outdated.
+     *
+     * @param id
+     *         the ID of the entity in its tenant
+     * @return the cached entity or {@code Optional.empty()} if there is no such entity
+     *         or if it does not match the version in the storage
+     */
+    Optional<E> take(IdInTenant<I> id) {
+        Cached<E> cached = entries.remove(id);
+        if (cached == null) {
+            return Optional.empty();
+        }
+        totalBytes -= cached.bytes;
+        Optional<Version> stored = lookup.apply(id.value());
+        boolean upToDate = stored.isPresent()
+                && stored.get()
+                         .equals(cached.entity.version());
+        return upToDate
+               ? Optional.of(cached.entity)
+               : Optional.empty();
+    }
+
+    /**
+     * Puts the stored entity to the cache, evicting the least recently used entities
+     * if the cache is full.
+     */
+    void put(IdInTenant<I> id, E entity) {
+        if (maxCount == 0) {
+            return;
+        }
+        invalidate(id);
+        Cached<E> cached = new Cached<>(entity);
+        entries.put(id, cached);
+        totalBytes += cached.bytes;
+        evictOverLimits();
+    }
+
+    /**
+     * Drops the entity with the given ID from the cache.
+     */
+    void invalidate(IdInTenant<I> id) {
+        Cached<E> removed = entries.remove(id);
+        if (removed != null) {
+            totalBytes -= removed.bytes;
+        }
+    }
+
+    private void evictOverLimits() {
+        Iterator<Cached<E>> leastRecentFirst = entries.values()
+                                                      .iterator();
+        while ((entries.size() > maxCount || totalBytes > maxBytes)
+                && leastRecentFirst.hasNext()) {
+            Cached<E> evicted = leastRecentFirst.next();
+            leastRecentFirst.remove();
+            totalBytes -= evicted.bytes;
+        }
+    }
+
+    /**
+     * Returns the number of the cached entities.
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * An entity along with the estimated size of its state.
+     */
+    private static final class Cached<E extends Entity<?, ?>> {
+
+        private final E entity;
+        private final long bytes;
+
+        private Cached(E entity) {
+            this.entity = entity;
+            this.bytes = sizeOf(entity);
+        }
+
+        /**
+         * Estimates the size of the entity by its state and, for the transactional entities,
+         * its recent history, which stays in memory along with the entity.
+         */
+        private static long sizeOf(Entity<?, ?> entity) {
+            long result = entity.state()
+                                .getSerializedSize();
+            if (entity instanceof TransactionalEntity) {
+                result += ((TransactionalEntity<?, ?, ?>) entity).recentHistory()
+                                                                 .serializedSize();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * A function which reads the version of an {@code Entity} from its real repository.
+     *
+     * <p>Returns {@code Optional.empty()} if the entity is not stored.
+     *
+     * @param <I>
+     *         the type of {@code Entity} identifiers
+     */
+    @FunctionalInterface
+    public interface VersionLookup<I> extends Function<I, Optional<Version>> {
+
+    }
+}
@@ -22,14 +22,21 @@ package io.spine.server.entity;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
+import com.google.protobuf.Message;
+import io.spine.annotation.Internal;
 import io.spine.core.Event;
+import io.spine.core.MessageId;
+import io.spine.core.Version;
 
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Stream;
 
+import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Queues.newArrayDeque;
+import static com.google.common.collect.Sets.newHashSet;
 
 /**
  * A copy of recent history of an {@linkplain TransactionalEntity
@@ -48,6 +55,16 @@ public final class RecentHistory {
      */
     private final Deque<Event> history = newArrayDeque();
 
+    /**
+     * The IDs of the commands and events which caused the events of the history.
+     *
+     * <p>Allows to tell if a message was handled since the last snapshot without going
+     * through the whole history.
+     *
+     * @see #hasEventsCausedBy(Message)
+     */
+    private final Set<Message> origins = newHashSet();
+
     /**
      * Creates a new instance.
      */
@@ -67,6 +84,48 @@ public final class RecentHistory {
      */
     void clear() {
         history.clear();
+        origins.clear();
+    }
+
+    /**
+     * Removes the events up to the given version inclusive from the recent history.
+     *
+     * @return the number of the events remaining in the history
+     */
+    int clearUpTo(Version version) {
+        int number = version.getNumber();
+        history.removeIf(event -> event.context()
+                                       .getVersion()
+                                       .getNumber() <= number);
+        origins.clear();
+        history.forEach(this::rememberOrigin);
+        return history.size();
+    }
+
+    /**
+     * Obtains the total serialized size of the events in the history in bytes.
+     */
+    long serializedSize() {
+        long result = 0;
+        for (Event event : history) {
+            result += event.getSerializedSize();
+        }
+        return result;
+    }
+
+    /**
+     * Checks if the history contains an event caused by the message with the given ID.
+     *
+     * @param originId
+     *         the {@link io.spine.core.CommandId CommandId} or the {@link io.spine.core.EventId
+     *         EventId} of the origin message
+     * @return {@code true} if there is an event caused by the given message,
+     *         {@code false} otherwise
+     */
+    @Internal
+    public boolean hasEventsCausedBy(Message originId) {
+        checkNotNull(originId);
+        return origins.contains(originId);
     }
 
     /**
@@ -103,6 +162,18 @@ public final class RecentHistory {
     void addAll(Iterable<Event> events) {
         for (Event event : events) {
             history.addFirst(event);
+            rememberOrigin(event);
+        }
+    }
+
+    private void rememberOrigin(Event event) {
+        MessageId origin = event.context()
+                                .getPastMessage()
+                                .messageId();
+        if (origin.isCommand()) {
+            origins.add(origin.asCommandId());
+        } else if (origin.isEvent()) {
+            origins.add(origin.asEventId());
         }
     }
 
@@ -37,6 +37,7 @@ import io.spine.client.TargetFilters;
 import io.spine.client.Targets;
 import io.spine.core.Event;
 import io.spine.core.Signal;
+import io.spine.core.Version;
 import io.spine.server.entity.storage.EntityQueries;
 import io.spine.server.entity.storage.EntityQuery;
 import io.spine.server.entity.storage.EntityRecordWithColumns;
@@ -284,6 +285,15 @@ public abstract class RecordBasedRepository<I, E extends Entity<I, S>, S extends
         return Optional.of(record);
     }
 
+    /**
+     * Reads the version of the entity with the passed ID from the storage.
+     *
+     * @return the stored version or {@code Optional.empty()} if there is no such entity
+     */
+    protected final Optional<Version> storedVersion(I id) {
+        return recordStorage().readVersion(id);
+    }
+
     /**
      * Loads an entity by the passed ID or creates a new one, if the entity was not found.
      *
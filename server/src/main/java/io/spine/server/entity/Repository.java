@@ -93,6 +93,19 @@ public abstract class Repository<I, E extends Entity<I, ?>>
      */
     private @Nullable Storage<I, ?, ?> storage;
 
+    /**
+     * The maximum number of entities kept in memory between the batches of messages.
+     *
+     * <p>Zero, which is the default, disables keeping the entities between the batches.
+     */
+    private int entityCacheSize;
+
+    /**
+     * The maximum estimated size in bytes of the entity states kept in memory between
+     * the batches of messages.
+     */
+    private long entityCacheBytes = Long.MAX_VALUE;
+
     /**
      * Creates the repository.
      */
@@ -341,6 +354,42 @@ public abstract class Repository<I, E extends Entity<I, ?>>
      */
     protected abstract Storage<I, ?, ?> createStorage();
 
+    /**
+     * Sets the limits of the cache, which keeps the entities in memory between the batches
+     * of messages dispatched to them.
+     *
+     * <p>A cached entity is used for the next batch of messages only if its version matches
+     * the one in the storage. Therefore, the entities updated by other application nodes are
+     * loaded anew.
+     *
+     * <p>Only the repositories dispatching the messages in batches use the cache. The limits
+     * should be set before the repository is {@linkplain #registerWith(BoundedContext)
+     * registered}. By default, the entities are not kept between the batches.
+     *
+     * @param maxCount
+     *         the maximum number of cached entities; zero disables the cache
+     * @param maxBytes
+     *         the maximum estimated size of the cached entities and their recent histories in bytes
+     */
+    protected void setEntityCacheLimits(int maxCount, long maxBytes) {
+        checkArgument(maxCount >= 0);
+        checkArgument(maxBytes > 0);
+        this.entityCacheSize = maxCount;
+        this.entityCacheBytes = maxBytes;
+    }
+
+    /**
+     * Creates the cache of entities kept between the batches of messages according
+     * to the {@linkplain #setEntityCacheLimits(int, long) set limits}.
+     *
+     * @param lookup
+     *         the function reading the version of an entity from the storage
+     */
+    @Internal
+    protected final EntityCache<I, E> newEntityCache(EntityCache.VersionLookup<I> lookup) {
+        return new EntityCache<>(entityCacheSize, entityCacheBytes, lookup);
+    }
+
     /**
      * Closes the repository by closing the underlying storage.
      *
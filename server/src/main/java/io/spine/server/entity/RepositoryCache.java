@@ -23,10 +23,12 @@ package io.spine.server.entity;
 import io.spine.annotation.Internal;
 import io.spine.logging.Logging;
 import io.spine.server.tenant.IdInTenant;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -61,6 +63,10 @@ import java.util.function.Function;
  * <p>The users of this class should keep the number of the simultaneously cached entities
  * reasonable due to a potentially huge significant memory footprint.
  *
+ * <p>Optionally, the stored entities are kept in the second-level {@link EntityCache}. Then
+ * the next batch of messages dispatched to the same entity starts with the cached entity,
+ * unless it was modified in the storage in the meantime.
+ *
  * @param <I>
  *         the type of {@code Entity} identifiers
  * @param <E>
@@ -75,15 +81,28 @@ public final class RepositoryCache<I, E extends Entity<I, ?>> implements Logging
     private final boolean multitenant;
     private final Load<I, E> loadFn;
     private final Store<E> storeFn;
+    private final @Nullable EntityCache<I, E> entityCache;
 
     /**
      * Creates the instance of the cache considering the multi-tenancy setting,
      * the function to load entities and the function to store the entity .
      */
     public RepositoryCache(boolean multitenant, Load<I, E> loadFn, Store<E> storeFn) {
+        this(multitenant, loadFn, storeFn, null);
+    }
+
+    /**
+     * Creates the instance of the cache, which keeps the entities between the batches
+     * in the given {@code EntityCache}.
+     */
+    public RepositoryCache(boolean multitenant,
+                           Load<I, E> loadFn,
+                           Store<E> storeFn,
+                           @Nullable EntityCache<I, E> entityCache) {
         this.multitenant = multitenant;
         this.loadFn = loadFn;
         this.storeFn = storeFn;
+        this.entityCache = entityCache;
     }
 
     /**
@@ -103,13 +122,23 @@ public final class RepositoryCache<I, E extends Entity<I, ?>> implements Logging
         }
 
         if (!cache.containsKey(idInTenant)) {
-            E entity = loadFn.apply(idInTenant.value());
+            E entity = loadCached(idInTenant);
             cache.put(idInTenant, entity);
             return entity;
         }
         return cache.get(idInTenant);
     }
 
+    /**
+     * Takes the entity from the second-level cache, or loads it, if the entity is not there.
+     */
+    private E loadCached(IdInTenant<I> idInTenant) {
+        Optional<E> cached = entityCache == null
+                             ? Optional.empty()
+                             : entityCache.take(idInTenant);
+        return cached.orElseGet(() -> loadFn.apply(idInTenant.value()));
+    }
+
     /**
      * Starts caching the {@code load} and {@code store} operation results in memory
      * for the given {@code Entity} identifier.
@@ -149,6 +178,9 @@ public final class RepositoryCache<I, E extends Entity<I, ?>> implements Logging
         storeFn.accept(entity);
         cache.remove(idInTenant);
         idsToCache.remove(idInTenant);
+        if (entityCache != null) {
+            entityCache.put(idInTenant, entity);
+        }
     }
 
     private IdInTenant<I> idInTenant(I id) {
@@ -176,6 +208,9 @@ public final class RepositoryCache<I, E extends Entity<I, ?>> implements Logging
             cache.put(idInTenant, entity);
         } else {
             storeFn.accept(entity);
+            if (entityCache != null) {
+                entityCache.invalidate(idInTenant);
+            }
         }
     }
 
@@ -91,6 +91,16 @@ public abstract class TransactionalEntity<I,
         recentHistory.clear();
     }
 
+    /**
+     * Clears the events up to the given version inclusive from
+     * the {@linkplain #recentHistory() recent history}.
+     *
+     * @return the number of the events remaining in the recent history
+     */
+    protected int clearRecentHistoryUpTo(Version version) {
+        return recentHistory.clearUpTo(version);
+    }
+
     /**
      * Determines whether the state of this entity or its lifecycle flags have been modified
      * since this entity instance creation.
@@ -159,7 +159,8 @@ public abstract class ProcessManagerRepository<I,
     }
 
     private void initCache(boolean multitenant) {
-        cache = new RepositoryCache<>(multitenant, this::doFindOrCreate, this::doStore);
+        cache = new RepositoryCache<>(multitenant, this::doFindOrCreate, this::doStore,
+                                      newEntityCache(this::storedVersion));
     }
 
     /**
@@ -26,11 +26,14 @@ import io.spine.server.entity.Repository;
 import io.spine.server.type.EventEnvelope;
 import io.spine.type.TypeName;
 
+import java.util.Optional;
+
 /**
  * Dispatches an event to projections during the catch-up.
  *
  * <p>Handles the special {@link CatchUpStarted} event by deleting the state of the target
- * projection instance.
+ * projection instance, or by restoring its {@linkplain ProjectionCheckpoint checkpoint},
+ * if the catch-up starts from the checkpoints.
  */
 final class CatchUpEndpoint<I, P extends Projection<I, S, ?>, S extends EntityState>
         extends ProjectionEndpoint<I, P, S> {
@@ -54,15 +57,37 @@ final class CatchUpEndpoint<I, P extends Projection<I, S, ?>, S extends EntitySt
         // do nothing.
     }
 
+    /**
+     * Does nothing, as the checkpoints made during the catch-up would change the starting
+     * points of the catch-up in progress.
+     */
+    @Override
+    protected void makeCheckpoint(P projection, int versionBefore) {
+        // do nothing.
+    }
+
     @Override
     public void dispatchTo(I entityId) {
         TypeName actualTypeName = envelope().messageTypeName();
         if (CATCH_UP_STARTED.equals(actualTypeName)) {
-            ProjectionRepository<I, P, ?> repository = repository();
-            repository.recordStorage()
-                      .delete(entityId);
+            CatchUpStarted started = (CatchUpStarted) envelope().message();
+            reset(entityId, started);
         } else {
             super.dispatchTo(entityId);
         }
     }
+
+    private void reset(I entityId, CatchUpStarted started) {
+        ProjectionRepository<I, P, ?> repository = repository();
+        if (started.hasCheckpointBefore()) {
+            Optional<ProjectionCheckpoint> checkpoint =
+                    repository.checkpointBefore(entityId, started.getCheckpointBefore());
+            if (checkpoint.isPresent()) {
+                repository.restore(checkpoint.get());
+                return;
+            }
+        }
+        repository.recordStorage()
+                  .delete(entityId);
+    }
 }
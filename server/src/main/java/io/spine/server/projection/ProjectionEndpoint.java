@@ -21,6 +21,7 @@
 package io.spine.server.projection;
 
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.protobuf.Timestamp;
 import io.spine.annotation.Internal;
 import io.spine.base.EntityState;
 import io.spine.base.Error;
@@ -60,8 +61,25 @@ public class ProjectionEndpoint<I, P extends Projection<I, S, ?>, S extends Enti
     public void dispatchTo(I entityId) {
         ProjectionRepository<I, P, ?> repository = repository();
         P projection = repository.findOrCreate(entityId);
+        int versionBefore = projection.version()
+                                      .getNumber();
         runTransactionFor(projection);
         store(projection);
+        makeCheckpoint(projection, versionBefore);
+    }
+
+    /**
+     * Makes a checkpoint of the projection, if it is due after the dispatched event.
+     *
+     * @param projection
+     *         the projection to which the event has been dispatched
+     * @param versionBefore
+     *         the version number of the projection before the dispatching
+     */
+    protected void makeCheckpoint(P projection, int versionBefore) {
+        Timestamp eventTime = envelope().outerObject()
+                                        .timestamp();
+        repository().checkpointIfDue(projection, versionBefore, eventTime);
     }
 
     @Override
@@ -35,11 +35,13 @@ import io.spine.server.delivery.BatchDeliveryListener;
 import io.spine.server.delivery.CatchUpAlreadyStartedException;
 import io.spine.server.delivery.CatchUpId;
 import io.spine.server.delivery.CatchUpProcess;
+import io.spine.server.delivery.CatchUpProcess.RoutingDispatchCatchingUp;
 import io.spine.server.delivery.CatchUpProcessBuilder;
 import io.spine.server.delivery.CatchUpSignal;
 import io.spine.server.delivery.Delivery;
 import io.spine.server.delivery.Inbox;
 import io.spine.server.delivery.InboxLabel;
+import io.spine.server.entity.EntityRecord;
 import io.spine.server.entity.EventDispatchingRepository;
 import io.spine.server.entity.RepositoryCache;
 import io.spine.server.entity.model.StateClass;
@@ -116,6 +118,9 @@ public abstract class ProjectionRepository<I, P extends Projection<I, S, ?>, S e
 
     private @MonotonicNonNull RepositoryCache<I, P> cache;
 
+    /** The number of events between the checkpoints, or zero if no checkpoints are made. */
+    private int checkpointTrigger;
+
     /**
      * Initializes the repository.
      *
@@ -158,14 +163,15 @@ public abstract class ProjectionRepository<I, P extends Projection<I, S, ?>, S e
      */
     private void initCatchUp(BoundedContext context, Delivery delivery) {
         CatchUpProcessBuilder<I> builder = delivery.newCatchUpProcess(this);
-        catchUpProcess = builder.setDispatchOp(this::sendToCatchingUp)
+        catchUpProcess = builder.setDispatchOp(new SendToCatchingUp())
                                 .build();
         context.internalAccess()
                .registerEventDispatcher(catchUpProcess);
     }
 
     private void initCache(boolean multitenant) {
-        cache = new RepositoryCache<>(multitenant, this::doFindOrCreate, this::doStore);
+        cache = new RepositoryCache<>(multitenant, this::doFindOrCreate, this::doStore,
+                                      newEntityCache(this::storedVersion));
     }
 
     /**
@@ -411,11 +417,48 @@ public abstract class ProjectionRepository<I, P extends Projection<I, S, ?>, S e
      */
     public CatchUpId catchUp(Timestamp since, @Nullable Set<I> ids)
             throws CatchUpAlreadyStartedException {
+        return startCatchUp(since, ids, false);
+    }
+
+    /**
+     * Repeats the dispatching of the events from the event log to the requested entities
+     * starting from their {@linkplain ProjectionCheckpoint checkpoints}.
+     *
+     * <p>At the beginning of the process each of the entities is restored to its newest
+     * checkpoint made before the specified time. The entity then receives the events happened
+     * after the checkpoint. Therefore, the state of the entity is rebuilt without replaying
+     * the history preceding the checkpoint.
+     *
+     * <p>The entities with no checkpoint made before the specified time are set to the default
+     * state and receive the events since the specified time, just as in
+     * {@link #catchUp(Timestamp, Set) catchUp(since, ids)}.
+     *
+     * <p>The checkpoints are made only if the {@linkplain #setCheckpointTrigger(int) checkpoint
+     * trigger} is set and the storage of this repository keeps the checkpoints.
+     *
+     * @param before
+     *         point in the past, before which the checkpoints should be made
+     * @param ids
+     *         identifiers of the entities to catch up, {@code null} means that all entities should
+     *         be caught up
+     * @return identifier of the catch-up operation
+     * @throws CatchUpAlreadyStartedException
+     *         if another catch-up for the same entity type and overlapping targets is already in
+     *         progress
+     * @see #catchUp(Timestamp, Set)
+     */
+    public CatchUpId catchUpFromCheckpoint(Timestamp before, @Nullable Set<I> ids)
+            throws CatchUpAlreadyStartedException {
+        return startCatchUp(before, ids, true);
+    }
+
+    private CatchUpId startCatchUp(Timestamp since, @Nullable Set<I> ids, boolean fromCheckpoint)
+            throws CatchUpAlreadyStartedException {
         checkCatchUpTargets(ids);
         checkCatchUpStartTime(since);
 
         CatchUpId catchUpId = withCurrentTenant(context().isMultitenant())
-                .evaluate(() -> catchUpProcess.startCatchUp(since, ids));
+                .evaluate(() -> catchUpProcess.startCatchUp(since, ids, fromCheckpoint));
         return catchUpId;
     }
 
@@ -455,7 +498,84 @@ public abstract class ProjectionRepository<I, P extends Projection<I, S, ?>, S e
     }
 
     /**
-     * Sends the event to the inboxes of the catching-up projection instances.
+     * Returns the number of events between the checkpoints of the projections.
+     *
+     * @return a positive number, or zero if no checkpoints are made
+     */
+    protected int checkpointTrigger() {
+        return checkpointTrigger;
+    }
+
+    /**
+     * Changes the number of events between making the {@linkplain ProjectionCheckpoint
+     * checkpoints} of the projections to the passed value.
+     *
+     * <p>A catch-up may {@linkplain #catchUpFromCheckpoint(Timestamp, Set) start from the
+     * checkpoints} instead of replaying the whole history.
+     *
+     * <p>By default, no checkpoints are made.
+     *
+     * @param checkpointTrigger
+     *         a positive number of events between the checkpoints, or zero to stop making them
+     */
+    protected void setCheckpointTrigger(int checkpointTrigger) {
+        checkArgument(checkpointTrigger >= 0);
+        this.checkpointTrigger = checkpointTrigger;
+    }
+
+    /**
+     * Makes a checkpoint of the passed projection, if its version has reached the next
+     * multiple of the {@linkplain #setCheckpointTrigger(int) checkpoint trigger}.
+     *
+     * @param projection
+     *         the projection to make a checkpoint of
+     * @param versionBefore
+     *         the version number of the projection before the last dispatching
+     * @param lastEventTime
+     *         the time of the last event dispatched to the projection
+     */
+    final void checkpointIfDue(P projection, int versionBefore, Timestamp lastEventTime) {
+        if (checkpointTrigger == 0) {
+            return;
+        }
+        int versionAfter = projection.version()
+                                     .getNumber();
+        if (versionAfter / checkpointTrigger == versionBefore / checkpointTrigger) {
+            return;
+        }
+        EntityRecord record = storageConverter().convert(projection);
+        ProjectionCheckpoint checkpoint = ProjectionCheckpoint
+                .newBuilder()
+                .setRecord(checkNotNull(record))
+                .setLastEventTime(lastEventTime)
+                .vBuild();
+        projectionStorage().writeCheckpoint(projection.id(), checkpoint);
+    }
+
+    /**
+     * Reads the newest checkpoint of the projection, the last event of which happened before
+     * the given time.
+     */
+    @Internal
+    public final Optional<ProjectionCheckpoint> checkpointBefore(I id, Timestamp before) {
+        return projectionStorage().readCheckpoint(id, before);
+    }
+
+    /**
+     * Restores the projection from the passed checkpoint.
+     */
+    final void restore(ProjectionCheckpoint checkpoint) {
+        P projection = toEntity(checkpoint.getRecord());
+        doStore(projection);
+    }
+
+    @SuppressWarnings("unchecked") // ensured by the type returned by `createdStorage()`.
+    private ProjectionStorage<I> projectionStorage() {
+        return (ProjectionStorage<I>) storage();
+    }
+
+    /**
+     * Sends the events to the inboxes of the catching-up projection instances.
      *
      * <p>Allows to restrict the target entities by identifiers. In this case, the event is
      * routed as per the repository routing schema, and the obtained set of the identifiers
@@ -463,7 +583,7 @@ public abstract class ProjectionRepository<I, P extends Projection<I, S, ?>, S e
      *
      * <p>Such a setting allows to catch up only the selected targets.
      *
-     * <p>This API method also supports sending the special {@link CatchUpSignal}s
+     * <p>This API also supports sending the special {@link CatchUpSignal}s
      * to the projection. They regulate the lifecycle of the catch-up and are handled by
      * the {@link CatchUpEndpoint} exposed by this repository.
      *
@@ -472,34 +592,32 @@ public abstract class ProjectionRepository<I, P extends Projection<I, S, ?>, S e
      * handling of {@code CatchUpSignal}s may affect the lifecycle state of the projection
      * instances. E.g. the callee must know to what targets he is sending the "delete state" signal.
      *
-     * @param event
-     *         the event to dispatch
-     * @param restrictToIds
-     *         optional set of the target identifiers to which the dispatching must be restricted;
-     *         if {@code null}, no restriction are applied and the event should be dispatched as per
-     *         the routing schema
-     * @return the set of the entity identifiers, which actually received the dispatched event
      * @see CatchUpEndpoint
      */
-    private Set<I> sendToCatchingUp(Event event, @Nullable Set<I> restrictToIds) {
-        EventEnvelope envelope = EventEnvelope.of(event);
-        Set<I> catchUpTargets;
-        if (envelope.message() instanceof CatchUpSignal) {
-            catchUpTargets = restrictToIds == null
-                             ? ImmutableSet.copyOf(index())
-                             : restrictToIds;
-        } else {
-            Set<I> routedTargets = route(envelope);
-            catchUpTargets = restrictToIds == null
-                             ? routedTargets
-                             : intersection(routedTargets, restrictToIds).immutableCopy();
+    private final class SendToCatchingUp implements RoutingDispatchCatchingUp<I> {
+
+        @Override
+        public Set<I> targetsOf(Event event, @Nullable Set<I> restrictToIds) {
+            EventEnvelope envelope = EventEnvelope.of(event);
+            Set<I> catchUpTargets;
+            if (envelope.message() instanceof CatchUpSignal) {
+                catchUpTargets = restrictToIds == null
+                                 ? ImmutableSet.copyOf(index())
+                                 : restrictToIds;
+            } else {
+                Set<I> routedTargets = route(envelope);
+                catchUpTargets = restrictToIds == null
+                                 ? routedTargets
+                                 : intersection(routedTargets, restrictToIds).immutableCopy();
+            }
+            return catchUpTargets;
         }
-        Inbox<I> inbox = inbox();
-        for (I target : catchUpTargets) {
-            inbox.send(envelope)
-                 .toCatchUp(target);
+
+        @Override
+        public void sendTo(I target, Event event) {
+            inbox().send(EventEnvelope.of(event))
+                   .toCatchUp(target);
         }
-        return catchUpTargets;
     }
 
     @OverridingMethodsMustInvokeSuper
@@ -509,5 +627,8 @@ public abstract class ProjectionRepository<I, P extends Projection<I, S, ?>, S e
         if (inbox != null) {
             inbox.unregister();
         }
+        if (catchUpProcess != null) {
+            catchUpProcess.close();
+        }
     }
 }
@@ -20,9 +20,11 @@
 
 package io.spine.server.projection;
 
+import com.google.protobuf.Timestamp;
 import io.spine.annotation.Internal;
 import io.spine.annotation.SPI;
 import io.spine.client.ResponseFormat;
+import io.spine.core.Version;
 import io.spine.server.entity.EntityRecord;
 import io.spine.server.entity.storage.Columns;
 import io.spine.server.entity.storage.EntityQuery;
@@ -40,6 +42,10 @@ import java.util.Optional;
  *
  * <p>This timestamp is used for 'catch-up' operation of the projection repositories.
  *
+ * <p>The storage may also keep the {@linkplain ProjectionCheckpoint checkpoints} of
+ * the projections, from which the catch-up may start instead of replaying the whole history.
+ * By default, no checkpoints are kept.
+ *
  * @param <I> the type of stream projection IDs
  */
 @SPI
@@ -64,6 +70,12 @@ public abstract class ProjectionStorage<I> extends RecordStorage<I> {
         return record;
     }
 
+    @Override
+    public Optional<Version> readVersion(I id) {
+        RecordStorage<I> storage = recordStorage();
+        return storage.readVersion(id);
+    }
+
     @Override
     protected void writeRecord(I id, EntityRecordWithColumns record) {
         RecordStorage<I> storage = recordStorage();
@@ -83,6 +95,42 @@ public abstract class ProjectionStorage<I> extends RecordStorage<I> {
         return storage.readAll(query, format);
     }
 
+    /**
+     * Writes the checkpoint of the projection with the given ID.
+     *
+     * <p>A number of the checkpoints made earlier are kept, so that the catch-up could start
+     * from the checkpoint made before a recent point in time. The storages should bound
+     * the number of the checkpoints kept for each projection, dropping the oldest ones,
+     * and should drop all the checkpoints of the {@linkplain #delete(Object) deleted} projection.
+     *
+     * <p>Does nothing by default. The storages which keep checkpoints should override both
+     * this method and {@link #readCheckpoint(Object, Timestamp) readCheckpoint(..)}.
+     *
+     * @param id
+     *         the ID of the projection
+     * @param checkpoint
+     *         the checkpoint to write
+     */
+    public void writeCheckpoint(I id, ProjectionCheckpoint checkpoint) {
+        // Do nothing by default.
+    }
+
+    /**
+     * Reads the newest checkpoint of the projection with the given ID, the last event of which
+     * happened before the given time.
+     *
+     * <p>Returns {@code Optional.empty()} by default.
+     *
+     * @param id
+     *         the ID of the projection
+     * @param before
+     *         the time before which the checkpoint should be made, exclusive
+     * @return the checkpoint or {@code Optional.empty()} if there is no such checkpoint
+     */
+    public Optional<ProjectionCheckpoint> readCheckpoint(I id, Timestamp before) {
+        return Optional.empty();
+    }
+
     /** Returns an entity storage implementation. */
     protected abstract RecordStorage<I> recordStorage();
 }
@@ -28,6 +28,7 @@ import com.google.protobuf.Message;
 import io.spine.annotation.Internal;
 import io.spine.base.Identifier;
 import io.spine.client.ResponseFormat;
+import io.spine.core.Version;
 import io.spine.protobuf.AnyPacker;
 import io.spine.server.entity.Entity;
 import io.spine.server.entity.EntityRecord;
@@ -121,6 +122,25 @@ public abstract class RecordStorage<I>
         return Optional.of(builder.build());
     }
 
+    /**
+     * Reads the version of the record with the passed ID.
+     *
+     * <p>By default, reads the whole record. The storages able to read the version alone
+     * should override this method, as it is called each time a cached entity is reused.
+     *
+     * @param id
+     *         the ID of the record
+     * @return the version of the record or {@code Optional.empty()} if there is no record
+     *         with this ID
+     */
+    public Optional<Version> readVersion(I id) {
+        checkNotClosed();
+        checkNotNull(id);
+
+        Optional<Version> result = readRecord(id).map(EntityRecord::getVersion);
+        return result;
+    }
+
     /**
      * Writes a record and its {@linkplain io.spine.server.entity.storage.Column columns} into the
      * storage.
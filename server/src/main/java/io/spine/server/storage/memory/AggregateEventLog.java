@@ -0,0 +1,294 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.memory;
+
+import com.google.protobuf.util.Timestamps;
+import io.spine.core.Event;
+import io.spine.server.aggregate.AggregateEventRecord;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import static io.spine.protobuf.Messages.isDefault;
+
+/**
+ * The events and snapshots of a single aggregate.
+ *
+ * <p>The records are kept in an array ordered from the oldest to the newest. As the records
+ * of an aggregate are almost always written in their historical order, a write usually
+ * appends the record to the end of the array. The records arriving out of order are inserted
+ * into their place in a copy of the array.
+ *
+ * <p>The log also keeps the positions of the snapshots in the array, so that the truncation
+ * finds the Nth snapshot from the end without scanning the records.
+ *
+ * <p>The readers do not lock. The array along with the number of the records in it and
+ * the snapshot positions form an immutable {@link View}, which is published via
+ * a {@code volatile} field. The records of a published view are never changed in-place.
+ * An append writes past the end of the view, and any other modification builds a new array.
+ * Therefore, a reader iterates the view obtained once, without copying the history.
+ *
+ * <p>The modifications are serialized by the log.
+ */
+final class AggregateEventLog {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final Comparator<AggregateEventRecord> newestFirst = new NewestFirst();
+    private static final Comparator<AggregateEventRecord> oldestFirst = newestFirst.reversed();
+
+    private volatile View view = new View(new AggregateEventRecord[INITIAL_CAPACITY], 0,
+                                          new int[0]);
+
+    /**
+     * Adds the record to the log.
+     *
+     * <p>Does nothing if an equal record is already in the log.
+     */
+    synchronized void add(AggregateEventRecord record) {
+        View current = view;
+        int size = current.size;
+        AggregateEventRecord[] records = current.records;
+        if (size == 0 || oldestFirst.compare(records[size - 1], record) < 0) {
+            append(current, record);
+            return;
+        }
+        int found = Arrays.binarySearch(records, 0, size, record, oldestFirst);
+        if (found >= 0) {
+            return;
+        }
+        int position = -found - 1;
+        AggregateEventRecord[] inserted = new AggregateEventRecord[capacityFor(size + 1)];
+        System.arraycopy(records, 0, inserted, 0, position);
+        inserted[position] = record;
+        System.arraycopy(records, position, inserted, position + 1, size - position);
+        view = new View(inserted, size + 1, snapshotPositionsOf(inserted, size + 1));
+    }
+
+    private void append(View current, AggregateEventRecord record) {
+        int size = current.size;
+        AggregateEventRecord[] records = current.records;
+        if (size == records.length) {
+            records = Arrays.copyOf(records, capacityFor(size + 1));
+        }
+        records[size] = record;
+        int[] snapshots = current.snapshots;
+        if (record.hasSnapshot()) {
+            snapshots = Arrays.copyOf(snapshots, snapshots.length + 1);
+            snapshots[snapshots.length - 1] = size;
+        }
+        view = new View(records, size + 1, snapshots);
+    }
+
+    private static int capacityFor(int size) {
+        return Math.max(INITIAL_CAPACITY, size + (size >> 1));
+    }
+
+    /**
+     * Returns an iterator over the records from the newest to the oldest.
+     *
+     * <p>The iterator reflects the log as it was when the iterator was created.
+     */
+    Iterator<AggregateEventRecord> newestFirst() {
+        return new NewestFirstIterator(view);
+    }
+
+    /**
+     * Tells whether the log has no records.
+     */
+    boolean isEmpty() {
+        return view.size == 0;
+    }
+
+    /**
+     * Drops the records, which precede the specified snapshot and match the specified
+     * predicate.
+     *
+     * @param snapshotIndex
+     *         the index of the snapshot counted from the newest to the oldest, starting
+     *         from {@code 0}
+     * @param predicate
+     *         the predicate telling if a record may be dropped
+     * @return the number of the dropped records
+     */
+    synchronized int truncate(int snapshotIndex, Predicate<AggregateEventRecord> predicate) {
+        View current = view;
+        int[] snapshots = current.snapshots;
+        if (snapshotIndex >= snapshots.length) {
+            return 0;
+        }
+        int boundary = snapshots[snapshots.length - 1 - snapshotIndex];
+        int size = current.size;
+        AggregateEventRecord[] records = current.records;
+        AggregateEventRecord[] kept = new AggregateEventRecord[capacityFor(size)];
+        int keptCount = 0;
+        for (int i = 0; i < size; i++) {
+            AggregateEventRecord record = records[i];
+            if (i >= boundary || !predicate.test(record)) {
+                kept[keptCount] = record;
+                keptCount++;
+            }
+        }
+        if (keptCount < size) {
+            view = new View(kept, keptCount, snapshotPositionsOf(kept, keptCount));
+        }
+        return size - keptCount;
+    }
+
+    private static int[] snapshotPositionsOf(AggregateEventRecord[] records, int size) {
+        return IntStream.range(0, size)
+                        .filter(i -> records[i].hasSnapshot())
+                        .toArray();
+    }
+
+    /**
+     * An immutable view on the records of the log.
+     */
+    private static final class View {
+
+        private final AggregateEventRecord[] records;
+        private final int size;
+        private final int[] snapshots;
+
+        private View(AggregateEventRecord[] records, int size, int[] snapshots) {
+            this.records = records;
+            this.size = size;
+            this.snapshots = snapshots;
+        }
+    }
+
+    /**
+     * Iterates a view from its newest record to the oldest one.
+     */
+    private static final class NewestFirstIterator implements Iterator<AggregateEventRecord> {
+
+        private final AggregateEventRecord[] records;
+        private int next;
+
+        private NewestFirstIterator(View view) {
+            this.records = view.records;
+            this.next = view.size - 1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        @Override
+        public AggregateEventRecord next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            AggregateEventRecord result = records[next];
+            next--;
+            return result;
+        }
+    }
+
+    /** Used for sorting by version descending (from newer to older). */
+    private static final class NewestFirst
+            implements Comparator<AggregateEventRecord>, Serializable {
+
+        private static final long serialVersionUID = 0L;
+
+        @Override
+        public int compare(AggregateEventRecord first, AggregateEventRecord second) {
+            int result = compareVersions(first, second);
+
+            if (result == 0) {
+                result = compareTimestamps(first, second);
+
+                // In case the wall-clock isn't accurate enough, the timestamps may be the same.
+                // In this case, compare the record type in a similar fashion.
+                if (result == 0) {
+                    result = compareSimilarRecords(first, second);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Compares the {@linkplain AggregateEventRecord records} with the same version number
+         * and timestamp.
+         *
+         * <p>If the timestamp and versions are the same, we should check if one of the records
+         * is a snapshot. From a snapshot and an event with the same version and timestamp,
+         * a snapshot is considered "newer".
+         *
+         * @param first
+         *         the first record
+         * @param second
+         *         the second record
+         * @return {@code -1}, {@code 1} or {@code 0} according to
+         *         {@linkplain Comparator#compare(Object, Object) compare(..) specification}
+         */
+        private static int compareSimilarRecords(AggregateEventRecord first,
+                                                 AggregateEventRecord second) {
+            boolean firstIsSnapshot = first.hasSnapshot();
+            boolean secondIsSnapshot = second.hasSnapshot();
+            if (firstIsSnapshot && !secondIsSnapshot) {
+                return -1;
+            } else if (secondIsSnapshot && !firstIsSnapshot) {
+                return 1;
+            } else if (!first.equals(second)) {
+                // Both are of the same kind and have the same versions and timestamps.
+                // We cannot allow 2 nonidentical records to be equal in terms of `compare(..)`,
+                // so compare by hash codes.
+                return Integer.compare(first.hashCode(), second.hashCode());
+            } else {
+                // Two records are equal in terms of both `equals(..)` and `compare(..)`.
+                return 0;
+            }
+        }
+
+        private static int compareVersions(AggregateEventRecord first,
+                                           AggregateEventRecord second) {
+            int result;
+            int secondEventVersion = versionNumberOf(second);
+            int firstEventVersion = versionNumberOf(first);
+            result = Integer.compare(secondEventVersion, firstEventVersion);
+            return result;
+        }
+
+        private static int compareTimestamps(AggregateEventRecord first,
+                                             AggregateEventRecord second) {
+            return Timestamps.compare(second.getTimestamp(), first.getTimestamp());
+        }
+
+        private static int versionNumberOf(AggregateEventRecord record) {
+            Event event = record.getEvent();
+            if (isDefault(event)) {
+                return record.getSnapshot()
+                             .getVersion()
+                             .getNumber();
+            }
+            return event.context()
+                        .getVersion()
+                        .getNumber();
+        }
+    }
+}
@@ -27,8 +27,8 @@ import io.spine.server.aggregate.AggregateStorage;
 import io.spine.server.entity.LifecycleFlags;
 
 import java.util.Iterator;
-import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -88,8 +88,7 @@ final class InMemoryAggregateStorage<I> extends AggregateStorage<I> {
     @Override
     protected Iterator<AggregateEventRecord> historyBackward(AggregateReadRequest<I> request) {
         checkNotNull(request);
-        List<AggregateEventRecord> records = getStorage().historyBackward(request);
-        return records.iterator();
+        return getStorage().historyBackward(request);
     }
 
     @Override
@@ -97,6 +96,11 @@ final class InMemoryAggregateStorage<I> extends AggregateStorage<I> {
         getStorage().truncateOlderThan(snapshotIndex);
     }
 
+    @Override
+    protected OptionalInt truncate(I id, int snapshotIndex) {
+        return OptionalInt.of(getStorage().truncateOlderThan(id, snapshotIndex));
+    }
+
     @Override
     protected void truncate(int snapshotIndex, Timestamp date) {
         getStorage().truncateOlderThan(snapshotIndex, date);
@@ -25,7 +25,6 @@ import com.google.common.collect.ImmutableList;
 import io.spine.logging.Logging;
 import io.spine.server.delivery.Inbox;
 import io.spine.server.delivery.InboxMessage;
-import io.spine.server.delivery.InboxMessageComparator;
 import io.spine.server.delivery.InboxMessageId;
 import io.spine.server.delivery.InboxMessageStatus;
 import io.spine.server.delivery.InboxReadRequest;
@@ -33,14 +32,12 @@ import io.spine.server.delivery.InboxStorage;
 import io.spine.server.delivery.Page;
 import io.spine.server.delivery.ShardIndex;
 import io.spine.server.storage.AbstractStorage;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Iterator;
-import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicInteger;
 
-import static com.google.common.collect.ImmutableList.toImmutableList;
-import static java.util.stream.Collectors.groupingBy;
+import static com.google.common.base.Preconditions.checkArgument;
 
 /**
  * In-memory implementation of messages stored in {@link Inbox Inbox}.
@@ -48,6 +45,10 @@ import static java.util.stream.Collectors.groupingBy;
  * <p>Mutating operations are made {@code synchronized} to avoid simultaneous updates
  * of the same records. That allows to operate in a concurrency-heavy environment notwithstanding
  * the thread-safety of the underlying storage.
+ *
+ * <p>The messages of each shard are kept in a separate concurrent sorted index. Therefore,
+ * reading a page of messages from a shard does not require copying or sorting the messages
+ * of the whole storage.
  */
 public final class InMemoryInboxStorage
         extends AbstractStorage<InboxMessageId, InboxMessage, InboxReadRequest>
@@ -68,32 +69,15 @@ public final class InMemoryInboxStorage
 
     @Override
     public Page<InboxMessage> readAll(ShardIndex index, int pageSize) {
+        checkArgument(pageSize > 0, "The page size must be positive.");
         TenantInboxRecords storage = multitenantStorage.currentSlice();
-
-        AtomicInteger counter = new AtomicInteger();
-        @SuppressWarnings("JdkObsolete") // Migrate from `SortedSet` to `NavigableSet` later.
-        Map<Integer, ImmutableList<InboxMessage>> pages =
-                storage.readAll()
-                       .stream()
-                       .filter((r) -> index.equals(r.shardIndex()))
-                       .sorted(InboxMessageComparator.chronologically)
-                       .collect(groupingBy(m -> counter.getAndIncrement() / pageSize,
-                                           toImmutableList()));
-
-        PageByNumber supplier = number -> Optional.ofNullable(pages.get(number));
-        return new InMemoryPage(0, supplier);
+        return new InMemoryPage(storage, index, pageSize, null);
     }
 
     @Override
     public Optional<InboxMessage> newestMessageToDeliver(ShardIndex index) {
         TenantInboxRecords storage = multitenantStorage.currentSlice();
-        @SuppressWarnings("JdkObsolete") // Migrate from `SortedSet` to `NavigableSet` later.
-        Optional<InboxMessage> result =
-                storage.readAll()
-                       .stream()
-                       .filter((r) -> index.equals(r.shardIndex()) && isToDeliver(r))
-                       .min(InboxMessageComparator.chronologically);
-        return result;
+        return storage.firstMatching(index, InMemoryInboxStorage::isToDeliver);
     }
 
     private static boolean isToDeliver(InboxMessage r) {
@@ -139,45 +123,88 @@ public final class InMemoryInboxStorage
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Applies all the changes under the same lock as other mutating operations.
+     */
+    @Override
+    public synchronized void applyChanges(Iterable<InboxMessage> updates,
+                                          Iterable<InboxMessage> removals) {
+        TenantInboxRecords storage = multitenantStorage.currentSlice();
+        for (InboxMessage message : updates) {
+            storage.put(message.getId(), message);
+        }
+        for (InboxMessage message : removals) {
+            storage.remove(message);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Checks the fencing token and applies the changes under the same lock.
+     */
+    @Override
+    public synchronized void applyChanges(ShardIndex shard,
+                                          long fencingToken,
+                                          Iterable<InboxMessage> updates,
+                                          Iterable<InboxMessage> removals) {
+        multitenantStorage.currentSlice()
+                          .fence(shard, fencingToken);
+        applyChanges(updates, removals);
+    }
+
     /**
      * An in-memory implementation of a page of messages read from the {@code InboxStorage}.
+     *
+     * <p>The contents of the page are read upon its creation. The next page is read starting
+     * after the last message of this page, so that reading a page takes the time proportional
+     * to the page size, regardless of the total number of messages in the shard.
      */
     private static final class InMemoryPage implements Page<InboxMessage> {
 
-        private final int pageNumber;
-        private final PageByNumber pageSupplier;
-
-        private InMemoryPage(int number, PageByNumber supplier) {
-            this.pageNumber = number;
-            this.pageSupplier = supplier;
+        private final TenantInboxRecords storage;
+        private final ShardIndex index;
+        private final int pageSize;
+        private final ImmutableList<InboxMessage> contents;
+
+        private InMemoryPage(TenantInboxRecords storage,
+                             ShardIndex index,
+                             int pageSize,
+                             @Nullable InboxMessage after) {
+            this.storage = storage;
+            this.index = index;
+            this.pageSize = pageSize;
+            this.contents = storage.readPage(index, after, pageSize);
         }
 
         @Override
         public ImmutableList<InboxMessage> contents() {
-            return pageSupplier.getBy(pageNumber)
-                               .orElse(ImmutableList.of());
+            return contents;
         }
 
         @Override
         public int size() {
-            return contents().size();
+            return contents.size();
         }
 
         @Override
         public Optional<Page<InboxMessage>> next() {
-            int nextNumber = pageNumber + 1;
-            Optional<Page<InboxMessage>> result =
-                    pageSupplier.getBy(nextNumber)
-                                .map(l -> new InMemoryPage(nextNumber, pageSupplier));
-            return result;
+            return next(pageSize);
         }
-    }
 
-    /**
-     * Supplies the contents of the {@linkplain InMemoryPage page} by its number.
-     */
-    private interface PageByNumber {
-
-        Optional<ImmutableList<InboxMessage>> getBy(int number);
+        @Override
+        public Optional<Page<InboxMessage>> next(int size) {
+            checkArgument(size > 0, "The page size must be positive.");
+            if (contents.isEmpty()) {
+                return Optional.empty();
+            }
+            InboxMessage last = contents.get(contents.size() - 1);
+            InMemoryPage next = new InMemoryPage(storage, index, size, last);
+            return next.contents.isEmpty()
+                   ? Optional.empty()
+                   : Optional.of(next);
+        }
     }
 }
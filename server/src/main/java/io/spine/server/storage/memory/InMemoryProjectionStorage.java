@@ -21,14 +21,17 @@
 package io.spine.server.storage.memory;
 
 import com.google.protobuf.FieldMask;
+import com.google.protobuf.Timestamp;
 import io.spine.client.ResponseFormat;
 import io.spine.server.entity.EntityRecord;
 import io.spine.server.projection.Projection;
+import io.spine.server.projection.ProjectionCheckpoint;
 import io.spine.server.projection.ProjectionStorage;
 import io.spine.server.storage.RecordStorage;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Iterator;
+import java.util.Optional;
 
 /**
  * The in-memory implementation of {@link ProjectionStorage}.
@@ -41,10 +44,20 @@ public final class InMemoryProjectionStorage<I> extends ProjectionStorage<I> {
     /** The storage for projection entities. */
     private final InMemoryRecordStorage<I> recordStorage;
 
+    /** The storage for the checkpoints of the projections. */
+    private final MultitenantStorage<TenantProjectionCheckpoints<I>> checkpoints;
+
     InMemoryProjectionStorage(Class<? extends Projection<?, ?, ?>> projectionClass,
                               InMemoryRecordStorage<I> recordStorage) {
         super(projectionClass, recordStorage.isMultitenant());
         this.recordStorage = recordStorage;
+        this.checkpoints =
+                new MultitenantStorage<TenantProjectionCheckpoints<I>>(isMultitenant()) {
+                    @Override
+                    TenantProjectionCheckpoints<I> createSlice() {
+                        return new TenantProjectionCheckpoints<>();
+                    }
+                };
     }
 
     @Override
@@ -57,14 +70,33 @@ public final class InMemoryProjectionStorage<I> extends ProjectionStorage<I> {
         return recordStorage;
     }
 
+    @Override
+    public void writeCheckpoint(I id, ProjectionCheckpoint checkpoint) {
+        checkNotClosed();
+        checkpoints.currentSlice()
+                   .put(id, checkpoint);
+    }
+
+    @Override
+    public Optional<ProjectionCheckpoint> readCheckpoint(I id, Timestamp before) {
+        checkNotClosed();
+        return checkpoints.currentSlice()
+                          .getBefore(id, before);
+    }
+
     @Override
     public void close() {
         recordStorage.close();
         super.close();
     }
 
+    /**
+     * Deletes the projection record along with the checkpoints of the projection.
+     */
     @Override
     public boolean delete(I id) {
+        checkpoints.currentSlice()
+                   .delete(id);
         return recordStorage().delete(id);
     }
 
@@ -20,30 +20,51 @@
 
 package io.spine.server.storage.memory;
 
-import com.google.common.collect.ImmutableSortedSet;
-import com.google.protobuf.Timestamp;
-import com.google.protobuf.util.Timestamps;
-import io.spine.server.delivery.Inbox;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Streams;
 import io.spine.server.delivery.InboxMessage;
+import io.spine.server.delivery.InboxMessageComparator;
 import io.spine.server.delivery.InboxMessageId;
+import io.spine.server.delivery.InboxPayloads;
+import io.spine.server.delivery.ShardIndex;
+import io.spine.server.delivery.StaleFencingTokenException;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
-import java.io.Serializable;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.Objects;
+import java.util.NavigableMap;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
 
-import static java.util.Collections.synchronizedMap;
+import static com.google.common.collect.Maps.newConcurrentMap;
 
 /**
  * The memory-based storage for {@link io.spine.server.delivery.InboxMessage InboxMessage}s
  * that represents all storage operations available for inbox data of a single tenant.
+ *
+ * <p>In addition to the records stored by their identifiers, keeps a sorted index of
+ * the records per shard. The messages in each index are placed
+ * {@linkplain InboxMessageComparator#chronologically chronologically}, so that the messages
+ * of a shard are read page by page without looking through the messages of other shards.
+ *
+ * <p>The payload of the messages is kept {@linkplain InboxPayloads once per signal}, so that
+ * the memory taken by a signal dispatched to many targets does not grow with the number
+ * of the targets. The records and the index entries are the rows referring to the payload,
+ * which is attached back to the messages upon reading.
  */
 final class TenantInboxRecords implements TenantStorage<InboxMessageId, InboxMessage> {
 
-    private final Map<InboxMessageId, InboxMessage> records = synchronizedMap(new HashMap<>());
+    private final Map<InboxMessageId, InboxMessage> records = newConcurrentMap();
+    private final Map<ShardIndex, ConcurrentNavigableMap<InboxMessage, InboxMessage>> shards =
+            newConcurrentMap();
+    private final InboxPayloads payloads = new InboxPayloads();
+
+    /**
+     * The greatest fencing tokens, with which the shards were changed.
+     */
+    private final Map<ShardIndex, Long> fencingTokens = newConcurrentMap();
 
     @Override
     public Iterator<InboxMessageId> index() {
@@ -53,29 +74,109 @@ final class TenantInboxRecords implements TenantStorage<InboxMessageId, InboxMes
 
     @Override
     public Optional<InboxMessage> get(InboxMessageId id) {
-        return Optional.ofNullable(records.get(id));
+        return Optional.ofNullable(records.get(id))
+                       .flatMap(payloads::attach);
     }
 
     /**
-     * Obtains the contents of {@link Inbox Inbox} by its identifier.
+     * Reads the messages of the shard, which follow the given one in a chronological order.
      *
-     * <p>Returns all messages, placing those received earlier first.
+     * @param index
+     *         the index of the shard to read the messages from
+     * @param after
+     *         the message after which to start reading, or {@code null} to read from the start
+     * @param maxCount
+     *         the maximum number of messages to read
+     * @return the messages of the shard placing those received earlier first
+     * @implNote The messages removed concurrently with reading, which payload is already
+     *         dropped, are skipped and do not count towards {@code maxCount}.
+     */
+    ImmutableList<InboxMessage>
+    readPage(ShardIndex index, @Nullable InboxMessage after, int maxCount) {
+        NavigableMap<InboxMessage, InboxMessage> shard = shard(index);
+        NavigableMap<InboxMessage, InboxMessage> tail = after == null
+                                                        ? shard
+                                                        : shard.tailMap(after, false);
+        ImmutableList.Builder<InboxMessage> result = ImmutableList.builder();
+        int count = 0;
+        Iterator<InboxMessage> iterator = tail.values()
+                                              .iterator();
+        while (count < maxCount && iterator.hasNext()) {
+            Optional<InboxMessage> message = payloads.attach(iterator.next());
+            if (message.isPresent()) {
+                result.add(message.get());
+                count++;
+            }
+        }
+        return result.build();
+    }
+
+    /**
+     * Finds the earliest message of the shard, which matches the passed predicate.
      *
-     * @return messages of the {@code Inbox}
+     * <p>The predicate is tested against the rows, which do not carry the payload.
      */
-    public ImmutableSortedSet<InboxMessage> readAll() {
-        ImmutableSortedSet<InboxMessage> result =
-                ImmutableSortedSet.copyOf(new InboxStorageRecordComparator(), records.values());
-        return result;
+    Optional<InboxMessage> firstMatching(ShardIndex index, Predicate<InboxMessage> predicate) {
+        return shard(index).values()
+                           .stream()
+                           .filter(predicate)
+                           .flatMap(row -> Streams.stream(payloads.attach(row)))
+                           .findFirst();
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The callers are responsible for serializing the modifications of the same records.
+     */
     @Override
     public void put(InboxMessageId id, InboxMessage record) {
-        records.put(id, record);
+        InboxMessage existing = records.get(id);
+        InboxMessage row = existing == null
+                           ? payloads.acquire(record)
+                           : payloads.detach(record);
+        InboxMessage previous = records.put(id, row);
+        if (previous != null && !sameIndexKey(previous, row)) {
+            shard(previous.shardIndex()).remove(previous);
+        }
+        shard(row.shardIndex()).put(row, row);
     }
 
+    /**
+     * Removes the passed message.
+     *
+     * <p>The callers are responsible for serializing the modifications of the same records.
+     */
     public void remove(InboxMessage message) {
-        records.remove(message.getId());
+        InboxMessage previous = records.remove(message.getId());
+        if (previous != null) {
+            shard(previous.shardIndex()).remove(previous);
+            payloads.release(previous);
+        }
+    }
+
+    /**
+     * Remembers the fencing token of the session changing the shard.
+     *
+     * <p>The callers are responsible for serializing this call with the changes
+     * it guards.
+     *
+     * @throws StaleFencingTokenException
+     *         if the shard has already been changed with a greater token
+     */
+    void fence(ShardIndex index, long fencingToken) {
+        Long current = fencingTokens.get(index);
+        if (current != null && current > fencingToken) {
+            throw new StaleFencingTokenException(index, fencingToken, current);
+        }
+        fencingTokens.put(index, fencingToken);
+    }
+
+    /**
+     * Returns the number of the distinct payloads kept.
+     */
+    int payloadCount() {
+        return payloads.size();
     }
 
     @Override
@@ -84,31 +185,20 @@ final class TenantInboxRecords implements TenantStorage<InboxMessageId, InboxMes
     }
 
     /**
-     * Comparator for the {@code InboxMessage}s that are stored in in-memory storage.
+     * Tells whether the passed messages occupy the same place in the shard index.
      *
-     * <p>Defines the order of messages, placing the messages
-     * {@linkplain io.spine.server.delivery.InboxMessage#getWhenReceived() received earlier} on top.
+     * <p>If so, the index entry is updated in-place, so that the concurrent readers
+     * do not miss the message.
      */
-    static class InboxStorageRecordComparator implements Comparator<InboxMessage>, Serializable {
-
-        private static final long serialVersionUID = 0L;
+    private static boolean sameIndexKey(InboxMessage previous, InboxMessage record) {
+        return previous.shardIndex()
+                       .equals(record.shardIndex())
+                && InboxMessageComparator.chronologically.compare(previous, record) == 0;
+    }
 
-        @Override
-        public int compare(InboxMessage first, InboxMessage second) {
-            if (Objects.equals(first, second)) {
-                return 0;
-            }
-            Timestamp whenFirstReceived = first.getWhenReceived();
-            Timestamp whenSecondReceived = second.getWhenReceived();
-            int timeComparison = Timestamps.compare(whenFirstReceived, whenSecondReceived);
-            if (timeComparison != 0) {
-                return timeComparison;
-            }
-            int versionComparison = Integer.compare(first.getVersion(), second.getVersion());
-            if (versionComparison == 0) {
-                throw new IllegalStateException("Inbox record versions must not be equal.");
-            }
-            return versionComparison;
-        }
+    private ConcurrentNavigableMap<InboxMessage, InboxMessage> shard(ShardIndex index) {
+        return shards.computeIfAbsent(
+                index, i -> new ConcurrentSkipListMap<>(InboxMessageComparator.chronologically)
+        );
     }
 }
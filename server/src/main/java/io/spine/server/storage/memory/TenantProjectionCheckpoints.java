@@ -0,0 +1,115 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.memory;
+
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.util.Timestamps;
+import io.spine.server.projection.ProjectionCheckpoint;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static com.google.common.collect.Maps.newConcurrentMap;
+
+/**
+ * The checkpoints of the projections for a tenant.
+ *
+ * <p>The checkpoints of each projection are ordered by the time of the last event applied
+ * to the projection. Only the {@value #RETAINED_CHECKPOINTS} newest checkpoints of each
+ * projection are kept, the older ones are dropped once a new checkpoint is put.
+ *
+ * @param <I>
+ *         the type of the projection IDs
+ */
+final class TenantProjectionCheckpoints<I> implements TenantStorage<I, ProjectionCheckpoint> {
+
+    /**
+     * The number of the newest checkpoints kept for each projection.
+     */
+    static final int RETAINED_CHECKPOINTS = 10;
+
+    private final Map<I, NavigableMap<Timestamp, ProjectionCheckpoint>> checkpoints =
+            newConcurrentMap();
+
+    @Override
+    public Iterator<I> index() {
+        return checkpoints.keySet()
+                          .iterator();
+    }
+
+    /**
+     * Obtains the newest checkpoint of the projection with the passed ID.
+     */
+    @Override
+    public Optional<ProjectionCheckpoint> get(I id) {
+        NavigableMap<Timestamp, ProjectionCheckpoint> ofProjection = checkpoints.get(id);
+        if (ofProjection == null || ofProjection.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(ofProjection.lastEntry()
+                                       .getValue());
+    }
+
+    /**
+     * Obtains the newest checkpoint of the projection with the passed ID, the last event of which
+     * happened strictly before the given time.
+     */
+    Optional<ProjectionCheckpoint> getBefore(I id, Timestamp before) {
+        NavigableMap<Timestamp, ProjectionCheckpoint> ofProjection = checkpoints.get(id);
+        if (ofProjection == null) {
+            return Optional.empty();
+        }
+        Map.Entry<Timestamp, ProjectionCheckpoint> entry = ofProjection.lowerEntry(before);
+        return Optional.ofNullable(entry)
+                       .map(Map.Entry::getValue);
+    }
+
+    /**
+     * Puts the checkpoint of the projection, dropping the oldest checkpoints beyond
+     * the {@linkplain #RETAINED_CHECKPOINTS retained number}.
+     */
+    @Override
+    public void put(I id, ProjectionCheckpoint checkpoint) {
+        NavigableMap<Timestamp, ProjectionCheckpoint> ofProjection =
+                checkpoints.computeIfAbsent(
+                        id, k -> new ConcurrentSkipListMap<>(Timestamps.comparator())
+                );
+        ofProjection.put(checkpoint.getLastEventTime(), checkpoint);
+        while (ofProjection.size() > RETAINED_CHECKPOINTS) {
+            ofProjection.pollFirstEntry();
+        }
+    }
+
+    /**
+     * Drops all the checkpoints of the projection with the passed ID.
+     */
+    void delete(I id) {
+        checkpoints.remove(id);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return checkpoints.isEmpty();
+    }
+}
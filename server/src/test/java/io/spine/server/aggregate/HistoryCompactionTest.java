@@ -0,0 +1,230 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.aggregate;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.Any;
+import com.google.protobuf.Duration;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.util.Durations;
+import io.spine.core.Version;
+import io.spine.server.ContextSpec;
+import io.spine.server.aggregate.given.ReadOperationTestEnv.TestAggregate;
+import io.spine.server.entity.LifecycleFlags;
+import io.spine.server.storage.memory.InMemoryStorageFactory;
+import io.spine.server.tenant.TenantIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.Optional;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Streams.stream;
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.protobuf.util.Durations.toMillis;
+import static com.google.protobuf.util.Timestamps.fromSeconds;
+import static io.spine.core.BoundedContextNames.assumingTestsValue;
+import static io.spine.server.ContextSpec.singleTenant;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+@DisplayName("`HistoryCompaction` should")
+class HistoryCompactionTest {
+
+    private static final ContextSpec spec = singleTenant(assumingTestsValue());
+    private static final String ID = "compacted";
+
+    private AggregateStorage<String> storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = InMemoryStorageFactory.newInstance()
+                                        .createAggregateStorage(spec, TestAggregate.class);
+    }
+
+    private HistoryCompaction<String> compaction(int snapshotIndex) {
+        return new HistoryCompaction<>(storage,
+                                       () -> TenantIndex.singleTenant()
+                                                        .all(),
+                                       snapshotIndex);
+    }
+
+    private void writeSnapshots(int count) {
+        writeSnapshots(ID, count);
+    }
+
+    private void writeSnapshots(String id, int count) {
+        for (int i = 1; i <= count; i++) {
+            Snapshot snapshot = Snapshot
+                    .newBuilder()
+                    .setState(Any.getDefaultInstance())
+                    .setVersion(Version.newBuilder()
+                                       .setNumber(i))
+                    .setTimestamp(fromSeconds(i))
+                    .build();
+            storage.writeSnapshot(id, snapshot);
+        }
+    }
+
+    private ImmutableList<AggregateEventRecord> history() {
+        return history(ID);
+    }
+
+    private ImmutableList<AggregateEventRecord> history(String id) {
+        AggregateReadRequest<String> request = new AggregateReadRequest<>(id, 10);
+        return stream(storage.historyBackward(request)).collect(toImmutableList());
+    }
+
+    @Test
+    @DisplayName("truncate the history behind the snapshot and count the reclaimed records")
+    void truncateAndCount() {
+        writeSnapshots(4);
+        ImmutableList<AggregateEventRecord> before = history();
+        HistoryCompaction<String> compaction = compaction(1);
+        compaction.run();
+
+        assertThat(history()).containsExactlyElementsIn(before.subList(0, 2));
+        CompactionStats stats = compaction.stats();
+        assertThat(stats.runs()).isEqualTo(1);
+        assertThat(stats.recordsReclaimed()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("truncate the aggregates in batches with a pause after each batch")
+    void truncateInBatches() {
+        int aggregates = 5;
+        for (int i = 0; i < aggregates; i++) {
+            writeSnapshots(ID + i, 3);
+        }
+        Duration pause = Durations.fromMillis(50);
+        HistoryCompaction<String> compaction =
+                new HistoryCompaction<>(storage,
+                                        () -> TenantIndex.singleTenant()
+                                                         .all(),
+                                        0, 2, pause);
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        compaction.run();
+
+        // Five aggregates in batches of two make two pauses.
+        assertThat(stopwatch.elapsed(MILLISECONDS)).isAtLeast(2 * toMillis(pause));
+        for (int i = 0; i < aggregates; i++) {
+            assertThat(history(ID + i)).hasSize(1);
+        }
+        assertThat(compaction.stats()
+                             .recordsReclaimed()).isEqualTo(2 * aggregates);
+    }
+
+    @Test
+    @DisplayName("truncate the whole tenant if the storage cannot truncate a single aggregate")
+    void fallBackToTenant() {
+        writeSnapshots(4);
+        ImmutableList<AggregateEventRecord> before = history();
+        storage = new TenantWideTruncation(storage);
+        HistoryCompaction<String> compaction = compaction(1);
+        compaction.run();
+
+        assertThat(history()).containsExactlyElementsIn(before.subList(0, 2));
+        CompactionStats stats = compaction.stats();
+        assertThat(stats.runs()).isEqualTo(1);
+        assertThat(stats.recordsReclaimed()).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("stop the run in progress after the current batch")
+    void stopAfterBatch() {
+        writeSnapshots(ID + 1, 2);
+        writeSnapshots(ID + 2, 2);
+        HistoryCompaction<String> compaction =
+                new HistoryCompaction<>(storage,
+                                        () -> TenantIndex.singleTenant()
+                                                         .all(),
+                                        0, 1, Durations.fromMillis(10));
+        compaction.stop();
+        compaction.run();
+
+        CompactionStats stats = compaction.stats();
+        assertThat(stats.runs()).isEqualTo(0);
+        assertThat(stats.recordsReclaimed()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("keep the history which has fewer snapshots than the index")
+    void keepShortHistory() {
+        writeSnapshots(2);
+        HistoryCompaction<String> compaction = compaction(2);
+        compaction.run();
+
+        assertThat(history()).hasSize(2);
+        assertThat(compaction.stats()
+                             .recordsReclaimed()).isEqualTo(0);
+    }
+
+    /**
+     * A storage, which is unable to truncate the history of a single aggregate.
+     */
+    private static final class TenantWideTruncation extends AggregateStorage<String> {
+
+        private final AggregateStorage<String> delegate;
+
+        private TenantWideTruncation(AggregateStorage<String> delegate) {
+            super(delegate.isMultitenant());
+            this.delegate = delegate;
+        }
+
+        @Override
+        protected void writeRecord(String id, AggregateEventRecord record) {
+            delegate.writeRecord(id, record);
+        }
+
+        @Override
+        protected Iterator<AggregateEventRecord>
+        historyBackward(AggregateReadRequest<String> request) {
+            return delegate.historyBackward(request);
+        }
+
+        @Override
+        protected void truncate(int snapshotIndex) {
+            delegate.truncate(snapshotIndex);
+        }
+
+        @Override
+        protected void truncate(int snapshotIndex, Timestamp date) {
+            delegate.truncate(snapshotIndex, date);
+        }
+
+        @Override
+        protected Iterator<String> distinctAggregateIds() {
+            return delegate.distinctAggregateIds();
+        }
+
+        @Override
+        public Optional<LifecycleFlags> readLifecycleFlags(String id) {
+            return delegate.readLifecycleFlags(id);
+        }
+
+        @Override
+        public void writeLifecycleFlags(String id, LifecycleFlags flags) {
+            delegate.writeLifecycleFlags(id, flags);
+        }
+    }
+}
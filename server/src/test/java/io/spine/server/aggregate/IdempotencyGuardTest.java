@@ -106,6 +106,20 @@ class IdempotencyGuardTest {
             assertThat(actualError.getCode()).isEqualTo(DUPLICATE_COMMAND_VALUE);
         }
 
+        @Test
+        @DisplayName("throw DuplicateCommandException when command was followed by other commands")
+        void throwExceptionForEarlierCommand() {
+            Command createCommand = command(createProject(projectId));
+            post(createCommand);
+            post(command(startProject(projectId)));
+
+            IdempotencyGuard guard = new IdempotencyGuard(aggregate());
+            Optional<Error> error = check(guard, createCommand);
+            assertTrue(error.isPresent());
+            assertThat(error.get()
+                            .getCode()).isEqualTo(DUPLICATE_COMMAND_VALUE);
+        }
+
         @Test
         @DisplayName("not throw exception when command was handled but snapshot was made")
         void notThrowForCommandHandledAfterSnapshot() {
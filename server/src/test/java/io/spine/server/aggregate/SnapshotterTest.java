@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.aggregate;
+
+import io.spine.core.Version;
+import io.spine.server.ContextSpec;
+import io.spine.server.aggregate.given.ReadOperationTestEnv.TestAggregate;
+import io.spine.server.storage.memory.InMemoryStorageFactory;
+import io.spine.test.storage.Project;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Optional;
+import java.util.Queue;
+
+import static com.google.common.truth.Truth.assertThat;
+import static io.spine.core.BoundedContextNames.assumingTestsValue;
+import static io.spine.core.Versions.increment;
+import static io.spine.core.Versions.zero;
+import static io.spine.server.ContextSpec.singleTenant;
+
+@DisplayName("`Snapshotter` should")
+class SnapshotterTest {
+
+    private static final ContextSpec spec = singleTenant(assumingTestsValue());
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private AggregateStorage<String> storage;
+
+    @BeforeEach
+    void setUp() {
+        tasks.clear();
+        storage = InMemoryStorageFactory.newInstance()
+                                        .createAggregateStorage(spec, TestAggregate.class);
+    }
+
+    private Snapshotter<String> snapshotter(int maxPending) {
+        return new Snapshotter<>(storage, tasks::add, maxPending, false);
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.poll()
+                 .run();
+        }
+    }
+
+    private Optional<Snapshot> storedSnapshot(String id) {
+        return storage.read(new AggregateReadRequest<>(id, 10))
+                      .map(AggregateHistory::getSnapshot);
+    }
+
+    @Test
+    @DisplayName("write the snapshot in the background")
+    void writeInBackground() {
+        Snapshotter<String> snapshotter = snapshotter(10);
+        Version version = increment(zero());
+        snapshotter.schedule("written", Project.getDefaultInstance(), version);
+        assertThat(storedSnapshot("written").isPresent()).isFalse();
+        assertThat(snapshotter.stats()
+                              .pending()).isEqualTo(1);
+
+        runTasks();
+        assertThat(storedSnapshot("written").get()
+                                            .getVersion()).isEqualTo(version);
+        SnapshotStats stats = snapshotter.stats();
+        assertThat(stats.pending()).isEqualTo(0);
+        assertThat(stats.written()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("write only the newest of the pending snapshots of an aggregate")
+    void coalesce() {
+        Snapshotter<String> snapshotter = snapshotter(10);
+        Version older = increment(zero());
+        Version newer = increment(older);
+        snapshotter.schedule("coalesced", Project.getDefaultInstance(), older);
+        snapshotter.schedule("coalesced", Project.getDefaultInstance(), newer);
+
+        runTasks();
+        assertThat(storedSnapshot("coalesced").get()
+                                              .getVersion()).isEqualTo(newer);
+        SnapshotStats stats = snapshotter.stats();
+        assertThat(stats.written()).isEqualTo(1);
+        assertThat(stats.coalesced()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("drop the snapshots over the pending limit")
+    void dropOverLimit() {
+        Snapshotter<String> snapshotter = snapshotter(1);
+        Version version = increment(zero());
+        snapshotter.schedule("kept", Project.getDefaultInstance(), version);
+        snapshotter.schedule("dropped", Project.getDefaultInstance(), version);
+
+        runTasks();
+        assertThat(storedSnapshot("kept").isPresent()).isTrue();
+        assertThat(storedSnapshot("dropped").isPresent()).isFalse();
+        assertThat(snapshotter.stats()
+                              .dropped()).isEqualTo(1);
+    }
+}
@@ -21,12 +21,33 @@
 package io.spine.server.aggregate;
 
 import com.google.common.testing.NullPointerTester;
+import io.spine.base.CommandMessage;
+import io.spine.server.BoundedContext;
+import io.spine.server.BoundedContextBuilder;
+import io.spine.server.aggregate.given.aggregate.IgTestAggregate;
+import io.spine.server.aggregate.given.aggregate.IgTestAggregateRepository;
 import io.spine.server.aggregate.given.repo.ProjectAggregateRepository;
 import io.spine.server.test.shared.EmptyAggregate;
+import io.spine.server.type.CommandEnvelope;
+import io.spine.test.aggregate.ProjectId;
+import io.spine.testing.server.model.ModelTests;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+
 import static com.google.common.testing.NullPointerTester.Visibility.PACKAGE;
+import static com.google.common.truth.Truth.assertThat;
+import static io.spine.server.aggregate.AggregateTestSupport.dispatchCommand;
+import static io.spine.server.aggregate.given.IdempotencyGuardTestEnv.command;
+import static io.spine.server.aggregate.given.IdempotencyGuardTestEnv.createProject;
+import static io.spine.server.aggregate.given.IdempotencyGuardTestEnv.newProjectId;
+import static io.spine.server.aggregate.given.IdempotencyGuardTestEnv.startProject;
 
 @DisplayName("Write operation should")
 class WriteTest {
@@ -41,4 +62,107 @@ class WriteTest {
                 .setDefault(AggregateRepository.class, new ProjectAggregateRepository())
                 .testStaticMethods(Write.class, PACKAGE);
     }
+
+    @Nested
+    @DisplayName("with the snapshots written in the background")
+    class DeferredSnapshots {
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private final ProjectId id = newProjectId();
+        private BoundedContext context;
+        private IgTestAggregateRepository repository;
+
+        @BeforeEach
+        void setUp() {
+            ModelTests.dropAllModels();
+            context = BoundedContextBuilder.assumingTests()
+                                           .build();
+            repository = new IgTestAggregateRepository();
+            repository.setSnapshotTrigger(1);
+        }
+
+        @AfterEach
+        void tearDown() throws Exception {
+            repository.close();
+            context.close();
+        }
+
+        private void register() {
+            context.internalAccess()
+                   .register(repository);
+        }
+
+        private IgTestAggregate handleAndWrite(CommandMessage message) {
+            IgTestAggregate aggregate = repository.loadOrCreate(id);
+            handleAndWrite(aggregate, message);
+            return aggregate;
+        }
+
+        private void handleAndWrite(IgTestAggregate aggregate, CommandMessage message) {
+            dispatchCommand(repository, aggregate, CommandEnvelope.of(command(message)));
+            Write.operationFor(repository, aggregate)
+                 .perform();
+        }
+
+        private void writeSnapshots() {
+            while (!tasks.isEmpty()) {
+                tasks.poll()
+                     .run();
+            }
+        }
+
+        @Test
+        @DisplayName("keep the recent history until the snapshot is written")
+        void keepHistoryUntilWritten() {
+            repository.setSnapshotExecutor(tasks::add, 10);
+            register();
+
+            IgTestAggregate aggregate = handleAndWrite(createProject(id));
+            assertThat(aggregate.eventCountAfterLastSnapshot()).isEqualTo(1);
+            assertThat(aggregate.recentHistory()
+                                .isEmpty()).isFalse();
+            assertThat(repository.loadAggregate(id)
+                                 .eventCountAfterLastSnapshot()).isEqualTo(1);
+
+            writeSnapshots();
+            assertThat(repository.loadAggregate(id)
+                                 .eventCountAfterLastSnapshot()).isEqualTo(0);
+        }
+
+        @Test
+        @DisplayName("forget the written history of the aggregate kept in the entity cache")
+        void forgetWrittenHistory() {
+            repository.setSnapshotExecutor(tasks::add, 10);
+            register();
+
+            // The same instance is written again, as it happens when it is taken from
+            // the entity cache instead of being loaded.
+            IgTestAggregate aggregate = handleAndWrite(createProject(id));
+            writeSnapshots();
+            handleAndWrite(aggregate, startProject(id));
+
+            assertThat(aggregate.eventCountAfterLastSnapshot()).isEqualTo(1);
+            assertThat(aggregate.recentHistory()
+                                .stream()
+                                .count()).isEqualTo(1);
+            assertThat(repository.loadAggregate(id)
+                                 .version()).isEqualTo(aggregate.version());
+        }
+
+        @Test
+        @DisplayName("schedule the dropped snapshot again on the next write")
+        void rescheduleDropped() {
+            repository.setSnapshotExecutor(task -> {
+                throw new RejectedExecutionException();
+            }, 10);
+            register();
+
+            handleAndWrite(createProject(id));
+            IgTestAggregate aggregate = handleAndWrite(startProject(id));
+            assertThat(aggregate.eventCountAfterLastSnapshot()).isEqualTo(2);
+            SnapshotStats stats = repository.snapshotStats()
+                                            .orElseThrow(AssertionError::new);
+            assertThat(stats.dropped()).isEqualTo(2);
+        }
+    }
 }
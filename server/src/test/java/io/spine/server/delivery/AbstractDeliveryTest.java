@@ -50,4 +50,15 @@ abstract class AbstractDeliveryTest {
         ServerEnvironment.when(Tests.class)
                          .use(newDelivery);
     }
+
+    static void changeShardCountTo(int shards, int catchUpParallelism) {
+        Delivery newDelivery = Delivery.newBuilder()
+                                       .setStrategy(UniformAcrossAllShards.forNumber(shards))
+                                       .setDeduplicationWindow(Durations.ZERO)
+                                       .setCatchUpParallelism(catchUpParallelism)
+                                       .build();
+        newDelivery.subscribe(new LocalDispatchingObserver());
+        ServerEnvironment.when(Tests.class)
+                         .use(newDelivery);
+    }
 }
@@ -35,6 +35,7 @@ import java.util.Map;
 import java.util.stream.Stream;
 
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.protobuf.util.Durations.ZERO;
 import static com.google.protobuf.util.Timestamps.compare;
 import static java.util.stream.Collectors.toSet;
 
@@ -59,7 +60,7 @@ abstract class AbstractStationTest {
     void doNothingOnEmptyConveyor() {
         MemoizingAction action = new MemoizingAction();
         Station station = newStation(action);
-        Conveyor emptyConveyor = new Conveyor(new ArrayList<>(), new DeliveredMessages());
+        Conveyor emptyConveyor = new Conveyor(new ArrayList<>(), new DeliveredMessages(ZERO));
 
         Station.Result result = station.process(emptyConveyor);
         assertDeliveredCount(result, 0);
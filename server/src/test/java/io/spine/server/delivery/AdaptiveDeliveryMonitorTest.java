@@ -0,0 +1,225 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import com.google.protobuf.Duration;
+import com.google.protobuf.util.Durations;
+import io.spine.server.delivery.given.ManualTicker;
+import io.spine.test.delivery.Calc;
+import io.spine.type.TypeUrl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static io.spine.server.delivery.DeliveryStrategy.newIndex;
+import static io.spine.server.delivery.given.TestInboxMessages.toDeliver;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("`AdaptiveDeliveryMonitor` should")
+class AdaptiveDeliveryMonitorTest {
+
+    private static final ShardIndex SHARD = newIndex(0, 2);
+    private static final ShardIndex OTHER_SHARD = newIndex(1, 2);
+    private static final int CONFIGURED_PAGE_SIZE = 100;
+
+    private ManualTicker ticker;
+    private AdaptiveDeliveryMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        ticker = new ManualTicker();
+        monitor = AdaptiveDeliveryMonitor
+                .newBuilder()
+                .setMaxSessionDuration(Durations.fromSeconds(10))
+                .setFairnessSlice(Durations.fromSeconds(2))
+                .setTargetPageLatency(Durations.fromSeconds(1))
+                .setMinPageSize(10)
+                .setMaxPageSize(300)
+                .setTicker(ticker)
+                .build();
+    }
+
+    @Nested
+    @DisplayName("adapt the page size")
+    class AdaptPageSize {
+
+        @Test
+        @DisplayName("starting from the configured one")
+        void startFromConfigured() {
+            assertThat(monitor.pageSize(SHARD, CONFIGURED_PAGE_SIZE))
+                    .isEqualTo(CONFIGURED_PAGE_SIZE);
+        }
+
+        @Test
+        @DisplayName("shrinking it if the stage is too slow")
+        void shrink() {
+            monitor.shouldContinueAfter(stage(SHARD, 100, Durations.fromSeconds(4)));
+
+            assertThat(monitor.pageSize(SHARD, CONFIGURED_PAGE_SIZE)).isEqualTo(50);
+        }
+
+        @Test
+        @DisplayName("growing it if the stage is fast")
+        void grow() {
+            monitor.shouldContinueAfter(stage(SHARD, 100, Durations.fromMillis(800)));
+
+            assertThat(monitor.pageSize(SHARD, CONFIGURED_PAGE_SIZE)).isEqualTo(125);
+        }
+
+        @Test
+        @DisplayName("within the configured bounds")
+        void keepWithinBounds() {
+            monitor.shouldContinueAfter(stage(SHARD, 200, Durations.fromMillis(1)));
+            assertThat(monitor.pageSize(SHARD, CONFIGURED_PAGE_SIZE)).isEqualTo(300);
+
+            monitor.shouldContinueAfter(stage(OTHER_SHARD, 15, Durations.fromSeconds(60)));
+            assertThat(monitor.pageSize(OTHER_SHARD, CONFIGURED_PAGE_SIZE)).isEqualTo(10);
+        }
+
+        @Test
+        @DisplayName("by the number of messages actually delivered")
+        void scaleByDelivered() {
+            monitor.shouldContinueAfter(stage(SHARD, 100, 80, Durations.fromSeconds(1)));
+
+            assertThat(monitor.pageSize(SHARD, CONFIGURED_PAGE_SIZE)).isEqualTo(80);
+        }
+
+        @Test
+        @DisplayName("not changing it if no messages were delivered")
+        void keepIfNoneDelivered() {
+            monitor.shouldContinueAfter(stage(SHARD, 100, Durations.fromSeconds(4)));
+            monitor.shouldContinueAfter(stage(SHARD, 50, 0, Durations.fromMillis(1)));
+
+            assertThat(monitor.pageSize(SHARD, CONFIGURED_PAGE_SIZE)).isEqualTo(50);
+        }
+
+        @Test
+        @DisplayName("for each shard separately")
+        void perShard() {
+            monitor.shouldContinueAfter(stage(SHARD, 100, Durations.fromSeconds(4)));
+
+            assertThat(monitor.pageSize(OTHER_SHARD, CONFIGURED_PAGE_SIZE))
+                    .isEqualTo(CONFIGURED_PAGE_SIZE);
+        }
+    }
+
+    @Test
+    @DisplayName("stop the session which lasts longer than allowed")
+    void capSession() {
+        monitor.onDeliveryStarted(SHARD);
+        ticker.advance(9);
+        assertThat(monitor.shouldContinueAfter(regularStage(SHARD))).isTrue();
+
+        ticker.advance(1);
+        assertThat(monitor.shouldContinueAfter(regularStage(SHARD))).isFalse();
+    }
+
+    @Test
+    @DisplayName("yield the shard if another shard waits since before the session started")
+    void yieldToOlderBacklog() {
+        monitor.onMessage(messageIn(OTHER_SHARD));
+        ticker.advance(1);
+        monitor.onDeliveryStarted(SHARD);
+
+        ticker.advance(1);
+        assertThat(monitor.shouldContinueAfter(regularStage(SHARD))).isTrue();
+
+        ticker.advance(1);
+        assertThat(monitor.shouldContinueAfter(regularStage(SHARD))).isFalse();
+    }
+
+    @Test
+    @DisplayName("not yield the shard to the messages arrived after the session started")
+    void notYieldToNewerBacklog() {
+        monitor.onDeliveryStarted(SHARD);
+        ticker.advance(1);
+        monitor.onMessage(messageIn(OTHER_SHARD));
+
+        ticker.advance(5);
+        assertThat(monitor.shouldContinueAfter(regularStage(SHARD))).isTrue();
+    }
+
+    @Test
+    @DisplayName("keep the place of the yielded shard in the queue")
+    void keepPlaceOfYielded() {
+        monitor.onMessage(messageIn(OTHER_SHARD));
+        ticker.advance(1);
+        monitor.onDeliveryStarted(SHARD);
+        ticker.advance(2);
+        assertThat(monitor.shouldContinueAfter(regularStage(SHARD))).isFalse();
+        monitor.onDeliveryCompleted(new DeliveryStats(SHARD, 1));
+
+        monitor.onDeliveryStarted(OTHER_SHARD);
+        ticker.advance(2);
+        assertThat(monitor.shouldContinueAfter(regularStage(OTHER_SHARD))).isFalse();
+    }
+
+    @Test
+    @DisplayName("not yield to the shard which delivery has completed")
+    void forgetCompleted() {
+        monitor.onMessage(messageIn(OTHER_SHARD));
+        monitor.onDeliveryStarted(OTHER_SHARD);
+        monitor.onDeliveryCompleted(new DeliveryStats(OTHER_SHARD, 1));
+        ticker.advance(1);
+
+        monitor.onDeliveryStarted(SHARD);
+        ticker.advance(5);
+        assertThat(monitor.shouldContinueAfter(regularStage(SHARD))).isTrue();
+    }
+
+    @Test
+    @DisplayName("not allow the fairness slice longer than the session")
+    void rejectLongSlice() {
+        AdaptiveDeliveryMonitor.Builder builder = AdaptiveDeliveryMonitor
+                .newBuilder()
+                .setMaxSessionDuration(Durations.fromSeconds(1))
+                .setFairnessSlice(Durations.fromSeconds(2));
+        assertThrows(IllegalArgumentException.class, builder::build);
+    }
+
+    private static DeliveryStage regularStage(ShardIndex index) {
+        return stage(index, CONFIGURED_PAGE_SIZE, Durations.fromSeconds(1));
+    }
+
+    private static DeliveryStage stage(ShardIndex index, int pageSize, Duration duration) {
+        return stage(index, pageSize, pageSize, duration);
+    }
+
+    private static DeliveryStage
+    stage(ShardIndex index, int pageSize, int delivered, Duration duration) {
+        return DeliveryStage
+                .newBuilder()
+                .setIndex(index)
+                .setMessagesDelivered(delivered)
+                .setPageSize(pageSize)
+                .setDuration(duration)
+                .vBuild();
+    }
+
+    private static InboxMessage messageIn(ShardIndex index) {
+        return toDeliver("target", TypeUrl.of(Calc.class))
+                .toBuilder()
+                .setId(InboxMessageMixin.generateIdWith(index))
+                .build();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import com.google.common.collect.ImmutableList;
+import io.spine.server.storage.memory.InMemoryCatchUpStorage;
+import io.spine.test.delivery.DCounter;
+import io.spine.type.TypeUrl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static io.spine.base.Time.currentTime;
+import static io.spine.server.delivery.CatchUpStatus.COMPLETED;
+import static io.spine.server.delivery.CatchUpStatus.IN_PROGRESS;
+import static io.spine.server.delivery.given.TestCatchUpJobs.catchUpJob;
+import static io.spine.server.delivery.given.TestInboxMessages.catchingUp;
+import static io.spine.server.delivery.given.TestInboxMessages.toDeliver;
+
+@DisplayName("`CatchUpJobRegistry` should")
+class CatchUpJobRegistryTest {
+
+    private static final String TARGET = "catch-up-registry-target";
+    private static final TypeUrl TYPE = TypeUrl.of(DCounter.class);
+
+    private CountingStorage storage;
+    private CatchUpJobRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        storage = new CountingStorage();
+        registry = new CatchUpJobRegistry(storage);
+    }
+
+    @Test
+    @DisplayName("not read the storage for the live messages if no job is running")
+    void reuseJobs() {
+        ImmutableList<InboxMessage> page = ImmutableList.of(toDeliver(TARGET, TYPE));
+        registry.jobsFor(page);
+        registry.jobsFor(page);
+
+        assertThat(storage.reads).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("re-read the jobs once invalidated")
+    void rereadIfInvalidated() {
+        ImmutableList<InboxMessage> page = ImmutableList.of(toDeliver(TARGET, TYPE));
+        registry.jobsFor(page);
+        CatchUp job = catchUpJob(TYPE, COMPLETED, currentTime(), ImmutableList.of(TARGET));
+        storage.write(job);
+        registry.invalidate();
+
+        CatchUpJobs jobs = registry.jobsFor(page);
+        assertThat(storage.reads).isEqualTo(2);
+        assertThat(jobs.matching(page.get(0))).containsExactly(job);
+    }
+
+    @Test
+    @DisplayName("re-read the jobs for the messages sent to catch up")
+    void rereadForCatchUpMessages() {
+        ImmutableList<InboxMessage> page = ImmutableList.of(catchingUp(TARGET, TYPE));
+        registry.jobsFor(page);
+        registry.jobsFor(page);
+
+        assertThat(storage.reads).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("re-read the jobs while a job for the same type is running")
+    void rereadWhileJobRunning() {
+        storage.write(catchUpJob(TYPE, IN_PROGRESS, currentTime(), ImmutableList.of(TARGET)));
+        ImmutableList<InboxMessage> page = ImmutableList.of(toDeliver(TARGET, TYPE));
+        registry.jobsFor(page);
+        registry.jobsFor(page);
+
+        assertThat(storage.reads).isEqualTo(2);
+    }
+
+    /**
+     * A catch-up storage counting how many times all the jobs were read.
+     */
+    private static final class CountingStorage extends InMemoryCatchUpStorage {
+
+        private int reads;
+
+        private CountingStorage() {
+            super(false);
+        }
+
+        @Override
+        public Iterable<CatchUp> readAll() {
+            reads++;
+            return super.readAll();
+        }
+    }
+}
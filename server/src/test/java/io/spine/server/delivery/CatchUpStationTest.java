@@ -28,7 +28,6 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -36,6 +35,7 @@ import java.util.Map;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Streams.stream;
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.protobuf.util.Durations.ZERO;
 import static com.google.protobuf.util.Durations.fromSeconds;
 import static com.google.protobuf.util.Timestamps.subtract;
 import static io.spine.base.Time.currentTime;
@@ -58,7 +58,7 @@ class CatchUpStationTest extends AbstractStationTest {
 
     @Override
     Station newStation(DeliveryAction action) {
-        return new CatchUpStation(action, new ArrayList<>());
+        return new CatchUpStation(action, CatchUpJobs.empty());
     }
 
     @Test
@@ -70,11 +70,11 @@ class CatchUpStationTest extends AbstractStationTest {
         InboxMessage differentTarget = delivered(targetTwo, type);
         Conveyor conveyor = new Conveyor(
                 ImmutableList.of(toDeliver, anotherToDeliver, delivered, differentTarget),
-                new DeliveredMessages()
+                new DeliveredMessages(ZERO)
         );
 
         CatchUp job = catchUpJob(type, IN_PROGRESS, currentTime(), ImmutableList.of(targetOne));
-        CatchUpStation station = new CatchUpStation(MemoizingAction.empty(), ImmutableList.of(job));
+        CatchUpStation station = new CatchUpStation(MemoizingAction.empty(), jobs(job));
         Station.Result result = station.process(conveyor);
 
         assertDeliveredCount(result, 0);
@@ -101,10 +101,10 @@ class CatchUpStationTest extends AbstractStationTest {
         ImmutableList<InboxMessage> initialContents =
                 ImmutableList.of(toCatchUp, anotherToCatchUp, duplicateCopy,
                                  alreadyDelivered, differentTarget);
-        Conveyor conveyor = new Conveyor(initialContents, new DeliveredMessages());
+        Conveyor conveyor = new Conveyor(initialContents, new DeliveredMessages(ZERO));
 
         CatchUp job = catchUpJob(type, IN_PROGRESS, currentTime(), ImmutableList.of(targetOne));
-        CatchUpStation station = new CatchUpStation(MemoizingAction.empty(), ImmutableList.of(job));
+        CatchUpStation station = new CatchUpStation(MemoizingAction.empty(), jobs(job));
         Station.Result result = station.process(conveyor);
 
         assertDeliveredCount(result, 2);
@@ -135,11 +135,11 @@ class CatchUpStationTest extends AbstractStationTest {
         InboxMessage differentTarget = delivered(targetTwo, type);
         Conveyor conveyor = new Conveyor(
                 ImmutableList.of(toDeliver, anotherToDeliver, delivered, differentTarget),
-                new DeliveredMessages()
+                new DeliveredMessages(ZERO)
         );
 
         CatchUp job = catchUpJob(type, FINALIZING, currentTime(), ImmutableList.of(targetOne));
-        CatchUpStation station = new CatchUpStation(MemoizingAction.empty(), ImmutableList.of(job));
+        CatchUpStation station = new CatchUpStation(MemoizingAction.empty(), jobs(job));
         Station.Result result = station.process(conveyor);
         assertDeliveredCount(result, 0);
 
@@ -164,12 +164,12 @@ class CatchUpStationTest extends AbstractStationTest {
         Conveyor conveyor = new Conveyor(
                 ImmutableList.of(toCatchUp, moreToCatchUp, toDeliver,
                                  duplicateToCatchUp, duplicateToDeliver),
-                new DeliveredMessages()
+                new DeliveredMessages(ZERO)
         );
 
         CatchUp job = catchUpJob(type, COMPLETED, currentTime(), ImmutableList.of(targetOne));
         MemoizingAction action = MemoizingAction.empty();
-        CatchUpStation station = new CatchUpStation(action, ImmutableList.of(job));
+        CatchUpStation station = new CatchUpStation(action, jobs(job));
         Station.Result result = station.process(conveyor);
         assertDeliveredCount(result, 2);
 
@@ -204,12 +204,12 @@ class CatchUpStationTest extends AbstractStationTest {
         InboxMessage toCatchUp4 = catchingUp(targetOne, type, now);
         Conveyor conveyor = new Conveyor(
                 ImmutableList.of(toCatchUp3, toCatchUp2, toCatchUp4, toCatchUp1),
-                new DeliveredMessages()
+                new DeliveredMessages(ZERO)
         );
 
         CatchUp job = catchUpJob(type, IN_PROGRESS, currentTime(), ImmutableList.of(targetOne));
         MemoizingAction action = MemoizingAction.empty();
-        CatchUpStation station = new CatchUpStation(action, ImmutableList.of(job));
+        CatchUpStation station = new CatchUpStation(action, jobs(job));
         Station.Result result = station.process(conveyor);
         assertDeliveredCount(result, 4);
 
@@ -277,6 +277,10 @@ class CatchUpStationTest extends AbstractStationTest {
         }
     }
 
+    private static CatchUpJobs jobs(CatchUp job) {
+        return CatchUpJobs.of(ImmutableList.of(job));
+    }
+
     private static ImmutableSet<InboxMessage> messagesToTargetOneOf(TypeUrl targetType) {
         return ImmutableSet.of(toDeliver(targetOne, targetType),
                                delivered(targetOne, targetType),
@@ -43,6 +43,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -54,6 +55,7 @@ import java.util.concurrent.Callable;
 import java.util.stream.IntStream;
 
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
 import static com.google.common.truth.Truth8.assertThat;
 import static com.google.protobuf.util.Timestamps.subtract;
 import static io.spine.base.Time.currentTime;
@@ -105,7 +107,7 @@ public class CatchUpTest extends AbstractDeliveryTest {
             "catch up all of projection instances" +
             "and respect the order of the delivered events")
     public void withNanosAllInOrder() throws InterruptedException {
-        testCatchUpAll();
+        testCatchUpAll(1);
     }
 
     @Test
@@ -121,7 +123,14 @@ public class CatchUpTest extends AbstractDeliveryTest {
             "of projection instances and respect the order of the delivered events")
     public void withMillisAllInOrder() throws InterruptedException {
         setupMillis();
-        testCatchUpAll();
+        testCatchUpAll(1);
+    }
+
+    @Test
+    @DisplayName("catch up all of projection instances dispatching the events to different " +
+            "shards in parallel and respect the order of the events delivered to each instance")
+    public void inParallelAllInOrder() throws InterruptedException {
+        testCatchUpAll(3);
     }
 
     @Nested
@@ -194,6 +203,74 @@ public class CatchUpTest extends AbstractDeliveryTest {
         }
     }
 
+    @Nested
+    @DisplayName("start from the checkpoints")
+    class FromCheckpoint {
+
+        private static final String CHECKPOINTED = "checkpointed";
+        private static final String UNCHECKPOINTED = "uncheckpointed";
+        private static final String RECENT = "recent";
+        private static final String NEW_IN_HISTORY = "new in history";
+        private static final int CHECKPOINT_TRIGGER = 10;
+        private static final int NEW_WEIGHT = 100;
+
+        @AfterEach
+        void resetWeight() {
+            CounterView.changeWeightTo(1);
+        }
+
+        @Test
+        @DisplayName("restoring the targets to their checkpoints " +
+                "and sending the others only the events since the requested time")
+        void restoreAndSkipEarlierEvents() throws InterruptedException {
+            changeShardCountTo(2);
+            CounterCatchUp counterCatchUp =
+                    new CounterCatchUp(CHECKPOINTED, UNCHECKPOINTED, RECENT, NEW_IN_HISTORY);
+            counterCatchUp.makeCheckpointsEvery(CHECKPOINT_TRIGGER);
+            CounterView.changeWeightTo(1);
+
+            List<NumberAdded> live = new ArrayList<>();
+            live.addAll(eventsFor(CHECKPOINTED, CHECKPOINT_TRIGGER * 2));
+            live.addAll(eventsFor(UNCHECKPOINTED, CHECKPOINT_TRIGGER / 2));
+            counterCatchUp.dispatch(live, 1);
+
+            sleepUninterruptibly(Duration.ofMillis(10));
+            List<NumberAdded> betweenCheckpointAndStart = new ArrayList<>();
+            betweenCheckpointAndStart.addAll(eventsFor(RECENT, 5));
+            betweenCheckpointAndStart.addAll(eventsFor(NEW_IN_HISTORY, 5));
+            counterCatchUp.addHistory(currentTime(), betweenCheckpointAndStart);
+
+            sleepUninterruptibly(Duration.ofMillis(10));
+            Timestamp since = currentTime();
+            sleepUninterruptibly(Duration.ofMillis(10));
+            int sinceStart = 3;
+            counterCatchUp.dispatch(eventsFor(RECENT, sinceStart), 1);
+
+            CounterView.changeWeightTo(NEW_WEIGHT);
+            counterCatchUp.catchUp(WhatToCatchUp.catchUpAllFromCheckpoint(since));
+
+            assertThat(counterCatchUp.counterValue(CHECKPOINTED))
+                    .hasValue(CHECKPOINT_TRIGGER * 2);
+            assertThat(counterCatchUp.counterValue(UNCHECKPOINTED))
+                    .isEmpty();
+            assertThat(counterCatchUp.counterValue(RECENT))
+                    .hasValue(sinceStart * NEW_WEIGHT);
+            assertThat(counterCatchUp.counterValue(NEW_IN_HISTORY))
+                    .isEmpty();
+        }
+
+        private List<NumberAdded> eventsFor(String target, int howMany) {
+            List<NumberAdded> events = new ArrayList<>(howMany);
+            for (int i = 0; i < howMany; i++) {
+                events.add(NumberAdded.newBuilder()
+                                      .setCalculatorId(target)
+                                      .setValue(0)
+                                      .vBuild());
+            }
+            return events;
+        }
+    }
+
     private static CounterCatchUp catchUpForCounter() {
         return new CounterCatchUp("first", "second", "third", "fourth");
     }
@@ -244,14 +321,14 @@ public class CatchUpTest extends AbstractDeliveryTest {
     }
 
     @SuppressWarnings("OverlyLongMethod")   // Complex environment setup.
-    private static void testCatchUpAll() throws InterruptedException {
+    private static void testCatchUpAll(int catchUpParallelism) throws InterruptedException {
         ConsecutiveProjection.usePositives();
 
         String[] ids = {"erste", "zweite", "dritte", "vierte"};
         int totalCommands = 300;
         List<EmitNextNumber> commands = generateEmissionCommands(totalCommands, ids);
 
-        changeShardCountTo(3);
+        changeShardCountTo(3, catchUpParallelism);
         ConsecutiveProjection.Repo projectionRepo = new ConsecutiveProjection.Repo();
         Repository<String, ConsecutiveNumberProcess> pmRepo =
                 DefaultRepository.of(ConsecutiveNumberProcess.class);
@@ -25,6 +25,7 @@ import com.google.protobuf.Timestamp;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import static com.google.protobuf.util.Durations.ZERO;
 import static com.google.protobuf.util.Durations.fromSeconds;
 import static com.google.protobuf.util.Timestamps.add;
 import static com.google.protobuf.util.Timestamps.subtract;
@@ -50,7 +51,7 @@ class CleanupStationTest extends AbstractStationTest {
         InboxMessage toDeliver = toDeliver(targetOne, type);
         Conveyor conveyor = new Conveyor(
                 ImmutableList.of(delivered, deliveredToAnotherTarget, catchingUp, toDeliver),
-                new DeliveredMessages()
+                new DeliveredMessages(ZERO)
         );
 
         Station station = new CleanupStation();
@@ -79,7 +80,7 @@ class CleanupStationTest extends AbstractStationTest {
         );
         Conveyor conveyor = new Conveyor(
                 ImmutableList.of(deliveredKeepTillFuture, deliveredKeepUntilPastTime),
-                new DeliveredMessages()
+                new DeliveredMessages(ZERO)
         );
 
         Station station = new CleanupStation();
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import io.spine.test.delivery.Calc;
+import io.spine.type.TypeUrl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("`ConsistentAcrossShards` should")
+class ConsistentStrategyTest {
+
+    private static final TypeUrl TARGET_TYPE = TypeUrl.of(Calc.class);
+
+    @Test
+    @DisplayName("allow to create a strategy with the given number of shards")
+    void customShardNumber() {
+        int shards = 42;
+        DeliveryStrategy strategy = ConsistentAcrossShards.forNumber(shards);
+        assertThat(strategy.shardCount())
+                .isEqualTo(shards);
+    }
+
+    @Test
+    @DisplayName("not accept a zero number of shards")
+    void zeroShards() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> ConsistentAcrossShards.forNumber(0));
+    }
+
+    @Test
+    @DisplayName("move the targets only to the added shard when the number of shards grows")
+    void moveOnlyToNewShard() {
+        int shards = 8;
+        DeliveryStrategy before = ConsistentAcrossShards.forNumber(shards);
+        DeliveryStrategy after = ConsistentAcrossShards.forNumber(shards + 1);
+        int targets = 9_000;
+        int moved = 0;
+        for (int i = 0; i < targets; i++) {
+            String target = "target-" + i;
+            int previous = before.determineIndex(target, TARGET_TYPE)
+                                 .getIndex();
+            int current = after.determineIndex(target, TARGET_TYPE)
+                               .getIndex();
+            if (previous != current) {
+                assertThat(current).isEqualTo(shards);
+                moved++;
+            }
+        }
+        assertThat(moved).isGreaterThan(0);
+        assertThat(moved).isLessThan(targets / shards);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import io.spine.server.delivery.given.ManualTicker;
+import io.spine.test.delivery.Calc;
+import io.spine.type.TypeUrl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.protobuf.util.Durations.ZERO;
+import static com.google.protobuf.util.Durations.fromSeconds;
+import static io.spine.server.delivery.given.TestInboxMessages.toDeliver;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+
+@DisplayName("`DeliveredMessages` should")
+class DeliveredMessagesTest {
+
+    private static final TypeUrl TARGET_TYPE = TypeUrl.of(Calc.class);
+
+    @Test
+    @DisplayName("remember the delivered messages for the deduplication window")
+    void rememberForWindow() {
+        ManualTicker ticker = new ManualTicker();
+        DeliveredMessages cache = new DeliveredMessages(fromSeconds(30), 1_000, ticker);
+        InboxMessage message = toDeliver("target", TARGET_TYPE);
+        cache.recordDelivered(message);
+
+        ticker.advance(30);
+        assertThat(cache.contains(message)).isTrue();
+
+        ticker.advance(30);
+        assertThat(cache.contains(message)).isFalse();
+        assertThat(cache.stats()
+                        .size()).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("not take the messages which were not delivered for duplicates")
+    void noFalsePositives() {
+        DeliveredMessages cache = new DeliveredMessages(ZERO);
+        cache.recordDelivered(toDeliver("delivered", TARGET_TYPE));
+
+        assertThat(cache.contains(toDeliver("another", TARGET_TYPE))).isFalse();
+    }
+
+    @Test
+    @DisplayName("drop the oldest messages once the capacity is reached")
+    void boundBySize() {
+        ManualTicker ticker = new ManualTicker();
+        int capacity = 8;
+        DeliveredMessages cache = new DeliveredMessages(fromSeconds(60), capacity, ticker);
+        InboxMessage first = toDeliver("first", TARGET_TYPE);
+        cache.recordDelivered(first);
+        for (int i = 0; i < capacity * 2; i++) {
+            cache.recordDelivered(toDeliver("target-" + i, TARGET_TYPE));
+        }
+
+        assertThat(cache.contains(first)).isFalse();
+        DeduplicationStats stats = cache.stats();
+        assertThat(stats.size()).isAtMost(capacity);
+        assertThat(stats.evictedEarly()).isGreaterThan(0);
+    }
+
+    @Test
+    @DisplayName("count the lookups and the found duplicates")
+    void countLookups() {
+        DeliveredMessages cache = new DeliveredMessages(ZERO);
+        InboxMessage message = toDeliver("target", TARGET_TYPE);
+        cache.recordDelivered(message);
+
+        cache.contains(message);
+        cache.contains(toDeliver("another", TARGET_TYPE));
+
+        DeduplicationStats stats = cache.stats();
+        assertThat(stats.lookups()).isEqualTo(2);
+        assertThat(stats.hits()).isEqualTo(1);
+        assertThat(stats.size()).isEqualTo(1);
+        assertThat(stats.estimatedBytes()).isGreaterThan(0);
+    }
+
+    @Test
+    @DisplayName("record and look up the messages concurrently")
+    void concurrentAccess() throws Exception {
+        int threads = 4;
+        int perThread = 500;
+        DeliveredMessages cache = new DeliveredMessages(fromSeconds(60));
+        ExecutorService executor = newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                String prefix = "thread-" + thread + '-';
+                results.add(executor.submit(() -> {
+                    boolean allFound = true;
+                    for (int i = 0; i < perThread; i++) {
+                        InboxMessage message = toDeliver(prefix + i, TARGET_TYPE);
+                        cache.recordDelivered(message);
+                        allFound &= cache.contains(message);
+                    }
+                    return allFound;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(cache.stats()
+                        .size()).isEqualTo(threads * perThread);
+    }
+}
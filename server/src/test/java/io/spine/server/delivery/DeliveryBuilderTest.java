@@ -85,6 +85,13 @@ class DeliveryBuilderTest {
             assertThrows(NullPointerException.class,
                          () -> builder().setMonitor(nullRef()));
         }
+
+        @Test
+        @DisplayName("delivery metrics")
+        void deliveryMetrics() {
+            assertThrows(NullPointerException.class,
+                         () -> builder().setMetrics(nullRef()));
+        }
     }
 
     @Test
@@ -105,6 +112,38 @@ class DeliveryBuilderTest {
                      () -> builder().setCatchUpPageSize(-3));
     }
 
+    @Test
+    @DisplayName("accept only non-negative catch-up prefetch depth")
+    void acceptOnlyNonNegativeCatchUpPrefetchDepth() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> builder().setCatchUpPrefetchDepth(-1));
+    }
+
+    @Test
+    @DisplayName("accept only positive catch-up parallelism")
+    void acceptOnlyPositiveCatchUpParallelism() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> builder().setCatchUpParallelism(0));
+        assertThrows(IllegalArgumentException.class,
+                     () -> builder().setCatchUpParallelism(-2));
+    }
+
+    @Test
+    @DisplayName("accept only positive number of local async threads")
+    void acceptOnlyPositiveLocalAsyncThreads() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> builder().setLocalAsyncThreads(0));
+        assertThrows(IllegalArgumentException.class,
+                     () -> builder().setLocalAsyncThreads(-1));
+    }
+
+    @Test
+    @DisplayName("accept only positive previous shard count")
+    void acceptOnlyPositivePreviousShardCount() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> builder().setPreviousShardCount(0));
+    }
+
     @SuppressWarnings("OptionalGetWithoutIsPresent")    // testing `Builder` getters.
     @Nested
     @DisplayName("return set")
@@ -164,6 +203,15 @@ class DeliveryBuilderTest {
                                            .get());
         }
 
+        @Test
+        @DisplayName("delivery metrics")
+        void deliveryMetrics() {
+            DeliveryMetrics metrics = DeliveryMetrics.noOp();
+            assertEquals(metrics, builder().setMetrics(metrics)
+                                           .metrics()
+                                           .get());
+        }
+
         @Test
         @DisplayName("page size")
         void pageSize() {
@@ -181,6 +229,42 @@ class DeliveryBuilderTest {
                                                    .catchUpPageSize()
                                                    .get());
         }
+
+        @Test
+        @DisplayName("catch-up prefetch depth")
+        void catchUpPrefetchDepth() {
+            int depth = 3;
+            assertEquals(depth, builder().setCatchUpPrefetchDepth(depth)
+                                         .catchUpPrefetchDepth()
+                                         .get());
+        }
+
+        @Test
+        @DisplayName("catch-up parallelism")
+        void catchUpParallelism() {
+            int parallelism = 4;
+            assertEquals(parallelism, builder().setCatchUpParallelism(parallelism)
+                                               .catchUpParallelism()
+                                               .get());
+        }
+
+        @Test
+        @DisplayName("number of local async threads")
+        void localAsyncThreads() {
+            int threads = 3;
+            assertEquals(threads, builder().setLocalAsyncThreads(threads)
+                                           .localAsyncThreads()
+                                           .get());
+        }
+
+        @Test
+        @DisplayName("previous shard count")
+        void previousShardCount() {
+            int shardCount = 4;
+            assertEquals(shardCount, builder().setPreviousShardCount(shardCount)
+                                              .previousShardCount()
+                                              .get());
+        }
     }
 
     @Nested
@@ -44,4 +44,42 @@ class DeliveryFactoryTest {
         LocalDispatchingObserver localObserver = (LocalDispatchingObserver) observer;
         assertThat(localObserver.isAsync()).isTrue();
     }
+
+    @Test
+    @DisplayName("create an instance of `Delivery` with the local asynchronous dispatching " +
+            "if the number of local async threads is set")
+    void createWithLocalAsyncThreads() {
+        Delivery delivery = Delivery.newBuilder()
+                                    .setLocalAsyncThreads(2)
+                                    .build();
+
+        ImmutableList<ShardObserver> observers = delivery.shardObservers();
+        assertThat(observers).hasSize(1);
+
+        LocalDispatchingObserver observer = (LocalDispatchingObserver) observers.get(0);
+        assertThat(observer.isAsync()).isTrue();
+    }
+
+    @Test
+    @DisplayName("shut down the local asynchronous dispatching when closed")
+    void closeLocalAsync() {
+        Delivery delivery = Delivery.newBuilder()
+                                    .setLocalAsyncThreads(2)
+                                    .build();
+        LocalDispatchingObserver observer =
+                (LocalDispatchingObserver) delivery.shardObservers()
+                                                   .get(0);
+        assertThat(observer.isClosed()).isFalse();
+
+        delivery.close();
+        assertThat(observer.isClosed()).isTrue();
+    }
+
+    @Test
+    @DisplayName("create an instance of `Delivery` without the local dispatching by default")
+    void noLocalDispatchingByDefault() {
+        Delivery delivery = Delivery.newBuilder()
+                                    .build();
+        assertThat(delivery.shardObservers()).isEmpty();
+    }
 }
@@ -26,11 +26,13 @@ import com.google.common.collect.ImmutableSet;
 import com.google.protobuf.util.Durations;
 import io.spine.base.Identifier;
 import io.spine.base.Tests;
+import io.spine.base.Time;
 import io.spine.core.TenantId;
 import io.spine.core.UserId;
 import io.spine.protobuf.Messages;
 import io.spine.server.BoundedContextBuilder;
 import io.spine.server.ServerEnvironment;
+import io.spine.server.delivery.given.CounterView;
 import io.spine.server.delivery.given.DeliveryTestEnv.RawMessageMemoizer;
 import io.spine.server.delivery.given.DeliveryTestEnv.ShardIndexMemoizer;
 import io.spine.server.delivery.given.FixedShardStrategy;
@@ -38,14 +40,21 @@ import io.spine.server.delivery.given.MemoizingDeliveryMonitor;
 import io.spine.server.delivery.given.TaskAggregate;
 import io.spine.server.delivery.given.TaskAssignment;
 import io.spine.server.delivery.given.TaskView;
+import io.spine.server.delivery.memory.InMemoryHotTargetRegistry;
 import io.spine.server.delivery.memory.InMemoryShardedWorkRegistry;
+import io.spine.server.entity.given.Given;
+import io.spine.server.storage.memory.InMemoryInboxStorage;
 import io.spine.server.tenant.TenantAwareRunner;
+import io.spine.test.delivery.Calc;
+import io.spine.test.delivery.DCounter;
 import io.spine.test.delivery.DCreateTask;
 import io.spine.test.delivery.DTaskView;
+import io.spine.test.delivery.NumberAdded;
 import io.spine.testing.SlowTest;
 import io.spine.testing.core.given.GivenTenantId;
 import io.spine.testing.server.blackbox.BlackBoxContext;
 import io.spine.testing.server.entity.EntitySubject;
+import io.spine.type.TypeUrl;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
@@ -60,8 +69,10 @@ import java.util.concurrent.ExecutorService;
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth8.assertThat;
 import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
+import static io.spine.server.delivery.given.DeliveryTestEnv.generateNodeId;
 import static io.spine.server.delivery.given.DeliveryTestEnv.manyTargets;
 import static io.spine.server.delivery.given.DeliveryTestEnv.singleTarget;
+import static io.spine.server.delivery.given.TestInboxMessages.toDeliver;
 import static java.util.Collections.synchronizedList;
 import static java.util.concurrent.Executors.newFixedThreadPool;
 import static java.util.stream.Collectors.toList;
@@ -78,6 +89,8 @@ import static java.util.stream.Collectors.toList;
 @SuppressWarnings("WeakerAccess")   // Exposed for libraries, wishing to run these tests.
 public class DeliveryTest extends AbstractDeliveryTest {
 
+    private static final TypeUrl CALC_TYPE = TypeUrl.of(Calc.class);
+
     @Test
     @DisplayName("a single shard to a single target in a multi-threaded env")
     public void singleTarget_singleShard_manyThreads() {
@@ -251,6 +264,114 @@ public class DeliveryTest extends AbstractDeliveryTest {
         assertThat(totalFromStats).isEqualTo(observedMsgCount);
     }
 
+    @Test
+    @DisplayName("a single shard and keep the lease on it while a page outlasts the lease")
+    public void keepLeaseWhileSlowPage() {
+        ShardedWorkRegistry registry =
+                new InMemoryShardedWorkRegistry(Durations.fromMillis(200));
+        FixedShardStrategy strategy = new FixedShardStrategy(1);
+        List<Boolean> takenOver = synchronizedList(new ArrayList<>());
+        DeliveryMetrics slowStation = new DeliveryMetrics() {
+            @Override
+            public void onStationCompleted(ShardIndex index,
+                                           String station,
+                                           long elapsedNanos,
+                                           int deliveredCount) {
+                if (takenOver.isEmpty()) {
+                    sleepUninterruptibly(Duration.ofMillis(600));
+                    takenOver.add(registry.pickUp(index, generateNodeId())
+                                          .isPresent());
+                }
+            }
+        };
+        Delivery delivery = Delivery.newBuilder()
+                                    .setStrategy(strategy)
+                                    .setWorkRegistry(registry)
+                                    .setMetrics(slowStation)
+                                    .build();
+        delivery.subscribe(new LocalDispatchingObserver());
+        ServerEnvironment.when(Tests.class)
+                         .use(delivery);
+
+        new NastyClient(1).runWith(singleTarget());
+
+        assertThat(takenOver).containsExactly(false);
+    }
+
+    @Test
+    @DisplayName("the dedicated shard only, while the original shard of a pinned target " +
+            "is delivered concurrently")
+    public void redirectPinnedTarget() throws Exception {
+        HotTargetRegistry pins = new InMemoryHotTargetRegistry();
+        HotTargetAwareStrategy strategy =
+                HotTargetAwareStrategy.newBuilder(UniformAcrossAllShards.singleShard())
+                                      .setRegistry(pins)
+                                      .build();
+        InboxStorage storage = new InMemoryInboxStorage(false);
+        ShardedWorkRegistry registry = new InMemoryShardedWorkRegistry();
+        String target = "pinned";
+        ShardIndex origin = strategy.determineIndex(target, CALC_TYPE);
+        ShardIndex dedicated = ShardIndex.newBuilder()
+                                         .setIndex(1)
+                                         .setOfTotal(2)
+                                         .vBuild();
+        List<Integer> deliveredFromOrigin = synchronizedList(new ArrayList<>());
+        DeliveryMetrics metrics = new DeliveryMetrics() {
+            @Override
+            public void onStationCompleted(ShardIndex index,
+                                           String station,
+                                           long elapsedNanos,
+                                           int deliveredCount) {
+                if (index.equals(origin)) {
+                    deliveredFromOrigin.add(deliveredCount);
+                }
+            }
+        };
+        Delivery delivery = Delivery.newBuilder()
+                                    .setStrategy(strategy)
+                                    .setInboxStorage(storage)
+                                    .setWorkRegistry(registry)
+                                    .setMetrics(metrics)
+                                    .build();
+        ServerEnvironment.when(Tests.class)
+                         .use(delivery);
+        pins.pin(TargetPin.newBuilder()
+                          .setTarget(InboxIds.wrap(target, CALC_TYPE))
+                          .setOrigin(origin)
+                          .setShard(dedicated)
+                          .setWhenPinned(Time.currentTime())
+                          .vBuild());
+
+        // The node, to which the pin has not propagated yet, writes to the original shard.
+        for (int i = 0; i < 3; i++) {
+            storage.write(toDeliver(target, CALC_TYPE)
+                                  .toBuilder()
+                                  .setId(InboxMessageMixin.generateIdWith(origin))
+                                  .vBuild());
+        }
+        ShardProcessingSession dedicatedSession =
+                registry.pickUp(dedicated, generateNodeId())
+                        .orElseThrow(IllegalStateException::new);
+        ExecutorService executor = newFixedThreadPool(1);
+        Optional<DeliveryStats> stats;
+        try {
+            stats = executor.submit(() -> delivery.deliverMessagesFrom(origin))
+                            .get();
+        } finally {
+            dedicatedSession.complete();
+            executor.shutdownNow();
+        }
+
+        assertThat(stats).isPresent();
+        assertThat(stats.get()
+                        .deliveredCount()).isEqualTo(0);
+        assertThat(deliveredFromOrigin).isEmpty();
+        assertThat(storage.readAll(origin, 10)
+                          .contents()).isEmpty();
+        assertThat(storage.readAll(dedicated, 10)
+                          .contents()).hasSize(3);
+    }
+
     private static void assertStatsEmpty(Delivery delivery, ShardIndex index) {
         Optional<DeliveryStats> emptyStats = delivery.deliverMessagesFrom(index);
         assertThat(emptyStats).isEmpty();
@@ -355,6 +476,50 @@ public class DeliveryTest extends AbstractDeliveryTest {
         }
     }
 
+    @Test
+    @DisplayName("a single shard to a cached entity and reload it once changed in the storage")
+    public void reuseCachedEntity() {
+        FixedShardStrategy strategy = new FixedShardStrategy(1);
+        Delivery delivery = Delivery.newBuilder()
+                                    .setStrategy(strategy)
+                                    .setDeduplicationWindow(Durations.ZERO)
+                                    .build();
+        ServerEnvironment.when(Tests.class)
+                         .use(delivery);
+        CounterView.Repository repository = new CounterView.Repository();
+        repository.cacheEntities(10);
+        BlackBoxContext context = BlackBoxContext.from(
+                BoundedContextBuilder.assumingTests()
+                                     .add(repository)
+        );
+        String id = Identifier.newUuid();
+        ShardIndex index = strategy.nonEmptyShard();
+
+        addTwiceAndDeliver(context, delivery, index, id);
+        addTwiceAndDeliver(context, delivery, index, id);
+        assertThat(repository.loadsFromStorage()).isEqualTo(0);
+
+        DCounter changedState = DCounter.newBuilder()
+                                        .setId(id)
+                                        .setTotal(100)
+                                        .build();
+        CounterView changed = Given.projectionOfClass(CounterView.class)
+                                   .withId(id)
+                                   .withState(changedState)
+                                   .withVersion(42)
+                                   .build();
+        repository.store(ImmutableList.of(changed));
+
+        addTwiceAndDeliver(context, delivery, index, id);
+        assertThat(repository.loadsFromStorage()).isEqualTo(1);
+
+        Optional<CounterView> counter = repository.find(id);
+        assertThat(counter).isPresent();
+        assertThat(counter.get()
+                          .state()
+                          .getTotal()).isEqualTo(102);
+    }
+
     /*
      * Test environment.
      *
@@ -373,6 +538,19 @@ public class DeliveryTest extends AbstractDeliveryTest {
                         .shardIndex()).isEqualTo(index);
     }
 
+    private static void addTwiceAndDeliver(BlackBoxContext context,
+                                           Delivery delivery,
+                                           ShardIndex index,
+                                           String calculatorId) {
+        for (int value = 1; value <= 2; value++) {
+            context.receivesEvent(NumberAdded.newBuilder()
+                                             .setCalculatorId(calculatorId)
+                                             .setValue(value)
+                                             .build());
+        }
+        delivery.deliverMessagesFrom(index);
+    }
+
     private static List<DCreateTask> generateCommands(int howMany) {
         List<DCreateTask> commands = new ArrayList<>();
         for (int taskIndex = 0; taskIndex < howMany; taskIndex++) {
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import com.google.common.collect.ImmutableList;
+import io.spine.core.SignalId;
+import io.spine.server.bus.MulticastDispatchListener;
+import io.spine.server.storage.memory.InMemoryStorageFactory;
+import io.spine.test.delivery.Calc;
+import io.spine.type.TypeUrl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static io.spine.server.delivery.DeliveryDispatchListener.signalOf;
+import static io.spine.server.delivery.DeliveryStrategy.newIndex;
+import static io.spine.server.delivery.given.TestInboxMessages.copyWithNewId;
+import static io.spine.server.delivery.given.TestInboxMessages.toDeliver;
+
+@DisplayName("`GroupCommitWriter` should")
+class GroupCommitWriterTest {
+
+    private static final TypeUrl TARGET_TYPE = TypeUrl.of(Calc.class);
+
+    private List<String> log;
+    private List<ImmutableList<InboxMessage>> batches;
+    private GroupCommitWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        log = new ArrayList<>();
+        batches = new ArrayList<>();
+        writer = new GroupCommitWriter(new RecordingWriter(), new RecordingListener());
+    }
+
+    @Test
+    @DisplayName("write the message immediately if its signal is not being dispatched")
+    void writeImmediately() {
+        InboxMessage message = toDeliver("target", TARGET_TYPE);
+        writer.write(message);
+
+        assertThat(log).containsExactly("write");
+    }
+
+    @Test
+    @DisplayName("write the messages of a dispatched signal at once")
+    void groupPerSignal() {
+        InboxMessage first = toDeliver("target", TARGET_TYPE);
+        InboxMessage second = copyWithNewId(first);
+        InboxMessage third = copyWithNewId(first);
+        SignalId signal = signalOf(first);
+
+        writer.onStarted(signal);
+        writer.write(first);
+        writer.write(second);
+        writer.write(third);
+        assertThat(batches).isEmpty();
+
+        writer.onCompleted(signal);
+        assertThat(batches).containsExactly(ImmutableList.of(first, second, third));
+        assertThat(log).containsExactly("started", "writeAll", "completed")
+                       .inOrder();
+    }
+
+    @Test
+    @DisplayName("not hold the messages of other signals")
+    void notHoldOthers() {
+        InboxMessage dispatched = toDeliver("dispatched", TARGET_TYPE);
+        InboxMessage other = toDeliver("other", TARGET_TYPE);
+
+        writer.onStarted(signalOf(dispatched));
+        writer.write(other);
+
+        assertThat(log).containsExactly("started", "write")
+                       .inOrder();
+    }
+
+    @Test
+    @DisplayName("notify once per each shard when writing several messages")
+    void notifyPerShard() {
+        InboxStorage storage = InMemoryStorageFactory.newInstance()
+                                                     .createInboxStorage(false);
+        List<InboxMessage> notified = new ArrayList<>();
+        NotifyingWriter notifying = new NotifyingWriter(storage) {
+            @Override
+            protected void onShardUpdated(InboxMessage message) {
+                notified.add(message);
+            }
+        };
+        ShardIndex firstShard = newIndex(0, 2);
+        ShardIndex secondShard = newIndex(1, 2);
+        InboxMessage first = inShard(firstShard);
+        InboxMessage second = inShard(firstShard);
+        InboxMessage third = inShard(secondShard);
+
+        notifying.writeAll(ImmutableList.of(first, second, third));
+
+        assertThat(notified).containsExactly(second, third);
+        assertThat(storage.readAll(firstShard, 10)
+                          .contents()).containsExactly(first, second);
+    }
+
+    private static InboxMessage inShard(ShardIndex index) {
+        return toDeliver("target", TARGET_TYPE)
+                .toBuilder()
+                .setId(InboxMessageMixin.generateIdWith(index))
+                .build();
+    }
+
+    /**
+     * Records the write operations.
+     */
+    private final class RecordingWriter implements InboxWriter {
+
+        @Override
+        public void write(InboxMessage message) {
+            log.add("write");
+        }
+
+        @Override
+        public void writeAll(ImmutableList<InboxMessage> messages) {
+            log.add("writeAll");
+            batches.add(messages);
+        }
+    }
+
+    /**
+     * Records the dispatching notifications.
+     */
+    private final class RecordingListener implements MulticastDispatchListener {
+
+        @Override
+        public void onStarted(SignalId signal) {
+            log.add("started");
+        }
+
+        @Override
+        public void onCompleted(SignalId signal) {
+            log.add("completed");
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.util.Timestamps;
+import io.spine.core.Event;
+import io.spine.core.EventContext;
+import io.spine.server.delivery.HistoryPrefetcher.HistoryReader;
+import io.spine.test.delivery.NumberAdded;
+import io.spine.testing.server.TestEventFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+
+@DisplayName("`HistoryPrefetcher` should")
+class HistoryPrefetcherTest {
+
+    private static final int HISTORY_SIZE = 20;
+    private static final int PAGE_SIZE = 3;
+    private static final int DEPTH = 2;
+    private static final Timestamp START = Timestamps.fromSeconds(0);
+
+    private final CatchUpId id = CatchUpId
+            .newBuilder()
+            .setUuid("prefetched-catch-up")
+            .setProjectionType("type.spine.io/spine.test.Projection")
+            .build();
+
+    private ImmutableList<Event> history;
+    private AtomicInteger reads;
+    private Set<CatchUpId> completed;
+
+    @BeforeEach
+    void setUp() {
+        TestEventFactory factory = TestEventFactory.newInstance(getClass());
+        ImmutableList.Builder<Event> events = ImmutableList.builder();
+        for (int i = 1; i <= HISTORY_SIZE; i++) {
+            Event event = factory.createEvent(NumberAdded.newBuilder()
+                                                         .setCalculatorId("calc")
+                                                         .setValue(i)
+                                                         .build(), null);
+            EventContext context = event.getContext()
+                                        .toBuilder()
+                                        .setTimestamp(Timestamps.fromSeconds(i))
+                                        .build();
+            events.add(event.toBuilder()
+                            .setContext(context)
+                            .build());
+        }
+        history = events.build();
+        reads = new AtomicInteger();
+        completed = new HashSet<>();
+    }
+
+    @Test
+    @DisplayName("return the same pages as reading them one by one")
+    void readSamePages() {
+        HistoryPrefetcher prefetcher = new HistoryPrefetcher(DEPTH, completed::contains);
+        List<List<Event>> prefetched = readAll(after -> prefetcher.read(id, after, this::read));
+        List<List<Event>> direct = readAll(this::read);
+
+        assertThat(prefetched).isEqualTo(direct);
+    }
+
+    @Test
+    @DisplayName("read no more than the configured number of pages ahead")
+    void boundReadAhead() throws InterruptedException {
+        HistoryPrefetcher prefetcher = new HistoryPrefetcher(DEPTH, completed::contains);
+        prefetcher.read(id, START, this::read);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (reads.get() < 1 + DEPTH && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        assertThat(reads.get()).isEqualTo(1 + DEPTH);
+    }
+
+    @Test
+    @DisplayName("read directly if the catch-up continues from another point")
+    void readDirectlyIfDiverged() {
+        HistoryPrefetcher prefetcher = new HistoryPrefetcher(DEPTH, completed::contains);
+        prefetcher.read(id, START, this::read);
+
+        Timestamp elsewhere = Timestamps.fromSeconds(10);
+        List<Event> events = prefetcher.read(id, elsewhere, this::read);
+
+        assertThat(events).isEqualTo(read(elsewhere));
+    }
+
+    @Test
+    @DisplayName("drop the pages of the catch-ups completed elsewhere")
+    void evictCompleted() {
+        HistoryPrefetcher prefetcher = new HistoryPrefetcher(DEPTH, completed::contains);
+        prefetcher.read(id, START, this::read);
+        assertThat(prefetcher.pipelineCount()).isEqualTo(1);
+
+        completed.add(id);
+        CatchUpId another = id.toBuilder()
+                              .setUuid("another-catch-up")
+                              .build();
+        prefetcher.read(another, START, this::read);
+        assertThat(prefetcher.pipelineCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("read directly once closed")
+    void readDirectlyOnceClosed() {
+        HistoryPrefetcher prefetcher = new HistoryPrefetcher(DEPTH, completed::contains);
+        prefetcher.read(id, START, this::read);
+        prefetcher.close();
+
+        Timestamp after = CatchUpProcess.lastReadIn(read(START));
+        List<Event> events = prefetcher.read(id, after, this::read);
+
+        assertThat(events).isEqualTo(read(after));
+        assertThat(prefetcher.pipelineCount()).isEqualTo(1);
+    }
+
+    private List<List<Event>> readAll(HistoryReader reader) {
+        List<List<Event>> pages = new ArrayList<>();
+        Timestamp after = START;
+        List<Event> page = reader.read(after);
+        while (!page.isEmpty()) {
+            pages.add(page);
+            after = CatchUpProcess.lastReadIn(page);
+            page = reader.read(after);
+        }
+        return pages;
+    }
+
+    private List<Event> read(Timestamp after) {
+        reads.incrementAndGet();
+        return history.stream()
+                      .filter(e -> Timestamps.compare(e.getContext()
+                                                       .getTimestamp(), after) > 0)
+                      .limit(PAGE_SIZE)
+                      .collect(toImmutableList());
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import com.google.protobuf.util.Durations;
+import io.spine.base.Time;
+import io.spine.server.delivery.given.ManualTicker;
+import io.spine.server.delivery.memory.InMemoryHotTargetRegistry;
+import io.spine.server.delivery.memory.InMemoryShardedWorkRegistry;
+import io.spine.server.storage.memory.InMemoryInboxStorage;
+import io.spine.test.delivery.Calc;
+import io.spine.type.TypeUrl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
+import static io.spine.server.delivery.given.DeliveryTestEnv.generateNodeId;
+import static io.spine.server.delivery.given.TestInboxMessages.toDeliver;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("`HotTargetAwareStrategy` should")
+class HotTargetAwareStrategyTest {
+
+    private static final TypeUrl TARGET_TYPE = TypeUrl.of(Calc.class);
+    private static final int REGULAR_SHARDS = 4;
+    private static final int DEDICATED_SHARDS = 2;
+    private static final int HOT_THRESHOLD = 5;
+
+    private ManualTicker ticker;
+    private HotTargetRegistry registry;
+    private HotTargetAwareStrategy strategy;
+
+    @BeforeEach
+    void setUp() {
+        ticker = new ManualTicker();
+        registry = new InMemoryHotTargetRegistry();
+        strategy = HotTargetAwareStrategy
+                .newBuilder(UniformAcrossAllShards.forNumber(REGULAR_SHARDS))
+                .setDedicatedShards(DEDICATED_SHARDS)
+                .setHotThreshold(HOT_THRESHOLD)
+                .setWindow(Durations.fromSeconds(10))
+                .setRegistry(registry)
+                .setTicker(ticker)
+                .build();
+    }
+
+    @Test
+    @DisplayName("reserve the dedicated shards after the regular ones")
+    void reserveShards() {
+        assertThat(strategy.shardCount()).isEqualTo(REGULAR_SHARDS + DEDICATED_SHARDS);
+    }
+
+    @Test
+    @DisplayName("place the regular targets as the delegate strategy does")
+    void delegateRegularTargets() {
+        DeliveryStrategy delegate = UniformAcrossAllShards.forNumber(REGULAR_SHARDS);
+        String target = "regular";
+        ShardIndex index = strategy.determineIndex(target, TARGET_TYPE);
+
+        assertThat(index.getIndex()).isEqualTo(delegate.determineIndex(target, TARGET_TYPE)
+                                                       .getIndex());
+        assertThat(index.getOfTotal()).isEqualTo(REGULAR_SHARDS + DEDICATED_SHARDS);
+    }
+
+    @Test
+    @DisplayName("pin the target to a dedicated shard once it becomes hot")
+    void pinHotTarget() {
+        String target = "hot";
+        arrive(target, HOT_THRESHOLD);
+
+        ShardIndex index = strategy.determineIndex(target, TARGET_TYPE);
+        assertThat(index.getIndex()).isAtLeast(REGULAR_SHARDS);
+        Optional<TargetPin> pin = registry.find(InboxIds.wrap(target, TARGET_TYPE));
+        assertThat(pin).isPresent();
+        assertThat(pin.get()
+                      .getShard()).isEqualTo(index);
+    }
+
+    @Test
+    @DisplayName("count the arrivals within the time window")
+    void countWithinWindow() {
+        String target = "warm";
+        arrive(target, HOT_THRESHOLD - 1);
+        ticker.advance(10);
+        arrive(target, HOT_THRESHOLD - 1);
+
+        ShardIndex index = strategy.determineIndex(target, TARGET_TYPE);
+        assertThat(index.getIndex()).isLessThan(REGULAR_SHARDS);
+    }
+
+    @Test
+    @DisplayName("spread the hot targets across the dedicated shards")
+    void spreadHotTargets() {
+        arrive("first", HOT_THRESHOLD);
+        arrive("second", HOT_THRESHOLD);
+
+        ShardIndex first = strategy.determineIndex("first", TARGET_TYPE);
+        ShardIndex second = strategy.determineIndex("second", TARGET_TYPE);
+        assertThat(first).isNotEqualTo(second);
+    }
+
+    @Test
+    @DisplayName("move the messages of the pinned target from its original shard")
+    void handOver() {
+        String target = "hot";
+        ShardIndex origin = strategy.determineIndex(target, TARGET_TYPE);
+        InboxStorage storage = new InMemoryInboxStorage(false);
+        InboxMessage message = toDeliver(target, TARGET_TYPE);
+        InboxMessage inOrigin = message.toBuilder()
+                                       .setId(InboxMessageMixin.generateIdWith(origin))
+                                       .vBuild();
+        storage.write(inOrigin);
+        arrive(target, HOT_THRESHOLD);
+        ShardIndex dedicated = strategy.determineIndex(target, TARGET_TYPE);
+
+        TargetHandover handover = new TargetHandover(strategy, storage,
+                                                     new InMemoryShardedWorkRegistry(), 10);
+        boolean complete = handover.handOverTo(dedicated, generateNodeId());
+
+        assertThat(complete).isTrue();
+        assertThat(storage.readAll(origin, 10)
+                          .contents()).isEmpty();
+        assertThat(storage.readAll(dedicated, 10)
+                          .contents()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("cache the absence of a pin for the pin cache TTL")
+    void cachePins() {
+        String target = "pinned-elsewhere";
+        ShardIndex origin = strategy.determineIndex(target, TARGET_TYPE);
+        ShardIndex dedicated = ShardIndex.newBuilder()
+                                         .setIndex(REGULAR_SHARDS)
+                                         .setOfTotal(REGULAR_SHARDS + DEDICATED_SHARDS)
+                                         .vBuild();
+        registry.pin(TargetPin.newBuilder()
+                              .setTarget(InboxIds.wrap(target, TARGET_TYPE))
+                              .setOrigin(origin)
+                              .setShard(dedicated)
+                              .setWhenPinned(Time.currentTime())
+                              .vBuild());
+
+        assertThat(strategy.determineIndex(target, TARGET_TYPE)).isEqualTo(origin);
+        ticker.advance(6);
+        assertThat(strategy.determineIndex(target, TARGET_TYPE)).isEqualTo(dedicated);
+    }
+
+    @Test
+    @DisplayName("complete the handover after a pass made once the pin is propagated")
+    void completeHandover() {
+        HotTargetAwareStrategy propagated = HotTargetAwareStrategy
+                .newBuilder(UniformAcrossAllShards.forNumber(REGULAR_SHARDS))
+                .setDedicatedShards(DEDICATED_SHARDS)
+                .setHotThreshold(HOT_THRESHOLD)
+                .setPinCacheTtl(Durations.ZERO)
+                .setRegistry(registry)
+                .setTicker(ticker)
+                .build();
+        String target = "hot";
+        ShardIndex origin = propagated.determineIndex(target, TARGET_TYPE);
+        for (int i = 0; i < HOT_THRESHOLD; i++) {
+            propagated.recordArrival(target, TARGET_TYPE);
+        }
+        ShardIndex dedicated = propagated.determineIndex(target, TARGET_TYPE);
+        InboxStorage storage = new InMemoryInboxStorage(false);
+        TargetHandover handover = new TargetHandover(propagated, storage,
+                                                     new InMemoryShardedWorkRegistry(), 10);
+        handover.handOverTo(dedicated, generateNodeId());
+        assertThat(handover.isHandedOver(InboxIds.wrap(target, TARGET_TYPE))).isTrue();
+
+        InboxMessage late = toDeliver(target, TARGET_TYPE)
+                .toBuilder()
+                .setId(InboxMessageMixin.generateIdWith(origin))
+                .vBuild();
+        storage.write(late);
+        handover.handOverTo(dedicated, generateNodeId());
+        assertThat(storage.readAll(origin, 10)
+                          .contents()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("not accept a pin cache TTL exceeding the handover period")
+    void rejectPinCacheTtl() {
+        HotTargetAwareStrategy.Builder builder =
+                HotTargetAwareStrategy.newBuilder(UniformAcrossAllShards.singleShard())
+                                      .setHandoverPeriod(Durations.fromSeconds(10))
+                                      .setPinCacheTtl(Durations.fromSeconds(10));
+        assertThrows(IllegalArgumentException.class, builder::build);
+    }
+
+    @Test
+    @DisplayName("not accept a non-positive hot threshold")
+    void rejectThreshold() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> HotTargetAwareStrategy.newBuilder(UniformAcrossAllShards.singleShard())
+                                                 .setHotThreshold(0));
+    }
+
+    private void arrive(String target, int times) {
+        for (int i = 0; i < times; i++) {
+            strategy.recordArrival(target, TARGET_TYPE);
+        }
+    }
+}
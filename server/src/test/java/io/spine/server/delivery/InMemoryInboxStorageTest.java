@@ -20,16 +20,126 @@
 
 package io.spine.server.delivery;
 
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.util.Timestamps;
 import io.spine.server.storage.memory.InMemoryStorageFactory;
+import io.spine.test.delivery.Calc;
+import io.spine.type.TypeUrl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
+import static io.spine.server.delivery.InboxMessageStatus.DELIVERED;
+import static io.spine.server.delivery.given.TestInboxMessages.copyWithNewId;
+import static io.spine.server.delivery.given.TestInboxMessages.copyWithStatus;
+import static io.spine.server.delivery.given.TestInboxMessages.toDeliver;
 
 /**
  * Tests of {@link io.spine.server.storage.memory.InMemoryInboxStorage InMemoryInboxStorage}.
  */
+@DisplayName("`InMemoryInboxStorage` should")
 class InMemoryInboxStorageTest extends InboxStorageTest {
 
+    private static final TypeUrl TARGET_TYPE = TypeUrl.of(Calc.class);
+
     @Override
     protected InboxStorage storage() {
         return InMemoryStorageFactory.newInstance()
                                      .createInboxStorage(false);
     }
+
+    @Test
+    @DisplayName("read the next page after the messages of the current page are removed")
+    void readNextPageAfterRemoval() {
+        InboxStorage storage = storage();
+        InboxMessage first = toDeliver("first", TARGET_TYPE, Timestamps.fromMillis(1_000));
+        InboxMessage second = toDeliver("second", TARGET_TYPE, Timestamps.fromMillis(2_000));
+        ShardIndex index = first.shardIndex();
+        storage.writeAll(ImmutableList.of(first, second));
+
+        Page<InboxMessage> page = storage.readAll(index, 1);
+        assertThat(page.contents()).containsExactly(first);
+        storage.removeAll(page.contents());
+
+        Optional<Page<InboxMessage>> next = page.next();
+        assertThat(next).isPresent();
+        assertThat(next.get()
+                       .contents()).containsExactly(second);
+        assertThat(next.get()
+                       .next()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("keep the updated message in its place within the shard")
+    void updateInPlace() {
+        InboxStorage storage = storage();
+        InboxMessage message = toDeliver("target", TARGET_TYPE);
+        ShardIndex index = message.shardIndex();
+        storage.write(message);
+        assertThat(storage.newestMessageToDeliver(index)).hasValue(message);
+
+        InboxMessage delivered = copyWithStatus(message, DELIVERED);
+        storage.write(delivered);
+
+        Page<InboxMessage> page = storage.readAll(index, 10);
+        assertThat(page.contents()).containsExactly(delivered);
+        assertThat(storage.newestMessageToDeliver(index)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("read the messages sharing a payload as they were written")
+    void readSharedPayload() {
+        InboxStorage storage = storage();
+        InboxMessage first = toDeliver("target", TARGET_TYPE, Timestamps.fromMillis(1_000));
+        InboxMessage second = copyWithNewId(first).toBuilder()
+                                                  .setWhenReceived(Timestamps.fromMillis(2_000))
+                                                  .build();
+        storage.writeAll(ImmutableList.of(first, second));
+        storage.write(copyWithStatus(first, DELIVERED));
+
+        ImmutableList<InboxMessage> contents = storage.readAll(first.shardIndex(), 10)
+                                                      .contents();
+        assertThat(contents).containsExactly(copyWithStatus(first, DELIVERED), second)
+                            .inOrder();
+    }
+
+    @Test
+    @DisplayName("skip the messages removed while being read")
+    void skipRemovedWhileReading() throws Exception {
+        InboxStorage storage = storage();
+        InboxMessage template = toDeliver("target", TARGET_TYPE);
+        ShardIndex index = template.shardIndex();
+        int rounds = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CompletableFuture<Void> writing = CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < rounds; i++) {
+                    InboxMessage message = copyWithNewId(template);
+                    storage.write(message);
+                    storage.removeAll(ImmutableList.of(message));
+                }
+            }, executor);
+            CompletableFuture<Void> reading = CompletableFuture.runAsync(() -> {
+                while (!writing.isDone()) {
+                    for (InboxMessage message : storage.readAll(index, 10)
+                                                       .contents()) {
+                        assertThat(message.getCommand()
+                                          .hasMessage()).isTrue();
+                    }
+                }
+            }, executor);
+            writing.get();
+            reading.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(storage.readAll(index, 10)
+                          .contents()).isEmpty();
+    }
 }
@@ -20,8 +20,25 @@
 
 package io.spine.server.delivery;
 
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.util.Durations;
+import io.spine.server.NodeId;
 import io.spine.server.delivery.memory.InMemoryShardedWorkRegistry;
+import io.spine.server.storage.memory.InMemoryInboxStorage;
+import io.spine.test.delivery.Calc;
+import io.spine.type.TypeUrl;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
+import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
+import static io.spine.server.delivery.DeliveryStrategy.newIndex;
+import static io.spine.server.delivery.given.DeliveryTestEnv.generateNodeId;
+import static io.spine.server.delivery.given.TestInboxMessages.toDeliver;
+import static java.time.Duration.ofMillis;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
  * Tests the {@link InMemoryShardedWorkRegistry}.
@@ -29,8 +46,104 @@ import org.junit.jupiter.api.DisplayName;
 @DisplayName("`InMemoryShardedWorkRegistry` should")
 class InMemoryShardedWorkRegistryTest extends ShardedWorkRegistryTest {
 
+    private static final TypeUrl TARGET_TYPE = TypeUrl.of(Calc.class);
+
     @Override
     protected ShardedWorkRegistry registry() {
         return new InMemoryShardedWorkRegistry();
     }
+
+    @Test
+    @DisplayName("not use the leases unless their duration is configured")
+    void noLeasesByDefault() {
+        assertThat(new InMemoryShardedWorkRegistry().leaseDuration()).isEmpty();
+        assertThat(new InMemoryShardedWorkRegistry(Durations.fromMillis(200)).leaseDuration())
+                .hasValue(Durations.fromMillis(200));
+    }
+
+    @Nested
+    @DisplayName("with the short leases")
+    class ShortLeases {
+
+        private final ShardIndex index = newIndex(3, 7);
+        private final InMemoryShardedWorkRegistry registry =
+                new InMemoryShardedWorkRegistry(Durations.fromMillis(200));
+
+        @Test
+        @DisplayName("keep the shard picked while the lease is renewed")
+        void keepRenewed() {
+            ShardProcessingSession session = pickUp(generateNodeId());
+            for (int i = 0; i < 5; i++) {
+                sleepUninterruptibly(ofMillis(100));
+                assertThat(session.renew()).isTrue();
+            }
+            assertThat(registry.pickUp(index, generateNodeId())).isEmpty();
+        }
+
+        @Test
+        @DisplayName("let another node take over the expired lease")
+        void takeOverExpired() {
+            ShardProcessingSession expired = pickUp(generateNodeId());
+            sleepUninterruptibly(ofMillis(250));
+
+            ShardProcessingSession takenOver = pickUp(generateNodeId());
+            assertThat(takenOver.fencingToken()).isGreaterThan(expired.fencingToken());
+            assertThat(expired.renew()).isFalse();
+
+            expired.complete();
+            assertThat(registry.pickUp(index, generateNodeId())).isEmpty();
+            assertThat(takenOver.renew()).isTrue();
+        }
+
+        @Test
+        @DisplayName("not renew the lease of the released session")
+        void notRenewReleased() {
+            ShardProcessingSession session = pickUp(generateNodeId());
+            sleepUninterruptibly(ofMillis(250));
+            assertThat(registry.releaseExpiredSessions(Durations.fromMillis(200)))
+                    .containsExactly(index);
+            assertThat(session.renew()).isFalse();
+        }
+
+        @Test
+        @DisplayName("reject the writes of the node, which lost its lease in the middle of a page")
+        void rejectWritesOfStaleNode() {
+            InboxStorage storage = new InMemoryInboxStorage(false);
+            InboxMessage first = inShard(toDeliver("first", TARGET_TYPE));
+            InboxMessage second = inShard(toDeliver("second", TARGET_TYPE));
+            storage.writeAll(ImmutableList.of(first, second));
+
+            ShardProcessingSession slow = pickUp(generateNodeId());
+            ImmutableList<InboxMessage> page = storage.readAll(index, 10)
+                                                      .contents();
+            assertThat(page).hasSize(2);
+            sleepUninterruptibly(ofMillis(250));
+
+            ShardProcessingSession takenOver = pickUp(generateNodeId());
+            storage.applyChanges(index, takenOver.fencingToken(),
+                                 ImmutableList.of(), ImmutableList.of(first));
+
+            assertThat(slow.renew()).isFalse();
+            assertThrows(StaleFencingTokenException.class,
+                         () -> storage.applyChanges(index, slow.fencingToken(),
+                                                    ImmutableList.of(), page));
+            assertThat(storage.readAll(index, 10)
+                              .contents()).containsExactly(second);
+        }
+
+        private InboxMessage inShard(InboxMessage message) {
+            InboxMessageId id = message.getId()
+                                       .toBuilder()
+                                       .setIndex(index)
+                                       .build();
+            return message.toBuilder()
+                          .setId(id)
+                          .build();
+        }
+
+        private ShardProcessingSession pickUp(NodeId node) {
+            return registry.pickUp(index, node)
+                           .orElseThrow(AssertionError::new);
+        }
+    }
 }
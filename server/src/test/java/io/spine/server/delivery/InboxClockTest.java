@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.util.Durations;
+import com.google.protobuf.util.Timestamps;
+import io.spine.base.Time;
+import io.spine.test.delivery.Calc;
+import io.spine.type.TypeUrl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+import static io.spine.server.delivery.DeliveryStrategy.newIndex;
+import static io.spine.server.delivery.given.TestInboxMessages.toDeliver;
+
+@DisplayName("`InboxClock` should")
+class InboxClockTest {
+
+    private static final ShardIndex INDEX = newIndex(0, 1);
+    private static final TypeUrl TARGET_TYPE = TypeUrl.of(Calc.class);
+
+    private InboxClock clock;
+
+    @BeforeEach
+    void setUp() {
+        clock = new InboxClock();
+    }
+
+    @Test
+    @DisplayName("stamp the messages of a shard in a strictly increasing order")
+    void stampIncreasing() throws InterruptedException {
+        int threads = 8;
+        int perThread = 1_000;
+        List<InboxMessage> stamped = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int thread = 0; thread < threads; thread++) {
+            executor.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    stamped.add(stamp());
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        long distinct = stamped.stream()
+                               .map(m -> m.getWhenReceived()
+                                          .toString() + '/' + m.getVersion())
+                               .distinct()
+                               .count();
+        assertThat(distinct).isEqualTo(threads * perThread);
+    }
+
+    @Test
+    @DisplayName("stamp the messages after the observed one")
+    void stampAfterObserved() {
+        InboxMessage remote = toDeliver("remote", TARGET_TYPE)
+                .toBuilder()
+                .setWhenReceived(Timestamps.add(Time.currentTime(),
+                                                Durations.fromSeconds(60)))
+                .setVersion(3)
+                .build();
+        clock.observe(remote);
+
+        InboxMessage local = stamp();
+
+        assertThat(local.getWhenReceived()).isEqualTo(remote.getWhenReceived());
+        assertThat(local.getVersion()).isEqualTo(4);
+        assertThat(InboxMessageComparator.chronologically.compare(remote, local)).isLessThan(0);
+    }
+
+    @Test
+    @DisplayName("keep the order of the subsequent stamps")
+    void keepOrder() {
+        ImmutableList<InboxMessage> messages = ImmutableList.of(stamp(), stamp(), stamp());
+
+        assertThat(messages).isInStrictOrder(InboxMessageComparator.chronologically);
+    }
+
+    private InboxMessage stamp() {
+        InboxMessage.Builder builder = toDeliver("target", TARGET_TYPE).toBuilder();
+        clock.stamp(INDEX, builder);
+        return builder.build();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import io.spine.test.delivery.Calc;
+import io.spine.type.TypeUrl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
+import static io.spine.server.delivery.given.TestInboxMessages.copyWithNewId;
+import static io.spine.server.delivery.given.TestInboxMessages.toDeliver;
+
+@DisplayName("`InboxPayloads` should")
+class InboxPayloadsTest {
+
+    private static final TypeUrl TARGET_TYPE = TypeUrl.of(Calc.class);
+
+    private InboxPayloads payloads;
+
+    @BeforeEach
+    void setUp() {
+        payloads = new InboxPayloads();
+    }
+
+    @Test
+    @DisplayName("strip the payload off the stored row")
+    void stripPayload() {
+        InboxMessage message = toDeliver("target", TARGET_TYPE);
+        InboxMessage row = payloads.acquire(message);
+
+        assertThat(row.hasCommand()).isTrue();
+        assertThat(row.getCommand()
+                      .hasMessage()).isFalse();
+        assertThat(row.getCommand()
+                      .getId()).isEqualTo(message.getCommand()
+                                                 .getId());
+    }
+
+    @Test
+    @DisplayName("restore the message from the row")
+    void restoreMessage() {
+        InboxMessage message = toDeliver("target", TARGET_TYPE);
+        InboxMessage row = payloads.acquire(message);
+
+        assertThat(payloads.attach(row)).hasValue(message);
+    }
+
+    @Test
+    @DisplayName("keep a single payload for the messages of the same signal")
+    void keepSinglePayload() {
+        InboxMessage first = toDeliver("target", TARGET_TYPE);
+        InboxMessage second = copyWithNewId(first);
+        InboxMessage other = toDeliver("other", TARGET_TYPE);
+
+        payloads.acquire(first);
+        payloads.acquire(second);
+        payloads.acquire(other);
+
+        assertThat(payloads.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("drop the payload once no rows refer to it")
+    void dropUnreferenced() {
+        InboxMessage first = toDeliver("target", TARGET_TYPE);
+        InboxMessage second = copyWithNewId(first);
+        InboxMessage firstRow = payloads.acquire(first);
+        InboxMessage secondRow = payloads.acquire(second);
+
+        payloads.release(firstRow);
+        assertThat(payloads.attach(secondRow)).hasValue(second);
+
+        payloads.release(secondRow);
+        assertThat(payloads.size()).isEqualTo(0);
+        assertThat(payloads.attach(secondRow)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("not count the detached updates of the stored messages")
+    void notCountDetached() {
+        InboxMessage message = toDeliver("target", TARGET_TYPE);
+        InboxMessage row = payloads.acquire(message);
+        payloads.detach(message.toBuilder()
+                               .setStatus(InboxMessageStatus.DELIVERED)
+                               .build());
+
+        payloads.release(row);
+        assertThat(payloads.size()).isEqualTo(0);
+    }
+}
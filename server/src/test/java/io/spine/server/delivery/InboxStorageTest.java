@@ -46,6 +46,7 @@ import static com.google.common.truth.Truth8.assertThat;
 import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
 import static io.spine.server.delivery.DeliveryStrategy.newIndex;
 import static io.spine.server.delivery.InboxIds.newSignalId;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
  * An abstract base for tests of {@link InboxStorage} implementations.
@@ -127,6 +128,61 @@ public abstract class InboxStorageTest {
         }
     }
 
+    @Test
+    @DisplayName("read the next page of a different size after the current one")
+    void readNextPageOfDifferentSize() {
+        ShardIndex index = newIndex(5, 2019);
+        ImmutableList<InboxMessage> messages = generateMessages(index, 10);
+        storage.writeAll(messages);
+
+        Page<InboxMessage> first = storage.readAll(index, 3);
+        assertSameContent(messages.subList(0, 3), first);
+        Optional<Page<InboxMessage>> second = first.next(5);
+        assertThat(second).isPresent();
+        assertSameContent(messages.subList(3, 8), second.get());
+        Optional<Page<InboxMessage>> third = second.get()
+                                                   .next(1);
+        assertThat(third).isPresent();
+        assertSameContent(messages.subList(8, 9), third.get());
+    }
+
+    @Test
+    @DisplayName("apply the updates and the removals of `InboxMessage`s as a change set")
+    void applyChanges() {
+        ShardIndex index = newIndex(3, 17);
+        ImmutableList<InboxMessage> messages = generateMessages(index, 3);
+        storage.writeAll(messages);
+
+        InboxMessage delivered = messages.get(0)
+                                         .toBuilder()
+                                         .setStatus(InboxMessageStatus.DELIVERED)
+                                         .build();
+        InboxMessage removed = messages.get(1);
+        storage.applyChanges(ImmutableList.of(delivered), ImmutableList.of(removed));
+
+        Page<InboxMessage> page = readContents(index);
+        assertSameContent(ImmutableList.of(delivered, messages.get(2)), page);
+    }
+
+    @Test
+    @DisplayName("reject the changes fenced with a stale token")
+    void rejectStaleToken() {
+        ShardIndex index = newIndex(4, 17);
+        ImmutableList<InboxMessage> messages = generateMessages(index, 2);
+        storage.writeAll(messages);
+
+        InboxMessage first = messages.get(0);
+        InboxMessage second = messages.get(1);
+        storage.applyChanges(index, 2, ImmutableList.of(), ImmutableList.of(first));
+        assertThrows(StaleFencingTokenException.class,
+                     () -> storage.applyChanges(index, 1, ImmutableList.of(),
+                                                ImmutableList.of(second)));
+        storage.applyChanges(newIndex(5, 17), 1, ImmutableList.of(), ImmutableList.of());
+
+        Page<InboxMessage> page = readContents(index);
+        assertSameContent(ImmutableList.of(second), page);
+    }
+
     /*
      * Test environment and utilities.
      *
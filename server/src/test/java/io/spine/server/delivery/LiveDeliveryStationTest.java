@@ -32,6 +32,7 @@ import java.util.Map;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Streams.stream;
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.protobuf.util.Durations.ZERO;
 import static com.google.protobuf.util.Durations.fromSeconds;
 import static com.google.protobuf.util.Timestamps.subtract;
 import static io.spine.base.Time.currentTime;
@@ -64,7 +65,7 @@ class LiveDeliveryStationTest extends AbstractStationTest {
         ImmutableList<InboxMessage> initialContents =
                 ImmutableList.of(toDeliver, anotherToDeliver, differentTarget,
                                  alreadyDelivered, toCatchUp);
-        Conveyor conveyor = new Conveyor(initialContents, new DeliveredMessages());
+        Conveyor conveyor = new Conveyor(initialContents, new DeliveredMessages(ZERO));
 
         MemoizingAction action = MemoizingAction.empty();
         Station station = new LiveDeliveryStation(action, noWindow());
@@ -102,7 +103,7 @@ class LiveDeliveryStationTest extends AbstractStationTest {
         ImmutableList<InboxMessage> initialContents =
                 ImmutableList.of(toDeliver, duplicate, anotherDuplicate,
                                  alreadyDelivered, duplicateOfDelivered, toCatchUp);
-        Conveyor conveyor = new Conveyor(initialContents, new DeliveredMessages());
+        Conveyor conveyor = new Conveyor(initialContents, new DeliveredMessages(ZERO));
 
         MemoizingAction action = MemoizingAction.empty();
         Station station = new LiveDeliveryStation(action, noWindow());
@@ -141,7 +142,7 @@ class LiveDeliveryStationTest extends AbstractStationTest {
         InboxMessage toDeliver4 = toDeliver(targetTwo, type, now);
         Conveyor conveyor = new Conveyor(
                 ImmutableList.of(toDeliver2, toDeliver3, toDeliver4, toDeliver1),
-                new DeliveredMessages()
+                new DeliveredMessages(ZERO)
         );
 
         MemoizingAction action = MemoizingAction.empty();
@@ -165,7 +166,7 @@ class LiveDeliveryStationTest extends AbstractStationTest {
 
         ImmutableList<InboxMessage> initialContents =
                 ImmutableList.of(toDeliver, differentTarget, alreadyDelivered, toCatchUp);
-        Conveyor conveyor = new Conveyor(initialContents, new DeliveredMessages());
+        Conveyor conveyor = new Conveyor(initialContents, new DeliveredMessages(ZERO));
 
         Station station = new LiveDeliveryStation(MemoizingAction.empty(), fromSeconds(100));
         Station.Result result = station.process(conveyor);
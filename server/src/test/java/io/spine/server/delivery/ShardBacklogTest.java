@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.util.Durations;
+import com.google.protobuf.util.Timestamps;
+import io.spine.server.storage.memory.InMemoryStorageFactory;
+import io.spine.test.delivery.Calc;
+import io.spine.test.delivery.DCounter;
+import io.spine.type.TypeUrl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
+import static io.spine.server.delivery.DeliveryStrategy.newIndex;
+import static io.spine.server.delivery.InboxMessageStatus.DELIVERED;
+import static io.spine.server.delivery.given.TestInboxMessages.copyWithStatus;
+import static io.spine.server.delivery.given.TestInboxMessages.toDeliver;
+
+@DisplayName("`ShardBacklog` should")
+class ShardBacklogTest {
+
+    private static final ShardIndex INDEX = newIndex(0, 1);
+    private static final TypeUrl CALC = TypeUrl.of(Calc.class);
+    private static final TypeUrl COUNTER = TypeUrl.of(DCounter.class);
+    private static final Timestamp NOW = Timestamps.fromSeconds(100);
+
+    private InboxStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = InMemoryStorageFactory.newInstance()
+                                        .createInboxStorage(false);
+    }
+
+    @Test
+    @DisplayName("count the waiting messages per target type across the pages")
+    void countPerType() {
+        storage.writeAll(ImmutableList.of(
+                message("calc-1", CALC, 10),
+                message("calc-2", CALC, 20),
+                message("counter", COUNTER, 30),
+                copyWithStatus(message("delivered", CALC, 5), DELIVERED)
+        ));
+
+        ShardBacklog backlog = collect();
+
+        assertThat(backlog.shardIndex()).isEqualTo(INDEX);
+        assertThat(backlog.targetTypes()).containsExactly(CALC, COUNTER);
+        assertThat(backlog.depth()).isEqualTo(3);
+        assertThat(backlog.depthOf(CALC)).isEqualTo(2);
+        assertThat(backlog.depthOf(COUNTER)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("tell the age of the oldest waiting message")
+    void tellOldestAge() {
+        storage.writeAll(ImmutableList.of(
+                message("calc-1", CALC, 10),
+                message("calc-2", CALC, 20),
+                message("counter", COUNTER, 30),
+                copyWithStatus(message("delivered", CALC, 5), DELIVERED)
+        ));
+
+        ShardBacklog backlog = collect();
+
+        assertThat(backlog.oldestAge()).hasValue(Durations.fromSeconds(90));
+        assertThat(backlog.oldestAgeOf(COUNTER)).hasValue(Durations.fromSeconds(70));
+    }
+
+    @Test
+    @DisplayName("be empty for the shard without waiting messages")
+    void beEmpty() {
+        ShardBacklog backlog = collect();
+
+        assertThat(backlog.depth()).isEqualTo(0);
+        assertThat(backlog.targetTypes()).isEmpty();
+        assertThat(backlog.oldestAge()).isEmpty();
+    }
+
+    private ShardBacklog collect() {
+        return ShardBacklog.collect(INDEX, storage.readAll(INDEX, 2), NOW);
+    }
+
+    private static InboxMessage message(String target, TypeUrl type, long receivedAtSeconds) {
+        return toDeliver(target, type, Timestamps.fromSeconds(receivedAtSeconds));
+    }
+}
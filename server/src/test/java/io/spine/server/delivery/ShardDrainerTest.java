@@ -0,0 +1,167 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import com.google.protobuf.util.Durations;
+import io.spine.base.Tests;
+import io.spine.server.ServerEnvironment;
+import io.spine.server.delivery.given.NoOpEndpoint;
+import io.spine.server.delivery.given.TestInboxMessages;
+import io.spine.server.storage.memory.InMemoryInboxStorage;
+import io.spine.test.delivery.DTask;
+import io.spine.type.TypeUrl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static io.spine.server.delivery.InboxLabel.HANDLE_COMMAND;
+import static io.spine.testing.Tests.nullRef;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("`ShardDrainer` should")
+class ShardDrainerTest {
+
+    private static final int SHARD_COUNT = 4;
+    private static final TypeUrl TARGET_TYPE = TypeUrl.of(DTask.class);
+    private static final long DRAIN_TIMEOUT_MILLIS = 10_000;
+
+    private Delivery delivery;
+    private Inbox<String> inbox;
+
+    @BeforeEach
+    void setUp() {
+        delivery = Delivery.newBuilder()
+                           .setStrategy(UniformAcrossAllShards.forNumber(SHARD_COUNT))
+                           .setInboxStorage(new InMemoryInboxStorage(false))
+                           .build();
+        ServerEnvironment.when(Tests.class)
+                         .use(delivery);
+        inbox = delivery.<String>newInbox(TARGET_TYPE)
+                        .addCommandEndpoint(HANDLE_COMMAND, envelope -> new NoOpEndpoint())
+                        .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        inbox.unregister();
+        ServerEnvironment.instance()
+                         .reset();
+    }
+
+    @Test
+    @DisplayName("not accept a non-positive number of workers")
+    void rejectNonPositiveWorkers() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> delivery.newShardDrainer()
+                                   .setWorkerCount(0));
+    }
+
+    @Test
+    @DisplayName("not accept `null` tenant index")
+    void rejectNullTenantIndex() {
+        assertThrows(NullPointerException.class,
+                     () -> delivery.newShardDrainer()
+                                   .setTenantIndex(nullRef()));
+    }
+
+    @Test
+    @DisplayName("not accept the minimal backoff exceeding the maximum backoff")
+    void rejectInvalidBackoff() {
+        ShardDrainer.Builder builder =
+                delivery.newShardDrainer()
+                        .setMinBackoff(Durations.fromSeconds(2))
+                        .setMaxBackoff(Durations.fromSeconds(1));
+        assertThrows(IllegalArgumentException.class, builder::build);
+    }
+
+    @Test
+    @DisplayName("subscribe to the shard updates of the `Delivery` once built")
+    void subscribe() {
+        ShardDrainer drainer = delivery.newShardDrainer()
+                                       .build();
+        assertThat(delivery.shardObservers()).contains(drainer);
+    }
+
+    @Test
+    @DisplayName("not allow to start twice")
+    void notStartTwice() {
+        try (ShardDrainer drainer = delivery.newShardDrainer()
+                                            .setWorkerCount(1)
+                                            .build()) {
+            drainer.start();
+            assertThat(drainer.isRunning()).isTrue();
+            assertThrows(IllegalStateException.class, drainer::start);
+        }
+    }
+
+    @Test
+    @DisplayName("stop the workers when closed")
+    void stopWhenClosed() {
+        ShardDrainer drainer = delivery.newShardDrainer()
+                                       .setWorkerCount(2)
+                                       .build();
+        drainer.start();
+        drainer.close();
+        assertThat(drainer.isRunning()).isFalse();
+    }
+
+    @Test
+    @DisplayName("deliver the messages from all shards, polling the storage for them")
+    void drainAllShards() throws InterruptedException {
+        InboxStorage storage = delivery.inboxStorage();
+        List<InboxMessage> messages = new ArrayList<>();
+        for (int shard = 0; shard < SHARD_COUNT; shard++) {
+            InboxMessage message = TestInboxMessages.toDeliver("target-" + shard, TARGET_TYPE);
+            ShardIndex index = DeliveryStrategy.newIndex(shard, SHARD_COUNT);
+            messages.add(message.toBuilder()
+                                .setId(InboxMessageMixin.generateIdWith(index))
+                                .vBuild());
+        }
+        storage.writeAll(messages);
+
+        try (ShardDrainer drainer = delivery.newShardDrainer()
+                                            .setWorkerCount(2)
+                                            .build()) {
+            drainer.start();
+            long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MILLIS;
+            while (hasMessagesToDeliver(storage) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+        assertThat(hasMessagesToDeliver(storage)).isFalse();
+    }
+
+    private static boolean hasMessagesToDeliver(InboxStorage storage) {
+        for (int shard = 0; shard < SHARD_COUNT; shard++) {
+            ShardIndex index = DeliveryStrategy.newIndex(shard, SHARD_COUNT);
+            if (storage.newestMessageToDeliver(index)
+                       .isPresent()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
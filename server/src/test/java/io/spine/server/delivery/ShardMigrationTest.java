@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery;
+
+import io.spine.server.delivery.memory.InMemoryShardedWorkRegistry;
+import io.spine.server.storage.memory.InMemoryInboxStorage;
+import io.spine.test.delivery.Calc;
+import io.spine.type.TypeUrl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static io.spine.server.delivery.DeliveryStrategy.newIndex;
+import static io.spine.server.delivery.given.DeliveryTestEnv.generateNodeId;
+import static io.spine.server.delivery.given.TestInboxMessages.toDeliver;
+import static java.util.stream.Collectors.toList;
+
+@DisplayName("`ShardMigration` should")
+class ShardMigrationTest {
+
+    private static final TypeUrl TARGET_TYPE = TypeUrl.of(Calc.class);
+    private static final int PREVIOUS_SHARDS = 2;
+    private static final int CURRENT_SHARDS = 3;
+
+    @Test
+    @DisplayName("move the messages to the shards of the current strategy")
+    void moveMessages() {
+        InboxStorage storage = new InMemoryInboxStorage(false);
+        DeliveryStrategy strategy = ConsistentAcrossShards.forNumber(CURRENT_SHARDS);
+        List<InboxMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String target = "calc-" + i;
+            ShardIndex previous = ConsistentAcrossShards.forNumber(PREVIOUS_SHARDS)
+                                                        .determineIndex(target, TARGET_TYPE);
+            messages.add(inShard(toDeliver(target, TARGET_TYPE), previous));
+        }
+        storage.writeAll(messages);
+
+        List<InboxMessage> notified = new ArrayList<>();
+        ShardMigration migration =
+                new ShardMigration(PREVIOUS_SHARDS, strategy, storage,
+                                   new InMemoryShardedWorkRegistry(), 7, notified::add);
+        int moved = migration.migrate(generateNodeId());
+
+        assertThat(moved).isEqualTo(messages.size());
+        for (int i = 0; i < PREVIOUS_SHARDS; i++) {
+            assertThat(storage.readAll(newIndex(i, PREVIOUS_SHARDS), 100)
+                              .contents()).isEmpty();
+        }
+        for (InboxMessage message : messages) {
+            Object target = InboxIds.unwrap(message.getInboxId());
+            ShardIndex expected = strategy.determineIndex(target, TARGET_TYPE);
+            assertThat(storage.readAll(expected, 100)
+                              .contents()
+                              .stream()
+                              .map(InboxMessage::getSignalId)
+                              .collect(toList()))
+                    .contains(message.getSignalId());
+        }
+        assertThat(notified).isNotEmpty();
+    }
+
+    @Test
+    @DisplayName("skip the previous shards picked up by other nodes")
+    void skipPickedUp() {
+        InboxStorage storage = new InMemoryInboxStorage(false);
+        ShardIndex previous = newIndex(0, PREVIOUS_SHARDS);
+        storage.write(inShard(toDeliver("calc", TARGET_TYPE), previous));
+        ShardedWorkRegistry registry = new InMemoryShardedWorkRegistry();
+        registry.pickUp(previous, generateNodeId());
+
+        DeliveryStrategy strategy = ConsistentAcrossShards.forNumber(CURRENT_SHARDS);
+        ShardMigration migration =
+                new ShardMigration(PREVIOUS_SHARDS, strategy, storage, registry, 7, message -> {});
+        int moved = migration.migrate(generateNodeId());
+
+        assertThat(moved).isEqualTo(0);
+        assertThat(storage.readAll(previous, 100)
+                          .contents()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("not read the drained previous shards again")
+    void skipDrained() {
+        InboxStorage storage = new InMemoryInboxStorage(false);
+        DeliveryStrategy strategy = ConsistentAcrossShards.forNumber(CURRENT_SHARDS);
+        ShardMigration migration =
+                new ShardMigration(PREVIOUS_SHARDS, strategy, storage,
+                                   new InMemoryShardedWorkRegistry(), 7, message -> {});
+        assertThat(migration.isDrained()).isFalse();
+        migration.migrate(generateNodeId());
+        assertThat(migration.isDrained()).isTrue();
+
+        ShardIndex previous = newIndex(0, PREVIOUS_SHARDS);
+        storage.write(inShard(toDeliver("calc", TARGET_TYPE), previous));
+        int moved = migration.migrate(generateNodeId());
+
+        assertThat(moved).isEqualTo(0);
+        assertThat(storage.readAll(previous, 100)
+                          .contents()).hasSize(1);
+    }
+
+    private static InboxMessage inShard(InboxMessage message, ShardIndex index) {
+        return message.toBuilder()
+                      .setId(InboxMessageMixin.generateIdWith(index))
+                      .vBuild();
+    }
+}
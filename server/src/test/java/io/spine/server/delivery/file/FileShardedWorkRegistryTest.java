@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery.file;
+
+import io.spine.server.delivery.ShardIndex;
+import io.spine.server.delivery.ShardProcessingSession;
+import io.spine.server.delivery.ShardedWorkRegistry;
+import io.spine.server.delivery.ShardedWorkRegistryTest;
+import io.spine.server.delivery.file.FileShardedWorkRegistry.FileShardSession;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.google.common.truth.Truth8.assertThat;
+import static io.spine.server.delivery.DeliveryStrategy.newIndex;
+import static io.spine.server.delivery.given.DeliveryTestEnv.generateNodeId;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+@DisplayName("`FileShardedWorkRegistry` should")
+class FileShardedWorkRegistryTest extends ShardedWorkRegistryTest {
+
+    /**
+     * The offset of the second copy of the first slot in the session table.
+     */
+    private static final int SECOND_COPY = 256;
+
+    /**
+     * The size of the header of a record copy.
+     */
+    private static final int COPY_HEADER = 20;
+
+    @TempDir
+    Path directory;
+
+    @Override
+    protected ShardedWorkRegistry registry() {
+        return new FileShardedWorkRegistry(directory.resolve(UUID.randomUUID()
+                                                                 .toString()));
+    }
+
+    @Test
+    @DisplayName("share the picked shards between the registries of the same file")
+    void shareBetweenRegistries() {
+        Path file = directory.resolve("sessions");
+        ShardIndex index = newIndex(2, 5);
+        try (FileShardedWorkRegistry first = new FileShardedWorkRegistry(file);
+             FileShardedWorkRegistry second = new FileShardedWorkRegistry(file)) {
+            Optional<ShardProcessingSession> session = first.pickUp(index, generateNodeId());
+            assertThat(session).isPresent();
+            assertThat(second.pickUp(index, generateNodeId())).isEmpty();
+
+            FileShardSession picked = (FileShardSession) session.get();
+            picked.complete();
+            assertThat(second.pickUp(index, generateNodeId())).isPresent();
+            assertThat(first.pickUp(index, generateNodeId())).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("keep the previous record if the write of the slot is torn")
+    void keepPreviousOnTornWrite() throws IOException {
+        Path file = directory.resolve("torn");
+        ShardIndex index = newIndex(1, 5);
+        try (FileShardedWorkRegistry registry = new FileShardedWorkRegistry(file)) {
+            // The first copy of the slot holds the picked session.
+            Optional<ShardProcessingSession> session = registry.pickUp(index, generateNodeId());
+            assertThat(session).isPresent();
+            // The second copy holds the released session.
+            ((FileShardSession) session.get()).complete();
+        }
+        overwrite(file, SECOND_COPY + COPY_HEADER, 8);
+
+        try (FileShardedWorkRegistry registry = new FileShardedWorkRegistry(file)) {
+            assertThat(registry.pickUp(index, generateNodeId())).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("consider the slot with no valid copies free")
+    void considerCorruptedSlotFree() throws IOException {
+        Path file = directory.resolve("corrupted");
+        ShardIndex index = newIndex(3, 5);
+        try (FileShardedWorkRegistry registry = new FileShardedWorkRegistry(file)) {
+            assertThat(registry.pickUp(index, generateNodeId())).isPresent();
+        }
+        overwrite(file, 0, 2 * SECOND_COPY);
+
+        try (FileShardedWorkRegistry registry = new FileShardedWorkRegistry(file)) {
+            assertThat(registry.pickUp(index, generateNodeId())).isPresent();
+        }
+    }
+
+    /**
+     * Overwrites the part of the file with the random bytes, imitating a torn write.
+     */
+    private static void overwrite(Path file, int position, int length) throws IOException {
+        byte[] garbage = new byte[length];
+        new SecureRandom().nextBytes(garbage);
+        try (FileChannel channel = FileChannel.open(file, WRITE)) {
+            channel.write(ByteBuffer.wrap(garbage), position);
+        }
+    }
+}
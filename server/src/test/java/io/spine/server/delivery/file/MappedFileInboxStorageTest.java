@@ -0,0 +1,251 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.delivery.file;
+
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.util.Timestamps;
+import io.spine.server.delivery.InboxMessage;
+import io.spine.server.delivery.InboxReadRequest;
+import io.spine.server.delivery.InboxStorage;
+import io.spine.server.delivery.InboxStorageTest;
+import io.spine.server.delivery.ShardIndex;
+import io.spine.test.delivery.Calc;
+import io.spine.type.TypeUrl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
+import static io.spine.server.delivery.InboxMessageStatus.DELIVERED;
+import static io.spine.server.delivery.given.TestInboxMessages.copyWithStatus;
+import static io.spine.server.delivery.given.TestInboxMessages.toDeliver;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("`MappedFileInboxStorage` should")
+class MappedFileInboxStorageTest extends InboxStorageTest {
+
+    private static final TypeUrl TARGET_TYPE = TypeUrl.of(Calc.class);
+
+    @TempDir
+    Path directory;
+
+    @Override
+    protected InboxStorage storage() {
+        return open(directory.resolve(UUID.randomUUID()
+                                          .toString()), 1024);
+    }
+
+    private static MappedFileInboxStorage open(Path directory, int segmentSize) {
+        return MappedFileInboxStorage.newBuilder()
+                                     .setDirectory(directory)
+                                     .setSegmentSize(segmentSize)
+                                     .build();
+    }
+
+    @Test
+    @DisplayName("read the messages written before the restart")
+    void readAfterRestart() {
+        InboxMessage first = toDeliver("first", TARGET_TYPE, Timestamps.fromMillis(1_000));
+        InboxMessage second = toDeliver("second", TARGET_TYPE, Timestamps.fromMillis(2_000));
+        InboxMessage delivered = copyWithStatus(first, DELIVERED);
+        MappedFileInboxStorage storage = open(directory, 1024);
+        storage.writeAll(ImmutableList.of(first, second));
+        storage.write(delivered);
+        storage.close();
+
+        MappedFileInboxStorage reopened = open(directory, 1024);
+        assertThat(reopened.read(new InboxReadRequest(first.getId()))).hasValue(delivered);
+        assertThat(reopened.readAll(first.shardIndex(), 10)
+                           .contents()).containsExactly(delivered, second)
+                                       .inOrder();
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("not read the messages removed before the restart")
+    void notReadRemovedAfterRestart() {
+        InboxMessage message = toDeliver("removed", TARGET_TYPE);
+        MappedFileInboxStorage storage = open(directory, 1024);
+        storage.write(message);
+        storage.removeAll(ImmutableList.of(message));
+        storage.close();
+
+        MappedFileInboxStorage reopened = open(directory, 1024);
+        assertThat(reopened.read(new InboxReadRequest(message.getId()))).isEmpty();
+        assertThat(reopened.newestMessageToDeliver(message.shardIndex())).isEmpty();
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("delete the segments holding only the outdated records")
+    void compactSegments() {
+        InboxMessage message = toDeliver("compacted", TARGET_TYPE);
+        ShardIndex index = message.shardIndex();
+        int segmentSize = message.getSerializedSize() * 3;
+        MappedFileInboxStorage storage = open(directory, segmentSize);
+        for (int i = 0; i < 20; i++) {
+            storage.write(message);
+        }
+        assertThat(storage.segmentCount(index)).isAtMost(2);
+        storage.close();
+
+        MappedFileInboxStorage reopened = open(directory, segmentSize);
+        assertThat(reopened.readAll(index, 10)
+                           .contents()).containsExactly(message);
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("compact the outdated segments following a segment with live messages")
+    void compactAfterLiveSegment() {
+        ImmutableList<InboxMessage> live = ImmutableList.of(toDeliver("live-1", TARGET_TYPE),
+                                                            toDeliver("live-2", TARGET_TYPE),
+                                                            toDeliver("live-3", TARGET_TYPE));
+        InboxMessage overridden = toDeliver("overridden", TARGET_TYPE);
+        ShardIndex index = overridden.shardIndex();
+        int segmentSize = threeRecordsOf(live, overridden);
+        MappedFileInboxStorage storage = open(directory, segmentSize);
+        storage.writeAll(live);
+        for (int i = 0; i < 20; i++) {
+            storage.write(overridden);
+        }
+        assertThat(storage.segmentCount(index)).isAtMost(3);
+        storage.close();
+
+        MappedFileInboxStorage reopened = open(directory, segmentSize);
+        assertThat(reopened.readAll(index, 10)
+                           .contents()).containsExactlyElementsIn(
+                ImmutableList.builder()
+                             .addAll(live)
+                             .add(overridden)
+                             .build()
+        );
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("keep the removal of a message while an older segment holds the message")
+    void keepRemovalOfOlderMessage() {
+        InboxMessage first = toDeliver("live-1", TARGET_TYPE);
+        InboxMessage second = toDeliver("live-2", TARGET_TYPE);
+        InboxMessage removed = toDeliver("removed", TARGET_TYPE);
+        InboxMessage overridden = toDeliver("overridden", TARGET_TYPE);
+        ShardIndex index = overridden.shardIndex();
+        int segmentSize = threeRecordsOf(ImmutableList.of(first, second, removed), overridden);
+        MappedFileInboxStorage storage = open(directory, segmentSize);
+        storage.writeAll(ImmutableList.of(first, second, removed));
+        storage.removeAll(ImmutableList.of(removed));
+        for (int i = 0; i < 20; i++) {
+            storage.write(overridden);
+        }
+        assertThat(storage.segmentCount(index)).isAtMost(3);
+        storage.close();
+
+        MappedFileInboxStorage reopened = open(directory, segmentSize);
+        assertThat(reopened.read(new InboxReadRequest(removed.getId()))).isEmpty();
+        assertThat(reopened.readAll(index, 10)
+                           .contents()).containsExactly(first, second, overridden);
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("truncate the segment at the record with an invalid checksum")
+    void truncateCorruptedTail() throws IOException {
+        InboxMessage first = toDeliver("first", TARGET_TYPE);
+        InboxMessage corrupted = toDeliver("corrupted", TARGET_TYPE);
+        InboxMessage appended = toDeliver("appended", TARGET_TYPE);
+        ShardIndex index = first.shardIndex();
+        MappedFileInboxStorage storage = open(directory, 1024);
+        storage.writeAll(ImmutableList.of(first, corrupted));
+        storage.close();
+        int lastByteOfTail = Segment.sizeOf(first.getSerializedSize())
+                + Segment.sizeOf(corrupted.getSerializedSize()) - 1;
+        invertByte(onlySegmentIn(directory), lastByteOfTail);
+
+        MappedFileInboxStorage reopened = open(directory, 1024);
+        assertThat(reopened.readAll(index, 10)
+                           .contents()).containsExactly(first);
+        reopened.write(appended);
+        reopened.close();
+
+        MappedFileInboxStorage again = open(directory, 1024);
+        assertThat(again.readAll(index, 10)
+                        .contents()).containsExactly(first, appended);
+        again.close();
+    }
+
+    private static Path onlySegmentIn(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            List<Path> segments = files.filter(file -> file.toString()
+                                                           .endsWith(".segment"))
+                                       .collect(toList());
+            assertThat(segments).hasSize(1);
+            return segments.get(0);
+        }
+    }
+
+    /**
+     * Inverts the bits of the byte at the given position of the file.
+     */
+    private static void invertByte(Path file, int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, READ, WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1);
+            channel.read(buffer, position);
+            buffer.put(0, (byte) ~buffer.get(0));
+            buffer.rewind();
+            channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Returns the size of a segment, which fits three records of the largest passed message.
+     */
+    private static int threeRecordsOf(ImmutableList<InboxMessage> messages,
+                                      InboxMessage another) {
+        int largest = another.getSerializedSize();
+        for (InboxMessage message : messages) {
+            largest = Math.max(largest, message.getSerializedSize());
+        }
+        return Segment.sizeOf(largest) * 3;
+    }
+
+    @Test
+    @DisplayName("not allow operations after closing")
+    void closed() {
+        MappedFileInboxStorage storage = open(directory, 1024);
+        storage.close();
+        InboxMessage message = toDeliver("closed", TARGET_TYPE);
+        assertThrows(IllegalStateException.class, () -> storage.write(message));
+    }
+}
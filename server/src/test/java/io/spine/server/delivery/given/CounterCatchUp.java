@@ -37,12 +37,15 @@ import io.spine.server.storage.memory.InMemoryCatchUpStorage;
 import io.spine.test.delivery.NumberAdded;
 import io.spine.testing.server.TestEventFactory;
 import io.spine.testing.server.blackbox.BlackBoxContext;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Callable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -101,6 +104,23 @@ public class CounterCatchUp {
         return ids.clone();
     }
 
+    /**
+     * Obtains the counter value of the given target, if the target exists.
+     */
+    public Optional<Integer> counterValue(String id) {
+        return repo.find(id)
+                   .map(view -> view.state()
+                                    .getTotal());
+    }
+
+    /**
+     * Makes the repository checkpoint the counters each time the given number of events
+     * is applied to them.
+     */
+    public void makeCheckpointsEvery(int events) {
+        repo.makeCheckpointsEvery(events);
+    }
+
     public List<NumberAdded> generateEvents(int howMany) {
         Iterator<String> idIterator = Iterators.cycle(ids);
         List<NumberAdded> events = new ArrayList<>(howMany);
@@ -135,7 +155,12 @@ public class CounterCatchUp {
     }
 
     public void catchUp(WhatToCatchUp task) {
-        if (task.shouldCatchUpAll()) {
+        if (task.fromCheckpoint()) {
+            @Nullable Set<String> targetIds = task.shouldCatchUpAll()
+                                    ? null
+                                    : ImmutableSet.of(checkNotNull(task.id()));
+            repo.catchUpFromCheckpoint(task.sinceWhen(), targetIds);
+        } else if (task.shouldCatchUpAll()) {
             repo.catchUpAll(task.sinceWhen());
         } else {
             String targetId = checkNotNull(task.id());
@@ -23,6 +23,7 @@ package io.spine.server.delivery.given;
 import com.google.errorprone.annotations.OverridingMethodsMustInvokeSuper;
 import io.spine.core.EventContext;
 import io.spine.core.Subscribe;
+import io.spine.server.entity.EntityRecord;
 import io.spine.server.projection.Projection;
 import io.spine.server.projection.ProjectionRepository;
 import io.spine.server.route.EventRouting;
@@ -65,5 +66,34 @@ public final class CounterView extends Projection<String, DCounter, DCounter.Bui
             super.setupEventRouting(routing);
             routing.unicast(NumberAdded.class, NumberAdded::getCalculatorId);
         }
+
+        private int loadsFromStorage;
+
+        public void makeCheckpointsEvery(int events) {
+            setCheckpointTrigger(events);
+        }
+
+        /**
+         * Makes the repository keep up to the given number of entities between the batches.
+         *
+         * <p>Must be called before the repository is registered.
+         */
+        public void cacheEntities(int maxCount) {
+            setEntityCacheLimits(maxCount, Long.MAX_VALUE);
+        }
+
+        @OverridingMethodsMustInvokeSuper
+        @Override
+        protected CounterView toEntity(EntityRecord record) {
+            loadsFromStorage++;
+            return super.toEntity(record);
+        }
+
+        /**
+         * Returns how many times the entities were loaded from the storage.
+         */
+        public int loadsFromStorage() {
+            return loadsFromStorage;
+        }
     }
 }
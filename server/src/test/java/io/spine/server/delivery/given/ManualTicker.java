@@ -18,37 +18,28 @@
  * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
-package io.spine.server.delivery;
+package io.spine.server.delivery.given;
 
-import javax.annotation.concurrent.ThreadSafe;
+import com.google.common.base.Ticker;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
- * A counter providing the version for the incoming {@code InboxMessage}s.
- *
- * <p>Serves to distinguish the messages arrived at the very same millisecond, even from
- * different threads.
- *
- * <p>Hard-coded to reset the value to zero every {@link #MAX_VERSION} times. This allows
- * to avoid any number overflows, but still is sufficient for realistic use-cases.
+ * A ticker which is advanced manually.
  */
-@ThreadSafe
-final class VersionCounter {
-
-    private static final int MAX_VERSION = 10_000;
-    private static final VersionCounter instance = new VersionCounter();
+public final class ManualTicker extends Ticker {
 
-    private int counter;
-
-    private synchronized int getNextValue() {
-        counter++;
-        counter = counter % MAX_VERSION;
-        return counter;
-    }
+    private long nanos;
 
     /**
-     * Obtains the next version value.
+     * Advances this ticker by the given number of seconds.
      */
-    static int next() {
-        return instance.getNextValue();
+    public void advance(long seconds) {
+        nanos += SECONDS.toNanos(seconds);
+    }
+
+    @Override
+    public long read() {
+        return nanos;
     }
 }
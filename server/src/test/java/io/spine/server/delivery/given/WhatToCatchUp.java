@@ -32,19 +32,29 @@ public final class WhatToCatchUp {
 
     private final @Nullable String id;
     private final Timestamp sinceWhen;
+    private final boolean fromCheckpoint;
 
-    private WhatToCatchUp(String id, Timestamp sinceWhen) {
+    private WhatToCatchUp(@Nullable String id, Timestamp sinceWhen, boolean fromCheckpoint) {
         this.id = id;
         this.sinceWhen = sinceWhen;
+        this.fromCheckpoint = fromCheckpoint;
     }
 
     public static WhatToCatchUp catchUpOf(String id, Timestamp sinceWhen) {
         checkNotNull(id);
-        return new WhatToCatchUp(id, sinceWhen);
+        return new WhatToCatchUp(id, sinceWhen, false);
     }
 
     public static WhatToCatchUp catchUpAll(Timestamp sinceWhen) {
-        return new WhatToCatchUp(null, sinceWhen);
+        return new WhatToCatchUp(null, sinceWhen, false);
+    }
+
+    /**
+     * Describes the catch-up of all the targets starting from their newest checkpoints
+     * made before the given time.
+     */
+    public static WhatToCatchUp catchUpAllFromCheckpoint(Timestamp before) {
+        return new WhatToCatchUp(null, before, true);
     }
 
     public @Nullable String id() {
@@ -58,4 +68,8 @@ public final class WhatToCatchUp {
     public Timestamp sinceWhen() {
         return sinceWhen;
     }
+
+    public boolean fromCheckpoint() {
+        return fromCheckpoint;
+    }
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.entity;
+
+import io.spine.core.Version;
+import io.spine.core.Versions;
+import io.spine.server.tenant.IdInTenant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
+import static io.spine.server.entity.TestEntity.withState;
+
+@DisplayName("`EntityCache` should")
+class EntityCacheTest {
+
+    private final Map<String, Version> storedVersions = new HashMap<>();
+
+    @BeforeEach
+    void clearVersions() {
+        storedVersions.clear();
+    }
+
+    private EntityCache<String, TestEntity> cacheOf(int maxCount) {
+        return new EntityCache<>(maxCount, Long.MAX_VALUE,
+                                 id -> Optional.ofNullable(storedVersions.get(id)));
+    }
+
+    private TestEntity stored() {
+        TestEntity entity = withState();
+        storedVersions.put(entity.id(), entity.version());
+        return entity;
+    }
+
+    private static IdInTenant<String> idOf(TestEntity entity) {
+        return IdInTenant.of(entity.id(), false);
+    }
+
+    @Test
+    @DisplayName("return the entity matching the stored version")
+    void returnUpToDate() {
+        EntityCache<String, TestEntity> cache = cacheOf(10);
+        TestEntity entity = stored();
+        cache.put(idOf(entity), entity);
+
+        assertThat(cache.take(idOf(entity))).hasValue(entity);
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("drop the entity modified in the storage")
+    void dropOutdated() {
+        EntityCache<String, TestEntity> cache = cacheOf(10);
+        TestEntity entity = stored();
+        cache.put(idOf(entity), entity);
+        storedVersions.put(entity.id(), Versions.increment(entity.version()));
+
+        assertThat(cache.take(idOf(entity))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("evict the least recently used entities")
+    void evictLeastRecentlyUsed() {
+        EntityCache<String, TestEntity> cache = cacheOf(2);
+        TestEntity first = stored();
+        TestEntity second = stored();
+        TestEntity third = stored();
+        cache.put(idOf(first), first);
+        cache.put(idOf(second), second);
+        cache.put(idOf(third), third);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.take(idOf(first))).isEmpty();
+        assertThat(cache.take(idOf(third))).hasValue(third);
+    }
+
+    @Test
+    @DisplayName("keep nothing if disabled")
+    void disabled() {
+        EntityCache<String, TestEntity> cache = cacheOf(0);
+        TestEntity entity = stored();
+        cache.put(idOf(entity), entity);
+
+        assertThat(cache.take(idOf(entity))).isEmpty();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.memory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.util.Timestamps;
+import io.spine.core.Event;
+import io.spine.core.EventContext;
+import io.spine.core.Version;
+import io.spine.server.aggregate.AggregateEventRecord;
+import io.spine.server.aggregate.Snapshot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@DisplayName("`AggregateEventLog` should")
+class AggregateEventLogTest {
+
+    @Test
+    @DisplayName("iterate the records from the newest to the oldest")
+    void iterateNewestFirst() {
+        AggregateEventLog log = new AggregateEventLog();
+        AggregateEventRecord first = event(1);
+        AggregateEventRecord second = event(2);
+        AggregateEventRecord third = event(3);
+        log.add(first);
+        log.add(third);
+        log.add(second);
+        log.add(second);
+
+        assertThat(ImmutableList.copyOf(log.newestFirst()))
+                .containsExactly(third, second, first)
+                .inOrder();
+    }
+
+    @Test
+    @DisplayName("not expose the records added after the iteration started")
+    void isolateIterators() {
+        AggregateEventLog log = new AggregateEventLog();
+        AggregateEventRecord first = event(1);
+        log.add(first);
+        Iterator<AggregateEventRecord> iterator = log.newestFirst();
+        log.add(event(2));
+
+        assertThat(ImmutableList.copyOf(iterator)).containsExactly(first);
+    }
+
+    @Test
+    @DisplayName("drop the records preceding the given snapshot")
+    void truncate() {
+        AggregateEventLog log = new AggregateEventLog();
+        log.add(event(1));
+        log.add(snapshot(1));
+        log.add(event(2));
+        AggregateEventRecord latestSnapshot = snapshot(2);
+        AggregateEventRecord latestEvent = event(3);
+        log.add(latestSnapshot);
+        log.add(latestEvent);
+
+        log.truncate(1, record -> true);
+        assertThat(ImmutableList.copyOf(log.newestFirst())).hasSize(4);
+
+        log.truncate(0, record -> true);
+        assertThat(ImmutableList.copyOf(log.newestFirst()))
+                .containsExactly(latestEvent, latestSnapshot)
+                .inOrder();
+    }
+
+    private static AggregateEventRecord event(int version) {
+        EventContext context = EventContext
+                .newBuilder()
+                .setTimestamp(timestampOf(version))
+                .setVersion(versionOf(version))
+                .build();
+        Event event = Event
+                .newBuilder()
+                .setContext(context)
+                .build();
+        return AggregateEventRecord
+                .newBuilder()
+                .setTimestamp(timestampOf(version))
+                .setEvent(event)
+                .build();
+    }
+
+    private static AggregateEventRecord snapshot(int version) {
+        Snapshot snapshot = Snapshot
+                .newBuilder()
+                .setVersion(versionOf(version))
+                .setTimestamp(timestampOf(version))
+                .build();
+        return AggregateEventRecord
+                .newBuilder()
+                .setTimestamp(timestampOf(version))
+                .setSnapshot(snapshot)
+                .build();
+    }
+
+    private static Version versionOf(int number) {
+        return Version
+                .newBuilder()
+                .setNumber(number)
+                .build();
+    }
+
+    private static Timestamp timestampOf(int seconds) {
+        return Timestamps.fromSeconds(seconds);
+    }
+}
@@ -20,14 +20,26 @@
 
 package io.spine.server.storage.memory;
 
+import com.google.protobuf.Timestamp;
+import io.spine.base.Identifier;
+import io.spine.core.Version;
 import io.spine.server.entity.Entity;
+import io.spine.server.entity.EntityRecord;
 import io.spine.server.projection.Projection;
+import io.spine.server.projection.ProjectionCheckpoint;
 import io.spine.server.projection.ProjectionStorage;
 import io.spine.server.projection.ProjectionStorageTest;
 import io.spine.test.storage.ProjectId;
 import io.spine.type.TypeUrl;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 
+import static com.google.common.truth.Truth8.assertThat;
+import static com.google.protobuf.util.Durations.fromSeconds;
+import static com.google.protobuf.util.Timestamps.add;
+import static com.google.protobuf.util.Timestamps.subtract;
+import static io.spine.base.Identifier.newUuid;
+import static io.spine.base.Time.currentTime;
 import static io.spine.core.BoundedContextNames.newName;
 
 @DisplayName("InMemoryProjectionStorage should")
@@ -47,4 +59,73 @@ class InMemoryProjectionStorageTest extends ProjectionStorageTest {
                 );
         return storage;
     }
+
+    @Test
+    @DisplayName("read the newest checkpoint made before the given time")
+    void readCheckpointBefore() {
+        ProjectionStorage<ProjectId> storage = storage();
+        ProjectId id = newId();
+        Timestamp now = currentTime();
+        Timestamp minuteAgo = subtract(now, fromSeconds(60));
+        Timestamp hourAgo = subtract(now, fromSeconds(3600));
+        ProjectionCheckpoint older = checkpoint(id, hourAgo);
+        ProjectionCheckpoint newer = checkpoint(id, minuteAgo);
+        storage.writeCheckpoint(id, older);
+        storage.writeCheckpoint(id, newer);
+
+        assertThat(storage.readCheckpoint(id, now)).hasValue(newer);
+        assertThat(storage.readCheckpoint(id, minuteAgo)).hasValue(older);
+        assertThat(storage.readCheckpoint(id, hourAgo)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("keep only the newest checkpoints of a projection")
+    void retainNewestCheckpoints() {
+        ProjectionStorage<ProjectId> storage = storage();
+        ProjectId id = newId();
+        Timestamp now = currentTime();
+        int count = TenantProjectionCheckpoints.RETAINED_CHECKPOINTS + 1;
+        for (int i = count; i > 0; i--) {
+            storage.writeCheckpoint(id, checkpoint(id, subtract(now, fromSeconds(i))));
+        }
+        Timestamp retained = subtract(now, fromSeconds(count - 1));
+
+        assertThat(storage.readCheckpoint(id, retained)).isEmpty();
+        assertThat(storage.readCheckpoint(id, now)).isPresent();
+        assertThat(storage.readCheckpoint(id, add(retained, fromSeconds(1)))
+                          .map(ProjectionCheckpoint::getLastEventTime)).hasValue(retained);
+    }
+
+    @Test
+    @DisplayName("drop the checkpoints of a deleted projection")
+    void dropCheckpointsOfDeleted() {
+        ProjectionStorage<ProjectId> storage = storage();
+        ProjectId id = newId();
+        Timestamp now = currentTime();
+        storage.writeCheckpoint(id, checkpoint(id, subtract(now, fromSeconds(60))));
+
+        storage.delete(id);
+
+        assertThat(storage.readCheckpoint(id, now)).isEmpty();
+    }
+
+    private static ProjectId newId() {
+        return ProjectId.newBuilder()
+                        .setId(newUuid())
+                        .build();
+    }
+
+    private static ProjectionCheckpoint checkpoint(ProjectId id, Timestamp lastEventTime) {
+        EntityRecord record = EntityRecord
+                .newBuilder()
+                .setEntityId(Identifier.pack(id))
+                .setVersion(Version.newBuilder()
+                                   .setNumber(42)
+                                   .setTimestamp(lastEventTime))
+                .build();
+        return ProjectionCheckpoint.newBuilder()
+                                   .setRecord(record)
+                                   .setLastEventTime(lastEventTime)
+                                   .build();
+    }
 }